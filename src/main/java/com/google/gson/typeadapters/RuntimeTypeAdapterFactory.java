@@ -15,6 +15,8 @@
 package com.google.gson.typeadapters;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -22,11 +24,11 @@ import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
 import com.google.gson.TypeAdapter;
 import com.google.gson.TypeAdapterFactory;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 
 /**
@@ -257,7 +259,27 @@ public final class RuntimeTypeAdapterFactory<T> implements TypeAdapterFactory {
     return new TypeAdapter<R>() {
       @Override
       public R read(JsonReader in) throws IOException {
-        JsonElement jsonElement = jsonElementAdapter.read(in);
+        if (maintainType || in.peek() != JsonToken.BEGIN_OBJECT) {
+          return fromTree(jsonElementAdapter.read(in));
+        }
+        // stream the object if its type field comes first (as written below), else buffer it
+        in.beginObject();
+        JsonObject jsonObject = new JsonObject();
+        if (in.hasNext()) {
+          String name = in.nextName();
+          if (name.equals(typeFieldName) && in.peek() == JsonToken.STRING) {
+            return getDelegate(in.nextString()).read(new ResumedObjectReader(in));
+          }
+          jsonObject.add(name, jsonElementAdapter.read(in));
+        }
+        while (in.hasNext()) {
+          jsonObject.add(in.nextName(), jsonElementAdapter.read(in));
+        }
+        in.endObject();
+        return fromTree(jsonObject);
+      }
+
+      private R fromTree(JsonElement jsonElement) {
         JsonElement labelJsonElement;
         if (maintainType) {
           labelJsonElement = jsonElement.getAsJsonObject().get(typeFieldName);
@@ -269,14 +291,17 @@ public final class RuntimeTypeAdapterFactory<T> implements TypeAdapterFactory {
           throw new JsonParseException("cannot deserialize " + baseType
               + " because it does not define a field named " + typeFieldName);
         }
-        String label = labelJsonElement.getAsString();
+        return getDelegate(labelJsonElement.getAsString()).fromJsonTree(jsonElement);
+      }
+
+      private TypeAdapter<R> getDelegate(String label) {
         @SuppressWarnings("unchecked") // registration requires that subtype extends T
         TypeAdapter<R> delegate = (TypeAdapter<R>) labelToDelegate.get(label);
         if (delegate == null) {
           throw new JsonParseException("cannot deserialize " + baseType + " subtype named " + label
               + "; did you forget to register a subtype?");
         }
-        return delegate.fromJsonTree(jsonElement);
+        return delegate;
       }
 
       @Override
@@ -289,26 +314,165 @@ public final class RuntimeTypeAdapterFactory<T> implements TypeAdapterFactory {
           throw new JsonParseException(
               "cannot serialize " + srcType.getName() + "; did you forget to register a subtype?");
         }
-        JsonObject jsonObject = delegate.toJsonTree(value).getAsJsonObject();
-
         if (maintainType) {
-          jsonElementAdapter.write(out, jsonObject);
+          delegate.write(out, value);
           return;
         }
+        delegate.write(new TypeFieldWriter(out, typeFieldName, label), value);
+      }
+    }.nullSafe();
+  }
+
+  /**
+   * A reader for the rest of an object whose opening brace (and type field) have already been
+   * consumed from the underlying reader.
+   */
+  private static final class ResumedObjectReader extends JsonReader {
+    private static final Reader UNREADABLE_READER = new Reader() {
+      @Override public int read(char[] buffer, int offset, int count) {
+        throw new AssertionError();
+      }
+      @Override public void close() {
+        throw new AssertionError();
+      }
+    };
 
-        JsonObject clone = new JsonObject();
+    private final JsonReader in;
+    private boolean resumed;
 
-        if (jsonObject.has(typeFieldName)) {
-          throw new JsonParseException("cannot serialize " + srcType.getName()
-              + " because it already defines a field named " + typeFieldName);
-        }
-        clone.add(typeFieldName, new JsonPrimitive(label));
+    ResumedObjectReader(JsonReader in) {
+      super(UNREADABLE_READER);
+      this.in = in;
+      setLenient(in.isLenient());
+    }
 
-        for (Map.Entry<String, JsonElement> e : jsonObject.entrySet()) {
-          clone.add(e.getKey(), e.getValue());
-        }
-        jsonElementAdapter.write(out, clone);
+    @Override public void beginObject() throws IOException {
+      if (resumed) {
+        in.beginObject();
+      } else {
+        resumed = true;
       }
-    }.nullSafe();
+    }
+
+    @Override public JsonToken peek() throws IOException {
+      return resumed ? in.peek() : JsonToken.BEGIN_OBJECT;
+    }
+
+    @Override public void beginArray() throws IOException { in.beginArray(); }
+    @Override public void endArray() throws IOException { in.endArray(); }
+    @Override public void endObject() throws IOException { in.endObject(); }
+    @Override public boolean hasNext() throws IOException { return in.hasNext(); }
+    @Override public String nextName() throws IOException { return in.nextName(); }
+    @Override public String nextString() throws IOException { return in.nextString(); }
+    @Override public boolean nextBoolean() throws IOException { return in.nextBoolean(); }
+    @Override public void nextNull() throws IOException { in.nextNull(); }
+    @Override public double nextDouble() throws IOException { return in.nextDouble(); }
+    @Override public long nextLong() throws IOException { return in.nextLong(); }
+    @Override public int nextInt() throws IOException { return in.nextInt(); }
+    @Override public void skipValue() throws IOException { in.skipValue(); }
+    @Override public void close() throws IOException { in.close(); }
+    @Override public String getPath() { return in.getPath(); }
+    @Override public String getPreviousPath() { return in.getPreviousPath(); }
+    @Override public String toString() { return in.toString(); }
+  }
+
+  /**
+   * A writer that adds the type field as the first field of the object it writes.
+   */
+  private static final class TypeFieldWriter extends JsonWriter {
+    private static final Writer UNWRITABLE_WRITER = new Writer() {
+      @Override public void write(char[] buffer, int offset, int counter) {
+        throw new AssertionError();
+      }
+      @Override public void flush() {
+        throw new AssertionError();
+      }
+      @Override public void close() {
+        throw new AssertionError();
+      }
+    };
+
+    private final JsonWriter out;
+    private final String typeFieldName;
+    private final String label;
+    private int depth;
+
+    TypeFieldWriter(JsonWriter out, String typeFieldName, String label) {
+      super(UNWRITABLE_WRITER);
+      this.out = out;
+      this.typeFieldName = typeFieldName;
+      this.label = label;
+      setLenient(out.isLenient());
+      setHtmlSafe(out.isHtmlSafe());
+      setSerializeNulls(out.getSerializeNulls());
+    }
+
+    @Override public JsonWriter beginObject() throws IOException {
+      out.beginObject();
+      if (depth++ == 0) {
+        out.name(typeFieldName).value(label);
+      }
+      return this;
+    }
+
+    @Override public JsonWriter name(String name) throws IOException {
+      if (depth == 1 && name.equals(typeFieldName)) {
+        throw new JsonParseException("cannot serialize value with type " + label
+            + " because it already defines a field named " + typeFieldName);
+      }
+      out.name(name);
+      return this;
+    }
+
+    @Override public JsonWriter beginArray() throws IOException {
+      out.beginArray();
+      depth++;
+      return this;
+    }
+    @Override public JsonWriter endArray() throws IOException {
+      out.endArray();
+      depth--;
+      return this;
+    }
+    @Override public JsonWriter endObject() throws IOException {
+      out.endObject();
+      depth--;
+      return this;
+    }
+    @Override public JsonWriter value(String value) throws IOException {
+      out.value(value);
+      return this;
+    }
+    @Override public JsonWriter jsonValue(String value) throws IOException {
+      out.jsonValue(value);
+      return this;
+    }
+    @Override public JsonWriter nullValue() throws IOException { out.nullValue(); return this; }
+    @Override public JsonWriter value(boolean value) throws IOException {
+      out.value(value);
+      return this;
+    }
+    @Override public JsonWriter value(Boolean value) throws IOException {
+      out.value(value);
+      return this;
+    }
+    @Override public JsonWriter value(float value) throws IOException {
+      out.value(value);
+      return this;
+    }
+    @Override public JsonWriter value(double value) throws IOException {
+      out.value(value);
+      return this;
+    }
+    @Override public JsonWriter value(long value) throws IOException {
+      out.value(value);
+      return this;
+    }
+    @Override public JsonWriter value(Number value) throws IOException {
+      out.value(value);
+      return this;
+    }
+    @Override public void flush() throws IOException { out.flush(); }
+    @Override public void close() throws IOException { out.close(); }
   }
 }
@@ -24,7 +24,14 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Locale;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 import javax.swing.JOptionPane;
 import javax.swing.SwingWorker;
 import javax.swing.UIManager;
@@ -41,12 +48,20 @@ import com.google.gson.GsonBuilder;
 import edu.mit.spacenet.gui.SpaceNetFrame;
 import edu.mit.spacenet.gui.SpaceNetSettings;
 import edu.mit.spacenet.gui.SplashScreen;
-import edu.mit.spacenet.io.XStreamEngine;
+import edu.mit.spacenet.io.ScenarioEngine;
 import edu.mit.spacenet.io.gson.demands.AggregatedDemandsAnalysis;
 import edu.mit.spacenet.io.gson.demands.RawDemandsAnalysis;
-import edu.mit.spacenet.io.gson.scenario.GsonEngine;
 import edu.mit.spacenet.scenario.Scenario;
+import edu.mit.spacenet.server.ScenarioBatch;
+import edu.mit.spacenet.server.ScenarioRun;
+import edu.mit.spacenet.server.SimulationServer;
+import edu.mit.spacenet.simulator.AbstractSimulator;
+import edu.mit.spacenet.simulator.CsvMoeSink;
 import edu.mit.spacenet.simulator.DemandSimulator;
+import edu.mit.spacenet.simulator.FullSimulator;
+import edu.mit.spacenet.simulator.I_MoeSink;
+import edu.mit.spacenet.simulator.JsonMoeSink;
+import edu.mit.spacenet.simulator.JsonTraceSink;
 
 /**
  * This class is used to launch the SpaceNet application.
@@ -54,8 +69,12 @@ import edu.mit.spacenet.simulator.DemandSimulator;
  * @author Paul Grogan
  */
 public class SpaceNet {
+  private static final int SERVER_CACHE_CAPACITY = 16;
+
   public static enum HeadlessMode {
-    DEMANDS_RAW("demands-raw"), DEMANDS_AGGREGATED("demands-agg"), CONVERT_SCENARIO("convert");
+    DEMANDS_RAW("demands-raw"), DEMANDS_AGGREGATED("demands-agg"), CONVERT_SCENARIO("convert"),
+    SERVE("serve"), FULL_SIMULATION("simulate"), BATCH_RAW("batch-raw"),
+    BATCH_AGGREGATED("batch-agg");
 
     public final String label;
 
@@ -75,7 +94,13 @@ public class SpaceNet {
         .desc("Headless execution mode. Alternatives: " + HeadlessMode.DEMANDS_RAW.label
             + " (raw demand simulator)" + HeadlessMode.DEMANDS_AGGREGATED.label
             + " (aggregated demand simulator)" + HeadlessMode.CONVERT_SCENARIO.label
-            + " (convert scenario format: xml <--> json)" + ".")
+            + " (convert scenario format: xml, xml.gz, json, or snb)" + HeadlessMode.SERVE.label
+            + " (simulation server for JSON-lines jobs on stdin/stdout or a local port)"
+            + HeadlessMode.FULL_SIMULATION.label
+            + " (full simulator measures of effectiveness: csv or JSON lines)"
+            + HeadlessMode.BATCH_RAW.label + " (raw demand simulator for a directory or glob)"
+            + HeadlessMode.BATCH_AGGREGATED.label
+            + " (aggregated demand simulator for a directory or glob)" + ".")
         .build();
     options.addOption(headless);
     Option input = Option.builder("i").longOpt("input").argName("file path").hasArg()
@@ -90,6 +115,23 @@ public class SpaceNet {
     Option consumeResources = Option.builder("c").longOpt("consume").hasArg(false)
         .desc("Consume existing resources.").build();
     options.addOption(consumeResources);
+    Option port = Option.builder("p").longOpt("port").argName("port").hasArg()
+        .desc("Local port for the simulation server (default: stdin/stdout).").build();
+    options.addOption(port);
+    Option networkHistory = Option.builder("n").longOpt("network-history").argName("file path")
+        .hasArg()
+        .desc("Network history journal file path (full simulation, default: not recorded).")
+        .build();
+    options.addOption(networkHistory);
+    Option threads = Option.builder("t").longOpt("threads").argName("count").hasArg()
+        .desc("Number of scenarios simulated concurrently (batch, default: processor count).")
+        .build();
+    options.addOption(threads);
+    Option trace = Option.builder("r").longOpt("trace").argName("file path").hasArg()
+        .desc("Simulation trace file path (JSON lines; demand and full simulation, default: not "
+            + "written).")
+        .build();
+    options.addOption(trace);
 
     CommandLineParser parser = new DefaultParser();
     HelpFormatter helper = new HelpFormatter();
@@ -117,8 +159,12 @@ public class SpaceNet {
             helper.printHelp("Usage:", options);
             System.exit(0);
           }
-          runDemandSimulator(scenarioFilePath, outputFilePath, line.hasOption(confirm),
-              mode.equalsIgnoreCase(HeadlessMode.DEMANDS_RAW.label),
+          String traceFilePath = null;
+          if (line.hasOption(trace)) {
+            traceFilePath = new File(line.getOptionValue(trace)).getAbsolutePath();
+          }
+          runDemandSimulator(scenarioFilePath, outputFilePath, traceFilePath,
+              line.hasOption(confirm), mode.equalsIgnoreCase(HeadlessMode.DEMANDS_RAW.label),
               line.hasOption(consumeResources));
         } else if (mode.equalsIgnoreCase(HeadlessMode.CONVERT_SCENARIO.label)) {
           String inputFilePath = null;
@@ -138,6 +184,74 @@ public class SpaceNet {
             System.exit(0);
           }
           convertScenario(inputFilePath, outputFilePath, line.hasOption(confirm));
+        } else if (mode.equalsIgnoreCase(HeadlessMode.SERVE.label)) {
+          Integer serverPort = null;
+          if (line.hasOption(port)) {
+            try {
+              serverPort = Integer.valueOf(line.getOptionValue(port));
+            } catch (NumberFormatException ex) {
+              System.err.println("Invalid port: " + line.getOptionValue(port));
+              System.exit(1);
+            }
+          }
+          runServer(serverPort);
+        } else if (mode.equalsIgnoreCase(HeadlessMode.FULL_SIMULATION.label)) {
+          String scenarioFilePath = null;
+          if (line.hasOption(input)) {
+            scenarioFilePath = new File(line.getOptionValue(input)).getAbsolutePath();
+          } else {
+            System.err.println("Missing scenario file path.");
+            helper.printHelp("Usage:", options);
+            System.exit(0);
+          }
+          String outputFilePath = null;
+          if (line.hasOption(output)) {
+            outputFilePath = new File(line.getOptionValue(output)).getAbsolutePath();
+          } else {
+            System.err.println("Missing output file path.");
+            helper.printHelp("Usage:", options);
+            System.exit(0);
+          }
+          String historyFilePath = null;
+          if (line.hasOption(networkHistory)) {
+            historyFilePath = new File(line.getOptionValue(networkHistory)).getAbsolutePath();
+          }
+          String traceFilePath = null;
+          if (line.hasOption(trace)) {
+            traceFilePath = new File(line.getOptionValue(trace)).getAbsolutePath();
+          }
+          runFullSimulator(scenarioFilePath, outputFilePath, historyFilePath, traceFilePath,
+              line.hasOption(confirm), line.hasOption(consumeResources));
+        } else if (mode.equalsIgnoreCase(HeadlessMode.BATCH_RAW.label)
+            || mode.equalsIgnoreCase(HeadlessMode.BATCH_AGGREGATED.label)) {
+          String scenarioPath = null;
+          if (line.hasOption(input)) {
+            scenarioPath = line.getOptionValue(input);
+          } else {
+            System.err.println("Missing scenario directory or glob pattern.");
+            helper.printHelp("Usage:", options);
+            System.exit(0);
+          }
+          String outputDirectoryPath = null;
+          if (line.hasOption(output)) {
+            outputDirectoryPath = new File(line.getOptionValue(output)).getAbsolutePath();
+          } else {
+            System.err.println("Missing output directory path.");
+            helper.printHelp("Usage:", options);
+            System.exit(0);
+          }
+          int threadCount = Runtime.getRuntime().availableProcessors();
+          if (line.hasOption(threads)) {
+            try {
+              threadCount = Integer.parseInt(line.getOptionValue(threads));
+            } catch (NumberFormatException ex) {
+              System.err.println("Invalid thread count: " + line.getOptionValue(threads));
+              System.exit(1);
+            }
+          }
+          runBatch(scenarioPath, outputDirectoryPath, line.hasOption(confirm),
+              mode.equalsIgnoreCase(HeadlessMode.BATCH_RAW.label),
+              line.hasOption(consumeResources), threadCount);
         } else {
           System.err.println("Unknown headless mode: " + mode);
           System.exit(0);
@@ -158,18 +272,9 @@ public class SpaceNet {
   }
 
   private static Scenario openScenario(String filePath) {
-    String extension = FilenameUtils.getExtension(filePath);
     Scenario scenario = null;
     try {
-      if (extension.equals("xml")) {
-        scenario = XStreamEngine.openScenario(filePath);
-        scenario.setFilePath(filePath);
-      } else if (extension.equals("json")) {
-        scenario = GsonEngine.openScenario(filePath);
-        scenario.setFilePath(filePath);
-      } else {
-        throw new UnsupportedOperationException("Invalid file path: " + filePath);
-      }
+      scenario = ScenarioEngine.openScenario(filePath);
     } catch (IOException ex) {
       System.err.println("Failed to read scenario file: " + ex.getMessage());
       System.exit(1);
@@ -193,18 +298,35 @@ public class SpaceNet {
       } while (!(lastInput.equalsIgnoreCase("yes") || lastInput.equalsIgnoreCase("y")));
       in.close();
     }
-    String extension = FilenameUtils.getExtension(scenario.getFilePath());
     try {
-      if (extension.equals("xml")) {
-        XStreamEngine.saveScenario(scenario);
-      } else if (extension.equals("json")) {
-        GsonEngine.saveScenario(scenario);
+      ScenarioEngine.saveScenario(scenario);
+    } catch (IOException ex) {
+      System.err.println("Failed to write scenario file: " + ex.getMessage());
+      System.exit(1);
+    }
+  }
+
+  private static void runServer(Integer port) {
+    SimulationServer server =
+        new SimulationServer(SERVER_CACHE_CAPACITY, Runtime.getRuntime().availableProcessors());
+    try {
+      if (port == null) {
+        // responses own stdout; anything else printed while simulating goes to stderr
+        PrintStream out = System.out;
+        System.setOut(System.err);
+        server.serve(System.in, out);
       } else {
-        throw new UnsupportedOperationException("Invalid file path: " + scenario);
+        ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        System.err.println("Simulation server listening on "
+            + serverSocket.getInetAddress().getHostAddress() + ":" + serverSocket.getLocalPort());
+        server.serve(serverSocket);
       }
+      server.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
     } catch (IOException ex) {
-      System.err.println("Failed to write scenario file: " + ex.getMessage());
+      System.err.println("Simulation server failed: " + ex.getMessage());
       System.exit(1);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
     }
   }
 
@@ -215,13 +337,32 @@ public class SpaceNet {
     saveScenario(scenario, isOverwriteConfirmed);
   }
 
+  private static void simulate(AbstractSimulator simulator, String traceFilePath) {
+    if (traceFilePath == null) {
+      simulator.simulate();
+      return;
+    }
+    try (BufferedWriter out = new BufferedWriter(new FileWriter(traceFilePath), 1 << 16)) {
+      JsonTraceSink sink = new JsonTraceSink(out);
+      simulator.setTraceSink(sink);
+      simulator.simulate();
+      sink.flush();
+    } catch (IOException | UncheckedIOException ex) {
+      System.err.println("Failed to write trace file: " + ex.getMessage());
+      System.exit(1);
+    } finally {
+      simulator.setTraceSink(null);
+    }
+  }
+
   private static void runDemandSimulator(String scenarioFilePath, String outputFilePath,
-      boolean isOverwriteConfirmed, boolean isRawDemands, boolean consumeExistingResources) {
+      String traceFilePath, boolean isOverwriteConfirmed, boolean isRawDemands,
+      boolean consumeExistingResources) {
     Scenario scenario = openScenario(scenarioFilePath);
 
     DemandSimulator simulator = new DemandSimulator(scenario);
     simulator.setDemandsSatisfied(consumeExistingResources);
-    simulator.simulate();
+    simulate(simulator, traceFilePath);
 
     File file = new File(outputFilePath);
     if (file.exists() && !isOverwriteConfirmed) {
@@ -253,6 +394,138 @@ public class SpaceNet {
     }
   }
 
+  private static void runFullSimulator(String scenarioFilePath, String outputFilePath,
+      String historyFilePath, String traceFilePath, boolean isOverwriteConfirmed,
+      boolean consumeExistingResources) {
+    Scenario scenario = openScenario(scenarioFilePath);
+
+    // confirm before simulating: records are written while the simulation runs
+    File file = new File(outputFilePath);
+    if (file.exists() && !isOverwriteConfirmed) {
+      Scanner in = new Scanner(System.in);
+      String lastInput = "";
+      do {
+        System.out.println("Confirm to overwrite existing file " + outputFilePath + " (yes/no)");
+        lastInput = in.nextLine();
+        if (lastInput.equalsIgnoreCase("no") || lastInput.equalsIgnoreCase("n")) {
+          in.close();
+          return;
+        }
+      } while (!(lastInput.equalsIgnoreCase("yes") || lastInput.equalsIgnoreCase("y")));
+      in.close();
+    }
+
+    FullSimulator simulator = new FullSimulator(scenario);
+    simulator.setDemandsSatisfied(consumeExistingResources);
+    simulator.setNetworkHistoryRecorded(historyFilePath != null);
+    try (BufferedWriter out = new BufferedWriter(new FileWriter(outputFilePath), 1 << 16)) {
+      I_MoeSink sink;
+      if (FilenameUtils.getExtension(outputFilePath).equalsIgnoreCase("csv")) {
+        sink = new CsvMoeSink(out);
+      } else {
+        sink = new JsonMoeSink(out);
+      }
+      simulator.setMoeSink(sink);
+      simulate(simulator, traceFilePath);
+      sink.totals(simulator.getMeasures());
+      sink.flush();
+    } catch (IOException | UncheckedIOException ex) {
+      System.err.println("Failed to output file: " + ex.getMessage());
+      System.exit(1);
+    }
+
+    if (historyFilePath != null) {
+      try {
+        simulator.saveNetworkHistory(new File(historyFilePath));
+      } catch (IOException ex) {
+        System.err.println("Failed to write network history: " + ex.getMessage());
+        System.exit(1);
+      } finally {
+        simulator.getNetworkHistory().clear(); // release the journal file
+      }
+    }
+  }
+
+  private static void runBatch(String scenarioPath, String outputDirectoryPath,
+      boolean isOverwriteConfirmed, boolean isRawDemands, boolean consumeExistingResources,
+      int threadCount) {
+    List<String> filePaths = null;
+    try {
+      filePaths = ScenarioBatch.findScenarios(scenarioPath);
+    } catch (IOException ex) {
+      System.err.println("Failed to find scenario files: " + ex.getMessage());
+      System.exit(1);
+    }
+    if (filePaths.isEmpty()) {
+      System.err.println("No scenario files found: " + scenarioPath);
+      System.exit(1);
+    }
+    File outputDirectory = new File(outputDirectoryPath);
+    if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+      System.err.println("Failed to create output directory: " + outputDirectoryPath);
+      System.exit(1);
+    }
+    ScenarioBatch batch = null;
+    try {
+      batch = new ScenarioBatch(filePaths, outputDirectory);
+    } catch (IllegalArgumentException ex) {
+      System.err.println("Failed to name output files: " + ex.getMessage());
+      System.exit(1);
+    }
+    batch.setRawDemands(isRawDemands);
+    batch.setDemandsSatisfied(consumeExistingResources);
+    batch.setThreadCount(threadCount);
+
+    File summaryFile = new File(outputDirectory, ScenarioBatch.SUMMARY_FILE_NAME);
+    boolean outputExists = summaryFile.exists();
+    for (ScenarioRun run : batch.getRuns()) {
+      outputExists = outputExists || new File(run.getOutputFilePath()).exists();
+    }
+    if (outputExists && !isOverwriteConfirmed) {
+      Scanner in = new Scanner(System.in);
+      String lastInput = "";
+      do {
+        System.out.println(
+            "Confirm to overwrite existing files in " + outputDirectoryPath + " (yes/no)");
+        lastInput = in.nextLine();
+        if (lastInput.equalsIgnoreCase("no") || lastInput.equalsIgnoreCase("n")) {
+          in.close();
+          return;
+        }
+      } while (!(lastInput.equalsIgnoreCase("yes") || lastInput.equalsIgnoreCase("y")));
+      in.close();
+    }
+
+    long start = System.nanoTime();
+    batch.simulate();
+    long elapsed = System.nanoTime() - start;
+
+    try (BufferedWriter out = new BufferedWriter(new FileWriter(summaryFile))) {
+      batch.writeSummary(out);
+    } catch (IOException ex) {
+      System.err.println("Failed to output file: " + ex.getMessage());
+      System.exit(1);
+    }
+    int failureCount = 0;
+    for (ScenarioRun run : batch.getRuns()) {
+      if (run.isCompleted()) {
+        System.out.println(String.format(Locale.ROOT,
+            "ok      %s (parse %.1f ms, simulate %.1f ms, write %.1f ms)", run.getFilePath(),
+            run.getParseTime() / 1e6, run.getSimulateTime() / 1e6, run.getWriteTime() / 1e6));
+      } else {
+        failureCount++;
+        System.out.println(String.format(Locale.ROOT, "failed  %s (%s)", run.getFilePath(),
+            ScenarioBatch.getMessage(run.getException())));
+      }
+    }
+    System.out.println(String.format(Locale.ROOT,
+        "%d of %d scenarios completed in %.1f s; summary written to %s",
+        filePaths.size() - failureCount, filePaths.size(), elapsed / 1e9, summaryFile));
+    if (failureCount > 0) {
+      System.exit(1);
+    }
+  }
+
   private static void startGUI(String scenarioFilePath) {
     javax.swing.SwingUtilities.invokeLater(new Runnable() {
       public void run() {
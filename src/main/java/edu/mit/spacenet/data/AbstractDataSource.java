@@ -18,6 +18,7 @@ import java.util.Date;
 import java.util.List;
 
 import edu.mit.spacenet.domain.ClassOfSupply;
+import edu.mit.spacenet.domain.element.I_Element;
 import edu.mit.spacenet.domain.model.I_DemandModel;
 import edu.mit.spacenet.domain.network.edge.Edge;
 import edu.mit.spacenet.domain.network.node.Node;
@@ -38,6 +39,7 @@ public abstract class AbstractDataSource implements I_DataSource {
   protected List<ElementPreview> elementPreviewLibrary;
   protected List<I_DemandModel> demandModelLibrary;
   private Date lastLoadDate;
+  private transient String libraryVersion;
 
   /**
    * Instantiates a new abstract data source.
@@ -164,7 +166,17 @@ public abstract class AbstractDataSource implements I_DataSource {
    */
   public final void loadLibraries(boolean updateNodes, boolean updateEdges, boolean updateResources)
       throws Exception {
+    String key = getLibraryKey();
+    String version = key == null ? null : getLibraryVersion();
     lastLoadDate = new Date();
+    if (version != null && version.equals(libraryVersion))
+      return;
+    if (version != null && nodeLibrary.isEmpty() && edgeLibrary.isEmpty()
+        && resourceTypeLibrary.isEmpty() && elementPreviewLibrary.isEmpty()
+        && LibrarySnapshot.read(this, key, version)) {
+      libraryVersion = version;
+      return;
+    }
     if (updateNodes)
       loadNodeLibrary();
     if (updateEdges)
@@ -172,6 +184,9 @@ public abstract class AbstractDataSource implements I_DataSource {
     if (updateResources)
       loadResourceLibrary();
     loadElementLibrary();
+    libraryVersion = updateNodes && updateEdges && updateResources ? version : null;
+    if (libraryVersion != null)
+      LibrarySnapshot.write(this, key, libraryVersion);
   }
 
   /*
@@ -180,11 +195,30 @@ public abstract class AbstractDataSource implements I_DataSource {
    * @see edu.mit.spacenet.scenario.data.I_DataSource#loadLibraries()
    */
   public final void loadLibraries() throws Exception {
-    lastLoadDate = new Date();
-    loadNodeLibrary();
-    loadEdgeLibrary();
-    loadResourceLibrary();
-    loadElementLibrary();
+    loadLibraries(true, true, true);
+  }
+
+  /**
+   * Gets the key that identifies the libraries of this data source in the local snapshot cache.
+   * Data sources that return null (the default) are not cached.
+   * 
+   * @return the library key, or null if the libraries should not be cached
+   */
+  protected String getLibraryKey() {
+    return null;
+  }
+
+  /**
+   * Gets a cheap probe of the version of the libraries in this data source, such as a file
+   * modification time. Libraries are reloaded from the data source only when the version changes;
+   * a null version disables the snapshot cache for that load.
+   * 
+   * @return the library version, or null if it cannot be determined
+   * 
+   * @throws Exception the exception
+   */
+  protected String getLibraryVersion() throws Exception {
+    return null;
   }
 
   /*
@@ -229,6 +263,19 @@ public abstract class AbstractDataSource implements I_DataSource {
     return null;
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.data.I_DataSource#loadElements(java.util.List)
+   */
+  public List<I_Element> loadElements(List<Integer> tids) throws Exception {
+    List<I_Element> elements = new ArrayList<I_Element>();
+    for (Integer tid : tids) {
+      elements.add(loadElement(tid));
+    }
+    return elements;
+  }
+
   /*
    * (non-Javadoc)
    * 
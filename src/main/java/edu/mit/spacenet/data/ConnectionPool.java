@@ -0,0 +1,114 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.data;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A small pool of database connections shared by the data sources that connect to the same
+ * database. Connections are opened on demand and at most a few idle connections are kept open for
+ * reuse; a connection that has been idle for a while is validated before it is reused.
+ * 
+ * @author Paul Grogan
+ */
+class ConnectionPool {
+  private static final int MAX_IDLE = 4;
+  private static final long VALIDATION_INTERVAL = 30000;
+  private static final int VALIDATION_TIMEOUT = 5;
+  private static final Map<String, ConnectionPool> pools = new HashMap<String, ConnectionPool>();
+
+  private final String url, user, password;
+  private final Deque<PooledConnection> idle;
+
+  /**
+   * Gets the connection pool for a database and user.
+   * 
+   * @param url the JDBC url
+   * @param user the user
+   * @param password the password
+   * 
+   * @return the connection pool
+   */
+  static synchronized ConnectionPool get(String url, String user, String password) {
+    String key = url + "#" + user + "#" + password;
+    ConnectionPool pool = pools.get(key);
+    if (pool == null) {
+      pool = new ConnectionPool(url, user, password);
+      pools.put(key, pool);
+    }
+    return pool;
+  }
+
+  /**
+   * Instantiates a new connection pool.
+   * 
+   * @param url the JDBC url
+   * @param user the user
+   * @param password the password
+   */
+  private ConnectionPool(String url, String user, String password) {
+    this.url = url;
+    this.user = user;
+    this.password = password;
+    idle = new ArrayDeque<PooledConnection>();
+  }
+
+  /**
+   * Acquires a connection, reusing an idle connection if one is available. The connection must be
+   * released once it is no longer needed.
+   * 
+   * @return the connection
+   * 
+   * @throws SQLException the SQL exception
+   */
+  PooledConnection acquire() throws SQLException {
+    PooledConnection connection;
+    while ((connection = poll()) != null) {
+      if (System.currentTimeMillis() - connection.getLastUsed() < VALIDATION_INTERVAL
+          || connection.isValid(VALIDATION_TIMEOUT))
+        return connection;
+      connection.close();
+    }
+    return new PooledConnection(this, DriverManager.getConnection(url, user, password));
+  }
+
+  /**
+   * Takes the most recently used idle connection.
+   * 
+   * @return the idle connection, or null if there are none
+   */
+  private synchronized PooledConnection poll() {
+    return idle.pollFirst();
+  }
+
+  /**
+   * Returns a connection to the pool, closing it if enough connections are already idle.
+   * 
+   * @param connection the connection
+   */
+  void release(PooledConnection connection) {
+    synchronized (this) {
+      if (idle.size() < MAX_IDLE && !connection.isClosed()) {
+        idle.addFirst(connection);
+        return;
+      }
+    }
+    connection.close();
+  }
+}
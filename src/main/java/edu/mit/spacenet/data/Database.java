@@ -13,16 +13,20 @@
  */
 package edu.mit.spacenet.data;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 import edu.mit.spacenet.domain.ClassOfSupply;
 import edu.mit.spacenet.domain.Environment;
@@ -69,9 +73,12 @@ import edu.mit.spacenet.domain.resource.ResourceType;
  * @author Paul Grogan
  */
 public class Database extends AbstractDataSource {
+  private static final int MAX_PARAMETERS = 256;
+  private static final String LIBRARY_TABLES =
+      "nodes, edges, burns, resources, elements, parts, states, models, demands";
+
   private String host, user, password, database;
   private Integer port;
-  private Connection connection;
 
   /**
    * Instantiates a new database.
@@ -122,7 +129,7 @@ public class Database extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#deleteEdge(int)
    */
   public boolean deleteEdge(int tid) throws SQLException {
-    createConnection();
+    PooledConnection connection = getConnection();
     PreparedStatement stmt = null;
     try {
       if (edgeLibrary.remove(loadEdge(tid))) {
@@ -144,12 +151,7 @@ public class Database extends AbstractDataSource {
         return false; // edge does not exist
       }
     } finally {
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
+      connection.release();
     }
   }
 
@@ -159,9 +161,8 @@ public class Database extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#deleteElement(int)
    */
   public boolean deleteElement(int tid) throws SQLException {
-    createConnection();
+    PooledConnection connection = getConnection();
     PreparedStatement stmt = null;
-    ResultSet rs = null;
     try {
       if (elementPreviewLibrary.remove(loadElementPreview(tid))) {
         stmt = connection.prepareStatement("DELETE FROM elements " + "WHERE id=? LIMIT 1");
@@ -174,12 +175,19 @@ public class Database extends AbstractDataSource {
           stmt = connection.prepareStatement("DELETE FROM parts " + "WHERE element_id=?");
           stmt.setInt(1, tid);
           stmt.executeUpdate();
-          stmt = connection.prepareStatement("SELECT id FROM states " + "WHERE element_id=?");
+          // delete the states with their demand models and demands
+          stmt = connection.prepareStatement("DELETE FROM demands " + "WHERE model_id IN "
+              + "(SELECT models.id FROM models INNER JOIN states "
+              + "ON models.state_id = states.id WHERE states.element_id=?)");
           stmt.setInt(1, tid);
-          rs = stmt.executeQuery();
-          while (rs.next()) {
-            deleteState(rs.getInt("id"));
-          }
+          stmt.executeUpdate();
+          stmt = connection.prepareStatement("DELETE FROM models " + "WHERE state_id IN "
+              + "(SELECT id FROM states WHERE element_id=?)");
+          stmt.setInt(1, tid);
+          stmt.executeUpdate();
+          stmt = connection.prepareStatement("DELETE FROM states " + "WHERE element_id=?");
+          stmt.setInt(1, tid);
+          stmt.executeUpdate();
           System.out.println("Element #" + tid + " deleted");
           return true;
         } else {
@@ -191,89 +199,7 @@ public class Database extends AbstractDataSource {
         return false; // element does not exist
       }
     } finally {
-      if (rs != null) {
-        try {
-          rs.close();
-        } catch (SQLException ex) {
-        }
-      }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
-    }
-  }
-
-  /**
-   * Deletes a state triggers the deletion of any associated demand models.
-   * 
-   * @param tid the primary key (type ID)
-   * 
-   * @throws SQLException the SQL exception
-   */
-  private void deleteState(int tid) throws SQLException {
-    PreparedStatement stmt = null;
-    ResultSet rs = null;
-    try {
-      stmt = connection.prepareStatement("DELETE FROM states " + "WHERE id=? LIMIT 1");
-      stmt.setInt(1, tid);
-      int i = stmt.executeUpdate();
-      if (i == 1) {
-        stmt = connection.prepareStatement("SELECT id FROM models " + "WHERE state_id=?");
-        stmt.setInt(1, tid);
-        rs = stmt.executeQuery();
-        while (rs.next()) {
-          deleteModel(rs.getInt("id"));
-        }
-      }
-    } finally {
-      if (rs != null) {
-        try {
-          rs.close();
-        } catch (SQLException ex) {
-        }
-      }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
-    }
-  }
-
-  /**
-   * Deletes a demand model and triggers the deletion of any associated demands.
-   * 
-   * @param tid the primary key (type ID)
-   * 
-   * @throws SQLException the SQL exception
-   */
-  private void deleteModel(int tid) throws SQLException {
-    PreparedStatement stmt = null;
-    ResultSet rs = null;
-    try {
-      stmt = connection.prepareStatement("DELETE FROM models " + "WHERE id=? LIMIT 1");
-      stmt.setInt(1, tid);
-      stmt.executeUpdate();
-      stmt = connection.prepareStatement("DELETE FROM demands " + "WHERE model_id=?");
-      stmt.setInt(1, tid);
-      stmt.executeUpdate();
-    } finally {
-      if (rs != null) {
-        try {
-          rs.close();
-        } catch (SQLException ex) {
-        }
-      }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
+      connection.release();
     }
   }
 
@@ -283,7 +209,7 @@ public class Database extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#deleteNode(int)
    */
   public boolean deleteNode(int tid) throws SQLException {
-    createConnection();
+    PooledConnection connection = getConnection();
     PreparedStatement stmt = null;
     ResultSet rs = null;
     try {
@@ -318,12 +244,7 @@ public class Database extends AbstractDataSource {
         } catch (SQLException ex) {
         }
       }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
+      connection.release();
     }
   }
 
@@ -333,7 +254,7 @@ public class Database extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#deleteResource(int)
    */
   public boolean deleteResource(int tid) throws SQLException {
-    createConnection();
+    PooledConnection connection = getConnection();
     PreparedStatement stmt = null;
     ResultSet rs = null;
     try {
@@ -391,12 +312,7 @@ public class Database extends AbstractDataSource {
         } catch (SQLException ex) {
         }
       }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
+      connection.release();
     }
   }
 
@@ -431,10 +347,14 @@ public class Database extends AbstractDataSource {
       // mark all edges as unfound
       libraryContents.put(edge.getTid(), false);
     }
-    createConnection();
+    PooledConnection connection = getConnection();
     PreparedStatement stmt = null;
     ResultSet rs = null;
     try {
+      // load the burns of all edges in one query
+      Map<Integer, List<Record>> burns = group(
+          query(connection.prepareStatement("SELECT * FROM burns ORDER BY edge_id, `order`")),
+          "edge_id");
       stmt = connection.prepareStatement("SELECT * FROM edges");
       rs = stmt.executeQuery();
       while (rs.next()) {
@@ -471,7 +391,7 @@ public class Database extends AbstractDataSource {
           } else if (EdgeType.SPACE.getName().toLowerCase().contains(edgeType)) {
             e = new SpaceEdge();
             ((SpaceEdge) e).setDuration(rs.getDouble("duration"));
-            loadBurns((SpaceEdge) e);
+            loadBurns((SpaceEdge) e, burns.get(rs.getInt("id")));
           } else if (EdgeType.FLIGHT.getName().toLowerCase().contains(edgeType)) {
             e = new FlightEdge();
             ((FlightEdge) e).setDuration(rs.getDouble("duration"));
@@ -492,12 +412,7 @@ public class Database extends AbstractDataSource {
         } catch (SQLException ex) {
         }
       }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
+      connection.release();
     }
     for (Integer i : libraryContents.keySet()) {
       if (!libraryContents.get(i)) {
@@ -508,46 +423,26 @@ public class Database extends AbstractDataSource {
   }
 
   /**
-   * Loads burns for a specific space edge.
+   * Loads burns for a specific space edge from the burn records of the edge.
    * 
    * @param edge the edge
-   * 
-   * @throws SQLException the SQL exception
+   * @param burns the burn records ordered by burn order, or null if the edge has no burns
    */
-  private void loadBurns(SpaceEdge edge) throws SQLException {
+  private void loadBurns(SpaceEdge edge, List<Record> burns) {
     edge.getBurns().clear();
-    createConnection();
-    PreparedStatement stmt = null;
-    ResultSet rs = null;
-    try {
-      stmt = connection.prepareStatement("SELECT * FROM burns " + "WHERE burns.edge_id=?");
-      stmt.setInt(1, edge.getTid());
-      rs = stmt.executeQuery();
-      while (rs.next()) {
-        try {
-          Burn b = new Burn();
-          b.setTid(rs.getInt("id"));
-          b.setTime(rs.getDouble("time"));
-          b.setBurnType(BurnType.getInstance(rs.getString("type")));
-          b.setDeltaV(rs.getDouble("delta_v"));
-          edge.getBurns().add(rs.getInt("order"), b);
-        } catch (Exception ex) {
-          // error loading burn
-          ex.printStackTrace();
-        }
-      }
-    } finally {
-      if (rs != null) {
-        try {
-          rs.close();
-        } catch (SQLException ex) {
-        }
-      }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
+    if (burns == null)
+      return;
+    for (Record r : burns) {
+      try {
+        Burn b = new Burn();
+        b.setTid(r.getInt("id"));
+        b.setTime(r.getDouble("time"));
+        b.setBurnType(BurnType.getInstance(r.getString("type")));
+        b.setDeltaV(r.getDouble("delta_v"));
+        edge.getBurns().add(r.getInt("order"), b);
+      } catch (Exception ex) {
+        // error loading burn
+        ex.printStackTrace();
       }
     }
   }
@@ -558,144 +453,165 @@ public class Database extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#loadElement(int)
    */
   public I_Element loadElement(int tid) throws SQLException {
-    createConnection();
-    PreparedStatement stmt = null;
-    ResultSet rs = null;
+    return loadElements(Collections.singletonList(tid)).get(0);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.data.I_DataSource#loadElements(java.util.List)
+   */
+  @Override
+  public List<I_Element> loadElements(List<Integer> tids) throws SQLException {
+    List<Integer> ids = new ArrayList<Integer>(new TreeSet<Integer>(tids));
+    ElementRecords records = new ElementRecords();
+    PooledConnection connection = getConnection();
     try {
-      stmt = connection.prepareStatement("SELECT * FROM elements " + "WHERE id=?");
-      stmt.setInt(1, tid);
-      rs = stmt.executeQuery();
-      if (rs.next()) {
-        try {
-          I_Element e = null;
-          String elementType = rs.getString("type").toLowerCase();
-          if (ElementType.ELEMENT.getName().toLowerCase().contains(elementType)) {
-            e = new Element();
-          } else if (ElementType.RESOURCE_CONTAINER.getName().toLowerCase().contains(elementType)) {
-            e = new ResourceContainer();
-            ((ResourceContainer) e).setMaxCargoMass(rs.getDouble("cargo_mass"));
-            ((ResourceContainer) e).setMaxCargoVolume(rs.getDouble("cargo_volume"));
-            ((ResourceContainer) e)
-                .setCargoEnvironment(Environment.getInstance(rs.getString("cargo_environment")));
-          } else if (ElementType.CREW_MEMBER.getName().toLowerCase().contains(elementType)) {
-            e = new CrewMember();
-            ((CrewMember) e).setAvailableTimeFraction(rs.getDouble("active_fraction"));
-          } else if (ElementType.CARRIER.getName().toLowerCase().contains(elementType)) {
-            e = new Carrier();
-            ((Carrier) e).setMaxCrewSize(rs.getInt("max_crew"));
-            ((Carrier) e).setMaxCargoMass(rs.getDouble("cargo_mass"));
-            ((Carrier) e).setMaxCargoVolume(rs.getDouble("cargo_volume"));
-            ((Carrier) e)
-                .setCargoEnvironment(Environment.getInstance(rs.getString("cargo_environment")));
-          } else if (ElementType.SURFACE_VEHICLE.getName().toLowerCase().contains(elementType)) {
-            e = new SurfaceVehicle();
-            ((SurfaceVehicle) e).setMaxCrewSize(rs.getInt("max_crew"));
-            ((SurfaceVehicle) e).setMaxCargoMass(rs.getDouble("cargo_mass"));
-            ((SurfaceVehicle) e).setMaxCargoVolume(rs.getDouble("cargo_volume"));
-            ((SurfaceVehicle) e)
-                .setCargoEnvironment(Environment.getInstance(rs.getString("cargo_environment")));
-            ((SurfaceVehicle) e).setMaxSpeed(rs.getDouble("max_speed"));
-            ((SurfaceVehicle) e).getFuelTank().setMaxAmount(rs.getDouble("max_fuel"));
-            ((SurfaceVehicle) e).getFuelTank().setAmount(rs.getDouble("max_fuel"));
-            ((SurfaceVehicle) e).getFuelTank().setResource(loadResource(rs.getInt("fuel_id")));
-          } else if (ElementType.PROPULSIVE_VEHICLE.getName().toLowerCase().contains(elementType)) {
-            e = new PropulsiveVehicle();
-            ((PropulsiveVehicle) e).setMaxCrewSize(rs.getInt("max_crew"));
-            ((PropulsiveVehicle) e).setMaxCargoMass(rs.getDouble("cargo_mass"));
-            ((PropulsiveVehicle) e).setMaxCargoVolume(rs.getDouble("cargo_volume"));
-            ((PropulsiveVehicle) e)
-                .setCargoEnvironment(Environment.getInstance(rs.getString("cargo_environment")));
-            ((PropulsiveVehicle) e).setOmsIsp(rs.getDouble("oms_isp"));
-            ((PropulsiveVehicle) e).setRcsIsp(rs.getDouble("rcs_isp"));
-            if (((PropulsiveVehicle) e).getOmsIsp() > 0) {
-              ((PropulsiveVehicle) e).getOmsFuelTank().setMaxAmount(rs.getDouble("max_oms"));
-              ((PropulsiveVehicle) e).getOmsFuelTank().setAmount(rs.getDouble("max_oms"));
-              ((PropulsiveVehicle) e).getOmsFuelTank()
-                  .setResource(loadResource(rs.getInt("oms_id")));
-            } else {
-              ((PropulsiveVehicle) e).setOmsFuelTank(null);
-            }
-            if (((PropulsiveVehicle) e).getRcsIsp() > 0 && rs.getDouble("max_rcs") > 0) {
-              ((PropulsiveVehicle) e).getRcsFuelTank().setMaxAmount(rs.getDouble("max_rcs"));
-              ((PropulsiveVehicle) e).getRcsFuelTank().setAmount(rs.getDouble("max_rcs"));
-              ((PropulsiveVehicle) e).getRcsFuelTank()
-                  .setResource(loadResource(rs.getInt("rcs_id")));
-            } else if (((PropulsiveVehicle) e).getRcsIsp() > 0) {
-              ((PropulsiveVehicle) e).getContents()
-                  .remove(((PropulsiveVehicle) e).getRcsFuelTank());
-              ((PropulsiveVehicle) e).setRcsFuelTank(((PropulsiveVehicle) e).getOmsFuelTank());
-            } else {
-              ((PropulsiveVehicle) e).setRcsFuelTank(null);
-            }
-          } else {
-            throw new Exception("Unknown Element Type");
-          }
-          e.setTid(rs.getInt("id"));
-          e.setName(rs.getString("name"));
-          e.setClassOfSupply(ClassOfSupply.getInstance(rs.getInt("cos")));
-          e.setEnvironment(Environment.getInstance(rs.getString("environment")));
-          e.setAccommodationMass(rs.getDouble("accommodation_mass"));
-          e.setMass(rs.getDouble("mass"));
-          e.setVolume(rs.getDouble("volume"));
-          e.setDescription(rs.getString("description"));
-          if (e.getElementType() == ElementType.RESOURCE_CONTAINER) {
-            ((I_ResourceContainer) e).getContents().clear();
-            stmt = connection.prepareStatement("SELECT * FROM demands " + "WHERE container_id=?");
-            stmt.setInt(1, e.getTid());
-            rs = stmt.executeQuery();
-            while (rs.next()) {
-              ((ResourceContainer) e).getContents().put(loadResource(rs.getInt("resource_id")),
-                  rs.getDouble("amount"));
-            }
-          }
-          e.getParts().clear();
-          stmt = connection.prepareStatement("SELECT * FROM parts " + "WHERE element_id=?");
-          stmt.setInt(1, e.getTid());
-          rs = stmt.executeQuery();
-          while (rs.next()) {
-            PartApplication partApp = new PartApplication();
-            partApp.setTid(rs.getInt("id"));
-            partApp.setPart((Item) loadResource(rs.getInt("resource_id")));
-            partApp.setQuantity(rs.getInt("quantity"));
-            partApp.setDutyCycle(rs.getDouble("duty_cycle"));
-            partApp.setMeanTimeToFailure(rs.getDouble("mttf"));
-            partApp.setMeanTimeToRepair(rs.getDouble("mttr"));
-            partApp.setMassToRepair(rs.getDouble("repair_mass"));
-            e.getParts().add(partApp);
-          }
-          e.getStates().clear();
-          stmt = connection.prepareStatement("SELECT * FROM states " + "WHERE element_id=?");
-          stmt.setInt(1, e.getTid());
-          rs = stmt.executeQuery();
-          while (rs.next()) {
-            State state = new State();
-            state.setTid(rs.getInt("id"));
-            state.setName(rs.getString("name"));
-            state.setStateType(StateType.getInstance(rs.getString("type")));
-            loadModels(e, state);
-            e.getStates().add(state);
-            if (rs.getInt("initial") == 1)
-              e.setCurrentState(state);
-          }
-          return e;
-        } catch (Exception ex) {
-          // error reading element
-          ex.printStackTrace();
-        }
-      }
+      for (Record r : query(connection, "SELECT * FROM elements " + "WHERE id IN (%s)", ids))
+        records.elements.put(r.getInt("id"), r);
+      records.contents = group(query(connection,
+          "SELECT * FROM demands " + "WHERE container_id IN (%s) ORDER BY id", ids),
+          "container_id");
+      records.parts = group(
+          query(connection, "SELECT * FROM parts " + "WHERE element_id IN (%s) ORDER BY id", ids),
+          "element_id");
+      records.states = group(
+          query(connection, "SELECT * FROM states " + "WHERE element_id IN (%s) ORDER BY id", ids),
+          "element_id");
+      records.models = group(query(connection,
+          "SELECT models.* FROM models " + "INNER JOIN states ON models.state_id = states.id "
+              + "WHERE states.element_id IN (%s) ORDER BY models.id",
+          ids), "state_id");
+      records.demands = group(query(connection,
+          "SELECT demands.* FROM demands " + "INNER JOIN models ON demands.model_id = models.id "
+              + "INNER JOIN states ON models.state_id = states.id "
+              + "WHERE states.element_id IN (%s) ORDER BY demands.id",
+          ids), "model_id");
     } finally {
-      if (rs != null) {
-        try {
-          rs.close();
-        } catch (SQLException ex) {
-        }
-      }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
+      connection.release();
+    }
+    List<I_Element> elements = new ArrayList<I_Element>();
+    for (Integer tid : tids) {
+      elements.add(createElement(records.elements.get(tid), records));
+    }
+    return elements;
+  }
+
+  /**
+   * Creates an element from its record and the records of its contents, parts, states, demand
+   * models, and demands.
+   * 
+   * @param rs the element record
+   * @param records the records loaded for the element
+   * 
+   * @return the element, or null if the element does not exist or could not be read
+   */
+  private I_Element createElement(Record rs, ElementRecords records) {
+    if (rs == null)
+      return null;
+    try {
+      I_Element e = null;
+      String elementType = rs.getString("type").toLowerCase();
+      if (ElementType.ELEMENT.getName().toLowerCase().contains(elementType)) {
+        e = new Element();
+      } else if (ElementType.RESOURCE_CONTAINER.getName().toLowerCase().contains(elementType)) {
+        e = new ResourceContainer();
+        ((ResourceContainer) e).setMaxCargoMass(rs.getDouble("cargo_mass"));
+        ((ResourceContainer) e).setMaxCargoVolume(rs.getDouble("cargo_volume"));
+        ((ResourceContainer) e)
+            .setCargoEnvironment(Environment.getInstance(rs.getString("cargo_environment")));
+      } else if (ElementType.CREW_MEMBER.getName().toLowerCase().contains(elementType)) {
+        e = new CrewMember();
+        ((CrewMember) e).setAvailableTimeFraction(rs.getDouble("active_fraction"));
+      } else if (ElementType.CARRIER.getName().toLowerCase().contains(elementType)) {
+        e = new Carrier();
+        ((Carrier) e).setMaxCrewSize(rs.getInt("max_crew"));
+        ((Carrier) e).setMaxCargoMass(rs.getDouble("cargo_mass"));
+        ((Carrier) e).setMaxCargoVolume(rs.getDouble("cargo_volume"));
+        ((Carrier) e)
+            .setCargoEnvironment(Environment.getInstance(rs.getString("cargo_environment")));
+      } else if (ElementType.SURFACE_VEHICLE.getName().toLowerCase().contains(elementType)) {
+        e = new SurfaceVehicle();
+        ((SurfaceVehicle) e).setMaxCrewSize(rs.getInt("max_crew"));
+        ((SurfaceVehicle) e).setMaxCargoMass(rs.getDouble("cargo_mass"));
+        ((SurfaceVehicle) e).setMaxCargoVolume(rs.getDouble("cargo_volume"));
+        ((SurfaceVehicle) e)
+            .setCargoEnvironment(Environment.getInstance(rs.getString("cargo_environment")));
+        ((SurfaceVehicle) e).setMaxSpeed(rs.getDouble("max_speed"));
+        ((SurfaceVehicle) e).getFuelTank().setMaxAmount(rs.getDouble("max_fuel"));
+        ((SurfaceVehicle) e).getFuelTank().setAmount(rs.getDouble("max_fuel"));
+        ((SurfaceVehicle) e).getFuelTank().setResource(loadResource(rs.getInt("fuel_id")));
+      } else if (ElementType.PROPULSIVE_VEHICLE.getName().toLowerCase().contains(elementType)) {
+        e = new PropulsiveVehicle();
+        ((PropulsiveVehicle) e).setMaxCrewSize(rs.getInt("max_crew"));
+        ((PropulsiveVehicle) e).setMaxCargoMass(rs.getDouble("cargo_mass"));
+        ((PropulsiveVehicle) e).setMaxCargoVolume(rs.getDouble("cargo_volume"));
+        ((PropulsiveVehicle) e)
+            .setCargoEnvironment(Environment.getInstance(rs.getString("cargo_environment")));
+        ((PropulsiveVehicle) e).setOmsIsp(rs.getDouble("oms_isp"));
+        ((PropulsiveVehicle) e).setRcsIsp(rs.getDouble("rcs_isp"));
+        if (((PropulsiveVehicle) e).getOmsIsp() > 0) {
+          ((PropulsiveVehicle) e).getOmsFuelTank().setMaxAmount(rs.getDouble("max_oms"));
+          ((PropulsiveVehicle) e).getOmsFuelTank().setAmount(rs.getDouble("max_oms"));
+          ((PropulsiveVehicle) e).getOmsFuelTank().setResource(loadResource(rs.getInt("oms_id")));
+        } else {
+          ((PropulsiveVehicle) e).setOmsFuelTank(null);
+        }
+        if (((PropulsiveVehicle) e).getRcsIsp() > 0 && rs.getDouble("max_rcs") > 0) {
+          ((PropulsiveVehicle) e).getRcsFuelTank().setMaxAmount(rs.getDouble("max_rcs"));
+          ((PropulsiveVehicle) e).getRcsFuelTank().setAmount(rs.getDouble("max_rcs"));
+          ((PropulsiveVehicle) e).getRcsFuelTank().setResource(loadResource(rs.getInt("rcs_id")));
+        } else if (((PropulsiveVehicle) e).getRcsIsp() > 0) {
+          ((PropulsiveVehicle) e).getContents().remove(((PropulsiveVehicle) e).getRcsFuelTank());
+          ((PropulsiveVehicle) e).setRcsFuelTank(((PropulsiveVehicle) e).getOmsFuelTank());
+        } else {
+          ((PropulsiveVehicle) e).setRcsFuelTank(null);
         }
-      }
+      } else {
+        throw new Exception("Unknown Element Type");
+      }
+      e.setTid(rs.getInt("id"));
+      e.setName(rs.getString("name"));
+      e.setClassOfSupply(ClassOfSupply.getInstance(rs.getInt("cos")));
+      e.setEnvironment(Environment.getInstance(rs.getString("environment")));
+      e.setAccommodationMass(rs.getDouble("accommodation_mass"));
+      e.setMass(rs.getDouble("mass"));
+      e.setVolume(rs.getDouble("volume"));
+      e.setDescription(rs.getString("description"));
+      if (e.getElementType() == ElementType.RESOURCE_CONTAINER) {
+        ((I_ResourceContainer) e).getContents().clear();
+        for (Record r : records.get(records.contents, e.getTid())) {
+          ((ResourceContainer) e).getContents().put(loadResource(r.getInt("resource_id")),
+              r.getDouble("amount"));
+        }
+      }
+      e.getParts().clear();
+      for (Record r : records.get(records.parts, e.getTid())) {
+        PartApplication partApp = new PartApplication();
+        partApp.setTid(r.getInt("id"));
+        partApp.setPart((Item) loadResource(r.getInt("resource_id")));
+        partApp.setQuantity(r.getInt("quantity"));
+        partApp.setDutyCycle(r.getDouble("duty_cycle"));
+        partApp.setMeanTimeToFailure(r.getDouble("mttf"));
+        partApp.setMeanTimeToRepair(r.getDouble("mttr"));
+        partApp.setMassToRepair(r.getDouble("repair_mass"));
+        e.getParts().add(partApp);
+      }
+      e.getStates().clear();
+      for (Record r : records.get(records.states, e.getTid())) {
+        State state = new State();
+        state.setTid(r.getInt("id"));
+        state.setName(r.getString("name"));
+        state.setStateType(StateType.getInstance(r.getString("type")));
+        loadModels(e, state, records);
+        e.getStates().add(state);
+        if (r.getInt("initial") == 1)
+          e.setCurrentState(state);
+      }
+      return e;
+    } catch (Exception ex) {
+      // error reading element
+      ex.printStackTrace();
     }
     return null;
   }
@@ -705,78 +621,49 @@ public class Database extends AbstractDataSource {
    * 
    * @param element the element
    * @param state the state
-   * 
-   * @throws SQLException the SQL exception
+   * @param records the records loaded for the element
    */
-  private void loadModels(I_Element element, I_State state) throws SQLException {
-    PreparedStatement stmt = null;
-    ResultSet rs = null;
-    try {
-      stmt = connection.prepareStatement("SELECT * FROM models " + "WHERE state_id=?");
-      stmt.setInt(1, state.getTid());
-      rs = stmt.executeQuery();
-      while (rs.next()) {
-        try {
-          String modelType = rs.getString("type").toLowerCase();
-          if (DemandModelType.TIMED_IMPULSE.getName().toLowerCase().contains(modelType)) {
-            TimedImpulseDemandModel model = new TimedImpulseDemandModel();
-            model.setTid(rs.getInt("id"));
-            model.setName(rs.getString("name"));
-            PreparedStatement s =
-                connection.prepareStatement("SELECT * FROM demands " + "WHERE model_id=?");
-            s.setInt(1, model.getTid());
-            ResultSet r = s.executeQuery();
-            while (r.next()) {
-              Demand demand = new Demand();
-              demand.setResource(loadResource(r.getInt("resource_id")));
-              demand.setAmount(r.getDouble("amount"));
-              model.getDemands().add(demand);
-            }
-            state.getDemandModels().add(model);
-          } else if (DemandModelType.RATED.getName().toLowerCase().contains(modelType)) {
-            RatedDemandModel model = new RatedDemandModel();
-            model.setTid(rs.getInt("id"));
-            model.setName(rs.getString("name"));
-            PreparedStatement s =
-                connection.prepareStatement("SELECT * FROM demands " + "WHERE model_id=?");
-            s.setInt(1, model.getTid());
-            ResultSet r = s.executeQuery();
-            while (r.next()) {
-              Demand demand = new Demand();
-              demand.setResource(loadResource(r.getInt("resource_id")));
-              demand.setAmount(r.getDouble("amount"));
-              model.getDemandRates().add(demand);
-            }
-            state.getDemandModels().add(model);
-          } else if (DemandModelType.SPARING_BY_MASS.getName().toLowerCase().contains(modelType)) {
-            SparingByMassDemandModel model = new SparingByMassDemandModel(element);
-            model.setTid(rs.getInt("id"));
-            model.setName(rs.getString("name"));
-            model.setElement(element);
-            model.setPartsListEnabled(rs.getInt("parts_list") == 1);
-            model.setUnpressurizedSparesRate(rs.getDouble("unpress_rate"));
-            model.setPressurizedSparesRate(rs.getDouble("press_rate"));
-            state.getDemandModels().add(model);
-          } else {
-            throw new Exception("Unknown Demand Model Type");
+  private void loadModels(I_Element element, I_State state, ElementRecords records) {
+    for (Record rs : records.get(records.models, state.getTid())) {
+      try {
+        String modelType = rs.getString("type").toLowerCase();
+        if (DemandModelType.TIMED_IMPULSE.getName().toLowerCase().contains(modelType)) {
+          TimedImpulseDemandModel model = new TimedImpulseDemandModel();
+          model.setTid(rs.getInt("id"));
+          model.setName(rs.getString("name"));
+          for (Record r : records.get(records.demands, model.getTid())) {
+            Demand demand = new Demand();
+            demand.setResource(loadResource(r.getInt("resource_id")));
+            demand.setAmount(r.getDouble("amount"));
+            model.getDemands().add(demand);
           }
-        } catch (Exception ex) {
-          // error reading model
-          ex.printStackTrace();
-        }
-      }
-    } finally {
-      if (rs != null) {
-        try {
-          rs.close();
-        } catch (SQLException ex) {
-        }
-      }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
+          state.getDemandModels().add(model);
+        } else if (DemandModelType.RATED.getName().toLowerCase().contains(modelType)) {
+          RatedDemandModel model = new RatedDemandModel();
+          model.setTid(rs.getInt("id"));
+          model.setName(rs.getString("name"));
+          for (Record r : records.get(records.demands, model.getTid())) {
+            Demand demand = new Demand();
+            demand.setResource(loadResource(r.getInt("resource_id")));
+            demand.setAmount(r.getDouble("amount"));
+            model.getDemandRates().add(demand);
+          }
+          state.getDemandModels().add(model);
+        } else if (DemandModelType.SPARING_BY_MASS.getName().toLowerCase().contains(modelType)) {
+          SparingByMassDemandModel model = new SparingByMassDemandModel(element);
+          model.setTid(rs.getInt("id"));
+          model.setName(rs.getString("name"));
+          model.setElement(element);
+          model.setPartsListEnabled(rs.getInt("parts_list") == 1);
+          model.setUnpressurizedSparesRate(rs.getDouble("unpress_rate"));
+          model.setPressurizedSparesRate(rs.getDouble("press_rate"));
+          state.getDemandModels().add(model);
+        } else {
+          throw new Exception("Unknown Demand Model Type");
         }
+      } catch (Exception ex) {
+        // error reading model
+        ex.printStackTrace();
       }
     }
   }
@@ -788,7 +675,7 @@ public class Database extends AbstractDataSource {
    */
   public void loadElementLibrary() throws SQLException {
     getElementPreviewLibrary().clear();
-    createConnection();
+    PooledConnection connection = getConnection();
     PreparedStatement stmt = null;
     ResultSet rs = null;
     try {
@@ -830,12 +717,7 @@ public class Database extends AbstractDataSource {
         } catch (SQLException ex) {
         }
       }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
+      connection.release();
     }
   }
 
@@ -850,7 +732,7 @@ public class Database extends AbstractDataSource {
       // mark all nodes as unfound
       libraryContents.put(node.getTid(), false);
     }
-    createConnection();
+    PooledConnection connection = getConnection();
     PreparedStatement stmt = null;
     ResultSet rs = null;
     try {
@@ -911,12 +793,7 @@ public class Database extends AbstractDataSource {
         } catch (SQLException ex) {
         }
       }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
+      connection.release();
     }
     for (Integer i : libraryContents.keySet()) {
       if (!libraryContents.get(i)) {
@@ -937,7 +814,7 @@ public class Database extends AbstractDataSource {
       // mark all resources as not found
       libraryContents.put(resource.getTid(), false);
     }
-    createConnection();
+    PooledConnection connection = getConnection();
     PreparedStatement stmt = null;
     ResultSet rs = null;
     try {
@@ -991,12 +868,7 @@ public class Database extends AbstractDataSource {
         } catch (SQLException ex) {
         }
       }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
+      connection.release();
     }
   }
 
@@ -1006,7 +878,7 @@ public class Database extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#saveEdge(edu.mit.spacenet.domain.network.edge.Edge)
    */
   public void saveEdge(Edge edge) throws SQLException {
-    createConnection();
+    PooledConnection connection = getConnection();
     PreparedStatement stmt = null;
     ResultSet rs = null;
     try {
@@ -1046,7 +918,8 @@ public class Database extends AbstractDataSource {
         stmt = connection.prepareStatement(
             "INSERT INTO edges " + "(type, name, origin_id, destination_id, duration, "
                 + "distance, max_crew, max_cargo, description) "
-                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+            Statement.RETURN_GENERATED_KEYS);
         stmt.setString(1, edge.getEdgeType().getName());
         stmt.setString(2, edge.getName());
         stmt.setInt(3, edge.getOrigin().getTid());
@@ -1074,15 +947,14 @@ public class Database extends AbstractDataSource {
         }
         stmt.setString(9, edge.getDescription());
         stmt.executeUpdate();
-        stmt = connection.prepareStatement("SELECT LAST_INSERT_ID() AS id");
-        rs = stmt.executeQuery();
+        rs = stmt.getGeneratedKeys();
         if (rs.next()) {
-          edge.setTid(rs.getInt("id"));
+          edge.setTid(rs.getInt(1));
           getEdgeLibrary().add(edge);
         }
       }
       if (edge.getEdgeType() == EdgeType.SPACE)
-        saveBurns(((SpaceEdge) edge));
+        saveBurns(connection, ((SpaceEdge) edge));
     } finally {
       if (rs != null) {
         try {
@@ -1090,24 +962,21 @@ public class Database extends AbstractDataSource {
         } catch (SQLException ex) {
         }
       }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
+      connection.release();
     }
   }
 
   /**
    * Saves the burns associated with an edge. Removed burns will be deleted from the data source,
    * changed burns will be updated, and added burns will be assigned a new TID and inserted.
+   * Updates and inserts are each sent as a single batch.
    * 
+   * @param connection the connection
    * @param edge the edge
    * 
    * @throws SQLException the SQL exception
    */
-  private void saveBurns(SpaceEdge edge) throws SQLException {
+  private void saveBurns(PooledConnection connection, SpaceEdge edge) throws SQLException {
     PreparedStatement stmt = null;
     ResultSet rs = null;
     try {
@@ -1123,31 +992,45 @@ public class Database extends AbstractDataSource {
         stmt.executeUpdate();
       }
 
-      // update/insert burns
-      for (Burn burn : edge.getBurns()) {
-        stmt = connection.prepareStatement("UPDATE burns "
-            + "SET `time`=?, `order`=?, type=?, delta_v=? " + "WHERE id=? AND edge_id=?");
+      // update existing burns
+      stmt = connection.prepareStatement("UPDATE burns "
+          + "SET `time`=?, `order`=?, type=?, delta_v=? " + "WHERE id=? AND edge_id=?");
+      for (int i = 0; i < edge.getBurns().size(); i++) {
+        Burn burn = edge.getBurns().get(i);
         stmt.setDouble(1, burn.getTime());
-        stmt.setInt(2, edge.getBurns().indexOf(burn));
+        stmt.setInt(2, i);
         stmt.setString(3, burn.getBurnType().getName());
         stmt.setDouble(4, burn.getDeltaV());
         stmt.setInt(5, burn.getTid());
         stmt.setInt(6, edge.getTid());
-        int i = stmt.executeUpdate();
-        if (i == 0) {
-          // insert new resource
-          stmt = connection.prepareStatement("INSERT INTO burns "
-              + "(edge_id, `time`, `order`, type, delta_v) " + "VALUES (?, ?, ?, ?, ?)");
+        stmt.addBatch();
+      }
+      int[] counts = stmt.executeBatch();
+
+      // insert new burns
+      List<Burn> burns = new ArrayList<Burn>();
+      stmt = connection.prepareStatement(
+          "INSERT INTO burns " + "(edge_id, `time`, `order`, type, delta_v) "
+              + "VALUES (?, ?, ?, ?, ?)",
+          Statement.RETURN_GENERATED_KEYS);
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] == 0) {
+          Burn burn = edge.getBurns().get(i);
           stmt.setInt(1, edge.getTid());
           stmt.setDouble(2, burn.getTime());
-          stmt.setInt(3, edge.getBurns().indexOf(burn));
+          stmt.setInt(3, i);
           stmt.setString(4, burn.getBurnType().getName());
           stmt.setDouble(5, burn.getDeltaV());
-          stmt.executeUpdate();
-          stmt = connection.prepareStatement("SELECT LAST_INSERT_ID() AS id");
-          rs = stmt.executeQuery();
+          stmt.addBatch();
+          burns.add(burn);
+        }
+      }
+      if (burns.size() > 0) {
+        stmt.executeBatch();
+        rs = stmt.getGeneratedKeys();
+        for (Burn burn : burns) {
           if (rs.next()) {
-            burn.setTid(rs.getInt("id"));
+            burn.setTid(rs.getInt(1));
           }
         }
       }
@@ -1158,12 +1041,6 @@ public class Database extends AbstractDataSource {
         } catch (SQLException ex) {
         }
       }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
     }
   }
 
@@ -1173,6 +1050,7 @@ public class Database extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#saveElement(edu.mit.spacenet.domain.element.I_Element)
    */
   public void saveElement(I_Element element) throws SQLException {
+    PooledConnection connection = getConnection();
     PreparedStatement stmt = null;
     ResultSet rs = null;
     try {
@@ -1221,7 +1099,6 @@ public class Database extends AbstractDataSource {
         stmt.setNull(19, Types.DOUBLE);
         stmt.setNull(20, Types.DOUBLE);
         stmt.setNull(21, Types.INTEGER);
-        saveContents((ResourceContainer) element);
       } else if (element.getElementType() == ElementType.CREW_MEMBER) {
         stmt.setNull(8, Types.INTEGER);
         stmt.setNull(9, Types.DOUBLE);
@@ -1313,7 +1190,8 @@ public class Database extends AbstractDataSource {
             + "mass, volume, max_crew, cargo_mass, cargo_volume, "
             + "cargo_environment, active_fraction, oms_isp, max_oms, "
             + "oms_id, rcs_isp, max_rcs, rcs_id, max_speed, max_fuel, " + "fuel_id, description) "
-            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, " + "?, ?, ?, ?, ?, ?, ?)");
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, " + "?, ?, ?, ?, ?, ?, ?)",
+            Statement.RETURN_GENERATED_KEYS);
         stmt.setString(1, element.getElementType().getName());
         stmt.setString(2, element.getName());
         stmt.setInt(3, element.getClassOfSupply().getId());
@@ -1352,7 +1230,6 @@ public class Database extends AbstractDataSource {
           stmt.setNull(19, Types.DOUBLE);
           stmt.setNull(20, Types.DOUBLE);
           stmt.setNull(21, Types.INTEGER);
-          saveContents((ResourceContainer) element);
         } else if (element.getElementType() == ElementType.CREW_MEMBER) {
           stmt.setNull(8, Types.INTEGER);
           stmt.setNull(9, Types.DOUBLE);
@@ -1437,10 +1314,9 @@ public class Database extends AbstractDataSource {
         }
         stmt.setString(22, element.getDescription());
         stmt.executeUpdate();
-        stmt = connection.prepareStatement("SELECT LAST_INSERT_ID() AS id");
-        rs = stmt.executeQuery();
+        rs = stmt.getGeneratedKeys();
         if (rs.next()) {
-          element.setTid(rs.getInt("id"));
+          element.setTid(rs.getInt(1));
         }
         elementPreviewLibrary.add(new ElementPreview(element.getTid(), element.getName(),
             element.getElementType(), element.getIconType()));
@@ -1449,8 +1325,10 @@ public class Database extends AbstractDataSource {
         elementPreviewLibrary.add(new ElementPreview(element.getTid(), element.getName(),
             element.getElementType(), element.getIconType()));
       }
-      saveParts(element);
-      saveStates(element);
+      if (element.getElementType() == ElementType.RESOURCE_CONTAINER)
+        saveContents(connection, (ResourceContainer) element);
+      saveParts(connection, element);
+      saveStates(connection, element);
     } finally {
       if (rs != null) {
         try {
@@ -1458,75 +1336,75 @@ public class Database extends AbstractDataSource {
         } catch (SQLException ex) {
         }
       }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
+      connection.release();
     }
   }
 
   /**
    * Saves the contents of a resource container. Removed resources will be deleted from the data
-   * source, changed resources will be updated, and added resources will be inserted.
+   * source, changed resources will be updated, and added resources will be inserted. Updates and
+   * inserts are each sent as a single batch.
    * 
+   * @param connection the connection
    * @param container the container
    * 
    * @throws SQLException the SQL exception
    */
-  private void saveContents(I_ResourceContainer container) throws SQLException {
+  private void saveContents(PooledConnection connection, I_ResourceContainer container)
+      throws SQLException {
     PreparedStatement stmt = null;
-    try {
-      // delete unused contents
-      if (container.getContents().keySet().size() > 0) {
-        String resourceList = "";
-        for (I_Resource resource : container.getContents().keySet())
-          resourceList += resource.getTid() + ", ";
-        resourceList = resourceList.substring(0, resourceList.length() - 2);
-        stmt = connection.prepareStatement("DELETE FROM demands " + "WHERE container_id = ? "
-            + "AND resource_id NOT IN (" + resourceList + ")");
-        stmt.setInt(1, container.getTid());
-        stmt.executeUpdate();
-      }
+    // delete unused contents
+    if (container.getContents().keySet().size() > 0) {
+      String resourceList = "";
+      for (I_Resource resource : container.getContents().keySet())
+        resourceList += resource.getTid() + ", ";
+      resourceList = resourceList.substring(0, resourceList.length() - 2);
+      stmt = connection.prepareStatement("DELETE FROM demands " + "WHERE container_id = ? "
+          + "AND resource_id NOT IN (" + resourceList + ")");
+      stmt.setInt(1, container.getTid());
+      stmt.executeUpdate();
+    }
 
-      // update/insert contents
-      for (I_Resource resource : container.getContents().keySet()) {
-        stmt = connection.prepareStatement(
-            "UPDATE demands " + "SET amount=? " + "WHERE resource_id=? AND container_id=? ");
-        stmt.setDouble(1, container.getContents().get(resource));
-        stmt.setInt(2, resource.getTid());
-        stmt.setInt(3, container.getTid());
-        int i = stmt.executeUpdate();
-        if (i == 0) {
-          // insert new contents
-          stmt = connection.prepareStatement("INSERT INTO demands "
-              + "(resource_id, container_id, amount) " + "VALUES (?, ?, ?) ");
-          stmt.setInt(1, resource.getTid());
-          stmt.setInt(2, container.getTid());
-          stmt.setDouble(3, container.getContents().get(resource));
-          stmt.executeUpdate();
-        }
-      }
-    } finally {
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
+    // update existing contents
+    List<I_Resource> resources = new ArrayList<I_Resource>(container.getContents().keySet());
+    stmt = connection.prepareStatement(
+        "UPDATE demands " + "SET amount=? " + "WHERE resource_id=? AND container_id=? ");
+    for (I_Resource resource : resources) {
+      stmt.setDouble(1, container.getContents().get(resource));
+      stmt.setInt(2, resource.getTid());
+      stmt.setInt(3, container.getTid());
+      stmt.addBatch();
+    }
+    int[] counts = stmt.executeBatch();
+
+    // insert new contents
+    boolean inserts = false;
+    stmt = connection.prepareStatement(
+        "INSERT INTO demands " + "(resource_id, container_id, amount) " + "VALUES (?, ?, ?) ");
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] == 0) {
+        stmt.setInt(1, resources.get(i).getTid());
+        stmt.setInt(2, container.getTid());
+        stmt.setDouble(3, container.getContents().get(resources.get(i)));
+        stmt.addBatch();
+        inserts = true;
       }
     }
+    if (inserts)
+      stmt.executeBatch();
   }
 
   /**
    * Saves the parts associated with an element. Removed parts will be deleted from the data source,
-   * changed parts will be updated, and added parts will be inserted.
+   * changed parts will be updated, and added parts will be inserted. Updates and inserts are each
+   * sent as a single batch.
    * 
+   * @param connection the connection
    * @param element the element
    * 
    * @throws SQLException the SQL exception
    */
-  private void saveParts(I_Element element) throws SQLException {
+  private void saveParts(PooledConnection connection, I_Element element) throws SQLException {
     PreparedStatement stmt = null;
     ResultSet rs = null;
     try {
@@ -1542,11 +1420,12 @@ public class Database extends AbstractDataSource {
         stmt.executeUpdate();
       }
 
-      // update/insert parts
-      for (PartApplication part : element.getParts()) {
-        stmt = connection
-            .prepareStatement("UPDATE parts " + "SET quantity=?, duty_cycle=?, mttf=?, mttr=?, "
-                + "repair_mass=? " + "WHERE resource_id=? AND element_id=? ");
+      // update existing parts
+      List<PartApplication> parts = new ArrayList<PartApplication>(element.getParts());
+      stmt = connection
+          .prepareStatement("UPDATE parts " + "SET quantity=?, duty_cycle=?, mttf=?, mttr=?, "
+              + "repair_mass=? " + "WHERE resource_id=? AND element_id=? ");
+      for (PartApplication part : parts) {
         stmt.setDouble(1, part.getQuantity());
         stmt.setDouble(2, part.getDutyCycle());
         stmt.setDouble(3, part.getMeanTimeToFailure());
@@ -1554,12 +1433,19 @@ public class Database extends AbstractDataSource {
         stmt.setDouble(5, part.getMassToRepair());
         stmt.setInt(6, part.getPart().getTid());
         stmt.setInt(7, element.getTid());
-        int i = stmt.executeUpdate();
-        if (i == 0) {
-          // insert new part
-          stmt = connection.prepareStatement(
-              "INSERT INTO parts " + "(resource_id, element_id, quantity, duty_cycle, "
-                  + "mttf, mttr, repair_mass) " + "VALUES (?, ?, ?, ?, ?, ?, ?) ");
+        stmt.addBatch();
+      }
+      int[] counts = stmt.executeBatch();
+
+      // insert new parts
+      List<PartApplication> inserted = new ArrayList<PartApplication>();
+      stmt = connection.prepareStatement(
+          "INSERT INTO parts " + "(resource_id, element_id, quantity, duty_cycle, "
+              + "mttf, mttr, repair_mass) " + "VALUES (?, ?, ?, ?, ?, ?, ?) ",
+          Statement.RETURN_GENERATED_KEYS);
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] == 0) {
+          PartApplication part = parts.get(i);
           stmt.setInt(1, part.getPart().getTid());
           stmt.setInt(2, element.getTid());
           stmt.setDouble(3, part.getQuantity());
@@ -1567,10 +1453,16 @@ public class Database extends AbstractDataSource {
           stmt.setDouble(5, part.getMeanTimeToFailure());
           stmt.setDouble(6, part.getMeanTimeToRepair());
           stmt.setDouble(7, part.getMassToRepair());
-          stmt.executeUpdate();
-          rs = stmt.executeQuery("SELECT LAST_INSERT_ID() as id");
+          stmt.addBatch();
+          inserted.add(part);
+        }
+      }
+      if (inserted.size() > 0) {
+        stmt.executeBatch();
+        rs = stmt.getGeneratedKeys();
+        for (PartApplication part : inserted) {
           if (rs.next()) {
-            part.setTid(rs.getInt("id"));
+            part.setTid(rs.getInt(1));
           }
         }
       }
@@ -1581,25 +1473,20 @@ public class Database extends AbstractDataSource {
         } catch (SQLException ex) {
         }
       }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
     }
   }
 
   /**
    * Saves the states associated with an element. Removed states will be deleted from the data
    * source, changed states will be updated, and added states will be assigned a new TID and
-   * inserted.
+   * inserted. Updates and inserts are each sent as a single batch.
    * 
+   * @param connection the connection
    * @param element the element
    * 
    * @throws SQLException the SQL exception
    */
-  private void saveStates(I_Element element) throws SQLException {
+  private void saveStates(PooledConnection connection, I_Element element) throws SQLException {
     PreparedStatement stmt = null;
     ResultSet rs = null;
     try {
@@ -1615,30 +1502,43 @@ public class Database extends AbstractDataSource {
         stmt.executeUpdate();
       }
 
-      // update/insert states
-      for (I_State state : element.getStates()) {
-        stmt = connection
-            .prepareStatement("UPDATE states " + "SET name=?, type=?, initial=? " + "WHERE id=? ");
+      // update existing states
+      List<I_State> states = new ArrayList<I_State>(element.getStates());
+      stmt = connection
+          .prepareStatement("UPDATE states " + "SET name=?, type=?, initial=? " + "WHERE id=? ");
+      for (I_State state : states) {
         stmt.setString(1, state.getName());
         stmt.setString(2, state.getStateType().getName());
         stmt.setInt(3, element.getCurrentState() == state ? 1 : 0);
         stmt.setInt(4, state.getTid());
-        int i = stmt.executeUpdate();
-        if (i == 0) {
-          // insert new state
-          stmt = connection.prepareStatement("INSERT INTO states "
-              + "(element_id, name, type, initial) " + "VALUES (?, ?, ?, ?) ");
+        stmt.addBatch();
+      }
+      int[] counts = stmt.executeBatch();
+
+      // insert new states
+      List<I_State> inserted = new ArrayList<I_State>();
+      stmt = connection.prepareStatement("INSERT INTO states "
+          + "(element_id, name, type, initial) " + "VALUES (?, ?, ?, ?) ",
+          Statement.RETURN_GENERATED_KEYS);
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] == 0) {
+          I_State state = states.get(i);
           stmt.setInt(1, element.getTid());
           stmt.setString(2, state.getName());
           stmt.setString(3, state.getStateType().getName());
           stmt.setInt(4, element.getCurrentState() == state ? 1 : 0);
-          stmt.executeUpdate();
-          rs = stmt.executeQuery("SELECT LAST_INSERT_ID() as id");
+          stmt.addBatch();
+          inserted.add(state);
+        }
+      }
+      if (inserted.size() > 0) {
+        stmt.executeBatch();
+        rs = stmt.getGeneratedKeys();
+        for (I_State state : inserted) {
           if (rs.next()) {
-            state.setTid(rs.getInt("id"));
+            state.setTid(rs.getInt(1));
           }
         }
-        saveModels(state);
       }
     } finally {
       if (rs != null) {
@@ -1647,86 +1547,99 @@ public class Database extends AbstractDataSource {
         } catch (SQLException ex) {
         }
       }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
     }
+    saveModels(connection, element.getStates());
   }
 
   /**
-   * Saves the associated demand models contained within a state. Removed models will be deleted
-   * from the data source, changed models will be updated, and added models will assigned a new TID
-   * and be inserted.
+   * Saves the associated demand models contained within the states of an element. Removed models
+   * will be deleted from the data source, changed models will be updated, and added models will
+   * assigned a new TID and be inserted. The models of all states are updated and inserted in single
+   * batches.
    * 
-   * @param state the state
+   * @param connection the connection
+   * @param states the states
    * 
    * @throws SQLException the SQL exception
    */
-  private void saveModels(I_State state) throws SQLException {
+  private void saveModels(PooledConnection connection, Collection<I_State> states)
+      throws SQLException {
     PreparedStatement stmt = null;
     ResultSet rs = null;
+    List<I_DemandModel> models = new ArrayList<I_DemandModel>();
     try {
       // delete unused models
-      if (state.getDemandModels().size() > 0) {
-        String modelsList = "";
-        for (I_DemandModel model : state.getDemandModels())
-          modelsList += model.getTid() + ", ";
-        modelsList = modelsList.substring(0, modelsList.length() - 2);
-        stmt = connection.prepareStatement(
-            "DELETE FROM models " + "WHERE state_id = ? " + "AND id NOT IN (" + modelsList + ")");
-        stmt.setInt(1, state.getTid());
-        stmt.executeUpdate();
+      for (I_State state : states) {
+        if (state.getDemandModels().size() > 0) {
+          String modelsList = "";
+          for (I_DemandModel model : state.getDemandModels())
+            modelsList += model.getTid() + ", ";
+          modelsList = modelsList.substring(0, modelsList.length() - 2);
+          stmt = connection.prepareStatement(
+              "DELETE FROM models " + "WHERE state_id = ? " + "AND id NOT IN (" + modelsList + ")");
+          stmt.setInt(1, state.getTid());
+          stmt.executeUpdate();
+        }
       }
 
-      // update/insert models
-      for (I_DemandModel model : state.getDemandModels()) {
-        stmt = connection.prepareStatement("UPDATE models "
-            + "SET type=?, name=?, parts_list=?, unpress_rate=?, press_rate=? " + "WHERE id=? ");
-        stmt.setString(1, model.getDemandModelType().getName());
-        stmt.setString(2, model.getName());
-        stmt.setInt(6, model.getTid());
-        if (model.getDemandModelType() == DemandModelType.TIMED_IMPULSE
-            || model.getDemandModelType() == DemandModelType.RATED) {
-          stmt.setNull(3, Types.INTEGER);
-          stmt.setNull(4, Types.DOUBLE);
-          stmt.setNull(5, Types.DOUBLE);
-          saveDemands(model);
-        } else if (model.getDemandModelType() == DemandModelType.SPARING_BY_MASS) {
-          stmt.setInt(3, ((SparingByMassDemandModel) model).isPartsListEnabled() ? 1 : 0);
-          stmt.setDouble(4, ((SparingByMassDemandModel) model).getUnpressurizedSparesRate());
-          stmt.setDouble(5, ((SparingByMassDemandModel) model).getPressurizedSparesRate());
+      // update existing models
+      List<I_State> modelStates = new ArrayList<I_State>();
+      stmt = connection.prepareStatement("UPDATE models "
+          + "SET type=?, name=?, parts_list=?, unpress_rate=?, press_rate=? " + "WHERE id=? ");
+      for (I_State state : states) {
+        for (I_DemandModel model : state.getDemandModels()) {
+          stmt.setString(1, model.getDemandModelType().getName());
+          stmt.setString(2, model.getName());
+          stmt.setInt(6, model.getTid());
+          if (model.getDemandModelType() == DemandModelType.TIMED_IMPULSE
+              || model.getDemandModelType() == DemandModelType.RATED) {
+            stmt.setNull(3, Types.INTEGER);
+            stmt.setNull(4, Types.DOUBLE);
+            stmt.setNull(5, Types.DOUBLE);
+          } else if (model.getDemandModelType() == DemandModelType.SPARING_BY_MASS) {
+            stmt.setInt(3, ((SparingByMassDemandModel) model).isPartsListEnabled() ? 1 : 0);
+            stmt.setDouble(4, ((SparingByMassDemandModel) model).getUnpressurizedSparesRate());
+            stmt.setDouble(5, ((SparingByMassDemandModel) model).getPressurizedSparesRate());
+          }
+          stmt.addBatch();
+          models.add(model);
+          modelStates.add(state);
         }
-        int i = stmt.executeUpdate();
-        if (i == 0) {
-          // insert new model
-          stmt = connection.prepareStatement("INSERT INTO models "
-              + "(state_id, type, name, parts_list, unpress_rate, press_rate) "
-              + "VALUES (?, ?, ?, ?, ?, ?) ");
-          stmt.setInt(1, state.getTid());
+      }
+      int[] counts = stmt.executeBatch();
+
+      // insert new models
+      List<I_DemandModel> inserted = new ArrayList<I_DemandModel>();
+      stmt = connection.prepareStatement(
+          "INSERT INTO models " + "(state_id, type, name, parts_list, unpress_rate, press_rate) "
+              + "VALUES (?, ?, ?, ?, ?, ?) ",
+          Statement.RETURN_GENERATED_KEYS);
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] == 0) {
+          I_DemandModel model = models.get(i);
+          stmt.setInt(1, modelStates.get(i).getTid());
           stmt.setString(2, model.getDemandModelType().getName());
           stmt.setString(3, model.getName());
-          if (model.getDemandModelType() == DemandModelType.TIMED_IMPULSE) {
+          if (model.getDemandModelType() == DemandModelType.TIMED_IMPULSE
+              || model.getDemandModelType() == DemandModelType.RATED) {
             stmt.setNull(4, Types.INTEGER);
             stmt.setNull(5, Types.DOUBLE);
             stmt.setNull(6, Types.DOUBLE);
-            saveDemands(model);
-          } else if (model.getDemandModelType() == DemandModelType.RATED) {
-            stmt.setNull(4, Types.INTEGER);
-            stmt.setNull(5, Types.DOUBLE);
-            stmt.setNull(6, Types.DOUBLE);
-            saveDemands(model);
           } else if (model.getDemandModelType() == DemandModelType.SPARING_BY_MASS) {
             stmt.setInt(4, ((SparingByMassDemandModel) model).isPartsListEnabled() ? 1 : 0);
             stmt.setDouble(5, ((SparingByMassDemandModel) model).getUnpressurizedSparesRate());
             stmt.setDouble(6, ((SparingByMassDemandModel) model).getPressurizedSparesRate());
           }
-          stmt.executeUpdate();
-          rs = stmt.executeQuery("SELECT LAST_INSERT_ID() as id");
+          stmt.addBatch();
+          inserted.add(model);
+        }
+      }
+      if (inserted.size() > 0) {
+        stmt.executeBatch();
+        rs = stmt.getGeneratedKeys();
+        for (I_DemandModel model : inserted) {
           if (rs.next()) {
-            model.setTid(rs.getInt("id"));
+            model.setTid(rs.getInt(1));
           }
         }
       }
@@ -1737,98 +1650,78 @@ public class Database extends AbstractDataSource {
         } catch (SQLException ex) {
         }
       }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
     }
+    saveDemands(connection, models);
   }
 
   /**
-   * Saves any associated demands from a demand model. Demands that have been removed will be
-   * deleted from the data source, demands that have been changed will be updated, and added demands
-   * will be inserted.
+   * Saves any associated demands from demand models. Demands that have been removed will be deleted
+   * from the data source, demands that have been changed will be updated, and added demands will be
+   * inserted. The demands of all models are updated and inserted in single batches.
    * 
-   * @param model the model
+   * @param connection the connection
+   * @param models the models
    * 
    * @throws SQLException the SQL exception
    */
-  private void saveDemands(I_DemandModel model) throws SQLException {
+  private void saveDemands(PooledConnection connection, List<I_DemandModel> models)
+      throws SQLException {
     PreparedStatement stmt = null;
-    try {
+    List<Demand> demands = new ArrayList<Demand>();
+    List<I_DemandModel> demandModels = new ArrayList<I_DemandModel>();
+    for (I_DemandModel model : models) {
+      SortedSet<Demand> modelDemands;
       if (model.getDemandModelType() == DemandModelType.TIMED_IMPULSE) {
-        // delete unused demands
-        if (((TimedImpulseDemandModel) model).getDemands().size() > 0) {
-          String demandsList = "";
-          for (Demand demand : ((TimedImpulseDemandModel) model).getDemands())
-            demandsList += demand.getResource().getTid() + ", ";
-          demandsList = demandsList.substring(0, demandsList.length() - 2);
-          stmt = connection.prepareStatement("DELETE FROM demands " + "WHERE model_id = ? "
-              + "AND resource_id NOT IN (" + demandsList + ")");
-          stmt.setInt(1, model.getTid());
-          stmt.executeUpdate();
-        }
-
-        // update/insert demands
-        for (Demand demand : ((TimedImpulseDemandModel) model).getDemands()) {
-          stmt = connection.prepareStatement(
-              "UPDATE demands " + "SET amount=? " + "WHERE resource_id=? AND model_id=? ");
-          stmt.setDouble(1, demand.getAmount());
-          stmt.setInt(2, demand.getResource().getTid());
-          stmt.setInt(3, model.getTid());
-          int i = stmt.executeUpdate();
-          if (i == 0) {
-            // insert new demand
-            stmt = connection.prepareStatement(
-                "INSERT INTO demands " + "(resource_id, model_id, amount) " + "VALUES (?, ?, ?) ");
-            stmt.setInt(1, demand.getResource().getTid());
-            stmt.setInt(2, model.getTid());
-            stmt.setDouble(3, demand.getAmount());
-            stmt.executeUpdate();
-          }
-        }
+        modelDemands = ((TimedImpulseDemandModel) model).getDemands();
       } else if (model.getDemandModelType() == DemandModelType.RATED) {
-        // delete unused demands
-        if (((RatedDemandModel) model).getDemandRates().size() > 0) {
-          String demandsList = "";
-          for (Demand demand : ((RatedDemandModel) model).getDemandRates())
-            demandsList += demand.getResource().getTid() + ", ";
-          demandsList = demandsList.substring(0, demandsList.length() - 2);
-          stmt = connection.prepareStatement("DELETE FROM demands " + "WHERE model_id = ? "
-              + "AND resource_id NOT IN (" + demandsList + ")");
-          stmt.setInt(1, model.getTid());
-          stmt.executeUpdate();
-        }
+        modelDemands = ((RatedDemandModel) model).getDemandRates();
+      } else {
+        continue;
+      }
 
-        // update/insert demands
-        for (Demand demand : ((RatedDemandModel) model).getDemandRates()) {
-          stmt = connection.prepareStatement(
-              "UPDATE demands " + "SET amount=? " + "WHERE resource_id=? AND model_id=? ");
-          stmt.setDouble(1, demand.getAmount());
-          stmt.setInt(2, demand.getResource().getTid());
-          stmt.setInt(3, model.getTid());
-          int i = stmt.executeUpdate();
-          if (i == 0) {
-            // insert new demand
-            stmt = connection.prepareStatement(
-                "INSERT INTO demands " + "(resource_id, model_id, amount) " + "VALUES (?, ?, ?) ");
-            stmt.setInt(1, demand.getResource().getTid());
-            stmt.setInt(2, model.getTid());
-            stmt.setDouble(3, demand.getAmount());
-            stmt.executeUpdate();
-          }
-        }
+      // delete unused demands
+      if (modelDemands.size() > 0) {
+        String demandsList = "";
+        for (Demand demand : modelDemands)
+          demandsList += demand.getResource().getTid() + ", ";
+        demandsList = demandsList.substring(0, demandsList.length() - 2);
+        stmt = connection.prepareStatement("DELETE FROM demands " + "WHERE model_id = ? "
+            + "AND resource_id NOT IN (" + demandsList + ")");
+        stmt.setInt(1, model.getTid());
+        stmt.executeUpdate();
       }
-    } finally {
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
+      for (Demand demand : modelDemands) {
+        demands.add(demand);
+        demandModels.add(model);
       }
     }
+
+    // update existing demands
+    stmt = connection.prepareStatement(
+        "UPDATE demands " + "SET amount=? " + "WHERE resource_id=? AND model_id=? ");
+    for (int i = 0; i < demands.size(); i++) {
+      stmt.setDouble(1, demands.get(i).getAmount());
+      stmt.setInt(2, demands.get(i).getResource().getTid());
+      stmt.setInt(3, demandModels.get(i).getTid());
+      stmt.addBatch();
+    }
+    int[] counts = stmt.executeBatch();
+
+    // insert new demands
+    boolean inserts = false;
+    stmt = connection.prepareStatement(
+        "INSERT INTO demands " + "(resource_id, model_id, amount) " + "VALUES (?, ?, ?) ");
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] == 0) {
+        stmt.setInt(1, demands.get(i).getResource().getTid());
+        stmt.setInt(2, demandModels.get(i).getTid());
+        stmt.setDouble(3, demands.get(i).getAmount());
+        stmt.addBatch();
+        inserts = true;
+      }
+    }
+    if (inserts)
+      stmt.executeBatch();
   }
 
   /*
@@ -1837,7 +1730,7 @@ public class Database extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#saveNode(edu.mit.spacenet.domain.network.node.Node)
    */
   public void saveNode(Node node) throws SQLException {
-    createConnection();
+    PooledConnection connection = getConnection();
     PreparedStatement stmt = null;
     ResultSet rs = null;
     try {
@@ -1876,10 +1769,11 @@ public class Database extends AbstractDataSource {
       int i = stmt.executeUpdate();
       if (i == 0) {
         // insert new node
-        stmt = connection
-            .prepareStatement("INSERT INTO nodes " + "(type, name, body_1, latitude, longitude, "
+        stmt = connection.prepareStatement(
+            "INSERT INTO nodes " + "(type, name, body_1, latitude, longitude, "
                 + "apoapsis, periapsis, inclination, body_2, " + "lp_number, description) "
-                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+            Statement.RETURN_GENERATED_KEYS);
         stmt.setString(1, node.getNodeType().getName());
         stmt.setString(2, node.getName());
         stmt.setString(3, node.getBody().getName());
@@ -1908,10 +1802,9 @@ public class Database extends AbstractDataSource {
         }
         stmt.setString(11, node.getDescription());
         stmt.executeUpdate();
-        stmt = connection.prepareStatement("SELECT LAST_INSERT_ID() AS id");
-        rs = stmt.executeQuery();
+        rs = stmt.getGeneratedKeys();
         if (rs.next()) {
-          node.setTid(rs.getInt("id"));
+          node.setTid(rs.getInt(1));
           getNodeLibrary().add(node);
         }
       }
@@ -1922,12 +1815,7 @@ public class Database extends AbstractDataSource {
         } catch (SQLException ex) {
         }
       }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
+      connection.release();
     }
   }
 
@@ -1938,7 +1826,7 @@ public class Database extends AbstractDataSource {
    * edu.mit.spacenet.data.I_DataSource#saveResource(edu.mit.spacenet.domain.resource.I_Resource)
    */
   public void saveResource(I_Resource resource) throws SQLException {
-    createConnection();
+    PooledConnection connection = getConnection();
     PreparedStatement stmt = null;
     ResultSet rs = null;
     try {
@@ -1960,7 +1848,8 @@ public class Database extends AbstractDataSource {
         // insert new resource
         stmt = connection.prepareStatement("INSERT INTO resources "
             + "(type, name, cos, units, unit_mass, unit_volume, "
-            + "packing_factor, environment, description) " + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            + "packing_factor, environment, description) " + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+            Statement.RETURN_GENERATED_KEYS);
         stmt.setString(1, resource.getResourceType().getName());
         stmt.setString(2, resource.getName());
         stmt.setInt(3, resource.getClassOfSupply().getId());
@@ -1971,10 +1860,9 @@ public class Database extends AbstractDataSource {
         stmt.setString(8, resource.getEnvironment().getName());
         stmt.setString(9, resource.getDescription());
         stmt.executeUpdate();
-        stmt = connection.prepareStatement("SELECT LAST_INSERT_ID() AS id");
-        rs = stmt.executeQuery();
+        rs = stmt.getGeneratedKeys();
         if (rs.next()) {
-          resource.setTid(rs.getInt("id"));
+          resource.setTid(rs.getInt(1));
           getResourceLibrary().add(resource);
         }
       }
@@ -1985,12 +1873,7 @@ public class Database extends AbstractDataSource {
         } catch (SQLException ex) {
         }
       }
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
+      connection.release();
     }
   }
 
@@ -2005,22 +1888,170 @@ public class Database extends AbstractDataSource {
   }
 
   /**
-   * Creates the connection.
+   * Creates a connection to check that the database can be reached. Connections are pooled, so
+   * the connection is returned to the pool for use by later queries.
    * 
    * @throws SQLException the SQL exception
    */
   public void createConnection() throws SQLException {
-    if (connection == null) {
-      if (port == null) {
-        connection = DriverManager.getConnection(
-            "jdbc:mysql://" + host + "/" + database + "?user=" + user + "&password=" + password);
-      } else {
-        connection = DriverManager.getConnection("jdbc:mysql://" + host + ":" + port + "/"
-            + database + "?user=" + user + "&password=" + password);
+    getConnection().release();
+  }
+
+  /**
+   * Gets a pooled connection to the database. The connection must be released once it is no longer
+   * needed.
+   * 
+   * @return the connection
+   * 
+   * @throws SQLException the SQL exception
+   */
+  private PooledConnection getConnection() throws SQLException {
+    return ConnectionPool.get(getUrl(), user, password).acquire();
+  }
+
+  /**
+   * Gets the JDBC url of the database. Batched statements are rewritten into multi-row statements
+   * by the MySQL driver.
+   * 
+   * @return the JDBC url
+   */
+  protected String getUrl() {
+    return "jdbc:mysql://" + host + (port == null ? "" : ":" + port) + "/" + database
+        + "?rewriteBatchedStatements=true";
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.data.AbstractDataSource#getLibraryKey()
+   */
+  protected String getLibraryKey() {
+    return "database:" + user + "@" + getUrl();
+  }
+
+  /**
+   * Gets the library version from the checksums of the library tables. MySQL computes each checksum
+   * over the table contents without sending any rows, so any insert, update, or delete changes the
+   * version. If the checksums cannot be computed (e.g. a missing table, or a database that does not
+   * support CHECKSUM TABLE), the version is unknown and the libraries are read from the database.
+   * 
+   * @return the library version, or null if it cannot be determined
+   */
+  protected String getLibraryVersion() {
+    PooledConnection connection = null;
+    ResultSet rs = null;
+    try {
+      connection = getConnection();
+      PreparedStatement stmt = connection.prepareStatement("CHECKSUM TABLE " + LIBRARY_TABLES);
+      rs = stmt.executeQuery();
+      StringBuilder version = new StringBuilder();
+      while (rs.next()) {
+        long checksum = rs.getLong(2);
+        if (rs.wasNull())
+          return null;
+        version.append(rs.getString(1)).append(':').append(checksum).append(';');
+      }
+      return version.length() == 0 ? null : version.toString();
+    } catch (SQLException ex) {
+      return null;
+    } finally {
+      if (rs != null) {
+        try {
+          rs.close();
+        } catch (SQLException ex) {
+        }
       }
+      if (connection != null)
+        connection.release();
     }
   }
 
+  /**
+   * Runs a query and reads all of the resulting rows.
+   * 
+   * @param stmt the prepared query
+   * 
+   * @return the records
+   * 
+   * @throws SQLException the SQL exception
+   */
+  private static List<Record> query(PreparedStatement stmt) throws SQLException {
+    List<Record> records = new ArrayList<Record>();
+    ResultSet rs = stmt.executeQuery();
+    try {
+      ResultSetMetaData metaData = rs.getMetaData();
+      String[] columns = new String[metaData.getColumnCount()];
+      for (int i = 0; i < columns.length; i++) {
+        columns[i] = metaData.getColumnLabel(i + 1).toLowerCase();
+      }
+      while (rs.next()) {
+        Record record = new Record();
+        for (int i = 0; i < columns.length; i++) {
+          record.values.put(columns[i], rs.getObject(i + 1));
+        }
+        records.add(record);
+      }
+    } finally {
+      rs.close();
+    }
+    return records;
+  }
+
+  /**
+   * Runs a query for the rows that match a list of ids, where the %s in the query is replaced by
+   * the list of parameters. Long lists are split across several queries and each list of
+   * parameters is padded to a power of two, so only a few distinct statements are prepared.
+   * 
+   * @param connection the connection
+   * @param sql the query
+   * @param ids the ids
+   * 
+   * @return the records
+   * 
+   * @throws SQLException the SQL exception
+   */
+  private static List<Record> query(PooledConnection connection, String sql, List<Integer> ids)
+      throws SQLException {
+    List<Record> records = new ArrayList<Record>();
+    for (int from = 0; from < ids.size(); from += MAX_PARAMETERS) {
+      List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_PARAMETERS));
+      int size = Integer.highestOneBit(chunk.size());
+      if (size < chunk.size())
+        size *= 2;
+      String parameters = "?";
+      for (int i = 1; i < size; i++) {
+        parameters += ", ?";
+      }
+      PreparedStatement stmt = connection.prepareStatement(String.format(sql, parameters));
+      for (int i = 0; i < size; i++) {
+        stmt.setInt(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+      }
+      records.addAll(query(stmt));
+    }
+    return records;
+  }
+
+  /**
+   * Groups records by the value of a column.
+   * 
+   * @param records the records
+   * @param column the column
+   * 
+   * @return the records, grouped by column value in their original order
+   */
+  private static Map<Integer, List<Record>> group(List<Record> records, String column) {
+    Map<Integer, List<Record>> groups = new HashMap<Integer, List<Record>>();
+    for (Record record : records) {
+      List<Record> group = groups.get(record.getInt(column));
+      if (group == null) {
+        group = new ArrayList<Record>();
+        groups.put(record.getInt(column), group);
+      }
+      group.add(record);
+    }
+    return groups;
+  }
+
   /**
    * Gets the host.
    * 
@@ -2117,7 +2148,7 @@ public class Database extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#format()
    */
   public void format() throws SQLException {
-    createConnection();
+    PooledConnection connection = getConnection();
     PreparedStatement stmt = null;
     try {
       String query = new String();
@@ -2190,12 +2221,52 @@ public class Database extends AbstractDataSource {
       stmt = connection.prepareStatement("");
       stmt.executeUpdate();
     } finally {
-      if (stmt != null) {
-        try {
-          stmt.close();
-        } catch (SQLException ex) {
-        }
-      }
+      connection.release();
+    }
+  }
+
+  /**
+   * A row read from a query, with values keyed by lower-case column label. Values are read with
+   * the same conventions as a result set, so null numbers are read as zero.
+   */
+  private static class Record {
+    private final Map<String, Object> values = new HashMap<String, Object>();
+
+    int getInt(String column) {
+      Object value = values.get(column);
+      if (value instanceof Number)
+        return ((Number) value).intValue();
+      else if (value instanceof Boolean)
+        return ((Boolean) value) ? 1 : 0;
+      else
+        return value == null ? 0 : Integer.parseInt(value.toString());
+    }
+
+    double getDouble(String column) {
+      Object value = values.get(column);
+      if (value instanceof Number)
+        return ((Number) value).doubleValue();
+      else
+        return value == null ? 0 : Double.parseDouble(value.toString());
+    }
+
+    String getString(String column) {
+      Object value = values.get(column);
+      return value == null ? null : value.toString();
+    }
+  }
+
+  /**
+   * The records loaded for a set of elements, with child records grouped by the id of their
+   * parent.
+   */
+  private static class ElementRecords {
+    private Map<Integer, Record> elements = new HashMap<Integer, Record>();
+    private Map<Integer, List<Record>> contents, parts, states, models, demands;
+
+    List<Record> get(Map<Integer, List<Record>> records, int id) {
+      List<Record> group = records.get(id);
+      return group == null ? Collections.<Record>emptyList() : group;
     }
   }
 }
@@ -171,6 +171,17 @@ public interface I_DataSource {
    */
   public I_Element loadElement(int tid) throws Exception;
 
+  /**
+   * Loads a list of elements from the data source by their primary keys (type IDs). Each element is
+   * a new instance, even if its primary key is repeated in the list.
+   * 
+   * @param tids the primary keys (type IDs)
+   * 
+   * @return the elements in the order of their primary keys, with null for any element that could
+   *         not be loaded
+   */
+  public List<I_Element> loadElements(List<Integer> tids) throws Exception;
+
   /**
    * Loads (reloads) the element library.
    */
@@ -0,0 +1,449 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.mit.spacenet.domain.ClassOfSupply;
+import edu.mit.spacenet.domain.Environment;
+import edu.mit.spacenet.domain.element.ElementIcon;
+import edu.mit.spacenet.domain.element.ElementType;
+import edu.mit.spacenet.domain.network.edge.Burn;
+import edu.mit.spacenet.domain.network.edge.BurnType;
+import edu.mit.spacenet.domain.network.edge.Edge;
+import edu.mit.spacenet.domain.network.edge.EdgeType;
+import edu.mit.spacenet.domain.network.edge.FlightEdge;
+import edu.mit.spacenet.domain.network.edge.SpaceEdge;
+import edu.mit.spacenet.domain.network.edge.SurfaceEdge;
+import edu.mit.spacenet.domain.network.node.Body;
+import edu.mit.spacenet.domain.network.node.LagrangeNode;
+import edu.mit.spacenet.domain.network.node.Node;
+import edu.mit.spacenet.domain.network.node.NodeType;
+import edu.mit.spacenet.domain.network.node.OrbitalNode;
+import edu.mit.spacenet.domain.network.node.SurfaceNode;
+import edu.mit.spacenet.domain.resource.I_Resource;
+import edu.mit.spacenet.domain.resource.Item;
+import edu.mit.spacenet.domain.resource.Resource;
+
+/**
+ * A snapshot of the node, edge, resource, and element preview libraries of a data source, saved in
+ * a compact binary file in the user's SpaceNet cache directory. A snapshot records the library
+ * version of the data source when it was taken, so the libraries can be restored without reading
+ * the data source until its version changes. Full element definitions are not part of a snapshot;
+ * they are still loaded from the data source on demand.
+ * 
+ * Each record is written with its length, and a record is rejected unless the reader consumes
+ * exactly the bytes the writer produced. The format number must be increased whenever the fields
+ * of a record change; the record lengths reject a snapshot whose fields changed without it.
+ * 
+ * @author Paul Grogan
+ */
+class LibrarySnapshot {
+  private static final int MAGIC = 0x534e4c53;
+  private static final int FORMAT = 2;
+
+  /**
+   * Restores the libraries of a data source from its snapshot, if the snapshot was taken at the
+   * current library version. The libraries are only changed if the snapshot is read successfully.
+   * 
+   * @param dataSource the data source
+   * @param key the library key of the data source
+   * @param version the current library version of the data source
+   * 
+   * @return true, if the libraries were restored
+   */
+  static boolean read(AbstractDataSource dataSource, String key, String version) {
+    File file = getFile(key);
+    if (!file.isFile())
+      return false;
+    List<Node> nodes = new ArrayList<Node>();
+    List<Edge> edges = new ArrayList<Edge>();
+    List<I_Resource> resources = new ArrayList<I_Resource>();
+    List<ElementPreview> previews = new ArrayList<ElementPreview>();
+    DataInputStream in = null;
+    try {
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT || !in.readUTF().equals(key)
+          || !in.readUTF().equals(version))
+        return false;
+      Map<Integer, Node> nodesByTid = new HashMap<Integer, Node>();
+      for (int i = in.readInt(); i > 0; i--) {
+        DataInputStream record = beginRecord(in);
+        Node node = readNode(record);
+        endRecord(record);
+        nodes.add(node);
+        nodesByTid.put(node.getTid(), node);
+      }
+      for (int i = in.readInt(); i > 0; i--) {
+        DataInputStream record = beginRecord(in);
+        edges.add(readEdge(record, nodesByTid));
+        endRecord(record);
+      }
+      for (int i = in.readInt(); i > 0; i--) {
+        DataInputStream record = beginRecord(in);
+        resources.add(readResource(record));
+        endRecord(record);
+      }
+      for (int i = in.readInt(); i > 0; i--) {
+        DataInputStream record = beginRecord(in);
+        previews.add(readPreview(record));
+        endRecord(record);
+      }
+    } catch (Exception ex) {
+      // the snapshot is unreadable or out of date, so it is ignored
+      return false;
+    } finally {
+      close(in);
+    }
+    dataSource.getNodeLibrary().clear();
+    dataSource.getNodeLibrary().addAll(nodes);
+    dataSource.getEdgeLibrary().clear();
+    dataSource.getEdgeLibrary().addAll(edges);
+    dataSource.getResourceLibrary().clear();
+    dataSource.getResourceLibrary().addAll(resources);
+    dataSource.getElementPreviewLibrary().clear();
+    dataSource.getElementPreviewLibrary().addAll(previews);
+    return true;
+  }
+
+  /**
+   * Saves a snapshot of the libraries of a data source at a library version, replacing any earlier
+   * snapshot. Libraries that cannot be saved (such as demand model libraries) leave no snapshot.
+   * 
+   * @param dataSource the data source
+   * @param key the library key of the data source
+   * @param version the library version of the data source
+   */
+  static void write(AbstractDataSource dataSource, String key, String version) {
+    File file = getFile(key);
+    if (!dataSource.getDemandModelLibrary().isEmpty()) {
+      file.delete();
+      return;
+    }
+    File temp = null;
+    DataOutputStream out = null;
+    try {
+      file.getParentFile().mkdirs();
+      temp = File.createTempFile("snapshot", ".tmp", file.getParentFile());
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT);
+      out.writeUTF(key);
+      out.writeUTF(version);
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      DataOutputStream record = new DataOutputStream(buffer);
+      out.writeInt(dataSource.getNodeLibrary().size());
+      for (Node node : dataSource.getNodeLibrary()) {
+        writeNode(record, node);
+        endRecord(out, buffer);
+      }
+      out.writeInt(dataSource.getEdgeLibrary().size());
+      for (Edge edge : dataSource.getEdgeLibrary()) {
+        writeEdge(record, edge);
+        endRecord(out, buffer);
+      }
+      out.writeInt(dataSource.getResourceLibrary().size());
+      for (I_Resource resource : dataSource.getResourceLibrary()) {
+        writeResource(record, resource);
+        endRecord(out, buffer);
+      }
+      out.writeInt(dataSource.getElementPreviewLibrary().size());
+      for (ElementPreview preview : dataSource.getElementPreviewLibrary()) {
+        writePreview(record, preview);
+        endRecord(out, buffer);
+      }
+      out.close();
+      out = null;
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      temp = null;
+    } catch (Exception ex) {
+      // the snapshot is only a cache, so the libraries are read from the data source next time
+      file.delete();
+    } finally {
+      close(out);
+      if (temp != null)
+        temp.delete();
+    }
+  }
+
+  /**
+   * Gets the snapshot directory, which is kept in the home directory of the user so that snapshots
+   * do not depend on the working directory.
+   * 
+   * @return the snapshot directory
+   */
+  static File getDirectory() {
+    return new File(new File(System.getProperty("user.home"), ".spacenet"), "cache");
+  }
+
+  /**
+   * Gets the snapshot file for a library key.
+   * 
+   * @param key the library key
+   * 
+   * @return the snapshot file
+   */
+  static File getFile(String key) {
+    try {
+      StringBuilder name = new StringBuilder();
+      for (byte b : MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8)))
+        name.append(String.format("%02x", b));
+      return new File(getDirectory(), name.append(".lib").toString());
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static void writeNode(DataOutputStream out, Node node) throws IOException {
+    out.writeUTF(node.getNodeType().name());
+    out.writeInt(node.getTid());
+    writeString(out, node.getName());
+    writeString(out, node.getDescription());
+    out.writeUTF(node.getBody().name());
+    if (node.getNodeType() == NodeType.SURFACE) {
+      out.writeDouble(((SurfaceNode) node).getLatitude());
+      out.writeDouble(((SurfaceNode) node).getLongitude());
+    } else if (node.getNodeType() == NodeType.ORBITAL) {
+      out.writeDouble(((OrbitalNode) node).getApoapsis());
+      out.writeDouble(((OrbitalNode) node).getPeriapsis());
+      out.writeDouble(((OrbitalNode) node).getInclination());
+    } else if (node.getNodeType() == NodeType.LAGRANGE) {
+      out.writeUTF(((LagrangeNode) node).getMinorBody().name());
+      out.writeInt(((LagrangeNode) node).getNumber());
+    }
+  }
+
+  private static Node readNode(DataInputStream in) throws IOException {
+    NodeType type = NodeType.valueOf(in.readUTF());
+    Node node;
+    if (type == NodeType.SURFACE) {
+      node = new SurfaceNode();
+    } else if (type == NodeType.ORBITAL) {
+      node = new OrbitalNode();
+    } else if (type == NodeType.LAGRANGE) {
+      node = new LagrangeNode();
+    } else {
+      throw new IOException("Unknown Node Type");
+    }
+    node.setTid(in.readInt());
+    node.setName(readString(in));
+    node.setDescription(readString(in));
+    node.setBody(Body.valueOf(in.readUTF()));
+    if (type == NodeType.SURFACE) {
+      ((SurfaceNode) node).setLatitude(in.readDouble());
+      ((SurfaceNode) node).setLongitude(in.readDouble());
+    } else if (type == NodeType.ORBITAL) {
+      ((OrbitalNode) node).setApoapsis(in.readDouble());
+      ((OrbitalNode) node).setPeriapsis(in.readDouble());
+      ((OrbitalNode) node).setInclination(in.readDouble());
+    } else {
+      ((LagrangeNode) node).setMinorBody(Body.valueOf(in.readUTF()));
+      ((LagrangeNode) node).setNumber(in.readInt());
+    }
+    return node;
+  }
+
+  private static void writeEdge(DataOutputStream out, Edge edge) throws IOException {
+    out.writeUTF(edge.getEdgeType().name());
+    out.writeInt(edge.getTid());
+    writeString(out, edge.getName());
+    writeString(out, edge.getDescription());
+    out.writeInt(edge.getOrigin().getTid());
+    out.writeInt(edge.getDestination().getTid());
+    if (edge.getEdgeType() == EdgeType.SURFACE) {
+      out.writeDouble(((SurfaceEdge) edge).getDistance());
+    } else if (edge.getEdgeType() == EdgeType.SPACE) {
+      out.writeDouble(((SpaceEdge) edge).getDuration());
+      out.writeInt(((SpaceEdge) edge).getBurns().size());
+      for (Burn burn : ((SpaceEdge) edge).getBurns()) {
+        out.writeInt(burn.getTid());
+        out.writeDouble(burn.getTime());
+        out.writeUTF(burn.getBurnType().name());
+        out.writeDouble(burn.getDeltaV());
+      }
+    } else if (edge.getEdgeType() == EdgeType.FLIGHT) {
+      out.writeDouble(((FlightEdge) edge).getDuration());
+      out.writeInt(((FlightEdge) edge).getMaxCrewSize());
+      out.writeDouble(((FlightEdge) edge).getMaxCargoMass());
+    }
+  }
+
+  private static Edge readEdge(DataInputStream in, Map<Integer, Node> nodes) throws IOException {
+    EdgeType type = EdgeType.valueOf(in.readUTF());
+    Edge edge;
+    if (type == EdgeType.SURFACE) {
+      edge = new SurfaceEdge();
+    } else if (type == EdgeType.SPACE) {
+      edge = new SpaceEdge();
+    } else if (type == EdgeType.FLIGHT) {
+      edge = new FlightEdge();
+    } else {
+      throw new IOException("Unknown Edge Type");
+    }
+    edge.setTid(in.readInt());
+    edge.setName(readString(in));
+    edge.setDescription(readString(in));
+    edge.setOrigin(nodes.get(in.readInt()));
+    edge.setDestination(nodes.get(in.readInt()));
+    if (type == EdgeType.SURFACE) {
+      ((SurfaceEdge) edge).setDistance(in.readDouble());
+    } else if (type == EdgeType.SPACE) {
+      ((SpaceEdge) edge).setDuration(in.readDouble());
+      for (int i = in.readInt(); i > 0; i--) {
+        Burn burn = new Burn();
+        burn.setTid(in.readInt());
+        burn.setTime(in.readDouble());
+        burn.setBurnType(BurnType.valueOf(in.readUTF()));
+        burn.setDeltaV(in.readDouble());
+        ((SpaceEdge) edge).getBurns().add(burn);
+      }
+    } else {
+      ((FlightEdge) edge).setDuration(in.readDouble());
+      ((FlightEdge) edge).setMaxCrewSize(in.readInt());
+      ((FlightEdge) edge).setMaxCargoMass(in.readDouble());
+    }
+    return edge;
+  }
+
+  private static void writeResource(DataOutputStream out, I_Resource resource)
+      throws IOException {
+    if (resource.getClass().equals(Item.class)) {
+      out.writeBoolean(true);
+    } else if (resource.getClass().equals(Resource.class)) {
+      out.writeBoolean(false);
+    } else {
+      throw new IOException("Unsupported Resource Type");
+    }
+    out.writeInt(resource.getTid());
+    writeString(out, resource.getName());
+    writeString(out, resource.getDescription());
+    out.writeInt(resource.getClassOfSupply().getId());
+    writeString(out, resource.getUnits());
+    out.writeDouble(resource.getUnitMass());
+    out.writeDouble(resource.getUnitVolume());
+    out.writeDouble(resource.getPackingFactor());
+    out.writeUTF(resource.getEnvironment().name());
+  }
+
+  private static I_Resource readResource(DataInputStream in) throws IOException {
+    I_Resource resource = in.readBoolean() ? new Item() : new Resource();
+    resource.setTid(in.readInt());
+    resource.setName(readString(in));
+    resource.setDescription(readString(in));
+    resource.setClassOfSupply(ClassOfSupply.getInstance(in.readInt()));
+    resource.setUnits(readString(in));
+    resource.setUnitMass(in.readDouble());
+    resource.setUnitVolume(in.readDouble());
+    resource.setPackingFactor(in.readDouble());
+    resource.setEnvironment(Environment.valueOf(in.readUTF()));
+    return resource;
+  }
+
+  private static void writePreview(DataOutputStream out, ElementPreview preview)
+      throws IOException {
+    out.writeInt(preview.ID);
+    writeString(out, preview.NAME);
+    out.writeUTF(preview.TYPE.name());
+    out.writeUTF(preview.getIconType().name());
+  }
+
+  private static ElementPreview readPreview(DataInputStream in) throws IOException {
+    int tid = in.readInt();
+    String name = readString(in);
+    ElementType type = ElementType.valueOf(in.readUTF());
+    ElementIcon icon = ElementIcon.valueOf(in.readUTF());
+    return new ElementPreview(tid, name, type, icon);
+  }
+
+  /**
+   * Writes the buffered fields of a record to the snapshot, preceded by their length, and resets
+   * the buffer for the next record.
+   * 
+   * @param out the snapshot output stream
+   * @param buffer the record buffer
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private static void endRecord(DataOutputStream out, ByteArrayOutputStream buffer)
+      throws IOException {
+    out.writeInt(buffer.size());
+    buffer.writeTo(out);
+    buffer.reset();
+  }
+
+  /**
+   * Reads the fields of the next record from the snapshot.
+   * 
+   * @param in the snapshot input stream
+   * 
+   * @return the record input stream
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private static DataInputStream beginRecord(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new DataInputStream(new ByteArrayInputStream(bytes));
+  }
+
+  /**
+   * Checks that all fields of a record were read, so that a record written with more fields than
+   * the reader expects is rejected rather than read out of alignment.
+   * 
+   * @param record the record input stream
+   * 
+   * @throws IOException if fields of the record were not read
+   */
+  private static void endRecord(DataInputStream record) throws IOException {
+    if (record.available() > 0)
+      throw new IOException("Unread Record Fields");
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null)
+      out.writeUTF(value);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static void close(java.io.Closeable stream) {
+    if (stream != null) {
+      try {
+        stream.close();
+      } catch (IOException ex) {
+      }
+    }
+  }
+}
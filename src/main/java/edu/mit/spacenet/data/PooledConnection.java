@@ -0,0 +1,169 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A database connection borrowed from a connection pool. Prepared statements are cached by their
+ * SQL for the life of the connection, so statements are prepared once rather than on every call;
+ * they are shared and must not be prepared again while one of their result sets is still in use.
+ * 
+ * @author Paul Grogan
+ */
+class PooledConnection {
+  private static final int MAX_STATEMENTS = 64;
+
+  private final ConnectionPool pool;
+  private final Connection connection;
+  private final Map<String, PreparedStatement> statements;
+  private long lastUsed;
+
+  /**
+   * Instantiates a new pooled connection.
+   * 
+   * @param pool the pool that owns the connection
+   * @param connection the connection
+   */
+  PooledConnection(ConnectionPool pool, Connection connection) {
+    this.pool = pool;
+    this.connection = connection;
+    statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+        if (size() > MAX_STATEMENTS) {
+          close(eldest.getValue());
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Gets a cached prepared statement, preparing it on first use. Parameters set by a previous use
+   * are cleared.
+   * 
+   * @param sql the SQL statement
+   * 
+   * @return the prepared statement
+   * 
+   * @throws SQLException the SQL exception
+   */
+  PreparedStatement prepareStatement(String sql) throws SQLException {
+    return prepareStatement(sql, Statement.NO_GENERATED_KEYS);
+  }
+
+  /**
+   * Gets a cached prepared statement, preparing it on first use with the option to return
+   * generated keys. Parameters and batches set by a previous use are cleared.
+   * 
+   * @param sql the SQL statement
+   * @param autoGeneratedKeys whether generated keys should be returned
+   * 
+   * @return the prepared statement
+   * 
+   * @throws SQLException the SQL exception
+   */
+  PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+    String key = autoGeneratedKeys + sql;
+    PreparedStatement stmt = statements.get(key);
+    if (stmt == null) {
+      stmt = connection.prepareStatement(sql, autoGeneratedKeys);
+      statements.put(key, stmt);
+    } else {
+      stmt.clearParameters();
+      stmt.clearBatch();
+    }
+    return stmt;
+  }
+
+  /**
+   * Gets the time the connection was last released.
+   * 
+   * @return the time in milliseconds
+   */
+  long getLastUsed() {
+    return lastUsed;
+  }
+
+  /**
+   * Checks if the connection is still valid.
+   * 
+   * @param timeout the time to wait for the check, in seconds
+   * 
+   * @return true, if the connection is valid
+   */
+  boolean isValid(int timeout) {
+    try {
+      return connection.isValid(timeout);
+    } catch (SQLException ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Checks if the connection has been closed.
+   * 
+   * @return true, if the connection is closed
+   */
+  boolean isClosed() {
+    try {
+      return connection.isClosed();
+    } catch (SQLException ex) {
+      return true;
+    }
+  }
+
+  /**
+   * Returns the connection to its pool.
+   */
+  void release() {
+    lastUsed = System.currentTimeMillis();
+    pool.release(this);
+  }
+
+  /**
+   * Closes the cached statements and the connection.
+   */
+  void close() {
+    for (PreparedStatement stmt : statements.values()) {
+      close(stmt);
+    }
+    statements.clear();
+    try {
+      connection.close();
+    } catch (SQLException ex) {
+    }
+  }
+
+  /**
+   * Closes a statement, ignoring errors.
+   * 
+   * @param stmt the statement
+   */
+  private static void close(PreparedStatement stmt) {
+    try {
+      stmt.close();
+    } catch (SQLException ex) {
+    }
+  }
+}
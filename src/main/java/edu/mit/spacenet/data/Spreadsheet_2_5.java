@@ -13,7 +13,7 @@
  */
 package edu.mit.spacenet.data;
 
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -75,6 +75,10 @@ import edu.mit.spacenet.domain.resource.ResourceType;
  * Assumes the filepath points to a spreadsheet in Excel (.xls) format with the following sheets:
  * Nodes, Edges, Burns, Resources, Elements, Parts, States, Models, Demands.
  * 
+ * Workbooks are parsed once and cached until the file changes, so repeated loads (for example,
+ * reloading each element of a scenario) do not re-read the file. Spreadsheets in Excel 2007
+ * (.xlsx) format can be loaded but not edited.
+ * 
  * @author Paul Grogan
  */
 public class Spreadsheet_2_5 extends AbstractDataSource {
@@ -130,7 +134,7 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
    */
   public boolean deleteEdge(int tid) throws IOException {
     if (edgeLibrary.remove(loadEdge(tid))) {
-      Workbook wb = readWorkbook();
+      Workbook wb = editWorkbook();
       int rowNum = -1;
       for (Row row : wb.getSheetAt(EDGE_SHEET)) {
         if (row.getRowNum() == 0 || isRowEmpty(row))
@@ -201,7 +205,7 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
    */
   public boolean deleteElement(int tid) throws IOException {
     if (elementPreviewLibrary.remove(loadElementPreview(tid))) {
-      Workbook wb = readWorkbook();
+      Workbook wb = editWorkbook();
       int rowNum = -1;
       for (Row row : wb.getSheetAt(ELEMENT_SHEET)) {
         if (row.getRowNum() == 0 || isRowEmpty(row))
@@ -401,7 +405,7 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#deleteNode(int)
    */
   public boolean deleteNode(int tid) throws IOException {
-    Workbook wb = readWorkbook();
+    Workbook wb = editWorkbook();
     for (Row row : wb.getSheetAt(EDGE_SHEET)) {
       if (row.getRowNum() == 0 || isRowEmpty(row))
         continue;
@@ -442,7 +446,7 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#deleteResource(int)
    */
   public boolean deleteResource(int tid) throws IOException {
-    Workbook wb = readWorkbook();
+    Workbook wb = editWorkbook();
     for (Row row : wb.getSheetAt(ELEMENT_SHEET)) {
       if (row.getRowNum() == 0 || isRowEmpty(row))
         continue;
@@ -529,21 +533,54 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
     return filePath.substring(lastIndex + 1, filePath.length());
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.data.AbstractDataSource#getLibraryKey()
+   */
+  @Override
+  protected String getLibraryKey() {
+    if (filePath == null || filePath.length() == 0)
+      return null;
+    try {
+      return "spreadsheet:" + new File(filePath).getCanonicalPath();
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.data.AbstractDataSource#getLibraryVersion()
+   */
+  @Override
+  protected String getLibraryVersion() {
+    File file = new File(filePath);
+    if (!file.isFile())
+      return null;
+    return file.lastModified() + ":" + file.length();
+  }
+
   /*
    * (non-Javadoc)
    * 
    * @see edu.mit.spacenet.data.I_DataSource#loadEdgeLibrary()
    */
   public void loadEdgeLibrary() throws IOException {
-    loadEdgeLibrary(readWorkbook());
+    WorkbookCache cache = WorkbookCache.get(filePath);
+    synchronized (cache) {
+      loadEdgeLibrary(cache);
+    }
   }
 
   /**
-   * Load edge library from a workbook
+   * Load edge library from a cached workbook
    * 
-   * @param wb the workbook
+   * @param cache the cached workbook
    */
-  private void loadEdgeLibrary(Workbook wb) {
+  private void loadEdgeLibrary(WorkbookCache cache) {
+    Workbook wb = cache.getWorkbook();
     Map<Integer, Boolean> libraryContents = new HashMap<Integer, Boolean>();
     for (Edge edge : getEdgeLibrary()) {
       // mark all edges as unfound
@@ -583,7 +620,7 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
           ((SurfaceEdge) e).setDistance(row.getCell(EDGE_DISTANCE).getNumericCellValue());
         } else if (EdgeType.SPACE.getName().toLowerCase().contains(edgeType)) {
           ((SpaceEdge) e).setDuration(row.getCell(EDGE_DURATION).getNumericCellValue());
-          loadBurns(wb, (SpaceEdge) e);
+          loadBurns(cache, (SpaceEdge) e);
         } else if (EdgeType.FLIGHT.getName().toLowerCase().contains(edgeType)) {
           ((FlightEdge) e).setDuration(row.getCell(EDGE_DURATION).getNumericCellValue());
           ((FlightEdge) e).setMaxCrewSize((int) row.getCell(EDGE_MAX_CREW).getNumericCellValue());
@@ -607,27 +644,23 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
   /**
    * Load burns for a specific space edge.
    * 
-   * @param wb the workbook
+   * @param cache the cached workbook
    * @param edge the space edge
    */
-  private void loadBurns(Workbook wb, SpaceEdge edge) {
+  private void loadBurns(WorkbookCache cache, SpaceEdge edge) {
     edge.getBurns().clear();
-    for (Row row : wb.getSheetAt(BURN_SHEET)) {
+    for (Row row : cache.getRows(BURN_SHEET, BURN_EDGE_ID, edge.getTid())) {
       try {
-        if (row.getRowNum() == 0 || isRowEmpty(row))
-          continue;
-        if (row.getCell(BURN_EDGE_ID).getNumericCellValue() == edge.getTid()) {
-          Burn b = new Burn();
-          b.setTid((int) row.getCell(BURN_ID).getNumericCellValue());
-          b.setTime(row.getCell(BURN_TIME).getNumericCellValue());
-          b.setBurnType(BurnType.getInstance(row.getCell(BURN_TYPE).getStringCellValue()));
-          b.setDeltaV(row.getCell(BURN_DELTA_V).getNumericCellValue());
-          // TODO problems if burns are "out of order" in database... make sure this gets
-          // fixed for the online database
-          while (edge.getBurns().size() <= (int) row.getCell(BURN_ORDER).getNumericCellValue())
-            edge.getBurns().add(new Burn());
-          edge.getBurns().set((int) row.getCell(BURN_ORDER).getNumericCellValue(), b);
-        }
+        Burn b = new Burn();
+        b.setTid((int) row.getCell(BURN_ID).getNumericCellValue());
+        b.setTime(row.getCell(BURN_TIME).getNumericCellValue());
+        b.setBurnType(BurnType.getInstance(row.getCell(BURN_TYPE).getStringCellValue()));
+        b.setDeltaV(row.getCell(BURN_DELTA_V).getNumericCellValue());
+        // TODO problems if burns are "out of order" in database... make sure this gets
+        // fixed for the online database
+        while (edge.getBurns().size() <= (int) row.getCell(BURN_ORDER).getNumericCellValue())
+          edge.getBurns().add(new Burn());
+        edge.getBurns().set((int) row.getCell(BURN_ORDER).getNumericCellValue(), b);
       } catch (Exception ex) {
         // error loading burn
         ex.printStackTrace();
@@ -659,122 +692,127 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#loadElement(int)
    */
   public I_Element loadElement(int tid) throws IOException {
-    Workbook wb = readWorkbook();
-    for (Row row : wb.getSheetAt(ELEMENT_SHEET)) {
+    WorkbookCache cache = WorkbookCache.get(filePath);
+    synchronized (cache) {
+      return loadElement(cache, tid);
+    }
+  }
+
+  /**
+   * Loads an element from a cached workbook.
+   * 
+   * @param cache the cached workbook
+   * @param tid the element type id
+   * 
+   * @return the element, or null if it could not be loaded
+   */
+  private I_Element loadElement(WorkbookCache cache, int tid) {
+    for (Row row : cache.getRows(ELEMENT_SHEET, ELEMENT_ID, tid)) {
       try {
-        if (row.getRowNum() == 0 || isRowEmpty(row))
-          continue;
-        if (row.getCell(ELEMENT_ID).getNumericCellValue() == tid) {
-          I_Element e = null;
-          String elementType = row.getCell(ELEMENT_TYPE).getStringCellValue().toLowerCase();
-          if (ElementType.ELEMENT.getName().toLowerCase().contains(elementType)) {
-            e = new Element();
-          } else if (ElementType.RESOURCE_CONTAINER.getName().toLowerCase().contains(elementType)) {
-            e = new ResourceContainer();
-            ((ResourceContainer) e)
-                .setMaxCargoMass(row.getCell(ELEMENT_CARGO_MASS).getNumericCellValue());
-            ((ResourceContainer) e)
-                .setMaxCargoVolume(row.getCell(ELEMENT_CARGO_VOLUME).getNumericCellValue());
-            ((ResourceContainer) e).setCargoEnvironment(Environment
-                .getInstance(row.getCell(ELEMENT_CARGO_ENVIRONMENT).getStringCellValue()));
-          } else if (ElementType.CREW_MEMBER.getName().toLowerCase().contains(elementType)) {
-            e = new CrewMember();
-            ((CrewMember) e).setAvailableTimeFraction(
-                row.getCell(ELEMENT_ACTIVE_FRACTION).getNumericCellValue());
-          } else if (ElementType.CARRIER.getName().toLowerCase().contains(elementType)) {
-            e = new Carrier();
-            ((Carrier) e).setMaxCrewSize((int) row.getCell(ELEMENT_MAX_CREW).getNumericCellValue());
-            ((Carrier) e).setMaxCargoMass(row.getCell(ELEMENT_CARGO_MASS).getNumericCellValue());
-            ((Carrier) e)
-                .setMaxCargoVolume(row.getCell(ELEMENT_CARGO_VOLUME).getNumericCellValue());
-            ((Carrier) e).setCargoEnvironment(Environment
-                .getInstance(row.getCell(ELEMENT_CARGO_ENVIRONMENT).getStringCellValue()));
-          } else if (ElementType.SURFACE_VEHICLE.getName().toLowerCase().contains(elementType)) {
-            e = new SurfaceVehicle();
-            ((SurfaceVehicle) e)
-                .setMaxCrewSize((int) row.getCell(ELEMENT_MAX_CREW).getNumericCellValue());
-            ((SurfaceVehicle) e)
-                .setMaxCargoMass(row.getCell(ELEMENT_CARGO_MASS).getNumericCellValue());
-            ((SurfaceVehicle) e)
-                .setMaxCargoVolume(row.getCell(ELEMENT_CARGO_VOLUME).getNumericCellValue());
-            ((SurfaceVehicle) e).setCargoEnvironment(Environment
-                .getInstance(row.getCell(ELEMENT_CARGO_ENVIRONMENT).getStringCellValue()));
-            ((SurfaceVehicle) e).setMaxSpeed(row.getCell(ELEMENT_MAX_SPEED).getNumericCellValue());
-            ((SurfaceVehicle) e).getFuelTank()
-                .setMaxAmount(row.getCell(ELEMENT_MAX_FUEL).getNumericCellValue());
-            ((SurfaceVehicle) e).getFuelTank()
-                .setAmount(row.getCell(ELEMENT_MAX_FUEL).getNumericCellValue());
-            ((SurfaceVehicle) e).getFuelTank()
-                .setResource(loadResource(row.getCell(ELEMENT_FUEL_ID)));
-          } else if (ElementType.PROPULSIVE_VEHICLE.getName().toLowerCase().contains(elementType)) {
-            e = new PropulsiveVehicle();
-            ((PropulsiveVehicle) e)
-                .setMaxCrewSize((int) row.getCell(ELEMENT_MAX_CREW).getNumericCellValue());
-            ((PropulsiveVehicle) e)
-                .setMaxCargoMass(row.getCell(ELEMENT_CARGO_MASS).getNumericCellValue());
-            ((PropulsiveVehicle) e)
-                .setMaxCargoVolume(row.getCell(ELEMENT_CARGO_VOLUME).getNumericCellValue());
-            ((PropulsiveVehicle) e).setCargoEnvironment(Environment
-                .getInstance(row.getCell(ELEMENT_CARGO_ENVIRONMENT).getStringCellValue()));
-            ((PropulsiveVehicle) e).setOmsIsp(row.getCell(ELEMENT_OMS_ISP).getNumericCellValue());
-            ((PropulsiveVehicle) e).setRcsIsp(row.getCell(ELEMENT_RCS_ISP).getNumericCellValue());
-            if (((PropulsiveVehicle) e).getOmsIsp() > 0) {
-              ((PropulsiveVehicle) e).getOmsFuelTank()
-                  .setMaxAmount(row.getCell(ELEMENT_MAX_OMS).getNumericCellValue());
-              ((PropulsiveVehicle) e).getOmsFuelTank()
-                  .setAmount(row.getCell(ELEMENT_MAX_OMS).getNumericCellValue());
-              ((PropulsiveVehicle) e).getOmsFuelTank()
-                  .setResource(loadResource(row.getCell(ELEMENT_OMS_ID)));
-            } else {
-              ((PropulsiveVehicle) e).setOmsFuelTank(null);
-            }
-            if (((PropulsiveVehicle) e).getRcsIsp() > 0
-                && row.getCell(ELEMENT_MAX_RCS).getNumericCellValue() > 0) {
-              ((PropulsiveVehicle) e).getRcsFuelTank()
-                  .setMaxAmount(row.getCell(ELEMENT_MAX_RCS).getNumericCellValue());
-              ((PropulsiveVehicle) e).getRcsFuelTank()
-                  .setAmount(row.getCell(ELEMENT_MAX_RCS).getNumericCellValue());
-              ((PropulsiveVehicle) e).getRcsFuelTank()
-                  .setResource(loadResource(row.getCell(ELEMENT_RCS_ID)));
-            } else if (((PropulsiveVehicle) e).getRcsIsp() > 0) {
-              ((PropulsiveVehicle) e).getContents()
-                  .remove(((PropulsiveVehicle) e).getRcsFuelTank());
-              ((PropulsiveVehicle) e).setRcsFuelTank(((PropulsiveVehicle) e).getOmsFuelTank());
-            } else {
-              ((PropulsiveVehicle) e).setRcsFuelTank(null);
-            }
+        I_Element e = null;
+        String elementType = row.getCell(ELEMENT_TYPE).getStringCellValue().toLowerCase();
+        if (ElementType.ELEMENT.getName().toLowerCase().contains(elementType)) {
+          e = new Element();
+        } else if (ElementType.RESOURCE_CONTAINER.getName().toLowerCase().contains(elementType)) {
+          e = new ResourceContainer();
+          ((ResourceContainer) e)
+              .setMaxCargoMass(row.getCell(ELEMENT_CARGO_MASS).getNumericCellValue());
+          ((ResourceContainer) e)
+              .setMaxCargoVolume(row.getCell(ELEMENT_CARGO_VOLUME).getNumericCellValue());
+          ((ResourceContainer) e).setCargoEnvironment(Environment
+              .getInstance(row.getCell(ELEMENT_CARGO_ENVIRONMENT).getStringCellValue()));
+        } else if (ElementType.CREW_MEMBER.getName().toLowerCase().contains(elementType)) {
+          e = new CrewMember();
+          ((CrewMember) e).setAvailableTimeFraction(
+              row.getCell(ELEMENT_ACTIVE_FRACTION).getNumericCellValue());
+        } else if (ElementType.CARRIER.getName().toLowerCase().contains(elementType)) {
+          e = new Carrier();
+          ((Carrier) e).setMaxCrewSize((int) row.getCell(ELEMENT_MAX_CREW).getNumericCellValue());
+          ((Carrier) e).setMaxCargoMass(row.getCell(ELEMENT_CARGO_MASS).getNumericCellValue());
+          ((Carrier) e)
+              .setMaxCargoVolume(row.getCell(ELEMENT_CARGO_VOLUME).getNumericCellValue());
+          ((Carrier) e).setCargoEnvironment(Environment
+              .getInstance(row.getCell(ELEMENT_CARGO_ENVIRONMENT).getStringCellValue()));
+        } else if (ElementType.SURFACE_VEHICLE.getName().toLowerCase().contains(elementType)) {
+          e = new SurfaceVehicle();
+          ((SurfaceVehicle) e)
+              .setMaxCrewSize((int) row.getCell(ELEMENT_MAX_CREW).getNumericCellValue());
+          ((SurfaceVehicle) e)
+              .setMaxCargoMass(row.getCell(ELEMENT_CARGO_MASS).getNumericCellValue());
+          ((SurfaceVehicle) e)
+              .setMaxCargoVolume(row.getCell(ELEMENT_CARGO_VOLUME).getNumericCellValue());
+          ((SurfaceVehicle) e).setCargoEnvironment(Environment
+              .getInstance(row.getCell(ELEMENT_CARGO_ENVIRONMENT).getStringCellValue()));
+          ((SurfaceVehicle) e).setMaxSpeed(row.getCell(ELEMENT_MAX_SPEED).getNumericCellValue());
+          ((SurfaceVehicle) e).getFuelTank()
+              .setMaxAmount(row.getCell(ELEMENT_MAX_FUEL).getNumericCellValue());
+          ((SurfaceVehicle) e).getFuelTank()
+              .setAmount(row.getCell(ELEMENT_MAX_FUEL).getNumericCellValue());
+          ((SurfaceVehicle) e).getFuelTank()
+              .setResource(loadResource(row.getCell(ELEMENT_FUEL_ID)));
+        } else if (ElementType.PROPULSIVE_VEHICLE.getName().toLowerCase().contains(elementType)) {
+          e = new PropulsiveVehicle();
+          ((PropulsiveVehicle) e)
+              .setMaxCrewSize((int) row.getCell(ELEMENT_MAX_CREW).getNumericCellValue());
+          ((PropulsiveVehicle) e)
+              .setMaxCargoMass(row.getCell(ELEMENT_CARGO_MASS).getNumericCellValue());
+          ((PropulsiveVehicle) e)
+              .setMaxCargoVolume(row.getCell(ELEMENT_CARGO_VOLUME).getNumericCellValue());
+          ((PropulsiveVehicle) e).setCargoEnvironment(Environment
+              .getInstance(row.getCell(ELEMENT_CARGO_ENVIRONMENT).getStringCellValue()));
+          ((PropulsiveVehicle) e).setOmsIsp(row.getCell(ELEMENT_OMS_ISP).getNumericCellValue());
+          ((PropulsiveVehicle) e).setRcsIsp(row.getCell(ELEMENT_RCS_ISP).getNumericCellValue());
+          if (((PropulsiveVehicle) e).getOmsIsp() > 0) {
+            ((PropulsiveVehicle) e).getOmsFuelTank()
+                .setMaxAmount(row.getCell(ELEMENT_MAX_OMS).getNumericCellValue());
+            ((PropulsiveVehicle) e).getOmsFuelTank()
+                .setAmount(row.getCell(ELEMENT_MAX_OMS).getNumericCellValue());
+            ((PropulsiveVehicle) e).getOmsFuelTank()
+                .setResource(loadResource(row.getCell(ELEMENT_OMS_ID)));
           } else {
-            throw new Exception("Unknown Element Type");
+            ((PropulsiveVehicle) e).setOmsFuelTank(null);
           }
-          e.setTid((int) row.getCell(ELEMENT_ID).getNumericCellValue());
-          e.setName(row.getCell(ELEMENT_NAME).getStringCellValue());
-          e.setClassOfSupply(
-              ClassOfSupply.getInstance((int) row.getCell(ELEMENT_COS).getNumericCellValue()));
-          e.setEnvironment(
-              Environment.getInstance(row.getCell(ELEMENT_ENVIRONMENT).getStringCellValue()));
-          e.setAccommodationMass(row.getCell(ELEMENT_ACCOMMODATION_MASS).getNumericCellValue());
-          e.setMass(row.getCell(ELEMENT_MASS).getNumericCellValue());
-          e.setVolume(row.getCell(ELEMENT_VOLUME).getNumericCellValue());
-          e.setDescription(row.getCell(ELEMENT_DESCRIPTION).toString());
-          if (ElementIcon.getInstance(row.getCell(ELEMENT_ICON).toString()) != null) {
-            e.setIconType(ElementIcon.getInstance(row.getCell(ELEMENT_ICON).toString()));
+          if (((PropulsiveVehicle) e).getRcsIsp() > 0
+              && row.getCell(ELEMENT_MAX_RCS).getNumericCellValue() > 0) {
+            ((PropulsiveVehicle) e).getRcsFuelTank()
+                .setMaxAmount(row.getCell(ELEMENT_MAX_RCS).getNumericCellValue());
+            ((PropulsiveVehicle) e).getRcsFuelTank()
+                .setAmount(row.getCell(ELEMENT_MAX_RCS).getNumericCellValue());
+            ((PropulsiveVehicle) e).getRcsFuelTank()
+                .setResource(loadResource(row.getCell(ELEMENT_RCS_ID)));
+          } else if (((PropulsiveVehicle) e).getRcsIsp() > 0) {
+            ((PropulsiveVehicle) e).getContents()
+                .remove(((PropulsiveVehicle) e).getRcsFuelTank());
+            ((PropulsiveVehicle) e).setRcsFuelTank(((PropulsiveVehicle) e).getOmsFuelTank());
+          } else {
+            ((PropulsiveVehicle) e).setRcsFuelTank(null);
           }
-          if (e.getElementType() == ElementType.RESOURCE_CONTAINER) {
-            ((I_ResourceContainer) e).getContents().clear();
-            for (Row r : wb.getSheetAt(DEMAND_SHEET)) {
-              if (r.getRowNum() == 0 || isRowEmpty(r))
-                continue;
-              if (r.getCell(DEMAND_CONTAINER_ID).getNumericCellValue() == e.getTid()) {
-                ((ResourceContainer) e).getContents().put(
-                    loadResource(r.getCell(DEMAND_RESOURCE_ID)),
-                    r.getCell(DEMAND_AMOUNT).getNumericCellValue());
-              }
-            }
+        } else {
+          throw new Exception("Unknown Element Type");
+        }
+        e.setTid((int) row.getCell(ELEMENT_ID).getNumericCellValue());
+        e.setName(row.getCell(ELEMENT_NAME).getStringCellValue());
+        e.setClassOfSupply(
+            ClassOfSupply.getInstance((int) row.getCell(ELEMENT_COS).getNumericCellValue()));
+        e.setEnvironment(
+            Environment.getInstance(row.getCell(ELEMENT_ENVIRONMENT).getStringCellValue()));
+        e.setAccommodationMass(row.getCell(ELEMENT_ACCOMMODATION_MASS).getNumericCellValue());
+        e.setMass(row.getCell(ELEMENT_MASS).getNumericCellValue());
+        e.setVolume(row.getCell(ELEMENT_VOLUME).getNumericCellValue());
+        e.setDescription(row.getCell(ELEMENT_DESCRIPTION).toString());
+        if (ElementIcon.getInstance(row.getCell(ELEMENT_ICON).toString()) != null) {
+          e.setIconType(ElementIcon.getInstance(row.getCell(ELEMENT_ICON).toString()));
+        }
+        if (e.getElementType() == ElementType.RESOURCE_CONTAINER) {
+          ((I_ResourceContainer) e).getContents().clear();
+          for (Row r : cache.getRows(DEMAND_SHEET, DEMAND_CONTAINER_ID, e.getTid())) {
+            ((ResourceContainer) e).getContents().put(loadResource(r.getCell(DEMAND_RESOURCE_ID)),
+                r.getCell(DEMAND_AMOUNT).getNumericCellValue());
           }
-          loadParts(wb, e);
-          loadStates(wb, e);
-          return e;
         }
+        loadParts(cache, e);
+        loadStates(cache, e);
+        return e;
       } catch (Exception ex) {
         // error reading element
         ex.printStackTrace();
@@ -786,26 +824,22 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
   /**
    * Load the parts for a specific element.
    * 
-   * @param wb the workbook
+   * @param cache the cached workbook
    * @param element the element
    */
-  private void loadParts(Workbook wb, I_Element element) {
+  private void loadParts(WorkbookCache cache, I_Element element) {
     element.getParts().clear();
-    for (Row row : wb.getSheetAt(PART_SHEET)) {
-      if (row.getRowNum() == 0 || isRowEmpty(row))
-        continue;
+    for (Row row : cache.getRows(PART_SHEET, PART_ELEMENT_ID, element.getTid())) {
       try {
-        if (row.getCell(PART_ELEMENT_ID).getNumericCellValue() == element.getTid()) {
-          PartApplication partApp = new PartApplication();
-          partApp.setTid((int) row.getCell(PART_ID).getNumericCellValue());
-          partApp.setPart((Item) loadResource(row.getCell(PART_RESOURCE_ID)));
-          partApp.setQuantity((int) row.getCell(PART_QUANTITY).getNumericCellValue());
-          partApp.setDutyCycle(row.getCell(PART_DUTY_CYCLE).getNumericCellValue());
-          partApp.setMeanTimeToFailure(row.getCell(PART_MTTF).getNumericCellValue());
-          partApp.setMeanTimeToRepair(row.getCell(PART_MTTR).getNumericCellValue());
-          partApp.setMassToRepair(row.getCell(PART_REPAIR_MASS).getNumericCellValue());
-          element.getParts().add(partApp);
-        }
+        PartApplication partApp = new PartApplication();
+        partApp.setTid((int) row.getCell(PART_ID).getNumericCellValue());
+        partApp.setPart((Item) loadResource(row.getCell(PART_RESOURCE_ID)));
+        partApp.setQuantity((int) row.getCell(PART_QUANTITY).getNumericCellValue());
+        partApp.setDutyCycle(row.getCell(PART_DUTY_CYCLE).getNumericCellValue());
+        partApp.setMeanTimeToFailure(row.getCell(PART_MTTF).getNumericCellValue());
+        partApp.setMeanTimeToRepair(row.getCell(PART_MTTR).getNumericCellValue());
+        partApp.setMassToRepair(row.getCell(PART_REPAIR_MASS).getNumericCellValue());
+        element.getParts().add(partApp);
       } catch (Exception ex) {
         // error reading part
         ex.printStackTrace();
@@ -813,22 +847,18 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
     }
   }
 
-  private void loadStates(Workbook wb, I_Element element) {
+  private void loadStates(WorkbookCache cache, I_Element element) {
     element.getStates().clear();
-    for (Row row : wb.getSheetAt(STATE_SHEET)) {
-      if (row.getRowNum() == 0 || isRowEmpty(row))
-        continue;
+    for (Row row : cache.getRows(STATE_SHEET, STATE_ELEMENT_ID, element.getTid())) {
       try {
-        if (row.getCell(STATE_ELEMENT_ID).getNumericCellValue() == element.getTid()) {
-          State state = new State();
-          state.setTid((int) row.getCell(STATE_ID).getNumericCellValue());
-          state.setName(row.getCell(STATE_NAME).getStringCellValue());
-          state.setStateType(StateType.getInstance(row.getCell(STATE_TYPE).getStringCellValue()));
-          loadModels(wb, element, state);
-          element.getStates().add(state);
-          if (row.getCell(STATE_INITIAL).getBooleanCellValue())
-            element.setCurrentState(state);
-        }
+        State state = new State();
+        state.setTid((int) row.getCell(STATE_ID).getNumericCellValue());
+        state.setName(row.getCell(STATE_NAME).getStringCellValue());
+        state.setStateType(StateType.getInstance(row.getCell(STATE_TYPE).getStringCellValue()));
+        loadModels(cache, element, state);
+        element.getStates().add(state);
+        if (row.getCell(STATE_INITIAL).getBooleanCellValue())
+          element.setCurrentState(state);
       } catch (Exception ex) {
         // error reading state
         ex.printStackTrace();
@@ -839,59 +869,47 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
   /**
    * Loads the demand models for a given element and state.
    * 
-   * @param wb the workbook
+   * @param cache the cached workbook
    * @param element the element
    * @param state the state
    */
-  private void loadModels(Workbook wb, I_Element element, I_State state) {
-    for (Row row : wb.getSheetAt(MODEL_SHEET)) {
-      if (row.getRowNum() == 0 || isRowEmpty(row))
-        continue;
+  private void loadModels(WorkbookCache cache, I_Element element, I_State state) {
+    for (Row row : cache.getRows(MODEL_SHEET, MODEL_STATE_ID, state.getTid())) {
       try {
         String modelType = row.getCell(MODEL_TYPE).getStringCellValue().toLowerCase();
-        if (row.getCell(MODEL_STATE_ID).getNumericCellValue() == state.getTid()) {
-          if (DemandModelType.TIMED_IMPULSE.getName().toLowerCase().contains(modelType)) {
-            TimedImpulseDemandModel model = new TimedImpulseDemandModel();
-            model.setTid((int) row.getCell(MODEL_ID).getNumericCellValue());
-            model.setName(row.getCell(MODEL_NAME).getStringCellValue());
-            for (Row r : wb.getSheetAt(DEMAND_SHEET)) {
-              if (r.getRowNum() == 0 || isRowEmpty(r))
-                continue;
-              if (r.getCell(DEMAND_MODEL_ID).getNumericCellValue() == model.getTid()) {
-                Demand demand = new Demand();
-                demand.setResource(loadResource(r.getCell(DEMAND_RESOURCE_ID)));
-                demand.setAmount(r.getCell(DEMAND_AMOUNT).getNumericCellValue());
-                model.getDemands().add(demand);
-              }
-            }
-            state.getDemandModels().add(model);
-          } else if (DemandModelType.RATED.getName().toLowerCase().contains(modelType)) {
-            RatedDemandModel model = new RatedDemandModel();
-            model.setTid((int) row.getCell(MODEL_ID).getNumericCellValue());
-            model.setName(row.getCell(MODEL_NAME).getStringCellValue());
-            for (Row r : wb.getSheetAt(DEMAND_SHEET)) {
-              if (r.getRowNum() == 0 || isRowEmpty(r))
-                continue;
-              if (r.getCell(DEMAND_MODEL_ID).getNumericCellValue() == model.getTid()) {
-                Demand demand = new Demand();
-                demand.setResource(loadResource(r.getCell(DEMAND_RESOURCE_ID)));
-                demand.setAmount(r.getCell(DEMAND_AMOUNT).getNumericCellValue());
-                model.getDemandRates().add(demand);
-              }
-            }
-            state.getDemandModels().add(model);
-          } else if (DemandModelType.SPARING_BY_MASS.getName().toLowerCase().contains(modelType)) {
-            SparingByMassDemandModel model = new SparingByMassDemandModel(element);
-            model.setTid((int) row.getCell(MODEL_ID).getNumericCellValue());
-            model.setName(row.getCell(MODEL_NAME).getStringCellValue());
-            model.setElement(element);
-            model.setPartsListEnabled(row.getCell(MODEL_PARTS_LIST).getBooleanCellValue());
-            model.setUnpressurizedSparesRate(row.getCell(MODEL_UNPRESS_RATE).getNumericCellValue());
-            model.setPressurizedSparesRate(row.getCell(MODEL_PRESS_RATE).getNumericCellValue());
-            state.getDemandModels().add(model);
-          } else {
-            throw new Exception("Unknown Demand Model Type");
+        if (DemandModelType.TIMED_IMPULSE.getName().toLowerCase().contains(modelType)) {
+          TimedImpulseDemandModel model = new TimedImpulseDemandModel();
+          model.setTid((int) row.getCell(MODEL_ID).getNumericCellValue());
+          model.setName(row.getCell(MODEL_NAME).getStringCellValue());
+          for (Row r : cache.getRows(DEMAND_SHEET, DEMAND_MODEL_ID, model.getTid())) {
+            Demand demand = new Demand();
+            demand.setResource(loadResource(r.getCell(DEMAND_RESOURCE_ID)));
+            demand.setAmount(r.getCell(DEMAND_AMOUNT).getNumericCellValue());
+            model.getDemands().add(demand);
           }
+          state.getDemandModels().add(model);
+        } else if (DemandModelType.RATED.getName().toLowerCase().contains(modelType)) {
+          RatedDemandModel model = new RatedDemandModel();
+          model.setTid((int) row.getCell(MODEL_ID).getNumericCellValue());
+          model.setName(row.getCell(MODEL_NAME).getStringCellValue());
+          for (Row r : cache.getRows(DEMAND_SHEET, DEMAND_MODEL_ID, model.getTid())) {
+            Demand demand = new Demand();
+            demand.setResource(loadResource(r.getCell(DEMAND_RESOURCE_ID)));
+            demand.setAmount(r.getCell(DEMAND_AMOUNT).getNumericCellValue());
+            model.getDemandRates().add(demand);
+          }
+          state.getDemandModels().add(model);
+        } else if (DemandModelType.SPARING_BY_MASS.getName().toLowerCase().contains(modelType)) {
+          SparingByMassDemandModel model = new SparingByMassDemandModel(element);
+          model.setTid((int) row.getCell(MODEL_ID).getNumericCellValue());
+          model.setName(row.getCell(MODEL_NAME).getStringCellValue());
+          model.setElement(element);
+          model.setPartsListEnabled(row.getCell(MODEL_PARTS_LIST).getBooleanCellValue());
+          model.setUnpressurizedSparesRate(row.getCell(MODEL_UNPRESS_RATE).getNumericCellValue());
+          model.setPressurizedSparesRate(row.getCell(MODEL_PRESS_RATE).getNumericCellValue());
+          state.getDemandModels().add(model);
+        } else {
+          throw new Exception("Unknown Demand Model Type");
         }
       } catch (Exception ex) {
         // error reading element
@@ -906,7 +924,10 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#loadElementLibrary()
    */
   public void loadElementLibrary() throws IOException {
-    loadElementLibrary(readWorkbook());
+    WorkbookCache cache = WorkbookCache.get(filePath);
+    synchronized (cache) {
+      loadElementLibrary(cache.getWorkbook());
+    }
   }
 
   /**
@@ -955,7 +976,10 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#loadNodeLibrary()
    */
   public void loadNodeLibrary() throws IOException {
-    loadNodeLibrary(readWorkbook());
+    WorkbookCache cache = WorkbookCache.get(filePath);
+    synchronized (cache) {
+      loadNodeLibrary(cache.getWorkbook());
+    }
   }
 
   /**
@@ -1031,7 +1055,10 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#loadResourceLibrary()
    */
   public void loadResourceLibrary() throws IOException {
-    loadResourceLibrary(readWorkbook());
+    WorkbookCache cache = WorkbookCache.get(filePath);
+    synchronized (cache) {
+      loadResourceLibrary(cache.getWorkbook());
+    }
   }
 
   /**
@@ -1098,7 +1125,7 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#saveEdge(edu.mit.spacenet.domain.network.edge.Edge)
    */
   public void saveEdge(Edge edge) throws IOException {
-    Workbook wb = readWorkbook();
+    Workbook wb = editWorkbook();
     Sheet sheet = wb.getSheetAt(EDGE_SHEET);
     int rowNum = -1, maxTid = 0;
     for (Row row : sheet) {
@@ -1245,7 +1272,7 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#saveElement(edu.mit.spacenet.domain.element.I_Element)
    */
   public void saveElement(I_Element element) throws IOException {
-    Workbook wb = readWorkbook();
+    Workbook wb = editWorkbook();
     Sheet sheet = wb.getSheetAt(ELEMENT_SHEET);
     int rowNum = -1, maxTid = 0;
     for (Row row : sheet) {
@@ -1683,7 +1710,7 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#saveNode(edu.mit.spacenet.domain.network.node.Node)
    */
   public void saveNode(Node node) throws IOException {
-    Workbook wb = readWorkbook();
+    Workbook wb = editWorkbook();
     Sheet sheet = wb.getSheetAt(NODE_SHEET);
     int rowNum = -1, maxTid = 0;
     for (Row row : sheet) {
@@ -1735,7 +1762,7 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
   public void saveResource(I_Resource resource) throws IOException {
     if (resource.getResourceType() == ResourceType.GENERIC)
       return;
-    Workbook wb = readWorkbook();
+    Workbook wb = editWorkbook();
     Sheet sheet = wb.getSheetAt(RESOURCE_SHEET);
     int rowNum = -1, maxTid = 0;
     for (Row row : sheet) {
@@ -1787,7 +1814,20 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#validateData()
    */
   public List<String> validateData() throws IOException {
-    Workbook wb = readWorkbook();
+    WorkbookCache cache = WorkbookCache.get(filePath);
+    synchronized (cache) {
+      return validateData(cache.getWorkbook());
+    }
+  }
+
+  /**
+   * Validates the data in a workbook.
+   * 
+   * @param wb the workbook
+   * 
+   * @return the list of errors
+   */
+  private List<String> validateData(Workbook wb) {
     ArrayList<String> errors = new ArrayList<String>();
     errors.addAll(checkNodes(wb.getSheetAt(NODE_SHEET)));
     errors.addAll(checkEdges(wb.getSheetAt(EDGE_SHEET)));
@@ -2298,31 +2338,33 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
   }
 
   /**
-   * Reads a workbook from file.
+   * Reads a private copy of the workbook from file to be edited. Edits are not visible to other
+   * readers until the workbook is written.
    * 
    * @return the workbook
    * 
    * @throws IOException Signals that an I/O exception has occurred.
    */
-  private Workbook readWorkbook() throws IOException {
-    FileInputStream fis = new FileInputStream(filePath);
-    Workbook wb = new HSSFWorkbook(fis);
-    wb.setMissingCellPolicy(MissingCellPolicy.CREATE_NULL_AS_BLANK);
-    fis.close();
-    return wb;
+  private Workbook editWorkbook() throws IOException {
+    return WorkbookCache.read(new File(filePath));
   }
 
   /**
-   * Writes a workbook to file, saving and changes that had been made.
+   * Writes a workbook to file, saving and changes that had been made, and caches it for subsequent
+   * reads. Office Open XML (.xlsx) workbooks are read-only.
    * 
    * @param wb the workbook
    * 
    * @throws IOException Signals that an I/O exception has occurred.
    */
   private void writeWorkbook(Workbook wb) throws IOException {
+    if (WorkbookCache.isXlsx(filePath))
+      throw new IOException("Cannot write to " + getName() + ": .xlsx workbooks are read-only.");
+    WorkbookCache.remove(filePath);
     FileOutputStream fos = new FileOutputStream(filePath);
     wb.write(fos);
     fos.close();
+    WorkbookCache.put(filePath, wb);
   }
 
   /*
@@ -2331,6 +2373,9 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
    * @see edu.mit.spacenet.data.I_DataSource#format()
    */
   public void format() throws IOException {
+    if (WorkbookCache.isXlsx(filePath))
+      throw new IOException("Cannot write to " + getName() + ": .xlsx workbooks are read-only.");
+    WorkbookCache.remove(filePath);
     FileOutputStream fos = new FileOutputStream(filePath);
     Workbook wb = new HSSFWorkbook();
     wb.setMissingCellPolicy(MissingCellPolicy.CREATE_NULL_AS_BLANK);
@@ -2497,7 +2542,7 @@ public class Spreadsheet_2_5 extends AbstractDataSource {
    * 
    * @return true, if is row empty
    */
-  private static boolean isRowEmpty(Row row) {
+  static boolean isRowEmpty(Row row) {
     if (row == null || row.getCell(0) == null || row.getCell(0).getCellType() != CellType.NUMERIC
         || row.getCell(0).getNumericCellValue() <= 0)
       return true;
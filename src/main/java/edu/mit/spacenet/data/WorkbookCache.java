@@ -0,0 +1,215 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.data;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Row.MissingCellPolicy;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * A parsed spreadsheet workbook shared by the spreadsheet data sources that read the same file. A
+ * cached workbook is reused for as long as the file keeps the modification time and length it had
+ * when it was parsed, and row indexes on its key columns are built the first time they are needed.
+ * 
+ * Cached workbooks are only read: data sources parse a private copy of the file to edit and place
+ * it in the cache once it has been written. Reading a cell may still add a blank cell to a row, so
+ * callers synchronize on the cache entry while they read its workbook.
+ * 
+ * @author Paul Grogan
+ */
+class WorkbookCache {
+  private static final int MAX_WORKBOOKS = 4;
+  private static final Map<String, WorkbookCache> cache =
+      new LinkedHashMap<String, WorkbookCache>(MAX_WORKBOOKS, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, WorkbookCache> eldest) {
+          return size() > MAX_WORKBOOKS;
+        }
+      };
+
+  private final long lastModified;
+  private final long length;
+  private final Workbook workbook;
+  private final Map<List<Integer>, Map<Integer, List<Row>>> indexes;
+
+  /**
+   * Gets the cached workbook for a file, parsing the file if it is not cached or has changed since
+   * it was cached.
+   * 
+   * @param filePath the file path
+   * 
+   * @return the cached workbook
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  static synchronized WorkbookCache get(String filePath) throws IOException {
+    File file = new File(filePath);
+    String key = file.getCanonicalPath();
+    WorkbookCache entry = cache.get(key);
+    if (entry == null || !entry.isCurrent(file)) {
+      entry = new WorkbookCache(file, read(file));
+      cache.put(key, entry);
+    }
+    return entry;
+  }
+
+  /**
+   * Caches a workbook that has just been written to a file.
+   * 
+   * @param filePath the file path
+   * @param workbook the workbook
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  static synchronized void put(String filePath, Workbook workbook) throws IOException {
+    File file = new File(filePath);
+    cache.put(file.getCanonicalPath(), new WorkbookCache(file, workbook));
+  }
+
+  /**
+   * Removes the cached workbook for a file.
+   * 
+   * @param filePath the file path
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  static synchronized void remove(String filePath) throws IOException {
+    cache.remove(new File(filePath).getCanonicalPath());
+  }
+
+  /**
+   * Parses a workbook from file. Excel 97-2003 (.xls) files are read with the HSSF user model and
+   * Office Open XML (.xlsx) files are streamed into an equivalent in-memory workbook.
+   * 
+   * @param file the file
+   * 
+   * @return the workbook
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  static Workbook read(File file) throws IOException {
+    Workbook wb;
+    if (isXlsx(file.getName())) {
+      wb = XlsxReader.read(file);
+    } else {
+      FileInputStream fis = new FileInputStream(file);
+      try {
+        wb = new HSSFWorkbook(fis);
+      } finally {
+        fis.close();
+      }
+    }
+    wb.setMissingCellPolicy(MissingCellPolicy.CREATE_NULL_AS_BLANK);
+    return wb;
+  }
+
+  /**
+   * Checks if a file path refers to an Office Open XML (.xlsx) workbook.
+   * 
+   * @param filePath the file path
+   * 
+   * @return true, if the file is an .xlsx workbook
+   */
+  static boolean isXlsx(String filePath) {
+    return "xlsx".equalsIgnoreCase(FilenameUtils.getExtension(filePath));
+  }
+
+  /**
+   * Instantiates a new cache entry for a workbook parsed from a file.
+   * 
+   * @param file the file
+   * @param workbook the workbook
+   */
+  private WorkbookCache(File file, Workbook workbook) {
+    this.lastModified = file.lastModified();
+    this.length = file.length();
+    this.workbook = workbook;
+    this.indexes = new HashMap<List<Integer>, Map<Integer, List<Row>>>();
+  }
+
+  /**
+   * Checks if the file still has the modification time and length it had when it was parsed.
+   * 
+   * @param file the file
+   * 
+   * @return true, if the cached workbook is current
+   */
+  private boolean isCurrent(File file) {
+    return file.lastModified() == lastModified && file.length() == length;
+  }
+
+  /**
+   * Gets the cached workbook.
+   * 
+   * @return the workbook
+   */
+  Workbook getWorkbook() {
+    return workbook;
+  }
+
+  /**
+   * Gets the non-empty rows of a sheet (excluding the header row) with an id in a key column, in
+   * sheet order. The index for the column is built on first use.
+   * 
+   * @param sheet the sheet index
+   * @param column the key column index
+   * @param tid the id
+   * 
+   * @return the matching rows
+   */
+  synchronized List<Row> getRows(int sheet, int column, int tid) {
+    List<Integer> key = Arrays.asList(sheet, column);
+    Map<Integer, List<Row>> index = indexes.get(key);
+    if (index == null) {
+      index = new HashMap<Integer, List<Row>>();
+      for (Row row : workbook.getSheetAt(sheet)) {
+        if (row.getRowNum() == 0 || Spreadsheet_2_5.isRowEmpty(row))
+          continue;
+        Cell cell = row.getCell(column);
+        if (cell.getCellType() != CellType.NUMERIC
+            || cell.getNumericCellValue() != (int) cell.getNumericCellValue())
+          continue;
+        int id = (int) cell.getNumericCellValue();
+        List<Row> rows = index.get(id);
+        if (rows == null) {
+          rows = new ArrayList<Row>();
+          index.put(id, rows);
+        }
+        rows.add(row);
+      }
+      indexes.put(key, index);
+    }
+    List<Row> rows = index.get(tid);
+    if (rows == null)
+      return Collections.emptyList();
+    return rows;
+  }
+}
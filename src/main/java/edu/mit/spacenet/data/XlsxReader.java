@@ -0,0 +1,294 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * Reads the cell values of an Office Open XML (.xlsx) workbook into an in-memory workbook. The
+ * package parts are streamed with StAX rather than loaded as a document model, and only the values
+ * the spreadsheet data sources read are kept: numbers, text, and booleans. Formulas are read as
+ * their cached results and formatting is ignored.
+ * 
+ * @author Paul Grogan
+ */
+class XlsxReader {
+  private static final String RELATIONSHIP_NS =
+      "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+  private final ZipFile zip;
+  private final XMLInputFactory factory;
+  private final List<String> sharedStrings;
+
+  /**
+   * Instantiates a new reader for an open package.
+   * 
+   * @param zip the package
+   */
+  private XlsxReader(ZipFile zip) {
+    this.zip = zip;
+    factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    sharedStrings = new ArrayList<String>();
+  }
+
+  /**
+   * Reads a workbook from an .xlsx file.
+   * 
+   * @param file the file
+   * 
+   * @return the workbook
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  static Workbook read(File file) throws IOException {
+    ZipFile zip = new ZipFile(file);
+    try {
+      return new XlsxReader(zip).read();
+    } catch (XMLStreamException ex) {
+      throw new IOException("Malformed workbook " + file.getName(), ex);
+    } catch (IllegalArgumentException ex) {
+      // sheet is larger than an in-memory workbook can hold
+      throw new IOException("Unsupported workbook " + file.getName(), ex);
+    } finally {
+      zip.close();
+    }
+  }
+
+  /**
+   * Reads the workbook part, the shared strings, and each sheet in workbook order.
+   * 
+   * @return the workbook
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   * @throws XMLStreamException the XML stream exception
+   */
+  private Workbook read() throws IOException, XMLStreamException {
+    Map<String, String> targets = readRelationships("xl/_rels/workbook.xml.rels");
+    List<String> names = new ArrayList<String>();
+    List<String> parts = new ArrayList<String>();
+    XMLStreamReader reader = open("xl/workbook.xml");
+    try {
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT
+            && reader.getLocalName().equals("sheet")) {
+          names.add(reader.getAttributeValue(null, "name"));
+          parts.add(targets.get(reader.getAttributeValue(RELATIONSHIP_NS, "id")));
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    if (zip.getEntry("xl/sharedStrings.xml") != null)
+      readSharedStrings("xl/sharedStrings.xml");
+
+    Workbook wb = new HSSFWorkbook();
+    for (int i = 0; i < names.size(); i++) {
+      Sheet sheet = wb.createSheet(names.get(i));
+      if (parts.get(i) != null)
+        readSheet(parts.get(i), sheet);
+    }
+    return wb;
+  }
+
+  /**
+   * Reads the relationships of the workbook part, mapping each relationship id to the name of its
+   * target part.
+   * 
+   * @param part the relationships part name
+   * 
+   * @return the targets by relationship id
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   * @throws XMLStreamException the XML stream exception
+   */
+  private Map<String, String> readRelationships(String part)
+      throws IOException, XMLStreamException {
+    Map<String, String> targets = new HashMap<String, String>();
+    XMLStreamReader reader = open(part);
+    try {
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT
+            && reader.getLocalName().equals("Relationship")) {
+          String target = reader.getAttributeValue(null, "Target");
+          // targets are relative to the xl folder unless they are absolute part names
+          if (target.startsWith("/"))
+            target = target.substring(1);
+          else
+            target = "xl/" + target;
+          targets.put(reader.getAttributeValue(null, "Id"), target);
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    return targets;
+  }
+
+  /**
+   * Reads the shared string table. Rich text runs are concatenated and phonetic hints are skipped.
+   * 
+   * @param part the shared strings part name
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   * @throws XMLStreamException the XML stream exception
+   */
+  private void readSharedStrings(String part) throws IOException, XMLStreamException {
+    XMLStreamReader reader = open(part);
+    try {
+      StringBuilder text = null;
+      int phonetic = 0;
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          if (reader.getLocalName().equals("si")) {
+            text = new StringBuilder();
+          } else if (reader.getLocalName().equals("rPh")) {
+            phonetic++;
+          } else if (reader.getLocalName().equals("t") && text != null && phonetic == 0) {
+            text.append(reader.getElementText());
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          if (reader.getLocalName().equals("si")) {
+            sharedStrings.add(text.toString());
+            text = null;
+          } else if (reader.getLocalName().equals("rPh")) {
+            phonetic--;
+          }
+        }
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Streams the cells of a worksheet part into a sheet.
+   * 
+   * @param part the worksheet part name
+   * @param sheet the sheet
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   * @throws XMLStreamException the XML stream exception
+   */
+  private void readSheet(String part, Sheet sheet) throws IOException, XMLStreamException {
+    XMLStreamReader reader = open(part);
+    try {
+      Row row = null;
+      int rowNum = -1;
+      int column = -1;
+      String type = null;
+      String value = null;
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          String name = reader.getLocalName();
+          if (name.equals("row")) {
+            String r = reader.getAttributeValue(null, "r");
+            rowNum = r == null ? rowNum + 1 : Integer.parseInt(r) - 1;
+            row = sheet.createRow(rowNum);
+            column = -1;
+          } else if (name.equals("c")) {
+            String r = reader.getAttributeValue(null, "r");
+            column = r == null ? column + 1 : getColumn(r);
+            type = reader.getAttributeValue(null, "t");
+            value = null;
+          } else if (name.equals("v")) {
+            value = reader.getElementText();
+          } else if (name.equals("t") && "inlineStr".equals(type)) {
+            value = value == null ? reader.getElementText() : value + reader.getElementText();
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("c")
+            && value != null) {
+          setCellValue(row.createCell(column), type, value);
+        }
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Sets the value of a cell from its serialized type and value.
+   * 
+   * @param cell the cell
+   * @param type the cell type attribute, null for numbers
+   * @param value the serialized value
+   */
+  private void setCellValue(Cell cell, String type, String value) {
+    if (type == null || type.equals("n")) {
+      cell.setCellValue(Double.parseDouble(value));
+    } else if (type.equals("s")) {
+      cell.setCellValue(sharedStrings.get(Integer.parseInt(value)));
+    } else if (type.equals("b")) {
+      cell.setCellValue(value.equals("1") || value.equalsIgnoreCase("true"));
+    } else if (type.equals("str") || type.equals("inlineStr")) {
+      cell.setCellValue(value);
+    }
+    // error values are left blank
+  }
+
+  /**
+   * Gets the zero-based column index of a cell reference such as "AB12".
+   * 
+   * @param reference the cell reference
+   * 
+   * @return the column index
+   */
+  private static int getColumn(String reference) {
+    int column = 0;
+    for (int i = 0; i < reference.length() && Character.isLetter(reference.charAt(i)); i++) {
+      column = column * 26 + Character.toUpperCase(reference.charAt(i)) - 'A' + 1;
+    }
+    return column - 1;
+  }
+
+  /**
+   * Opens a streaming reader on a package part.
+   * 
+   * @param part the part name
+   * 
+   * @return the stream reader
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   * @throws XMLStreamException the XML stream exception
+   */
+  private XMLStreamReader open(String part) throws IOException, XMLStreamException {
+    ZipEntry entry = zip.getEntry(part);
+    if (entry == null)
+      throw new IOException("Missing workbook part " + part);
+    InputStream in = zip.getInputStream(entry);
+    return factory.createXMLStreamReader(in);
+  }
+}
@@ -14,6 +14,9 @@
 package edu.mit.spacenet.domain;
 
 import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * This enumeration lists the ten main classes of supply, and the sub-classes of supply.
@@ -200,6 +203,56 @@ public enum ClassOfSupply {
   private String name;
   private Color color;
 
+  // class hierarchy indexed by ordinal, computed once when the enumeration is loaded
+  private static final boolean[][] subclassOf;
+  private static final ClassOfSupply[] baseClass;
+  private static final List<List<ClassOfSupply>> superclasses;
+
+  static {
+    ClassOfSupply[] values = values();
+    subclassOf = new boolean[values.length][values.length];
+    baseClass = new ClassOfSupply[values.length];
+    superclasses = new ArrayList<List<ClassOfSupply>>(values.length);
+    for (ClassOfSupply sub : values) {
+      List<ClassOfSupply> parents = new ArrayList<ClassOfSupply>();
+      for (ClassOfSupply sup : values) {
+        if (isSubclassId(sub.id, sup.id)) {
+          subclassOf[sub.ordinal()][sup.ordinal()] = true;
+          parents.add(sup);
+        }
+      }
+      superclasses.add(Collections.unmodifiableList(parents));
+    }
+    for (ClassOfSupply cos : values) {
+      for (int i = 0; i <= 10 && baseClass[cos.ordinal()] == null; i++) {
+        ClassOfSupply base = getInstance(i);
+        if (cos == base || subclassOf[cos.ordinal()][base.ordinal()]) {
+          baseClass[cos.ordinal()] = base;
+        }
+      }
+    }
+  }
+
+  /**
+   * Determines whether a class of supply number is a sub-class of another one, i.e. the superclass
+   * number is a strict prefix of the subclass number.
+   * 
+   * @param subclassId the candidate subclass number
+   * @param superclassId the candidate superclass number
+   * 
+   * @return true if the subclass number is more specific than the superclass number
+   */
+  private static boolean isSubclassId(int subclassId, int superclassId) {
+    String superclass = Integer.toString(superclassId);
+    String subclass = Integer.toString(subclassId);
+    if (superclass.length() >= subclass.length())
+      return false;
+    if (subclassId == 10 || superclassId == 10)
+      return false;
+    // above is a HACK to account for poor naming convention
+    return subclass.startsWith(superclass);
+  }
+
   /**
    * The default constructor.
    * 
@@ -268,11 +321,7 @@ public enum ClassOfSupply {
    * @return the base class of supply
    */
   public ClassOfSupply getBaseClass() {
-    for (int i = 0; i <= 10; i++) {
-      if (this.isInstanceOf(ClassOfSupply.getInstance(i)))
-        return ClassOfSupply.getInstance(i);
-    }
-    return null;
+    return baseClass[ordinal()];
   }
 
   /**
@@ -284,10 +333,7 @@ public enum ClassOfSupply {
    * @return true if this is an instance of cos, false otherwise
    */
   public boolean isInstanceOf(ClassOfSupply cos) {
-    if (this.equals(cos) || this.isSubclassOf(cos))
-      return true;
-    else
-      return false;
+    return this == cos || subclassOf[ordinal()][cos.ordinal()];
   }
 
   /**
@@ -299,18 +345,7 @@ public enum ClassOfSupply {
    * @return true if this is a subclass of cos, false otherwise
    */
   public boolean isSubclassOf(ClassOfSupply cos) {
-    String superclassId = new Integer(cos.getId()).toString();
-    String subclassId = new Integer(id).toString();
-    if (superclassId.length() >= subclassId.length())
-      return false;
-    if (id == 10 || cos.getId() == 10)
-      return false;
-    // above is a HACK to account for poor naming convention
-    for (int i = 0; i < superclassId.length(); i++) {
-      if (superclassId.charAt(i) != subclassId.charAt(i))
-        return false;
-    }
-    return true;
+    return subclassOf[ordinal()][cos.ordinal()];
   }
 
   /**
@@ -322,17 +357,15 @@ public enum ClassOfSupply {
    * @return true if this is a superclass of cos, false otherwise
    */
   public boolean isSuperclassOf(ClassOfSupply cos) {
-    String superclassId = new Integer(id).toString();
-    String subclassId = new Integer(cos.getId()).toString();
-    if (superclassId.length() >= subclassId.length())
-      return false;
-    if (id == 10 || cos.getId() == 10)
-      return false;
-    // above is a HACK to account for poor naming convention
-    for (int i = 0; i < superclassId.length(); i++) {
-      if (superclassId.charAt(i) != subclassId.charAt(i))
-        return false;
-    }
-    return true;
+    return subclassOf[cos.ordinal()][ordinal()];
+  }
+
+  /**
+   * Gets the superclasses (i.e. parents, less specific) of this class of supply.
+   * 
+   * @return the unmodifiable list of superclasses, most general first
+   */
+  public List<ClassOfSupply> getSuperclasses() {
+    return superclasses.get(ordinal());
   }
 }
@@ -21,7 +21,7 @@ import edu.mit.spacenet.domain.Environment;
 import edu.mit.spacenet.domain.I_Container;
 import edu.mit.spacenet.domain.resource.DemandSet;
 import edu.mit.spacenet.simulator.I_Simulator;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * An element with the capability to contain crew and cargo up to capacity constraints.
@@ -69,7 +69,7 @@ public class Carrier extends Element implements I_Carrier {
    * @see edu.mit.spacenet.domain.element.I_Carrier#getMaxCargoMass()
    */
   public double getMaxCargoMass() {
-    return GlobalParameters.getSingleton().getRoundedMass(maxCargoMass);
+    return SimulationContext.current().getRoundedMass(maxCargoMass);
   }
 
   /*
@@ -102,7 +102,7 @@ public class Carrier extends Element implements I_Carrier {
    * @see edu.mit.spacenet.domain.element.I_Carrier#getMaxCargoVolume()
    */
   public double getMaxCargoVolume() {
-    return GlobalParameters.getSingleton().getRoundedVolume(maxCargoVolume);
+    return SimulationContext.current().getRoundedVolume(maxCargoVolume);
   }
 
   /*
@@ -126,7 +126,7 @@ public class Carrier extends Element implements I_Carrier {
         volume += e.getVolume();
       }
     }
-    return GlobalParameters.getSingleton().getRoundedVolume(volume);
+    return SimulationContext.current().getRoundedVolume(volume);
   }
 
   /*
@@ -193,16 +193,17 @@ public class Carrier extends Element implements I_Carrier {
       else
         return false;
     } else {
+      SimulationContext context = SimulationContext.current();
       if (contents.contains(element)) {
         return true;
       } else if (getCargoMass() + element.getTotalMass()
-          - getMaxCargoMass() > GlobalParameters.getSingleton().getMassPrecision() / 2d) {
+          - getMaxCargoMass() > context.getMassPrecision() / 2d) {
         return false; // mass constrained
-      } else if (GlobalParameters.getSingleton().isVolumeConstrained()
+      } else if (context.isVolumeConstrained()
           && getCargoVolume() + element.getVolume()
-              - getMaxCargoVolume() > GlobalParameters.getSingleton().getVolumePrecision() / 2d) {
+              - getMaxCargoVolume() > context.getVolumePrecision() / 2d) {
         return false; // volume constrained
-      } else if (GlobalParameters.getSingleton().isEnvironmentConstrained()
+      } else if (context.isEnvironmentConstrained()
           && (element.getEnvironment().equals(Environment.PRESSURIZED)
               && getCargoEnvironment().equals(Environment.UNPRESSURIZED))) {
         return false; // environment constrained
@@ -218,7 +219,7 @@ public class Carrier extends Element implements I_Carrier {
    */
   public boolean canAdd(double addedMass) {
     if (getCargoMass() + addedMass
-        - getMaxCargoMass() > GlobalParameters.getSingleton().getMassPrecision() / 2d)
+        - getMaxCargoMass() > SimulationContext.current().getMassPrecision() / 2d)
       return false;
     else
       return true;
@@ -297,7 +298,7 @@ public class Carrier extends Element implements I_Carrier {
     for (I_Element e : contents) {
       mass += e.getTotalMass();
     }
-    return GlobalParameters.getSingleton().getRoundedMass(super.getTotalMass() + mass);
+    return SimulationContext.current().getRoundedMass(super.getTotalMass() + mass);
   }
 
   /*
@@ -312,7 +313,20 @@ public class Carrier extends Element implements I_Carrier {
     for (I_Element e : getContents()) {
       amount += e.getTotalMass(cos);
     }
-    return GlobalParameters.getSingleton().getRoundedMass(amount);
+    return SimulationContext.current().getRoundedMass(amount);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.domain.element.Element#addTotalMassByCos(double[])
+   */
+  @Override
+  public void addTotalMassByCos(double[] masses) {
+    super.addTotalMassByCos(masses);
+    for (I_Element e : getContents()) {
+      e.addTotalMassByCos(masses);
+    }
   }
 
   /*
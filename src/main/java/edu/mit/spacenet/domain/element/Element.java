@@ -25,7 +25,7 @@ import edu.mit.spacenet.domain.resource.Demand;
 import edu.mit.spacenet.domain.resource.DemandSet;
 import edu.mit.spacenet.simulator.I_Simulator;
 import edu.mit.spacenet.simulator.SimScavenge;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * Represents the main objects in simulation, each may have a set of parts (through the intermediate
@@ -84,7 +84,7 @@ public class Element extends DomainObject implements I_Element {
    * @see edu.mit.spacenet.domain.element.I_Element#getEnvironment()
    */
   public Environment getEnvironment() {
-    return GlobalParameters.getSingleton().isEnvironmentConstrained() ? environment
+    return SimulationContext.current().isEnvironmentConstrained() ? environment
         : Environment.UNPRESSURIZED;
   }
 
@@ -104,7 +104,7 @@ public class Element extends DomainObject implements I_Element {
    * @see edu.mit.spacenet.domain.element.I_Element#getAccommodationMass()
    */
   public double getAccommodationMass() {
-    return GlobalParameters.getSingleton().getRoundedMass(accommodationMass);
+    return SimulationContext.current().getRoundedMass(accommodationMass);
   }
 
   /*
@@ -122,7 +122,7 @@ public class Element extends DomainObject implements I_Element {
    * @see edu.mit.spacenet.domain.element.I_Element#getMass()
    */
   public double getMass() {
-    return GlobalParameters.getSingleton().getRoundedMass(mass);
+    return SimulationContext.current().getRoundedMass(mass);
   }
 
   /*
@@ -140,7 +140,7 @@ public class Element extends DomainObject implements I_Element {
    * @see edu.mit.spacenet.domain.element.I_Element#getTotalMass()
    */
   public double getTotalMass() {
-    return GlobalParameters.getSingleton().getRoundedMass(getMass());
+    return SimulationContext.current().getRoundedMass(getMass());
   }
 
   /*
@@ -149,7 +149,7 @@ public class Element extends DomainObject implements I_Element {
    * @see edu.mit.spacenet.domain.element.I_Element#getVolume()
    */
   public double getVolume() {
-    return GlobalParameters.getSingleton().getRoundedVolume(volume);
+    return SimulationContext.current().getRoundedVolume(volume);
   }
 
   /*
@@ -167,7 +167,7 @@ public class Element extends DomainObject implements I_Element {
    * @see edu.mit.spacenet.domain.element.I_Element#getTotalVolume()
    */
   public double getTotalVolume() {
-    return GlobalParameters.getSingleton().getRoundedVolume(getVolume());
+    return SimulationContext.current().getRoundedVolume(getVolume());
   }
 
   /*
@@ -223,8 +223,9 @@ public class Element extends DomainObject implements I_Element {
    * edu.mit.spacenet.domain.element.I_Element#getTotalMass(edu.mit.spacenet.domain.ClassOfSupply)
    */
   public double getTotalMass(ClassOfSupply cos) {
+    SimulationContext context = SimulationContext.current();
     double mass = 0;
-    if (GlobalParameters.getSingleton().isScavengeSpares() && getCurrentState() != null
+    if (context.isScavengeSpares() && getCurrentState() != null
         && getCurrentState().getStateType().equals(StateType.DECOMMISSIONED)) {
       double partsMass = 0;
       for (PartApplication p : getParts()) {
@@ -241,7 +242,42 @@ public class Element extends DomainObject implements I_Element {
         mass += getMass();
       }
     }
-    return GlobalParameters.getSingleton().getRoundedMass(mass);
+    return context.getRoundedMass(mass);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.domain.element.I_Element#addTotalMassByCos(double[])
+   */
+  public void addTotalMassByCos(double[] masses) {
+    SimulationContext context = SimulationContext.current();
+    if (context.isScavengeSpares() && getCurrentState() != null
+        && getCurrentState().getStateType().equals(StateType.DECOMMISSIONED)) {
+      double partsMass = 0;
+      for (PartApplication p : getParts()) {
+        partsMass += p.getQuantity() * p.getPart().getUnitMass();
+        addMass(masses, p.getPart().getClassOfSupply(),
+            p.getQuantity() * p.getPart().getUnitMass());
+      }
+      addMass(masses, getClassOfSupply(), Math.max(0, getMass() - partsMass));
+    } else {
+      addMass(masses, getClassOfSupply(), getMass());
+    }
+  }
+
+  /**
+   * Adds mass of a class of supply to its entry and to the entries of all of its superclasses.
+   * 
+   * @param masses the masses indexed by class of supply ordinal
+   * @param cos the class of supply of the mass
+   * @param mass the mass (kilograms)
+   */
+  protected static void addMass(double[] masses, ClassOfSupply cos, double mass) {
+    masses[cos.ordinal()] += mass;
+    for (ClassOfSupply superclass : cos.getSuperclasses()) {
+      masses[superclass.ordinal()] += mass;
+    }
   }
 
   /*
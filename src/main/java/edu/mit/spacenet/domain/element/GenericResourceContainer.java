@@ -14,7 +14,7 @@
 package edu.mit.spacenet.domain.element;
 
 import edu.mit.spacenet.domain.resource.I_Resource;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * A generic type of resource container where the element's mass and volume are functions of the
@@ -42,7 +42,7 @@ public class GenericResourceContainer extends ResourceContainer {
    */
   @Override
   public double getVolume() {
-    return GlobalParameters.getSingleton()
+    return SimulationContext.current()
         .getRoundedVolume(super.getVolume() + volumePackingFactor * getCargoVolume());
   }
 
@@ -53,7 +53,7 @@ public class GenericResourceContainer extends ResourceContainer {
    */
   @Override
   public double getMass() {
-    return GlobalParameters.getSingleton()
+    return SimulationContext.current()
         .getRoundedMass(super.getMass() + massPackingFactor * getCargoMass());
   }
 
@@ -64,7 +64,7 @@ public class GenericResourceContainer extends ResourceContainer {
    */
   @Override
   public double getMaxCargoMass() {
-    return GlobalParameters.getSingleton()
+    return SimulationContext.current()
         .getRoundedMass((maxMass - getMass()) / (massPackingFactor + 1));
   }
 
@@ -85,7 +85,7 @@ public class GenericResourceContainer extends ResourceContainer {
    */
   @Override
   public double getMaxCargoVolume() {
-    return GlobalParameters.getSingleton()
+    return SimulationContext.current()
         .getRoundedVolume((maxVolume - getVolume()) / (volumePackingFactor + 1));
   }
 
@@ -141,7 +141,7 @@ public class GenericResourceContainer extends ResourceContainer {
    * @return the maximum mass (kilograms)
    */
   public double getMaxMass() {
-    return GlobalParameters.getSingleton().getRoundedMass(maxMass);
+    return SimulationContext.current().getRoundedMass(maxMass);
   }
 
   /**
@@ -159,7 +159,7 @@ public class GenericResourceContainer extends ResourceContainer {
    * @return the maximum container volume (cubic meters)
    */
   public double getMaxVolume() {
-    return GlobalParameters.getSingleton().getRoundedVolume(maxVolume);
+    return SimulationContext.current().getRoundedVolume(maxVolume);
   }
 
   /**
@@ -90,6 +90,16 @@ public interface I_Element extends I_DomainObject, Comparable<I_Element>, Clonea
    */
   public double getTotalMass(ClassOfSupply cos);
 
+  /**
+   * Adds the total mass of all contained resources for every class of supply in a single
+   * traversal. Masses are added to the entry of the class of supply ordinal and of each of its
+   * superclasses without rounding, so each rounded entry matches
+   * {@link #getTotalMass(ClassOfSupply)} to within the mass precision.
+   * 
+   * @param masses the masses indexed by class of supply ordinal to add to (kilograms)
+   */
+  public void addTotalMassByCos(double[] masses);
+
   /**
    * Gets the volume of the element.
    * 
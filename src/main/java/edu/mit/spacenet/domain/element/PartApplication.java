@@ -15,7 +15,7 @@ package edu.mit.spacenet.domain.element;
 
 import edu.mit.spacenet.domain.DomainType;
 import edu.mit.spacenet.domain.resource.Item;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * Defines a relationship between an element and a a part object that includes several modifying
@@ -158,7 +158,7 @@ public class PartApplication extends DomainType implements Comparable<PartApplic
    * @param quantity the quantity of parts
    */
   public void setQuantity(double quantity) {
-    this.quantity = GlobalParameters.getSingleton().getRoundedDemand(quantity);
+    this.quantity = SimulationContext.current().getRoundedDemand(quantity);
   }
 
   /*
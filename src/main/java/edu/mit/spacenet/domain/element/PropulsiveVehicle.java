@@ -14,10 +14,11 @@
 package edu.mit.spacenet.domain.element;
 
 
+
 import edu.mit.spacenet.domain.ClassOfSupply;
 import edu.mit.spacenet.domain.resource.DemandSet;
 import edu.mit.spacenet.simulator.I_Simulator;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * A vehicle that is characterized by having one, either, or both OMS impulsive burns and RCS
@@ -148,7 +149,7 @@ public class PropulsiveVehicle extends Carrier {
       mass += omsFuelTank.getTotalMass();
     if (rcsFuelTank != null && rcsFuelTank != omsFuelTank)
       mass += rcsFuelTank.getTotalMass();
-    return GlobalParameters.getSingleton().getRoundedMass(mass);
+    return SimulationContext.current().getRoundedMass(mass);
   }
 
   /*
@@ -164,7 +165,21 @@ public class PropulsiveVehicle extends Carrier {
       amount += getOmsFuelTank().getTotalMass(cos);
     if (getRcsFuelTank() != null && getRcsFuelTank() != getOmsFuelTank())
       amount += getRcsFuelTank().getTotalMass(cos);
-    return GlobalParameters.getSingleton().getRoundedMass(amount);
+    return SimulationContext.current().getRoundedMass(amount);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.domain.element.Carrier#addTotalMassByCos(double[])
+   */
+  @Override
+  public void addTotalMassByCos(double[] masses) {
+    super.addTotalMassByCos(masses);
+    if (getOmsFuelTank() != null)
+      getOmsFuelTank().addTotalMassByCos(masses);
+    if (getRcsFuelTank() != null && getRcsFuelTank() != getOmsFuelTank())
+      getRcsFuelTank().addTotalMassByCos(masses);
   }
 
   /*
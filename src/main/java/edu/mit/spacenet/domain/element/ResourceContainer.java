@@ -13,6 +13,7 @@
  */
 package edu.mit.spacenet.domain.element;
 
+import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -22,7 +23,7 @@ import edu.mit.spacenet.domain.resource.Demand;
 import edu.mit.spacenet.domain.resource.DemandSet;
 import edu.mit.spacenet.domain.resource.I_Resource;
 import edu.mit.spacenet.simulator.I_Simulator;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * An element that can hold many types of continuous resources up to set mass, volume, and
@@ -53,14 +54,15 @@ public class ResourceContainer extends Element implements I_ResourceContainer {
    * I_Resource, double)
    */
   public boolean canAdd(I_Resource resource, double amount) {
+    SimulationContext context = SimulationContext.current();
     if (getCargoMass() + resource.getUnitMass() * amount
-        - maxCargoMass > GlobalParameters.getSingleton().getMassPrecision() / 2d) {
+        - maxCargoMass > context.getMassPrecision() / 2d) {
       return false; // mass constrained
-    } else if (GlobalParameters.getSingleton().isVolumeConstrained()
+    } else if (context.isVolumeConstrained()
         && getCargoVolume() + resource.getUnitVolume() * amount
-            - maxCargoVolume > GlobalParameters.getSingleton().getVolumePrecision() / 2d) {
+            - maxCargoVolume > context.getVolumePrecision() / 2d) {
       return false; // volume constrained
-    } else if (GlobalParameters.getSingleton().isEnvironmentConstrained()
+    } else if (context.isEnvironmentConstrained()
         && getCargoEnvironment() != resource.getEnvironment()) {
       return false; // environment constrained
     } else
@@ -131,7 +133,7 @@ public class ResourceContainer extends Element implements I_ResourceContainer {
    * @see edu.mit.spacenet.domain.element.I_ResourceContainer#getMaxCargoMass()
    */
   public double getMaxCargoMass() {
-    return GlobalParameters.getSingleton().getRoundedMass(maxCargoMass);
+    return SimulationContext.current().getRoundedMass(maxCargoMass);
   }
 
   /*
@@ -149,7 +151,7 @@ public class ResourceContainer extends Element implements I_ResourceContainer {
    * @see edu.mit.spacenet.domain.element.I_ResourceContainer#getMaxCargoVolume()
    */
   public double getMaxCargoVolume() {
-    return GlobalParameters.getSingleton().getRoundedVolume(maxCargoVolume);
+    return SimulationContext.current().getRoundedVolume(maxCargoVolume);
   }
 
   /*
@@ -171,7 +173,7 @@ public class ResourceContainer extends Element implements I_ResourceContainer {
     for (I_Resource r : contents.keySet()) {
       volume += r.getUnitVolume() * contents.get(r);
     }
-    return GlobalParameters.getSingleton().getRoundedVolume(volume);
+    return SimulationContext.current().getRoundedVolume(volume);
   }
 
   /*
@@ -184,7 +186,7 @@ public class ResourceContainer extends Element implements I_ResourceContainer {
     for (I_Resource r : contents.keySet()) {
       mass += r.getUnitMass() * contents.get(r);
     }
-    return GlobalParameters.getSingleton().getRoundedMass(mass);
+    return SimulationContext.current().getRoundedMass(mass);
   }
 
   /*
@@ -203,7 +205,7 @@ public class ResourceContainer extends Element implements I_ResourceContainer {
    */
   @Override
   public double getTotalMass() {
-    return GlobalParameters.getSingleton().getRoundedMass(super.getTotalMass() + getCargoMass());
+    return SimulationContext.current().getRoundedMass(super.getTotalMass() + getCargoMass());
   }
 
   /*
@@ -222,7 +224,21 @@ public class ResourceContainer extends Element implements I_ResourceContainer {
       }
     }
 
-    return GlobalParameters.getSingleton().getRoundedMass(amount);
+    return SimulationContext.current().getRoundedMass(amount);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.domain.element.Element#addTotalMassByCos(double[])
+   */
+  @Override
+  public void addTotalMassByCos(double[] masses) {
+    super.addTotalMassByCos(masses);
+    for (Map.Entry<I_Resource, Double> entry : getContents().entrySet()) {
+      addMass(masses, entry.getKey().getClassOfSupply(),
+          entry.getValue() * entry.getKey().getUnitMass());
+    }
   }
 
   /*
@@ -15,6 +15,7 @@ package edu.mit.spacenet.domain.element;
 
 
 import java.text.DecimalFormat;
+import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -24,7 +25,7 @@ import edu.mit.spacenet.domain.resource.Demand;
 import edu.mit.spacenet.domain.resource.DemandSet;
 import edu.mit.spacenet.domain.resource.I_Resource;
 import edu.mit.spacenet.simulator.I_Simulator;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * An element that can hold at most one type of continuous resource up to a capacity constraint.
@@ -57,7 +58,7 @@ public class ResourceTank extends Element implements I_ResourceContainer {
   public boolean canAdd(I_Resource resource, double amount) {
     if (this.resource != null && !this.resource.equals(resource))
       return false;
-    else if (this.amount + amount - maxAmount > GlobalParameters.getSingleton().getDemandPrecision()
+    else if (this.amount + amount - maxAmount > SimulationContext.current().getDemandPrecision()
         / 2d)
       return false;
     else
@@ -144,7 +145,7 @@ public class ResourceTank extends Element implements I_ResourceContainer {
    * @return the amount of resource (units of resource consumption)
    */
   public double getAmount() {
-    return GlobalParameters.getSingleton().getRoundedDemand(amount);
+    return SimulationContext.current().getRoundedDemand(amount);
   }
 
   /**
@@ -162,7 +163,7 @@ public class ResourceTank extends Element implements I_ResourceContainer {
    * @return the maximum amount of resource (units of resource consumption)
    */
   public double getMaxAmount() {
-    return GlobalParameters.getSingleton().getRoundedDemand(maxAmount);
+    return SimulationContext.current().getRoundedDemand(maxAmount);
   }
 
   /**
@@ -181,7 +182,7 @@ public class ResourceTank extends Element implements I_ResourceContainer {
    */
   @Override
   public double getTotalMass() {
-    return GlobalParameters.getSingleton().getRoundedMass(super.getTotalMass() + getCargoMass());
+    return SimulationContext.current().getRoundedMass(super.getTotalMass() + getCargoMass());
   }
 
   /*
@@ -195,7 +196,20 @@ public class ResourceTank extends Element implements I_ResourceContainer {
     if (resource != null && getResource().getClassOfSupply().isInstanceOf(cos)) {
       mass += getResource().getUnitMass() * getAmount();
     }
-    return GlobalParameters.getSingleton().getRoundedMass(mass);
+    return SimulationContext.current().getRoundedMass(mass);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.domain.element.Element#addTotalMassByCos(double[])
+   */
+  @Override
+  public void addTotalMassByCos(double[] masses) {
+    super.addTotalMassByCos(masses);
+    if (resource != null) {
+      addMass(masses, getResource().getClassOfSupply(), getResource().getUnitMass() * getAmount());
+    }
   }
 
   /*
@@ -273,7 +287,7 @@ public class ResourceTank extends Element implements I_ResourceContainer {
    */
   public double getCargoMass() {
     return resource == null ? 0
-        : GlobalParameters.getSingleton().getRoundedMass(amount * resource.getUnitMass());
+        : SimulationContext.current().getRoundedMass(amount * resource.getUnitMass());
   }
 
   /*
@@ -283,7 +297,7 @@ public class ResourceTank extends Element implements I_ResourceContainer {
    */
   public double getCargoVolume() {
     return resource == null ? 0
-        : GlobalParameters.getSingleton().getRoundedVolume(amount * resource.getUnitVolume());
+        : SimulationContext.current().getRoundedVolume(amount * resource.getUnitVolume());
   }
 
   /*
@@ -293,7 +307,7 @@ public class ResourceTank extends Element implements I_ResourceContainer {
    */
   public double getMaxCargoMass() {
     return resource == null ? 0
-        : GlobalParameters.getSingleton().getRoundedMass(maxAmount * resource.getUnitMass());
+        : SimulationContext.current().getRoundedMass(maxAmount * resource.getUnitMass());
   }
 
   /*
@@ -303,7 +317,7 @@ public class ResourceTank extends Element implements I_ResourceContainer {
    */
   public double getMaxCargoVolume() {
     return resource == null ? 0
-        : GlobalParameters.getSingleton().getRoundedVolume(maxAmount * resource.getUnitVolume());
+        : SimulationContext.current().getRoundedVolume(maxAmount * resource.getUnitVolume());
   }
 
   /*
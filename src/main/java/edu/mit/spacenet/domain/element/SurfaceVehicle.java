@@ -14,10 +14,11 @@
 package edu.mit.spacenet.domain.element;
 
 
+
 import edu.mit.spacenet.domain.ClassOfSupply;
 import edu.mit.spacenet.domain.resource.DemandSet;
 import edu.mit.spacenet.simulator.I_Simulator;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * A vehicle with an assigned maximum speed and a resource container to represent a fuel tank. Note
@@ -99,7 +100,7 @@ public class SurfaceVehicle extends Carrier {
    */
   @Override
   public double getTotalMass() {
-    return GlobalParameters.getSingleton()
+    return SimulationContext.current()
         .getRoundedMass(super.getTotalMass() + fuelTank.getTotalMass());
   }
 
@@ -114,7 +115,19 @@ public class SurfaceVehicle extends Carrier {
     double amount = super.getTotalMass(cos);
     if (getFuelTank() != null)
       amount += getFuelTank().getTotalMass(cos);
-    return GlobalParameters.getSingleton().getRoundedMass(amount);
+    return SimulationContext.current().getRoundedMass(amount);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.domain.element.Carrier#addTotalMassByCos(double[])
+   */
+  @Override
+  public void addTotalMassByCos(double[] masses) {
+    super.addTotalMassByCos(masses);
+    if (getFuelTank() != null)
+      getFuelTank().addTotalMassByCos(masses);
   }
 
   /*
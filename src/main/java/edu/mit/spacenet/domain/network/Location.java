@@ -205,6 +205,20 @@ public abstract class Location extends DomainType implements I_Container, Compar
     return amount;
   }
 
+  /**
+   * Adds the total mass of the contained elements for every class of supply in a single
+   * traversal.
+   * 
+   * @param masses the masses indexed by class of supply ordinal to add to (kilograms)
+   * 
+   * @see I_Element#addTotalMassByCos(double[])
+   */
+  public void addTotalMassByCos(double[] masses) {
+    for (I_Element element : getContents()) {
+      element.addTotalMassByCos(masses);
+    }
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -13,7 +13,7 @@
  */
 package edu.mit.spacenet.domain.network.edge;
 
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * Edge that represents an abstracted flight with a finite duration and capacity constraints on crew
@@ -39,7 +39,7 @@ public class FlightEdge extends Edge {
    * @return the duration (days)
    */
   public double getDuration() {
-    return GlobalParameters.getSingleton().getRoundedTime(duration);
+    return SimulationContext.current().getRoundedTime(duration);
   }
 
   /**
@@ -16,7 +16,7 @@ package edu.mit.spacenet.domain.network.edge;
 import java.util.ArrayList;
 import java.util.List;
 
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * Edge that represents a series of propulsive burns with a finite duration.
@@ -41,7 +41,7 @@ public class SpaceEdge extends Edge {
    * @return the duration (days)
    */
   public double getDuration() {
-    return GlobalParameters.getSingleton().getRoundedTime(duration);
+    return SimulationContext.current().getRoundedTime(duration);
   }
 
   /**
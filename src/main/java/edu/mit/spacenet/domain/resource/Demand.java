@@ -15,7 +15,7 @@ package edu.mit.spacenet.domain.resource;
 
 import java.text.DecimalFormat;
 
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * Represents a demanded resource and the demanded amount.
@@ -25,6 +25,7 @@ import edu.mit.spacenet.util.GlobalParameters;
 public class Demand implements Comparable<Demand>, Cloneable {
   private I_Resource resource;
   private double amount;
+  private transient DemandSet owner;
 
   /**
    * The default constructor.
@@ -42,7 +43,7 @@ public class Demand implements Comparable<Demand>, Cloneable {
     if (resource == null)
       return 0;
     else
-      return GlobalParameters.getSingleton().getRoundedMass(resource.getUnitMass() * amount);
+      return SimulationContext.current().getRoundedMass(resource.getUnitMass() * amount);
   }
 
   /**
@@ -54,7 +55,7 @@ public class Demand implements Comparable<Demand>, Cloneable {
     if (resource == null)
       return 0;
     else
-      return GlobalParameters.getSingleton().getRoundedVolume(resource.getUnitVolume() * amount);
+      return SimulationContext.current().getRoundedVolume(resource.getUnitVolume() * amount);
   }
 
   /**
@@ -93,7 +94,16 @@ public class Demand implements Comparable<Demand>, Cloneable {
    * @return the demanded amount (units of resource)
    */
   public double getAmount() {
-    return GlobalParameters.getSingleton().getRoundedDemand(amount);
+    return SimulationContext.current().getRoundedDemand(amount);
+  }
+
+  /**
+   * Gets the demanded amount before rounding, as used by the mass and volume.
+   * 
+   * @return the unrounded amount (units of resource)
+   */
+  double getUnroundedAmount() {
+    return amount;
   }
 
   /**
@@ -103,6 +113,18 @@ public class Demand implements Comparable<Demand>, Cloneable {
    */
   public void setAmount(double amount) {
     this.amount = amount;
+    if (owner != null) {
+      owner.invalidateTotals();
+    }
+  }
+
+  /**
+   * Sets the demand set that holds this demand and caches totals over its amount.
+   * 
+   * @param owner the demand set
+   */
+  void setOwner(DemandSet owner) {
+    this.owner = owner;
   }
 
   /*
@@ -13,22 +13,30 @@
  */
 package edu.mit.spacenet.domain.resource;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
- * A wrapper for a set of demands that performs grouping operations.
+ * A wrapper for a set of demands that performs grouping operations. Demands are kept sorted by
+ * resource and indexed by resource so that merging a demand does not scan the set. The total mass
+ * and volume are cached until a demand amount or the unit mass or volume of a resource in the set
+ * changes.
  * 
  * @author Paul Grogan
  */
 public class DemandSet implements Iterable<Demand> {
   private SortedSet<Demand> demands;
 
+  // derived state, rebuilt on first use after loading or copying a set
+  private transient Map<ResourceKey, Demand> index;
+  private transient volatile SimulationContext totalsContext;
+  private transient double totalMass, totalVolume;
+
   /**
    * The constructor.
    */
@@ -36,6 +44,33 @@ public class DemandSet implements Iterable<Demand> {
     demands = new TreeSet<Demand>();
   }
 
+  private Map<ResourceKey, Demand> getIndex() {
+    if (index == null) {
+      index = new HashMap<ResourceKey, Demand>();
+      for (Demand d : demands) {
+        d.setOwner(this);
+        if (d.getResource() != null) {
+          index.put(new ResourceKey(d.getResource()), d);
+          track(d.getResource());
+        }
+      }
+    }
+    return index;
+  }
+
+  private void track(I_Resource resource) {
+    if (resource instanceof Resource) {
+      ((Resource) resource).addDemandSet(this);
+    }
+  }
+
+  /**
+   * Invalidates the cached totals after an amount or a unit mass or volume changed.
+   */
+  void invalidateTotals() {
+    totalsContext = null;
+  }
+
   /**
    * Adds a demand.
    * 
@@ -44,16 +79,23 @@ public class DemandSet implements Iterable<Demand> {
    * @return whether the operation was successful
    */
   public boolean add(Demand demand) {
-    for (Demand d : demands) {
-      if (d.getResource().equals((demand.getResource()))) {
-        d.setAmount(d.getAmount() + demand.getAmount());
-        return true;
-      }
+    ResourceKey key = new ResourceKey(demand.getResource());
+    Demand d = getIndex().get(key);
+    if (d != null) {
+      d.setAmount(d.getAmount() + demand.getAmount());
+      return true;
     }
-    Demand d = new Demand();
+    d = new Demand();
     d.setResource(demand.getResource());
     d.setAmount(demand.getAmount());
-    return demands.add(d);
+    if (demands.add(d)) {
+      d.setOwner(this);
+      index.put(key, d);
+      track(d.getResource());
+      invalidateTotals();
+      return true;
+    }
+    return false;
   }
 
   /**
@@ -75,20 +117,39 @@ public class DemandSet implements Iterable<Demand> {
    * @return whether the operation was successful
    */
   public boolean remove(Demand demand) {
-    for (Demand d : demands) {
-      if (d.getResource().equals(demand.getResource())) {
-        if (d.getAmount() >= demand.getAmount()) {
-          d.setAmount(d.getAmount() - demand.getAmount());
-          demand.setAmount(0);
-          return true;
-        } else {
-          demand.setAmount(demand.getAmount() - d.getAmount());
-          d.setAmount(0);
-          return false;
+    Demand d = getIndex().get(new ResourceKey(demand.getResource()));
+    if (d == null) {
+      return false;
+    } else if (d.getAmount() >= demand.getAmount()) {
+      d.setAmount(d.getAmount() - demand.getAmount());
+      demand.setAmount(0);
+      return true;
+    } else {
+      demand.setAmount(demand.getAmount() - d.getAmount());
+      d.setAmount(0);
+      return false;
+    }
+  }
+
+  private void updateTotals() {
+    SimulationContext context = SimulationContext.current();
+    if (totalsContext != context) {
+      getIndex();
+      double mass = 0;
+      double volume = 0;
+      for (Demand demand : demands) {
+        // same rounding as Demand.getMass and getVolume without a context lookup per demand
+        I_Resource resource = demand.getResource();
+        if (resource != null) {
+          double amount = demand.getUnroundedAmount();
+          mass += context.getRoundedMass(resource.getUnitMass() * amount);
+          volume += context.getRoundedVolume(resource.getUnitVolume() * amount);
         }
       }
+      totalMass = context.getRoundedMass(mass);
+      totalVolume = context.getRoundedVolume(volume);
+      totalsContext = context;
     }
-    return false;
   }
 
   /**
@@ -97,11 +158,8 @@ public class DemandSet implements Iterable<Demand> {
    * @return the mass (kilograms)
    */
   public double getTotalMass() {
-    double mass = 0;
-    for (Demand demand : demands) {
-      mass += demand.getMass();
-    }
-    return GlobalParameters.getSingleton().getRoundedMass(mass);
+    updateTotals();
+    return totalMass;
   }
 
   /**
@@ -110,11 +168,8 @@ public class DemandSet implements Iterable<Demand> {
    * @return the volume (cubic meters)
    */
   public double getTotalVolume() {
-    double volume = 0;
-    for (Demand demand : demands) {
-      volume += demand.getVolume();
-    }
-    return GlobalParameters.getSingleton().getRoundedVolume(volume);
+    updateTotals();
+    return totalVolume;
   }
 
   /*
@@ -123,7 +178,22 @@ public class DemandSet implements Iterable<Demand> {
    * @see java.lang.Iterable#iterator()
    */
   public Iterator<Demand> iterator() {
-    return demands.iterator();
+    final Iterator<Demand> iterator = demands.iterator();
+    return new Iterator<Demand>() {
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      public Demand next() {
+        return iterator.next();
+      }
+
+      public void remove() {
+        iterator.remove();
+        index = null;
+        invalidateTotals();
+      }
+    };
   }
 
   /*
@@ -149,19 +219,23 @@ public class DemandSet implements Iterable<Demand> {
    */
   public void clear() {
     demands.clear();
+    index = null;
+    invalidateTotals();
   }
 
   /**
    * Removes any demands with zero amount.
    */
   public void clean() {
-    List<Demand> forRemoval = new ArrayList<Demand>();
-    for (Demand demand : this) {
-      if (demand == null || demand.getAmount() == 0)
-        forRemoval.add(demand);
-    }
-    for (Demand d : forRemoval) {
-      demands.remove(d);
+    Iterator<Demand> iterator = demands.iterator();
+    while (iterator.hasNext()) {
+      Demand demand = iterator.next();
+      if (demand == null || demand.getAmount() == 0) {
+        iterator.remove();
+        if (index != null && demand != null && demand.getResource() != null) {
+          index.remove(new ResourceKey(demand.getResource()));
+        }
+      }
     }
   }
 }
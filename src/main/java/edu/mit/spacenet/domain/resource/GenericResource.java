@@ -15,7 +15,7 @@ package edu.mit.spacenet.domain.resource;
 
 import edu.mit.spacenet.domain.ClassOfSupply;
 import edu.mit.spacenet.domain.Environment;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * A specific type of resource that is forced to have type identifier -cos and (unit) mass 1.
@@ -92,13 +92,13 @@ public class GenericResource extends Resource {
   @Override
   public double getPackingFactor() {
     if (getClassOfSupply().equals(ClassOfSupply.COS203))
-      return GlobalParameters.getSingleton().getGenericPackingFactorGas();
+      return SimulationContext.current().getGenericPackingFactorGas();
     else if (getClassOfSupply().equals(ClassOfSupply.COS201))
-      return GlobalParameters.getSingleton().getGenericPackingFactorLiquid();
+      return SimulationContext.current().getGenericPackingFactorLiquid();
     else if (getEnvironment().equals(Environment.UNPRESSURIZED))
-      return GlobalParameters.getSingleton().getGenericPackingFactorUnpressurized();
+      return SimulationContext.current().getGenericPackingFactorUnpressurized();
     else if (getEnvironment().equals(Environment.PRESSURIZED))
-      return GlobalParameters.getSingleton().getGenericPackingFactorPressurizedInternal();
+      return SimulationContext.current().getGenericPackingFactorPressurized();
     else
       return super.getPackingFactor();
   }
@@ -13,6 +13,9 @@
  */
 package edu.mit.spacenet.domain.resource;
 
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import edu.mit.spacenet.domain.ClassOfSupply;
 import edu.mit.spacenet.domain.DomainType;
 import edu.mit.spacenet.domain.Environment;
@@ -30,6 +33,9 @@ public class Resource extends DomainType implements I_Resource {
   private double unitVolume;
   private double packingFactor;
 
+  // demand sets holding this resource, whose cached totals depend on its unit mass and volume
+  private transient Map<DemandSet, Boolean> demandSets;
+
   /**
    * The default constructor that sets a default name, sets the default class of supply to COS 0,
    * sets the environment to unpressurized, and sets default units to kilograms.
@@ -43,6 +49,27 @@ public class Resource extends DomainType implements I_Resource {
     setUnits("kg");
   }
 
+  /**
+   * Registers a demand set that holds this resource so that its cached totals are invalidated when
+   * the unit mass or unit volume changes. Sets are weakly referenced.
+   * 
+   * @param demandSet the demand set
+   */
+  synchronized void addDemandSet(DemandSet demandSet) {
+    if (demandSets == null) {
+      demandSets = new WeakHashMap<DemandSet, Boolean>();
+    }
+    demandSets.put(demandSet, Boolean.TRUE);
+  }
+
+  private synchronized void invalidateDemandSets() {
+    if (demandSets != null) {
+      for (DemandSet demandSet : demandSets.keySet()) {
+        demandSet.invalidateTotals();
+      }
+    }
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -115,6 +142,7 @@ public class Resource extends DomainType implements I_Resource {
    */
   public void setUnitMass(double unitMass) {
     this.unitMass = unitMass;
+    invalidateDemandSets();
   }
 
   /*
@@ -133,6 +161,7 @@ public class Resource extends DomainType implements I_Resource {
    */
   public void setUnitVolume(double unitVolume) {
     this.unitVolume = unitVolume;
+    invalidateDemandSets();
   }
 
   /**
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.domain.resource;
+
+import edu.mit.spacenet.domain.Environment;
+
+/**
+ * A hash key with the same equality as resources (type, type identifier and environment), for
+ * indexing by resource where resources themselves do not define a hash code.
+ * 
+ * @author Paul Grogan
+ */
+public final class ResourceKey {
+  private final Class<?> type;
+  private final int tid;
+  private final Environment environment;
+
+  /**
+   * Instantiates a new resource key.
+   * 
+   * @param resource the resource (may be null)
+   */
+  public ResourceKey(I_Resource resource) {
+    type = resource == null ? null : resource.getClass();
+    tid = resource == null ? 0 : resource.getTid();
+    environment = resource == null ? null : resource.getEnvironment();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  @Override
+  public boolean equals(Object object) {
+    if (!(object instanceof ResourceKey)) {
+      return false;
+    }
+    ResourceKey key = (ResourceKey) object;
+    return type == key.type && tid == key.tid && environment == key.environment;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#hashCode()
+   */
+  @Override
+  public int hashCode() {
+    return (type == null ? 0 : type.hashCode()) * 31 * 31 + tid * 31
+        + (environment == null ? 0 : environment.hashCode());
+  }
+}
@@ -32,12 +32,9 @@ import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 
-import org.apache.commons.io.FilenameUtils;
-
 import edu.mit.spacenet.domain.element.I_Element;
+import edu.mit.spacenet.io.ScenarioEngine;
 import edu.mit.spacenet.io.ScenarioFileFilter;
-import edu.mit.spacenet.io.XStreamEngine;
-import edu.mit.spacenet.io.gson.scenario.GsonEngine;
 import edu.mit.spacenet.scenario.Scenario;
 import edu.mit.spacenet.util.IconLibrary;
 import edu.mit.spacenet.util.IdGenerator;
@@ -199,15 +196,8 @@ public class SpaceNetFrame extends JFrame {
    */
   public void openScenario(String filePath) {
     try {
-      String extension = FilenameUtils.getExtension(filePath);
-      if (extension.equals("xml")) {
-        Scenario scenario = XStreamEngine.openScenario(filePath);
-        scenario.setFilePath(filePath);
-        setScenario(scenario);
-      } else if (extension.equals("json")) {
-        Scenario scenario = GsonEngine.openScenario(filePath);
-        scenario.setFilePath(filePath);
-        setScenario(scenario);
+      if (ScenarioEngine.isScenarioFile(filePath)) {
+        setScenario(ScenarioEngine.openScenario(filePath));
       }
     } catch (FileNotFoundException e) {
       JOptionPane.showMessageDialog(this, "The scenario file path (" + filePath + ") is invalid.",
@@ -230,11 +220,8 @@ public class SpaceNetFrame extends JFrame {
    */
   public void saveScenario() {
     try {
-      String extension = FilenameUtils.getExtension(scenarioPanel.getScenario().getFileName());
-      if (extension.equals("xml")) {
-        XStreamEngine.saveScenario(scenarioPanel.getScenario());
-      } else if (extension.equals("json")) {
-        GsonEngine.saveScenario(scenarioPanel.getScenario());
+      if (ScenarioEngine.isScenarioFile(scenarioPanel.getScenario().getFileName())) {
+        ScenarioEngine.saveScenario(scenarioPanel.getScenario());
       }
     } catch (FileNotFoundException e) {
       JOptionPane.showMessageDialog(this,
@@ -16,6 +16,7 @@ package edu.mit.spacenet.gui.command;
 import java.awt.Component;
 import java.awt.Cursor;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import javax.swing.BoxLayout;
 import javax.swing.DefaultListModel;
@@ -103,10 +104,18 @@ public class LoadDataSourceCommand implements I_Command {
                   dataSourceDialog.updateResources());
             }
             if (dataSourceDialog != null && dataSourceDialog.updateInstantiatedElements()) {
-              for (I_Element element : scenarioPanel.getScenario().getElements()) {
+              // load all instantiated elements from the data source at once
+              List<I_Element> elements = scenarioPanel.getScenario().getElements();
+              List<Integer> tids = new ArrayList<Integer>();
+              for (I_Element element : elements) {
+                if (element.getTid() > 0)
+                  tids.add(element.getTid());
+              }
+              Iterator<I_Element> mirrors =
+                  scenarioPanel.getScenario().getDataSource().loadElements(tids).iterator();
+              for (I_Element element : elements) {
                 if (element.getTid() > 0) {
-                  I_Element mirror =
-                      scenarioPanel.getScenario().getDataSource().loadElement(element.getTid());
+                  I_Element mirror = mirrors.next();
                   if (mirror.getClass().equals(element.getClass())) {
                     element.setAccommodationMass(mirror.getAccommodationMass());
                     element.setClassOfSupply(mirror.getClassOfSupply());
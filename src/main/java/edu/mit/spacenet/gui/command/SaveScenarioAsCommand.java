@@ -23,6 +23,7 @@ import org.apache.commons.io.FilenameUtils;
 import edu.mit.spacenet.gui.SpaceNetFrame;
 import edu.mit.spacenet.gui.SpaceNetSettings;
 import edu.mit.spacenet.io.ScenarioFileFilter;
+import edu.mit.spacenet.io.XStreamEngine;
 
 /**
  * The command to save a scenario with a new filename.
@@ -68,7 +69,8 @@ public class SaveScenarioAsCommand implements I_Command {
     if (fileChooser.showSaveDialog(spaceNetFrame) == JFileChooser.APPROVE_OPTION) {
       String filepath = fileChooser.getSelectedFile().getAbsolutePath();
       String extension = FilenameUtils.getExtension(filepath);
-      if (extension == null || !(extension.equals("xml") || extension.equals("json"))) {
+      if (extension == null || !(extension.equals("xml") || extension.equals("json")
+          || extension.equals("snb") || XStreamEngine.isCompressed(filepath))) {
         filepath += ".xml";
       }
       spaceNetFrame.getScenarioPanel().getScenario().setFilePath(filepath);
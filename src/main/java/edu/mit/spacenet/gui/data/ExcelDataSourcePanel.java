@@ -28,6 +28,7 @@ import javax.swing.JTextField;
 import edu.mit.spacenet.data.Spreadsheet_2_5;
 import edu.mit.spacenet.gui.SpaceNetSettings;
 import edu.mit.spacenet.io.XLSFileFilter;
+import edu.mit.spacenet.io.XLSXFileFilter;
 
 /**
  * A data source panel for excel spreadsheet data sources.
@@ -85,6 +86,7 @@ public class ExcelDataSourcePanel extends AbstractDataSourcePanel {
       public void actionPerformed(ActionEvent e) {
         JFileChooser fileChooser =
             new JFileChooser(SpaceNetSettings.getInstance().getDefaultDirectory());
+        fileChooser.addChoosableFileFilter(new XLSXFileFilter());
         fileChooser.setFileFilter(new XLSFileFilter());
         int returnVal = fileChooser.showOpenDialog(getDialog());
         if (returnVal == JFileChooser.APPROVE_OPTION) {
@@ -32,6 +32,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashSet;
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
@@ -62,6 +63,7 @@ import edu.mit.spacenet.gui.SpaceNetSettings;
 import edu.mit.spacenet.gui.component.DropDownButton;
 import edu.mit.spacenet.gui.component.ElementTree;
 import edu.mit.spacenet.scenario.Manifest;
+import edu.mit.spacenet.scenario.PackingStrategy;
 import edu.mit.spacenet.scenario.Scenario;
 import edu.mit.spacenet.scenario.SupplyEdge;
 import edu.mit.spacenet.scenario.SupplyPoint;
@@ -91,6 +93,8 @@ public class ManifestTab extends JSplitPane {
   private ManifestWorker manifestWorker;
   private AggregatedDemandsTable aggregatedDemandsTable;
   private JButton clearButton, resetButton, autoManifestButton, unpackButton, autoPackButton;
+  private JComboBox<PackingStrategy> packingStrategyCombo;
+  private JCheckBox compareStrategiesCheck;
 
   private JTextField directoryPathText, fileNameText;
   private JCheckBox overwriteCheck;
@@ -234,6 +238,28 @@ public class ManifestTab extends JSplitPane {
     });
     buttonPanel.add(autoManifestButton);
     demandsPanel.add(buttonPanel, c);
+    c.gridy++;
+    JPanel strategyPanel = new JPanel();
+    strategyPanel.setLayout(new FlowLayout(FlowLayout.LEFT, 3, 0));
+    strategyPanel.add(new JLabel("Packing Strategy: "));
+    packingStrategyCombo = new JComboBox<PackingStrategy>();
+    for (PackingStrategy strategy : PackingStrategy.values()) {
+      packingStrategyCombo.addItem(strategy);
+    }
+    packingStrategyCombo.addActionListener(new ActionListener() {
+      public void actionPerformed(ActionEvent e) {
+        if (getScenario() != null && packingStrategyCombo.getSelectedItem() != null) {
+          getManifest()
+              .setPackingStrategy((PackingStrategy) packingStrategyCombo.getSelectedItem());
+        }
+      }
+    });
+    strategyPanel.add(packingStrategyCombo);
+    compareStrategiesCheck = new JCheckBox("Compare Strategies", false);
+    compareStrategiesCheck.setToolTipText(
+        "Auto-manifest with every packing strategy and keep the result with the fewest containers");
+    strategyPanel.add(compareStrategiesCheck);
+    demandsPanel.add(strategyPanel, c);
 
     c.gridy++;
     c.anchor = GridBagConstraints.LINE_START;
@@ -993,6 +1019,11 @@ public class ManifestTab extends JSplitPane {
   public void initialize() {
     resetButton.setEnabled(getScenario() != null);
     autoManifestButton.setEnabled(getScenario() != null);
+    packingStrategyCombo.setEnabled(getScenario() != null);
+    compareStrategiesCheck.setEnabled(getScenario() != null);
+    if (getScenario() != null) {
+      packingStrategyCombo.setSelectedItem(getManifest().getPackingStrategy());
+    }
     unpackButton.setEnabled(getScenario() != null);
     autoPackButton.setEnabled(getScenario() != null);
 
@@ -1327,7 +1358,12 @@ public class ManifestTab extends JSplitPane {
       try {
         SpaceNetFrame.getInstance().getStatusBar().setStatusMessage("Auto-Manifesting...");
         scenarioPanel.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-        getManifest().autoManifest();
+        if (compareStrategiesCheck.isSelected()) {
+          packingStrategyCombo.setSelectedItem(
+              getManifest().autoManifest(EnumSet.allOf(PackingStrategy.class)));
+        } else {
+          getManifest().autoManifest();
+        }
         updateView();
         scenarioPanel.setCursor(Cursor.getDefaultCursor());
         SpaceNetFrame.getInstance().getStatusBar().clearStatusMessage();
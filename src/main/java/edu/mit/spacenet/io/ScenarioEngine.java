@@ -0,0 +1,98 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.io;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Locale;
+
+import org.apache.commons.io.FilenameUtils;
+
+import edu.mit.spacenet.io.gson.scenario.BinaryEngine;
+import edu.mit.spacenet.io.gson.scenario.GsonEngine;
+import edu.mit.spacenet.scenario.Scenario;
+
+/**
+ * A class to open and save scenarios with the engine for the file type of their file path: XML
+ * (.xml or .xml.gz), JSON (.json), or binary (.snb).
+ * 
+ * @author Paul Grogan
+ */
+public abstract class ScenarioEngine {
+
+  /**
+   * Checks whether a file path names a scenario file type.
+   * 
+   * @param filePath the file path
+   * 
+   * @return true, if the file path ends with .xml, .xml.gz, .json, or .snb
+   */
+  public static boolean isScenarioFile(String filePath) {
+    String extension = getExtension(filePath);
+    return extension.equals("xml") || extension.equals("json") || extension.equals("snb")
+        || XStreamEngine.isCompressed(filePath);
+  }
+
+  /**
+   * Opens a scenario with the engine for its file type and sets its file path.
+   * 
+   * @param filePath the file path to open
+   * 
+   * @return the deserialized scenario
+   * 
+   * @throws FileNotFoundException the file not found exception
+   * @throws IOException the i/o exception, or if the file type is not supported
+   */
+  public static Scenario openScenario(String filePath) throws FileNotFoundException, IOException {
+    String extension = getExtension(filePath);
+    Scenario scenario;
+    if (extension.equals("xml") || XStreamEngine.isCompressed(filePath)) {
+      scenario = XStreamEngine.openScenario(filePath);
+    } else if (extension.equals("json")) {
+      scenario = GsonEngine.openScenario(filePath);
+    } else if (extension.equals("snb")) {
+      scenario = BinaryEngine.openScenario(filePath);
+    } else {
+      throw new IOException("Unsupported scenario file type: " + filePath);
+    }
+    scenario.setFilePath(filePath);
+    return scenario;
+  }
+
+  /**
+   * Saves a scenario with the engine for the file type of its file path.
+   * 
+   * @param scenario the scenario to save
+   * 
+   * @throws FileNotFoundException the file not found exception
+   * @throws IOException the i/o exception, or if the file type is not supported
+   */
+  public static void saveScenario(Scenario scenario) throws FileNotFoundException, IOException {
+    String filePath = scenario.getFilePath();
+    String extension = getExtension(filePath);
+    if (extension.equals("xml") || XStreamEngine.isCompressed(filePath)) {
+      XStreamEngine.saveScenario(scenario);
+    } else if (extension.equals("json")) {
+      GsonEngine.saveScenario(scenario);
+    } else if (extension.equals("snb")) {
+      BinaryEngine.saveScenario(scenario);
+    } else {
+      throw new IOException("Unsupported scenario file type: " + filePath);
+    }
+  }
+
+  private static String getExtension(String filePath) {
+    return filePath == null ? "" : FilenameUtils.getExtension(filePath).toLowerCase(Locale.ROOT);
+  }
+}
@@ -17,10 +17,8 @@ import java.io.File;
 
 import javax.swing.filechooser.FileFilter;
 
-import org.apache.commons.io.FilenameUtils;
-
 /**
- * A filter for file dialogs to only show .xml and .json files.
+ * A filter for file dialogs to only show .xml, .xml.gz, .json, and .snb files.
  * 
  * @author Paul Grogan
  */
@@ -35,11 +33,7 @@ public class ScenarioFileFilter extends FileFilter {
     if (f.isDirectory()) {
       return true;
     }
-    String extension = FilenameUtils.getExtension(f.getName());
-    if (extension != null && (extension.equals("xml") || extension.equals("json"))) {
-      return true;
-    }
-    return false;
+    return ScenarioEngine.isScenarioFile(f.getName());
   }
 
   /*
@@ -48,6 +42,6 @@ public class ScenarioFileFilter extends FileFilter {
    * @see javax.swing.filechooser.FileFilter#getDescription()
    */
   public String getDescription() {
-    return "Scenario Files (.xml or .json)";
+    return "Scenario Files (.xml, .xml.gz, .json, or .snb)";
   }
 }
@@ -13,12 +13,19 @@
  */
 package edu.mit.spacenet.io;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.xml.StaxDriver;
 import com.thoughtworks.xstream.security.NoTypePermission;
 import com.thoughtworks.xstream.security.NullPermission;
 import com.thoughtworks.xstream.security.PrimitiveTypePermission;
@@ -49,9 +56,13 @@ import edu.mit.spacenet.util.GlobalParameters;
  * @author Paul Grogan
  */
 public abstract class XStreamEngine {
+  private static final int BUFFER_SIZE = 1 << 16;
+  // xstream instances are thread-safe once configured; building one repeats all reflection
+  private static final XStream XSTREAM = createXStream();
+  private static final XStream XSTREAM_READ = createXStreamRead();
 
-  private static XStream getXStream() {
-    XStream xs = new XStream();
+  private static XStream createXStream() {
+    XStream xs = new XStream(new StaxDriver());
     xs.addPermission(NoTypePermission.NONE);
     xs.addPermission(NullPermission.NULL);
     xs.addPermission(PrimitiveTypePermission.PRIMITIVES);
@@ -62,8 +73,8 @@ public abstract class XStreamEngine {
     return xs;
   }
 
-  private static XStream getXStreamRead() {
-    XStream xs = new XStream();
+  private static XStream createXStreamRead() {
+    XStream xs = new XStream(new StaxDriver());
     xs.addPermission(NoTypePermission.NONE);
     xs.addPermission(NullPermission.NULL);
     xs.addPermission(PrimitiveTypePermission.PRIMITIVES);
@@ -104,7 +115,18 @@ public abstract class XStreamEngine {
   }
 
   /**
-   * Serializes and saves a scenario.
+   * Checks whether a file path names a gzip-compressed scenario file (.xml.gz).
+   * 
+   * @param filePath the file path
+   * 
+   * @return true, if the file path ends with .xml.gz
+   */
+  public static boolean isCompressed(String filePath) {
+    return filePath != null && filePath.toLowerCase().endsWith(".xml.gz");
+  }
+
+  /**
+   * Serializes and saves a scenario. Scenarios saved to .xml.gz file paths are gzip-compressed.
    * 
    * @param scenario the scenario to save
    * 
@@ -112,13 +134,21 @@ public abstract class XStreamEngine {
    * @throws IOException the i/o exception
    */
   public static void saveScenario(Scenario scenario) throws FileNotFoundException, IOException {
-    FileOutputStream fos = new FileOutputStream(scenario.getFilePath());
-    getXStream().toXML(scenario, fos);
-    fos.close();
+    OutputStream out = new FileOutputStream(scenario.getFilePath());
+    try {
+      if (isCompressed(scenario.getFilePath())) {
+        out = new GZIPOutputStream(out, BUFFER_SIZE);
+      }
+      out = new BufferedOutputStream(out, BUFFER_SIZE);
+      XSTREAM.toXML(scenario, out);
+    } finally {
+      out.close();
+    }
   }
 
   /**
-   * Opens and deserializes a scenario based on a file path.
+   * Opens and deserializes a scenario based on a file path. Gzip-compressed files are detected by
+   * their leading magic bytes (regardless of the file extension).
    * 
    * @param filePath the file path to open
    * 
@@ -130,12 +160,42 @@ public abstract class XStreamEngine {
   public static Scenario openScenario(String filePath) throws FileNotFoundException, IOException {
     Scenario scenario = new Scenario();
 
-    FileInputStream fis = new FileInputStream(filePath);
-    getXStreamRead().fromXML(fis, scenario);
+    InputStream in = new BufferedInputStream(new FileInputStream(filePath), BUFFER_SIZE);
+    try {
+      in.mark(2);
+      int magic = in.read() | in.read() << 8;
+      in.reset();
+      if (magic == GZIPInputStream.GZIP_MAGIC) {
+        in = new GZIPInputStream(in, BUFFER_SIZE);
+      }
+      XSTREAM_READ.fromXML(in, scenario);
+    } finally {
+      in.close();
+    }
     // TODO: re-load libraries when opening scenario
     // scenario.getDataSource().loadLibraries();
-    fis.close();
     GlobalParameters.getSingleton().setParametersFrom(scenario);
     return scenario;
   }
+
+  /**
+   * Serializes an object to a stream using the same settings as scenario files.
+   * 
+   * @param object the object to serialize
+   * @param out the output stream
+   */
+  public static void saveObject(Object object, OutputStream out) {
+    XSTREAM.toXML(object, out);
+  }
+
+  /**
+   * Deserializes an object from a stream written by {@link #saveObject(Object, OutputStream)}.
+   * 
+   * @param in the input stream
+   * 
+   * @return the deserialized object
+   */
+  public static Object openObject(InputStream in) {
+    return XSTREAM_READ.fromXML(in);
+  }
 }
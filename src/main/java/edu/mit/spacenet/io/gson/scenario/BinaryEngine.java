@@ -0,0 +1,234 @@
+package edu.mit.spacenet.io.gson.scenario;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.mit.spacenet.scenario.Scenario;
+import edu.mit.spacenet.util.GlobalParameters;
+
+/**
+ * Reads and writes scenarios in the compact binary (.snb) format. The binary format stores the same
+ * objects as the JSON format as a stream of tagged tokens. All strings (field names, type labels,
+ * and the ids that reference resources, elements, and demand models) are replaced by indices into
+ * a string dictionary, and numbers are stored as variable-length integers or 8-byte doubles.
+ *
+ * <pre>
+ * header      int magic, int format version, long data offset, long data length,
+ *             long dictionary offset, long section table offset
+ * data        token stream of the scenario object
+ * dictionary  varint count, then (varint length, utf-8 bytes) per string
+ * sections    varint count, then (varint name, long offset, long length) per section
+ * </pre>
+ *
+ * The section table locates each top-level field (including the resource list, demand models,
+ * element templates, and instantiated elements), each list of the network, and each mission
+ * within the data. It is only used to inspect files ({@link #readSections(String)}): a scenario
+ * is always decoded in full when it is opened, including all of its missions, because the
+ * simulators, editors, and serializers traverse the mission list of the domain scenario directly.
+ */
+public abstract class BinaryEngine {
+  static final int MAGIC = 0x534e4253; // "SNBS"
+  static final int FORMAT_VERSION = 1;
+  static final int HEADER_LENGTH = 40;
+
+  static final byte END_DOCUMENT = 0;
+  static final byte BEGIN_OBJECT = 1;
+  static final byte END_OBJECT = 2;
+  static final byte BEGIN_ARRAY = 3;
+  static final byte END_ARRAY = 4;
+  static final byte NAME = 5;
+  static final byte STRING = 6;
+  static final byte LONG = 7;
+  static final byte DOUBLE = 8;
+  static final byte NUMBER = 9;
+  static final byte TRUE = 10;
+  static final byte FALSE = 11;
+  static final byte NULL = 12;
+
+  public static Scenario openScenario(String filePath) throws FileNotFoundException, IOException {
+    Scenario scenario;
+    try {
+      ByteBuffer buffer = readFile(filePath);
+      long dataOffset = readHeader(buffer, filePath);
+      long dataLength = buffer.getLong();
+      long dictionaryOffset = buffer.getLong();
+      buffer.position(checkOffset(buffer, dictionaryOffset));
+      String[] strings = readDictionary(buffer);
+      buffer.position(checkOffset(buffer, dataOffset));
+      buffer.limit(checkOffset(buffer, dataOffset + dataLength));
+      scenario = edu.mit.spacenet.io.gson.scenario.Scenario
+          .read(new BinaryJsonReader(buffer.slice(), strings), GsonEngine.getGson());
+    } catch (IllegalStateException | IllegalArgumentException | IndexOutOfBoundsException
+        | BufferUnderflowException ex) {
+      throw new IOException("Invalid binary scenario file " + filePath, ex);
+    }
+    GlobalParameters.getSingleton().setParametersFrom(scenario);
+    return scenario;
+  }
+
+  /**
+   * Reads the section table of a binary scenario file without decoding the scenario. Opening a
+   * scenario does not use the table.
+   *
+   * @param filePath the file path
+   *
+   * @return the byte offset and length of each section within the file, keyed by section name
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static Map<String, long[]> readSections(String filePath) throws IOException {
+    Map<String, long[]> sections = new LinkedHashMap<String, long[]>();
+    try {
+      ByteBuffer buffer = readFile(filePath);
+      readHeader(buffer, filePath);
+      buffer.getLong();
+      long dictionaryOffset = buffer.getLong();
+      long tableOffset = buffer.getLong();
+      buffer.position(checkOffset(buffer, dictionaryOffset));
+      String[] strings = readDictionary(buffer);
+      buffer.position(checkOffset(buffer, tableOffset));
+      int count = readVarint(buffer);
+      for (int i = 0; i < count; i++) {
+        String name = strings[readVarint(buffer)];
+        sections.put(name, new long[] {buffer.getLong(), buffer.getLong()});
+      }
+    } catch (IllegalStateException | IllegalArgumentException | IndexOutOfBoundsException
+        | BufferUnderflowException ex) {
+      throw new IOException("Invalid binary scenario file " + filePath, ex);
+    }
+    return sections;
+  }
+
+  public static void saveScenario(Scenario scenario) throws FileNotFoundException, IOException {
+    FileOutputStream file = new FileOutputStream(scenario.getFilePath());
+    try {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+      out.write(new byte[HEADER_LENGTH]); // patched below, once the offsets are known
+      BinaryJsonWriter writer = new BinaryJsonWriter(out);
+      edu.mit.spacenet.io.gson.scenario.Scenario.write(scenario, writer, GsonEngine.getGson());
+      long dataLength = out.size() - HEADER_LENGTH;
+
+      long dictionaryOffset = out.size();
+      List<String> strings = writer.getStrings();
+      List<long[]> sections = writer.getSections();
+      writeVarint(out, strings.size());
+      for (String s : strings) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+      }
+
+      long tableOffset = out.size();
+      writeVarint(out, sections.size());
+      for (long[] section : sections) {
+        writeVarint(out, (int) section[0]);
+        out.writeLong(section[1]);
+        out.writeLong(section[2]);
+      }
+      out.flush();
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+      header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(HEADER_LENGTH).putLong(dataLength)
+          .putLong(dictionaryOffset).putLong(tableOffset).flip();
+      file.getChannel().write(header, 0);
+    } finally {
+      file.close();
+    }
+  }
+
+  /**
+   * Reads a file into a heap buffer. The file is read rather than mapped so that it is not held
+   * open by the buffer after the channel is closed, which would keep it from being replaced or
+   * deleted on some platforms until the buffer is garbage collected.
+   *
+   * @param filePath the file path
+   *
+   * @return the buffer, positioned at the start of the file
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private static ByteBuffer readFile(String filePath) throws FileNotFoundException, IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException(filePath + " is too large for a binary scenario file");
+      }
+      ByteBuffer buffer = ByteBuffer.allocate((int) size);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) {
+          throw new EOFException(filePath);
+        }
+      }
+      buffer.flip();
+      return buffer;
+    } catch (NoSuchFileException ex) {
+      throw new FileNotFoundException(filePath);
+    }
+  }
+
+  private static long readHeader(ByteBuffer buffer, String filePath) throws IOException {
+    if (buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC) {
+      throw new IOException(filePath + " is not a binary scenario file");
+    }
+    int version = buffer.getInt();
+    if (version != FORMAT_VERSION) {
+      throw new IOException("Unsupported binary scenario format version " + version);
+    }
+    return buffer.getLong();
+  }
+
+  private static int checkOffset(ByteBuffer buffer, long offset) {
+    if (offset < HEADER_LENGTH || offset > buffer.capacity()) {
+      throw new IndexOutOfBoundsException("offset " + offset);
+    }
+    return (int) offset;
+  }
+
+  private static String[] readDictionary(ByteBuffer buffer) {
+    String[] strings = new String[readVarint(buffer)];
+    byte[] bytes = new byte[64];
+    for (int i = 0; i < strings.length; i++) {
+      int length = readVarint(buffer);
+      if (length > bytes.length) {
+        bytes = new byte[Math.max(length, 2 * bytes.length)];
+      }
+      buffer.get(bytes, 0, length);
+      strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+    return strings;
+  }
+
+  static void writeVarint(DataOutputStream out, int value) throws IOException {
+    while ((value & ~0x7f) != 0) {
+      out.write((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  static int readVarint(ByteBuffer buffer) {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      byte b = buffer.get();
+      value |= (b & 0x7f) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new IllegalStateException("Malformed varint at offset " + buffer.position());
+  }
+}
@@ -0,0 +1,261 @@
+package edu.mit.spacenet.io.gson.scenario;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Reads JSON tokens from the data of a (memory-mapped) binary scenario file (see
+ * {@link BinaryEngine}).
+ */
+class BinaryJsonReader extends JsonReader {
+  private static final Reader UNREADABLE_READER = new Reader() {
+    @Override
+    public int read(char[] buffer, int offset, int count) {
+      throw new AssertionError();
+    }
+
+    @Override
+    public void close() {
+      throw new AssertionError();
+    }
+  };
+
+  private final ByteBuffer data;
+  private final String[] strings;
+
+  BinaryJsonReader(ByteBuffer data, String[] strings) {
+    super(UNREADABLE_READER);
+    this.data = data;
+    this.strings = strings;
+  }
+
+  private byte peekTag() {
+    return data.hasRemaining() ? data.get(data.position()) : BinaryEngine.END_DOCUMENT;
+  }
+
+  private void expect(byte tag, JsonToken token) throws IOException {
+    if (peekTag() != tag) {
+      throw new IllegalStateException(
+          "Expected " + token + " but was " + peek() + locationString());
+    }
+    data.get();
+  }
+
+  private String locationString() {
+    return " at offset " + data.position();
+  }
+
+  private long readLong() {
+    long zigzag = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = data.get();
+      zigzag |= (long) (b & 0x7f) << shift;
+      if (b >= 0) {
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+      }
+    }
+    throw new IllegalStateException("Malformed varint" + locationString());
+  }
+
+  @Override
+  public JsonToken peek() throws IOException {
+    switch (peekTag()) {
+      case BinaryEngine.END_DOCUMENT:
+        return JsonToken.END_DOCUMENT;
+      case BinaryEngine.BEGIN_OBJECT:
+        return JsonToken.BEGIN_OBJECT;
+      case BinaryEngine.END_OBJECT:
+        return JsonToken.END_OBJECT;
+      case BinaryEngine.BEGIN_ARRAY:
+        return JsonToken.BEGIN_ARRAY;
+      case BinaryEngine.END_ARRAY:
+        return JsonToken.END_ARRAY;
+      case BinaryEngine.NAME:
+        return JsonToken.NAME;
+      case BinaryEngine.STRING:
+        return JsonToken.STRING;
+      case BinaryEngine.LONG:
+      case BinaryEngine.DOUBLE:
+      case BinaryEngine.NUMBER:
+        return JsonToken.NUMBER;
+      case BinaryEngine.TRUE:
+      case BinaryEngine.FALSE:
+        return JsonToken.BOOLEAN;
+      case BinaryEngine.NULL:
+        return JsonToken.NULL;
+      default:
+        throw new IllegalStateException("Unknown token " + peekTag() + locationString());
+    }
+  }
+
+  @Override
+  public void beginObject() throws IOException {
+    expect(BinaryEngine.BEGIN_OBJECT, JsonToken.BEGIN_OBJECT);
+  }
+
+  @Override
+  public void endObject() throws IOException {
+    expect(BinaryEngine.END_OBJECT, JsonToken.END_OBJECT);
+  }
+
+  @Override
+  public void beginArray() throws IOException {
+    expect(BinaryEngine.BEGIN_ARRAY, JsonToken.BEGIN_ARRAY);
+  }
+
+  @Override
+  public void endArray() throws IOException {
+    expect(BinaryEngine.END_ARRAY, JsonToken.END_ARRAY);
+  }
+
+  @Override
+  public boolean hasNext() throws IOException {
+    byte tag = peekTag();
+    return tag != BinaryEngine.END_OBJECT && tag != BinaryEngine.END_ARRAY
+        && tag != BinaryEngine.END_DOCUMENT;
+  }
+
+  @Override
+  public String nextName() throws IOException {
+    expect(BinaryEngine.NAME, JsonToken.NAME);
+    return strings[BinaryEngine.readVarint(data)];
+  }
+
+  @Override
+  public String nextString() throws IOException {
+    switch (peekTag()) {
+      case BinaryEngine.STRING:
+      case BinaryEngine.NUMBER:
+        data.get();
+        return strings[BinaryEngine.readVarint(data)];
+      case BinaryEngine.LONG:
+        data.get();
+        return Long.toString(readLong());
+      case BinaryEngine.DOUBLE:
+        data.get();
+        return Double.toString(data.getDouble());
+      default:
+        throw new IllegalStateException("Expected a string but was " + peek() + locationString());
+    }
+  }
+
+  @Override
+  public boolean nextBoolean() throws IOException {
+    byte tag = peekTag();
+    if (tag != BinaryEngine.TRUE && tag != BinaryEngine.FALSE) {
+      throw new IllegalStateException("Expected a boolean but was " + peek() + locationString());
+    }
+    data.get();
+    return tag == BinaryEngine.TRUE;
+  }
+
+  @Override
+  public void nextNull() throws IOException {
+    expect(BinaryEngine.NULL, JsonToken.NULL);
+  }
+
+  @Override
+  public double nextDouble() throws IOException {
+    switch (peekTag()) {
+      case BinaryEngine.LONG:
+        data.get();
+        return readLong();
+      case BinaryEngine.DOUBLE:
+        data.get();
+        return data.getDouble();
+      case BinaryEngine.STRING:
+      case BinaryEngine.NUMBER:
+        return Double.parseDouble(nextString());
+      default:
+        throw new IllegalStateException("Expected a double but was " + peek() + locationString());
+    }
+  }
+
+  @Override
+  public long nextLong() throws IOException {
+    switch (peekTag()) {
+      case BinaryEngine.LONG:
+        data.get();
+        return readLong();
+      case BinaryEngine.DOUBLE:
+      case BinaryEngine.STRING:
+      case BinaryEngine.NUMBER:
+        double value = nextDouble();
+        long result = (long) value;
+        if (result != value) {
+          throw new NumberFormatException("Expected a long but was " + value + locationString());
+        }
+        return result;
+      default:
+        throw new IllegalStateException("Expected a long but was " + peek() + locationString());
+    }
+  }
+
+  @Override
+  public int nextInt() throws IOException {
+    long value = nextLong();
+    if ((int) value != value) {
+      throw new NumberFormatException("Expected an int but was " + value + locationString());
+    }
+    return (int) value;
+  }
+
+  @Override
+  public void skipValue() throws IOException {
+    int count = 0;
+    do {
+      byte tag = data.get();
+      switch (tag) {
+        case BinaryEngine.BEGIN_OBJECT:
+        case BinaryEngine.BEGIN_ARRAY:
+          count++;
+          break;
+        case BinaryEngine.END_OBJECT:
+        case BinaryEngine.END_ARRAY:
+          count--;
+          break;
+        case BinaryEngine.NAME:
+        case BinaryEngine.STRING:
+        case BinaryEngine.NUMBER:
+          BinaryEngine.readVarint(data);
+          break;
+        case BinaryEngine.LONG:
+          readLong();
+          break;
+        case BinaryEngine.DOUBLE:
+          data.getDouble();
+          break;
+        case BinaryEngine.TRUE:
+        case BinaryEngine.FALSE:
+        case BinaryEngine.NULL:
+          break;
+        default:
+          throw new IllegalStateException("Unknown token " + tag + locationString());
+      }
+    } while (count > 0);
+  }
+
+  @Override
+  public void close() throws IOException {
+    // the mapped data is released with its buffer
+  }
+
+  @Override
+  public String getPath() {
+    return "$";
+  }
+
+  @Override
+  public String getPreviousPath() {
+    return "$";
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + locationString();
+  }
+}
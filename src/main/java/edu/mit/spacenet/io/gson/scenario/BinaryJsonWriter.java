@@ -0,0 +1,256 @@
+package edu.mit.spacenet.io.gson.scenario;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes JSON tokens in the binary scenario format (see {@link BinaryEngine}), collecting the
+ * string dictionary and the section table as it goes.
+ */
+class BinaryJsonWriter extends JsonWriter {
+  private static final Writer UNWRITABLE_WRITER = new Writer() {
+    @Override
+    public void write(char[] buffer, int offset, int counter) {
+      throw new AssertionError();
+    }
+
+    @Override
+    public void flush() {
+      throw new AssertionError();
+    }
+
+    @Override
+    public void close() {
+      throw new AssertionError();
+    }
+  };
+
+  private final DataOutputStream out;
+  private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+  private final List<String> strings = new ArrayList<String>();
+  private final List<long[]> sections = new ArrayList<long[]>();
+  private String deferredName;
+  private int depth;
+  // sections are recorded for top-level fields, network lists, and missions (depth 1 or 2)
+  private final String[] names = new String[3];
+  private final int[] openSections = {-1, -1, -1};
+  private int missionCount;
+
+  BinaryJsonWriter(DataOutputStream out) {
+    super(UNWRITABLE_WRITER);
+    this.out = out;
+    setSerializeNulls(false);
+  }
+
+  List<String> getStrings() {
+    return strings;
+  }
+
+  /**
+   * Gets the section table entries as (name string id, offset, length) triples.
+   */
+  List<long[]> getSections() {
+    return sections;
+  }
+
+  private int getStringId(String value) {
+    Integer id = stringIds.get(value);
+    if (id == null) {
+      id = strings.size();
+      strings.add(value);
+      stringIds.put(value, id);
+    }
+    return id;
+  }
+
+  private void openSection(String name) {
+    openSections[depth] = sections.size();
+    sections.add(new long[] {getStringId(name), out.size(), 0});
+  }
+
+  private void closeSection() {
+    if (depth < openSections.length && openSections[depth] >= 0) {
+      long[] section = sections.get(openSections[depth]);
+      section[2] = out.size() - section[1];
+      openSections[depth] = -1;
+    }
+  }
+
+  private void writeDeferredName() throws IOException {
+    if (deferredName != null) {
+      if (depth == 1 || depth == 2 && "network".equals(names[1])) {
+        openSection(depth == 1 ? deferredName : names[1] + "/" + deferredName);
+      }
+      if (depth < names.length) {
+        names[depth] = deferredName;
+      }
+      out.write(BinaryEngine.NAME);
+      BinaryEngine.writeVarint(out, getStringId(deferredName));
+      deferredName = null;
+    }
+  }
+
+  private void writeValue(byte tag) throws IOException {
+    writeDeferredName();
+    out.write(tag);
+  }
+
+  @Override
+  public JsonWriter beginObject() throws IOException {
+    writeDeferredName();
+    if (depth == 2 && "missionList".equals(names[1])) {
+      openSection(names[1] + "/" + missionCount++);
+    }
+    out.write(BinaryEngine.BEGIN_OBJECT);
+    depth++;
+    return this;
+  }
+
+  @Override
+  public JsonWriter endObject() throws IOException {
+    if (deferredName != null) {
+      throw new IllegalStateException("Dangling name: " + deferredName);
+    }
+    out.write(BinaryEngine.END_OBJECT);
+    depth--;
+    closeSection();
+    return this;
+  }
+
+  @Override
+  public JsonWriter beginArray() throws IOException {
+    writeValue(BinaryEngine.BEGIN_ARRAY);
+    depth++;
+    return this;
+  }
+
+  @Override
+  public JsonWriter endArray() throws IOException {
+    out.write(BinaryEngine.END_ARRAY);
+    depth--;
+    closeSection();
+    return this;
+  }
+
+  @Override
+  public JsonWriter name(String name) throws IOException {
+    if (name == null) {
+      throw new NullPointerException("name == null");
+    }
+    if (deferredName != null) {
+      throw new IllegalStateException("Dangling name: " + deferredName);
+    }
+    deferredName = name;
+    return this;
+  }
+
+  @Override
+  public JsonWriter value(String value) throws IOException {
+    if (value == null) {
+      return nullValue();
+    }
+    writeValue(BinaryEngine.STRING);
+    BinaryEngine.writeVarint(out, getStringId(value));
+    closeSection();
+    return this;
+  }
+
+  @Override
+  public JsonWriter jsonValue(String value) throws IOException {
+    throw new UnsupportedOperationException("Raw JSON values cannot be written in binary format");
+  }
+
+  @Override
+  public JsonWriter nullValue() throws IOException {
+    if (deferredName != null && !getSerializeNulls()) {
+      deferredName = null; // skip the name and the value
+      return this;
+    }
+    writeValue(BinaryEngine.NULL);
+    closeSection();
+    return this;
+  }
+
+  @Override
+  public JsonWriter value(boolean value) throws IOException {
+    writeValue(value ? BinaryEngine.TRUE : BinaryEngine.FALSE);
+    closeSection();
+    return this;
+  }
+
+  @Override
+  public JsonWriter value(Boolean value) throws IOException {
+    if (value == null) {
+      return nullValue();
+    }
+    return value(value.booleanValue());
+  }
+
+  @Override
+  public JsonWriter value(float value) throws IOException {
+    return value((double) value);
+  }
+
+  @Override
+  public JsonWriter value(double value) throws IOException {
+    // integral values (other than negative zero) are stored in the shorter integer form
+    if (value == (long) value && Math.abs(value) < (1L << 53)
+        && (value != 0 || 1 / value > 0)) {
+      return value((long) value);
+    }
+    writeValue(BinaryEngine.DOUBLE);
+    out.writeDouble(value);
+    closeSection();
+    return this;
+  }
+
+  @Override
+  public JsonWriter value(long value) throws IOException {
+    writeValue(BinaryEngine.LONG);
+    long zigzag = (value << 1) ^ (value >> 63);
+    while ((zigzag & ~0x7fL) != 0) {
+      out.write((int) (zigzag & 0x7f) | 0x80);
+      zigzag >>>= 7;
+    }
+    out.write((int) zigzag);
+    closeSection();
+    return this;
+  }
+
+  @Override
+  public JsonWriter value(Number value) throws IOException {
+    if (value == null) {
+      return nullValue();
+    }
+    if (value instanceof Integer || value instanceof Long || value instanceof Short
+        || value instanceof Byte) {
+      return value(value.longValue());
+    }
+    if (value instanceof Double || value instanceof Float) {
+      return value(value.doubleValue());
+    }
+    writeValue(BinaryEngine.NUMBER);
+    BinaryEngine.writeVarint(out, getStringId(value.toString()));
+    closeSection();
+    return this;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (depth != 0 || deferredName != null) {
+      throw new IOException("Incomplete document");
+    }
+  }
+}
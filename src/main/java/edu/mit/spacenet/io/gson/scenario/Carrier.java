@@ -2,7 +2,6 @@ package edu.mit.spacenet.io.gson.scenario;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import edu.mit.spacenet.data.ElementPreview;
@@ -22,7 +21,7 @@ public class Carrier extends Element {
   public static Carrier createFrom(edu.mit.spacenet.domain.element.Carrier element,
       Context context) {
     Carrier e = new Carrier();
-    e.id = UUID.randomUUID();
+    e.id = Context.createId();
     context.put(element, e.id, e);
     e.templateId = context.getElementTemplate(element.getTid());
     Carrier template = (Carrier) context.getJsonObject(e.templateId);
@@ -184,7 +183,7 @@ public class Carrier extends Element {
   @Override
   public Carrier clone() {
     Carrier e = new Carrier();
-    e.id = UUID.randomUUID();
+    e.id = Context.createId();
     e.templateId = templateId;
     e.name = name;
     e.description = description;
@@ -1,5 +1,7 @@
 package edu.mit.spacenet.io.gson.scenario;
 
+import edu.mit.spacenet.scenario.ItemDiscretization;
+
 public class Configuration {
   protected Double timePrecision;
   protected Double demandPrecision;
@@ -82,4 +84,83 @@ public class Configuration {
 
     return c;
   }
+
+  public void toSpaceNet(edu.mit.spacenet.scenario.Scenario scenario) {
+    scenario.setTimePrecision(timePrecision);
+    scenario.setDemandPrecision(demandPrecision);
+    scenario.setMassPrecision(massPrecision);
+    scenario.setVolumePrecision(volumePrecision);
+    scenario.setVolumeConstrained(volumeConstrained);
+    scenario.setEnvironmentConstrained(environmentConstrained);
+    scenario.setItemDiscretization(ItemDiscretization.getInstance(itemDiscretization));
+    scenario.setItemAggregation(itemAggregation);
+    scenario.setScavengeSpares(scavengeSpares);
+    // TODO add repaired items
+    scenario.setDetailedEva(detailedEva);
+    scenario.setDetailedExploration(detailedExploration);
+    scenario.setGenericPackingFactorGas(genericPackingFactorGas);
+    scenario.setGenericPackingFactorLiquid(genericPackingFactorLiquid);
+    scenario.setGenericPackingFactorPressurized(genericPackingFactorPressurized);
+    scenario.setGenericPackingFactorUnpressurized(genericPackingFactorUnpressurized);
+    if (smallGasTankMass != null) {
+      scenario.setSmallGasTankMass(smallGasTankMass);
+    }
+    if (smallGasTankVolume != null) {
+      scenario.setSmallGasTankVolume(smallGasTankVolume);
+    }
+    if (smallGasTankMaxMass != null) {
+      scenario.setSmallGasTankMaxMass(smallGasTankMaxMass);
+    }
+    if (smallGasTankMaxVolume != null) {
+      scenario.setSmallGasTankMaxVolume(smallGasTankMaxVolume);
+    }
+    if (largeGasTankMass != null) {
+      scenario.setLargeGasTankMass(largeGasTankMass);
+    }
+    if (largeGasTankVolume != null) {
+      scenario.setLargeGasTankVolume(largeGasTankVolume);
+    }
+    if (largeGasTankMaxMass != null) {
+      scenario.setLargeGasTankMaxMass(largeGasTankMaxMass);
+    }
+    if (largeGasTankMaxVolume != null) {
+      scenario.setLargeGasTankMaxVolume(largeGasTankMaxVolume);
+    }
+    if (smallLiquidTankMass != null) {
+      scenario.setSmallLiquidTankMass(smallLiquidTankMass);
+    }
+    if (smallLiquidTankVolume != null) {
+      scenario.setSmallLiquidTankVolume(smallLiquidTankVolume);
+    }
+    if (smallLiquidTankMaxMass != null) {
+      scenario.setSmallLiquidTankMaxMass(smallLiquidTankMaxMass);
+    }
+    if (smallLiquidTankMaxVolume != null) {
+      scenario.setSmallLiquidTankMaxVolume(smallLiquidTankMaxVolume);
+    }
+    if (largeLiquidTankMass != null) {
+      scenario.setLargeLiquidTankMass(largeLiquidTankMass);
+    }
+    if (largeLiquidTankVolume != null) {
+      scenario.setLargeLiquidTankVolume(largeLiquidTankVolume);
+    }
+    if (largeLiquidTankMaxMass != null) {
+      scenario.setLargeLiquidTankMaxMass(largeLiquidTankMaxMass);
+    }
+    if (largeLiquidTankMaxVolume != null) {
+      scenario.setLargeLiquidTankMaxVolume(largeLiquidTankMaxVolume);
+    }
+    if (cargoTransferBagMass != null) {
+      scenario.setCargoTransferBagMass(cargoTransferBagMass);
+    }
+    if (cargoTransferBagVolume != null) {
+      scenario.setCargoTransferBagVolume(cargoTransferBagVolume);
+    }
+    if (cargoTransferBagMaxMass != null) {
+      scenario.setCargoTransferBagMaxMass(cargoTransferBagMaxMass);
+    }
+    if (cargoTransferBagMaxVolume != null) {
+      scenario.setCargoTransferBagMaxVolume(cargoTransferBagMaxVolume);
+    }
+  }
 }
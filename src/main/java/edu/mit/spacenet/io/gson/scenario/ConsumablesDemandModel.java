@@ -1,6 +1,5 @@
 package edu.mit.spacenet.io.gson.scenario;
 
-import java.util.UUID;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
@@ -249,7 +248,7 @@ public class ConsumablesDemandModel extends DemandModel {
   public ConsumablesDemandModel clone() {
     ConsumablesDemandModel m = new ConsumablesDemandModel();
     if (id != null) {
-      m.id = UUID.randomUUID();
+      m.id = Context.createId();
     }
     m.templateId = templateId;
     m.name = name;
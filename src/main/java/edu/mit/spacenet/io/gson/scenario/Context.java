@@ -3,27 +3,37 @@ package edu.mit.spacenet.io.gson.scenario;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-
-import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 import edu.mit.spacenet.domain.element.I_Element;
 import edu.mit.spacenet.domain.model.I_DemandModel;
 
 public class Context {
-  private BiMap<Integer, Object> javaId_javaObject = HashBiMap.create();
-  private BiMap<UUID, Object> jsonId_jsonObject = HashBiMap.create();
-  private BiMap<Integer, UUID> javaId_jsonId = HashBiMap.create();
+  // java objects are matched by identity: domain objects define equality by (mutable) ids
+  private Map<Object, Integer> javaObject_javaId = new IdentityHashMap<Object, Integer>();
+  private List<Object> javaId_javaObject = new ArrayList<Object>();
+  private List<UUID> javaId_jsonId = new ArrayList<UUID>();
+  private Map<UUID, Integer> jsonId_javaId = new HashMap<UUID, Integer>();
+  // only json objects that are looked up by id (elements, demand models, and space edges) are kept
+  private Map<UUID, Object> jsonId_jsonObject = new HashMap<UUID, Object>();
+
+  public static UUID createId() {
+    // random (version 4) id without the cost of a secure random number generator
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return new UUID((random.nextLong() & ~0xf000L) | 0x4000L,
+        (random.nextLong() & ~(3L << 62)) | (2L << 62));
+  }
 
   public int getJavaId(Object javaObject) {
-    return javaId_javaObject.inverse().get(javaObject);
+    return javaObject_javaId.get(javaObject);
   }
 
   public int getJavaId(UUID jsonId) {
-    return javaId_jsonId.inverse().get(jsonId);
+    return jsonId_javaId.get(jsonId);
   }
 
   public Object getJsonObject(UUID jsonId) {
@@ -41,7 +51,7 @@ public class Context {
     if (javaObject == null) {
       return null;
     }
-    return javaId_jsonId.get(getJavaId(javaObject));
+    return javaId_jsonId.get(getJavaId(javaObject) - 1);
   }
 
   public List<UUID> getJsonIdsFromJavaObjects(Collection<? extends Object> javaObjects) {
@@ -56,17 +66,24 @@ public class Context {
     if (jsonId == null) {
       return null;
     }
-    return javaId_javaObject.get(getJavaId(jsonId));
+    return javaId_javaObject.get(getJavaId(jsonId) - 1);
   }
 
-  private int nextJavaId = 0;
-
   public void put(Object javaObject, UUID jsonId, Object jsonObject) {
-    if (javaId_javaObject.inverse().get(javaObject) == null) {
-      javaId_javaObject.put(++nextJavaId, javaObject);
+    Integer javaId = javaObject_javaId.get(javaObject);
+    if (javaId == null) {
+      javaId_javaObject.add(javaObject);
+      javaId_jsonId.add(jsonId);
+      javaId = javaId_javaObject.size();
+      javaObject_javaId.put(javaObject, javaId);
+    } else {
+      jsonId_javaId.remove(javaId_jsonId.set(javaId - 1, jsonId));
+    }
+    jsonId_javaId.put(jsonId, javaId);
+    if (jsonObject instanceof Element || jsonObject instanceof DemandModel
+        || jsonObject instanceof SpaceEdge) {
+      jsonId_jsonObject.put(jsonId, jsonObject);
     }
-    jsonId_jsonObject.put(jsonId, jsonObject);
-    javaId_jsonId.put(getJavaId(javaObject), jsonId);
   }
 
   private Map<Integer, UUID> modelTemplates = new HashMap<Integer, UUID>();
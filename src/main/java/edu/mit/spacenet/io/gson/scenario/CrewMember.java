@@ -2,7 +2,6 @@ package edu.mit.spacenet.io.gson.scenario;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import edu.mit.spacenet.data.ElementPreview;
@@ -18,7 +17,7 @@ public class CrewMember extends Element {
   public static CrewMember createFrom(edu.mit.spacenet.domain.element.CrewMember element,
       Context context) {
     CrewMember e = new CrewMember();
-    e.id = UUID.randomUUID();
+    e.id = Context.createId();
     context.put(element, e.id, e);
     e.templateId = context.getElementTemplate(element.getTid());
     CrewMember template = (CrewMember) context.getJsonObject(e.templateId);
@@ -155,7 +154,7 @@ public class CrewMember extends Element {
   @Override
   public CrewMember clone() {
     CrewMember e = new CrewMember();
-    e.id = UUID.randomUUID();
+    e.id = Context.createId();
     e.templateId = templateId;
     e.name = name;
     e.description = description;
@@ -46,7 +46,7 @@ public class Element implements Cloneable {
   public static Element createFrom(I_Element element, Context context) {
     if (element.getElementType() == ElementType.ELEMENT) {
       Element e = new Element();
-      e.id = UUID.randomUUID();
+      e.id = Context.createId();
       context.put(element, e.id, e);
       e.templateId = context.getElementTemplate(element.getTid());
       Element template = (Element) context.getJsonObject(e.templateId);
@@ -229,7 +229,7 @@ public class Element implements Cloneable {
   @Override
   public Element clone() {
     Element e = new Element();
-    e.id = UUID.randomUUID();
+    e.id = Context.createId();
     e.templateId = templateId;
     e.name = name;
     e.description = description;
@@ -2,7 +2,6 @@ package edu.mit.spacenet.io.gson.scenario;
 
 import java.time.Duration;
 import java.time.Period;
-import java.util.UUID;
 
 import org.threeten.extra.PeriodDuration;
 
@@ -14,7 +13,7 @@ public class FlightEdge extends Edge {
   public static FlightEdge createFrom(edu.mit.spacenet.domain.network.edge.FlightEdge edge,
       Context context) {
     FlightEdge e = new FlightEdge();
-    e.id = UUID.randomUUID();
+    e.id = Context.createId();
     context.put(edge, e.id, e);
     e.name = edge.getName();
     e.description = edge.getDescription();
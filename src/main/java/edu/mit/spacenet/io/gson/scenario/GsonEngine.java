@@ -12,6 +12,9 @@ import org.threeten.extra.PeriodDuration;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.google.gson.typeadapters.RuntimeTypeAdapterFactory;
 import com.google.gson.typeadapters.UtcDateTypeAdapter;
 
@@ -24,22 +27,46 @@ import edu.mit.spacenet.simulator.event.EventType;
 import edu.mit.spacenet.util.GlobalParameters;
 
 public abstract class GsonEngine {
+  // gson instances are thread-safe and cache their type adapters, so one is shared by all calls
+  private static final Gson GSON = createGson();
+
   public static Scenario openScenario(String filePath) throws FileNotFoundException, IOException {
-    BufferedReader in = new BufferedReader(new FileReader(filePath));
-    Scenario scenario =
-        getGson().fromJson(in, edu.mit.spacenet.io.gson.scenario.Scenario.class).toSpaceNet();
-    in.close();
+    JsonReader in = GSON.newJsonReader(new BufferedReader(new FileReader(filePath)));
+    Scenario scenario;
+    try {
+      in.setLenient(true);
+      scenario = edu.mit.spacenet.io.gson.scenario.Scenario.read(in, GSON);
+    } catch (IllegalStateException ex) {
+      throw new JsonSyntaxException(ex);
+    } finally {
+      in.close();
+    }
     GlobalParameters.getSingleton().setParametersFrom(scenario);
     return scenario;
   }
 
   public static void saveScenario(Scenario scenario) throws FileNotFoundException, IOException {
-    BufferedWriter out = new BufferedWriter(new FileWriter(scenario.getFilePath()));
-    getGson().toJson(edu.mit.spacenet.io.gson.scenario.Scenario.createFrom(scenario), out);
-    out.close();
+    saveScenario(scenario, false);
+  }
+
+  public static void saveScenario(Scenario scenario, boolean compact)
+      throws FileNotFoundException, IOException {
+    JsonWriter out = GSON.newJsonWriter(new BufferedWriter(new FileWriter(scenario.getFilePath())));
+    try {
+      if (!compact) {
+        out.setIndent("  ");
+      }
+      edu.mit.spacenet.io.gson.scenario.Scenario.write(scenario, out, GSON);
+    } finally {
+      out.close();
+    }
+  }
+
+  static Gson getGson() {
+    return GSON;
   }
 
-  private static Gson getGson() {
+  private static Gson createGson() {
     RuntimeTypeAdapterFactory<Location> locationAdapterFactory =
         RuntimeTypeAdapterFactory.of(Location.class, "type")
             .registerSubtype(SurfaceNode.class, Node.TYPE_MAP.inverse().get(NodeType.SURFACE))
@@ -110,6 +137,6 @@ public abstract class GsonEngine {
         .registerTypeAdapterFactory(edgeAdapterFactory)
         .registerTypeAdapterFactory(eventAdapterFactory)
         .registerTypeAdapterFactory(demandModelAdapterFactory)
-        .registerTypeAdapterFactory(elementAdapterFactory).setPrettyPrinting().create();
+        .registerTypeAdapterFactory(elementAdapterFactory).create();
   }
 }
@@ -1,7 +1,5 @@
 package edu.mit.spacenet.io.gson.scenario;
 
-import java.util.UUID;
-
 import edu.mit.spacenet.domain.network.node.Body;
 
 public class OrbitalNode extends Node {
@@ -12,7 +10,7 @@ public class OrbitalNode extends Node {
   public static OrbitalNode createFrom(edu.mit.spacenet.domain.network.node.OrbitalNode node,
       Context context) {
     OrbitalNode n = new OrbitalNode();
-    n.id = UUID.randomUUID();
+    n.id = Context.createId();
     context.put(node, n.id, n);
     n.name = node.getName();
     n.description = node.getDescription();
@@ -2,7 +2,6 @@ package edu.mit.spacenet.io.gson.scenario;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import edu.mit.spacenet.data.ElementPreview;
@@ -21,7 +20,7 @@ public class PropulsiveVehicle extends Carrier {
   public static PropulsiveVehicle createFrom(
       edu.mit.spacenet.domain.element.PropulsiveVehicle element, Context context) {
     PropulsiveVehicle e = new PropulsiveVehicle();
-    e.id = UUID.randomUUID();
+    e.id = Context.createId();
     context.put(element, e.id, e);
     e.templateId = context.getElementTemplate(element.getTid());
     PropulsiveVehicle template = (PropulsiveVehicle) context.getJsonObject(e.templateId);
@@ -258,7 +257,7 @@ public class PropulsiveVehicle extends Carrier {
   @Override
   public PropulsiveVehicle clone() {
     PropulsiveVehicle e = new PropulsiveVehicle();
-    e.id = UUID.randomUUID();
+    e.id = Context.createId();
     e.templateId = templateId;
     e.name = name;
     e.description = description;
@@ -1,7 +1,6 @@
 package edu.mit.spacenet.io.gson.scenario;
 
 import java.util.List;
-import java.util.UUID;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
@@ -70,7 +69,7 @@ public class RatedDemandModel extends DemandModel {
   public RatedDemandModel clone() {
     RatedDemandModel m = new RatedDemandModel();
     if (id != null) {
-      m.id = UUID.randomUUID();
+      m.id = Context.createId();
     }
     m.templateId = templateId;
     m.name = name;
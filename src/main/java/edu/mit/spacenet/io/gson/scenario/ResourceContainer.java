@@ -2,7 +2,6 @@ package edu.mit.spacenet.io.gson.scenario;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import edu.mit.spacenet.data.ElementPreview;
@@ -21,7 +20,7 @@ public class ResourceContainer extends Element {
   public static ResourceContainer createFrom(
       edu.mit.spacenet.domain.element.ResourceContainer element, Context context) {
     ResourceContainer e = new ResourceContainer();
-    e.id = UUID.randomUUID();
+    e.id = Context.createId();
     context.put(element, e.id, e);
     e.templateId = context.getElementTemplate(element.getTid());
     ResourceContainer template = (ResourceContainer) context.getJsonObject(e.templateId);
@@ -178,7 +177,7 @@ public class ResourceContainer extends Element {
   @Override
   public ResourceContainer clone() {
     ResourceContainer e = new ResourceContainer();
-    e.id = UUID.randomUUID();
+    e.id = Context.createId();
     e.templateId = templateId;
     e.name = name;
     e.description = description;
@@ -21,7 +21,7 @@ public class ResourceTank extends Element {
   public static ResourceTank createFrom(edu.mit.spacenet.domain.element.ResourceTank element,
       Context context) {
     ResourceTank e = new ResourceTank();
-    e.id = UUID.randomUUID();
+    e.id = Context.createId();
     context.put(element, e.id, e);
     e.templateId = context.getElementTemplate(element.getTid());
     ResourceTank template = (ResourceTank) context.getJsonObject(e.templateId);
@@ -169,7 +169,7 @@ public class ResourceTank extends Element {
   @Override
   public ResourceTank clone() {
     ResourceTank e = new ResourceTank();
-    e.id = UUID.randomUUID();
+    e.id = Context.createId();
     e.templateId = templateId;
     e.name = name;
     e.description = description;
@@ -1,21 +1,35 @@
 package edu.mit.spacenet.io.gson.scenario;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 
 import com.google.common.collect.BiMap;
 import com.google.common.collect.ImmutableBiMap;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 import edu.mit.spacenet.data.ElementPreview;
 import edu.mit.spacenet.data.InMemoryDataSource;
 import edu.mit.spacenet.domain.element.I_Element;
 import edu.mit.spacenet.domain.element.I_State;
 import edu.mit.spacenet.domain.model.I_DemandModel;
-import edu.mit.spacenet.scenario.ItemDiscretization;
+import edu.mit.spacenet.domain.resource.I_Resource;
 import edu.mit.spacenet.scenario.ScenarioType;
 
+/**
+ * Streams a scenario to and from JSON. Each list in the scenario (nodes, edges, resources, demand
+ * models, element templates, instantiated elements, and missions) is converted one object at a
+ * time, so the JSON objects of a list are only held in memory if the list appears in a file before
+ * the lists it depends on. Lists are written in dependency order so that saved files are always
+ * read in a single pass.
+ */
 public class Scenario {
   public static final BiMap<String, ScenarioType> TYPE_MAP =
       new ImmutableBiMap.Builder<String, ScenarioType>().put("Earth Only", ScenarioType.ISS)
@@ -23,80 +37,102 @@ public class Scenario {
           .put("Martian", ScenarioType.MARTIAN).put("Mars Only", ScenarioType.MARS_ONLY)
           .put("Solar System", ScenarioType.SOLAR_SYSTEM).build();
 
-  protected String createdBy;
-  protected String name;
-  protected String description;
-  protected Date startDate;
-  protected String scenarioType;
-  protected Network network;
-  protected List<Mission> missionList;
-  protected List<ResourceType> resourceList;
-  protected List<Element> elementTemplates;
-  protected List<Element> instantiatedElements;
-  protected List<DemandModel> demandModels;
-  // TODO add manifest
-  protected Configuration configuration;
-
-  public static Scenario createFrom(edu.mit.spacenet.scenario.Scenario scenario) {
-    Scenario s = new Scenario();
-    s.createdBy = scenario.getCreatedBy();
-    s.name = scenario.getName();
-    s.description = scenario.getDescription();
-    s.startDate = scenario.getStartDate();
-    s.scenarioType = TYPE_MAP.inverse().get(scenario.getScenarioType());
+  private enum Section {
+    NODES("nodes", Node.class),
+    EDGES("edges", Edge.class),
+    RESOURCES("resourceList", ResourceType.class),
+    DEMAND_MODELS("demandModels", DemandModel.class),
+    ELEMENT_TEMPLATES("elementTemplates", Element.class),
+    INSTANTIATED_ELEMENTS("instantiatedElements", Element.class),
+    MISSIONS("missionList", Mission.class);
+
+    private final String name;
+    private final Class<?> type;
+
+    private Section(String name, Class<?> type) {
+      this.name = name;
+      this.type = type;
+    }
+
+    private static Section getInstance(String name) {
+      for (Section s : values()) {
+        if (s.name.equals(name)) {
+          return s;
+        }
+      }
+      return null;
+    }
+  }
+
+  public static void write(edu.mit.spacenet.scenario.Scenario scenario, JsonWriter out, Gson gson)
+      throws IOException {
     Context context = new Context();
-    s.network = Network.createFrom(scenario.getNetwork(), context);
+    out.beginObject();
+    out.name("createdBy").value(scenario.getCreatedBy());
+    out.name("name").value(scenario.getName());
+    out.name("description").value(scenario.getDescription());
+    out.name("startDate");
+    gson.getAdapter(Date.class).write(out, scenario.getStartDate());
+    out.name("scenarioType").value(TYPE_MAP.inverse().get(scenario.getScenarioType()));
+
+    out.name("network").beginObject();
+    TypeAdapter<Node> nodeAdapter = gson.getAdapter(Node.class);
+    out.name(Section.NODES.name).beginArray();
+    for (edu.mit.spacenet.domain.network.node.Node node : scenario.getNetwork().getNodes()) {
+      nodeAdapter.write(out, Node.createFrom(node, context));
+    }
+    out.endArray();
+    TypeAdapter<Edge> edgeAdapter = gson.getAdapter(Edge.class);
+    out.name(Section.EDGES.name).beginArray();
+    for (edu.mit.spacenet.domain.network.edge.Edge edge : scenario.getNetwork().getEdges()) {
+      edgeAdapter.write(out, Edge.createFrom(edge, context));
+    }
+    out.endArray();
+    out.endObject();
+
+    TypeAdapter<ResourceType> resourceAdapter = gson.getAdapter(ResourceType.class);
+    out.name(Section.RESOURCES.name).beginArray();
     if (scenario.getDataSource() != null) {
-      s.resourceList =
-          ResourceType.createFrom(scenario.getDataSource().getResourceLibrary(), context);
-    } else {
-      s.resourceList = new ArrayList<ResourceType>();
+      for (I_Resource resource : scenario.getDataSource().getResourceLibrary()) {
+        resourceAdapter.write(out, ResourceType.createFrom(resource, context));
+      }
     }
-    s.demandModels = new ArrayList<DemandModel>();
+    out.endArray();
+
+    List<I_Element> elementLibrary = new ArrayList<I_Element>();
+    if (InMemoryDataSource.class.isInstance(scenario.getDataSource())) {
+      elementLibrary.addAll(((InMemoryDataSource) scenario.getDataSource()).getElementLibrary());
+    }
+    TypeAdapter<DemandModel> modelAdapter = gson.getAdapter(DemandModel.class);
+    out.name(Section.DEMAND_MODELS.name).beginArray();
     for (edu.mit.spacenet.scenario.Mission mission : scenario.getMissionList()) {
       for (I_DemandModel model : mission.getDemandModels()) {
-        if (context.getModelTemplate(model.getTid()) == null) {
-          DemandModel m = DemandModel.createFrom(model, context);
-          m.id = UUID.randomUUID();
-          m.templateId = null;
-          context.putModelTemplate(model, m.id, m);
-          s.demandModels.add(m);
-        }
+        writeModelTemplate(model, out, modelAdapter, context);
       }
     }
     for (I_Element element : scenario.getElements()) {
       for (I_State state : element.getStates()) {
         for (I_DemandModel model : state.getDemandModels()) {
-          if (context.getModelTemplate(model.getTid()) == null) {
-            DemandModel m = DemandModel.createFrom(model, context);
-            m.id = UUID.randomUUID();
-            m.templateId = null;
-            context.putModelTemplate(model, m.id, m);
-            s.demandModels.add(m);
-          }
+          writeModelTemplate(model, out, modelAdapter, context);
         }
       }
     }
-    s.elementTemplates = new ArrayList<Element>();
-    if (InMemoryDataSource.class.isInstance(scenario.getDataSource())) {
-      for (I_Element element : ((InMemoryDataSource) scenario.getDataSource())
-          .getElementLibrary()) {
-        for (I_State state : element.getStates()) {
-          for (I_DemandModel model : state.getDemandModels()) {
-            if (context.getModelTemplate(model.getTid()) == null) {
-              DemandModel m = DemandModel.createFrom(model, context);
-              m.id = UUID.randomUUID();
-              m.templateId = null;
-              context.putModelTemplate(model, m.id, m);
-              s.demandModels.add(m);
-            }
-          }
+    for (I_Element element : elementLibrary) {
+      for (I_State state : element.getStates()) {
+        for (I_DemandModel model : state.getDemandModels()) {
+          writeModelTemplate(model, out, modelAdapter, context);
         }
-        Element e = Element.createFrom(element, context);
-        context.putElementTemplate(element, e.id, e);
-        s.elementTemplates.add(e);
       }
     }
+    out.endArray();
+
+    TypeAdapter<Element> elementAdapter = gson.getAdapter(Element.class);
+    out.name(Section.ELEMENT_TEMPLATES.name).beginArray();
+    for (I_Element element : elementLibrary) {
+      Element e = Element.createFrom(element, context);
+      context.putElementTemplate(element, e.id, e);
+      elementAdapter.write(out, e);
+    }
     for (I_Element element : scenario.getElements()) {
       if (context.getElementTemplate(element.getTid()) == null) {
         Element e = Element.createFrom(element, context);
@@ -106,117 +142,168 @@ public class Scenario {
             e.name = p.NAME;
           }
         }
-        s.elementTemplates.add(e);
+        elementAdapter.write(out, e);
       }
     }
-    s.instantiatedElements = Element.createFrom(scenario.getElements(), context);
-    s.missionList = Mission.createFrom(scenario.getMissionList(), context);
-    s.configuration = Configuration.createFrom(scenario, context);
-    return s;
-  }
+    out.endArray();
 
-  public edu.mit.spacenet.scenario.Scenario toSpaceNet() {
-    edu.mit.spacenet.scenario.Scenario s = new edu.mit.spacenet.scenario.Scenario();
-    s.setCreatedBy(createdBy);
-    s.setName(name);
-    s.setDescription(description);
-    s.setStartDate(startDate);
-    s.setScenarioType(TYPE_MAP.get(scenarioType));
-    Context context = new Context();
-    // load data source
-    DataSource dataSource = new DataSource();
-    dataSource.nodeLibrary = new ArrayList<Node>(network.nodes);
-    dataSource.edgeLibrary = new ArrayList<Edge>(network.edges);
-    dataSource.resourceTypeLibrary = new ArrayList<ResourceType>(resourceList);
-    dataSource.elementTemplateLibrary = new ArrayList<Element>(elementTemplates);
-    dataSource.demandModelLibrary = new ArrayList<DemandModel>(demandModels);
-    s.setDataSource(dataSource.toSpaceNet(context));
-    // load network
-    network.toSpaceNet(s, context);
-    // load elements
-    Element.toSpaceNet(instantiatedElements, context);
-    // load missions
-    s.getMissionList().addAll(Mission.toSpaceNet(missionList, s, context));
+    out.name(Section.INSTANTIATED_ELEMENTS.name).beginArray();
+    for (I_Element element : scenario.getElements()) {
+      elementAdapter.write(out, Element.createFrom(element, context));
+    }
+    out.endArray();
 
+    TypeAdapter<Mission> missionAdapter = gson.getAdapter(Mission.class);
+    out.name(Section.MISSIONS.name).beginArray();
+    for (edu.mit.spacenet.scenario.Mission mission : scenario.getMissionList()) {
+      missionAdapter.write(out, Mission.createFrom(mission, context));
+    }
+    out.endArray();
     // TODO add manifest
 
-    // load configuration
-    s.setTimePrecision(configuration.timePrecision);
-    s.setDemandPrecision(configuration.demandPrecision);
-    s.setMassPrecision(configuration.massPrecision);
-    s.setVolumePrecision(configuration.volumePrecision);
-    s.setVolumeConstrained(configuration.volumeConstrained);
-    s.setEnvironmentConstrained(configuration.environmentConstrained);
-    s.setItemDiscretization(ItemDiscretization.getInstance(configuration.itemDiscretization));
-    s.setItemAggregation(configuration.itemAggregation);
-    s.setScavengeSpares(configuration.scavengeSpares);
-    // TODO add repaired items
-    s.setDetailedEva(configuration.detailedEva);
-    s.setDetailedExploration(configuration.detailedExploration);
-    s.setGenericPackingFactorGas(configuration.genericPackingFactorGas);
-    s.setGenericPackingFactorLiquid(configuration.genericPackingFactorLiquid);
-    s.setGenericPackingFactorPressurized(configuration.genericPackingFactorPressurized);
-    s.setGenericPackingFactorUnpressurized(configuration.genericPackingFactorUnpressurized);
-    if (configuration.smallGasTankMass != null) {
-      s.setSmallGasTankMass(configuration.smallGasTankMass);
-    }
-    if (configuration.smallGasTankVolume != null) {
-      s.setSmallGasTankVolume(configuration.smallGasTankVolume);
-    }
-    if (configuration.smallGasTankMaxMass != null) {
-      s.setSmallGasTankMaxMass(configuration.smallGasTankMaxMass);
-    }
-    if (configuration.smallGasTankMaxVolume != null) {
-      s.setSmallGasTankMaxVolume(configuration.smallGasTankMaxVolume);
-    }
-    if (configuration.largeGasTankMass != null) {
-      s.setLargeGasTankMass(configuration.largeGasTankMass);
-    }
-    if (configuration.largeGasTankVolume != null) {
-      s.setLargeGasTankVolume(configuration.largeGasTankVolume);
-    }
-    if (configuration.largeGasTankMaxMass != null) {
-      s.setLargeGasTankMaxMass(configuration.largeGasTankMaxMass);
-    }
-    if (configuration.largeGasTankMaxVolume != null) {
-      s.setLargeGasTankMaxVolume(configuration.largeGasTankMaxVolume);
-    }
-    if (configuration.smallLiquidTankMass != null) {
-      s.setSmallLiquidTankMass(configuration.smallLiquidTankMass);
-    }
-    if (configuration.smallLiquidTankVolume != null) {
-      s.setSmallLiquidTankVolume(configuration.smallLiquidTankVolume);
-    }
-    if (configuration.smallLiquidTankMaxMass != null) {
-      s.setSmallLiquidTankMaxMass(configuration.smallLiquidTankMaxMass);
-    }
-    if (configuration.smallLiquidTankMaxVolume != null) {
-      s.setSmallLiquidTankMaxVolume(configuration.smallLiquidTankMaxVolume);
-    }
-    if (configuration.largeLiquidTankMass != null) {
-      s.setLargeLiquidTankMass(configuration.largeLiquidTankMass);
-    }
-    if (configuration.largeLiquidTankVolume != null) {
-      s.setLargeLiquidTankVolume(configuration.largeLiquidTankVolume);
-    }
-    if (configuration.largeLiquidTankMaxMass != null) {
-      s.setLargeLiquidTankMaxMass(configuration.largeLiquidTankMaxMass);
+    out.name("configuration");
+    gson.getAdapter(Configuration.class).write(out, Configuration.createFrom(scenario, context));
+    out.endObject();
+  }
+
+  private static void writeModelTemplate(I_DemandModel model, JsonWriter out,
+      TypeAdapter<DemandModel> adapter, Context context) throws IOException {
+    if (context.getModelTemplate(model.getTid()) == null) {
+      DemandModel m = DemandModel.createFrom(model, context);
+      m.id = Context.createId();
+      m.templateId = null;
+      context.putModelTemplate(model, m.id, m);
+      adapter.write(out, m);
     }
-    if (configuration.largeLiquidTankMaxVolume != null) {
-      s.setLargeLiquidTankMaxVolume(configuration.largeLiquidTankMaxVolume);
+  }
+
+  public static edu.mit.spacenet.scenario.Scenario read(JsonReader in, Gson gson)
+      throws IOException {
+    return new Reader(gson).read(in);
+  }
+
+  private static class Reader {
+    private final Gson gson;
+    private final Context context = new Context();
+    private final edu.mit.spacenet.scenario.Scenario scenario =
+        new edu.mit.spacenet.scenario.Scenario();
+    private final InMemoryDataSource dataSource = new InMemoryDataSource();
+    private final Map<Section, List<Object>> buffers =
+        new EnumMap<Section, List<Object>>(Section.class);
+    private int next = 0; // ordinal of the next section to convert
+
+    private Reader(Gson gson) {
+      this.gson = gson;
     }
-    if (configuration.cargoTransferBagMass != null) {
-      s.setCargoTransferBagMass(configuration.cargoTransferBagMass);
+
+    private edu.mit.spacenet.scenario.Scenario read(JsonReader in) throws IOException {
+      String createdBy = null, name = null, description = null, scenarioType = null;
+      Date startDate = null;
+      Configuration configuration = null;
+      scenario.setDataSource(dataSource);
+      in.beginObject();
+      while (in.hasNext()) {
+        String field = in.nextName();
+        if (field.equals("createdBy")) {
+          createdBy = gson.getAdapter(String.class).read(in);
+        } else if (field.equals("name")) {
+          name = gson.getAdapter(String.class).read(in);
+        } else if (field.equals("description")) {
+          description = gson.getAdapter(String.class).read(in);
+        } else if (field.equals("startDate")) {
+          startDate = gson.getAdapter(Date.class).read(in);
+        } else if (field.equals("scenarioType")) {
+          scenarioType = gson.getAdapter(String.class).read(in);
+        } else if (field.equals("network") && in.peek() == JsonToken.BEGIN_OBJECT) {
+          in.beginObject();
+          while (in.hasNext()) {
+            readSection(Section.getInstance(in.nextName()), in);
+          }
+          in.endObject();
+        } else if (field.equals("configuration")) {
+          configuration = gson.getAdapter(Configuration.class).read(in);
+        } else {
+          readSection(Section.getInstance(field), in);
+        }
+      }
+      in.endObject();
+      // sections missing from the file are treated as empty
+      while (next < Section.values().length) {
+        buffers.put(Section.values()[next], new ArrayList<Object>());
+        convertBuffers();
+      }
+      scenario.setCreatedBy(createdBy);
+      scenario.setName(name);
+      scenario.setDescription(description);
+      scenario.setStartDate(startDate);
+      scenario.setScenarioType(TYPE_MAP.get(scenarioType));
+      if (configuration != null) {
+        configuration.toSpaceNet(scenario);
+      }
+      return scenario;
     }
-    if (configuration.cargoTransferBagVolume != null) {
-      s.setCargoTransferBagVolume(configuration.cargoTransferBagVolume);
+
+    private void readSection(Section section, JsonReader in) throws IOException {
+      if (section == null || section.ordinal() < next || buffers.containsKey(section)
+          || in.peek() != JsonToken.BEGIN_ARRAY) {
+        in.skipValue();
+        return;
+      }
+      TypeAdapter<?> adapter = gson.getAdapter(section.type);
+      List<Object> buffer = new ArrayList<Object>();
+      in.beginArray();
+      while (in.hasNext()) {
+        Object o = adapter.read(in);
+        if (section.ordinal() == next) {
+          convert(section, o);
+        } else {
+          buffer.add(o);
+        }
+      }
+      in.endArray();
+      buffers.put(section, buffer);
+      convertBuffers();
     }
-    if (configuration.cargoTransferBagMaxMass != null) {
-      s.setCargoTransferBagMaxMass(configuration.cargoTransferBagMaxMass);
+
+    private void convertBuffers() {
+      while (next < Section.values().length && buffers.containsKey(Section.values()[next])) {
+        Section section = Section.values()[next];
+        for (Object o : buffers.remove(section)) {
+          convert(section, o);
+        }
+        next++;
+      }
     }
-    if (configuration.cargoTransferBagMaxVolume != null) {
-      s.setCargoTransferBagMaxVolume(configuration.cargoTransferBagMaxVolume);
+
+    private void convert(Section section, Object o) {
+      switch (section) {
+        case NODES:
+          edu.mit.spacenet.domain.network.node.Node node = ((Node) o).toSpaceNet(context);
+          dataSource.getNodeLibrary().add(node);
+          scenario.getNetwork().add(node);
+          break;
+        case EDGES:
+          edu.mit.spacenet.domain.network.edge.Edge edge = ((Edge) o).toSpaceNet(context);
+          dataSource.getEdgeLibrary().add(edge);
+          scenario.getNetwork().add(edge);
+          break;
+        case RESOURCES:
+          dataSource.getResourceLibrary().add(((ResourceType) o).toSpaceNet(context));
+          break;
+        case DEMAND_MODELS:
+          ((DemandModel) o).toSpaceNet(null, context);
+          break;
+        case ELEMENT_TEMPLATES:
+          dataSource.getElementLibrary().add(((Element) o).toSpaceNet(context));
+          dataSource.getElementPreviewLibrary().add(((Element) o).getPreview(context));
+          break;
+        case INSTANTIATED_ELEMENTS:
+          ((Element) o).toSpaceNet(context);
+          break;
+        case MISSIONS:
+          scenario.getMissionList().add(((Mission) o).toSpaceNet(scenario, context));
+          break;
+      }
     }
-    return s;
   }
 }
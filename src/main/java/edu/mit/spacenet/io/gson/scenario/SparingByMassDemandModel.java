@@ -1,6 +1,5 @@
 package edu.mit.spacenet.io.gson.scenario;
 
-import java.util.UUID;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import edu.mit.spacenet.domain.element.I_Element;
@@ -88,7 +87,7 @@ public class SparingByMassDemandModel extends DemandModel {
   public SparingByMassDemandModel clone() {
     SparingByMassDemandModel m = new SparingByMassDemandModel();
     if (id != null) {
-      m.id = UUID.randomUUID();
+      m.id = Context.createId();
     }
     m.templateId = templateId;
     m.name = name;
@@ -29,7 +29,7 @@ public class State implements Cloneable {
 
   public static State createFrom(I_State state, Context context) {
     State s = new State();
-    s.id = UUID.randomUUID();
+    s.id = Context.createId();
     context.put(state, s.id, s);
     s.name = state.getName();
     s.description = state.getDescription();
@@ -91,7 +91,7 @@ public class State implements Cloneable {
   @Override
   public State clone() {
     State s = new State();
-    s.id = UUID.randomUUID();
+    s.id = Context.createId();
     s.name = name;
     s.description = description;
     s.type = type;
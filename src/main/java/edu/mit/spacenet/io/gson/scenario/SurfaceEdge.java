@@ -1,14 +1,12 @@
 package edu.mit.spacenet.io.gson.scenario;
 
-import java.util.UUID;
-
 public class SurfaceEdge extends Edge {
   protected Double distance;
 
   public static SurfaceEdge createFrom(edu.mit.spacenet.domain.network.edge.SurfaceEdge edge,
       Context context) {
     SurfaceEdge e = new SurfaceEdge();
-    e.id = UUID.randomUUID();
+    e.id = Context.createId();
     context.put(edge, e.id, e);
     e.name = edge.getName();
     e.description = edge.getDescription();
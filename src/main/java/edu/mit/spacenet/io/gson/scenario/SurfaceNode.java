@@ -1,7 +1,5 @@
 package edu.mit.spacenet.io.gson.scenario;
 
-import java.util.UUID;
-
 import edu.mit.spacenet.domain.network.node.Body;
 
 public class SurfaceNode extends Node {
@@ -11,7 +9,7 @@ public class SurfaceNode extends Node {
   public static SurfaceNode createFrom(edu.mit.spacenet.domain.network.node.SurfaceNode node,
       Context context) {
     SurfaceNode n = new SurfaceNode();
-    n.id = UUID.randomUUID();
+    n.id = Context.createId();
     context.put(node, n.id, n);
     n.name = node.getName();
     n.description = node.getDescription();
@@ -2,7 +2,6 @@ package edu.mit.spacenet.io.gson.scenario;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import edu.mit.spacenet.data.ElementPreview;
@@ -21,7 +20,7 @@ public class SurfaceVehicle extends Carrier {
   public static SurfaceVehicle createFrom(edu.mit.spacenet.domain.element.SurfaceVehicle element,
       Context context) {
     SurfaceVehicle e = new SurfaceVehicle();
-    e.id = UUID.randomUUID();
+    e.id = Context.createId();
     context.put(element, e.id, e);
     e.templateId = context.getElementTemplate(element.getTid());
     SurfaceVehicle template = (SurfaceVehicle) context.getJsonObject(e.templateId);
@@ -225,7 +224,7 @@ public class SurfaceVehicle extends Carrier {
   @Override
   public SurfaceVehicle clone() {
     SurfaceVehicle e = new SurfaceVehicle();
-    e.id = UUID.randomUUID();
+    e.id = Context.createId();
     e.templateId = templateId;
     e.name = name;
     e.description = description;
@@ -13,13 +13,24 @@
  */
 package edu.mit.spacenet.scenario;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import edu.mit.spacenet.domain.ClassOfSupply;
 import edu.mit.spacenet.domain.Environment;
@@ -35,6 +46,7 @@ import edu.mit.spacenet.domain.resource.DemandSet;
 import edu.mit.spacenet.simulator.DemandSimulator;
 import edu.mit.spacenet.simulator.event.ManifestEvent;
 import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * The manifest represents the packing of resources into resource containers, and the eventual
@@ -43,6 +55,13 @@ import edu.mit.spacenet.util.GlobalParameters;
  * @author Paul Grogan
  */
 public class Manifest {
+  private static final Comparator<I_ResourceContainer> UID_ORDER =
+      new Comparator<I_ResourceContainer>() {
+        public int compare(I_ResourceContainer c1, I_ResourceContainer c2) {
+          return Integer.compare(c1.getUid(), c2.getUid());
+        }
+      };
+
   private Scenario scenario;
   private Set<SupplyEdge> supplyEdges;
   private Set<SupplyPoint> supplyPoints;
@@ -51,6 +70,8 @@ public class Manifest {
   private Map<Demand, Set<Demand>> demandsAsPacked;
   private Map<I_ResourceContainer, Set<Demand>> packedDemands;
   private Map<SupplyEdge, Map<I_Carrier, Set<I_ResourceContainer>>> manifestedContainers;
+  private PackingStrategy packingStrategy;
+  private transient ManifestIndex index;
 
   /**
    * Instantiates a new manifest.
@@ -66,6 +87,40 @@ public class Manifest {
     demandsAsPacked = new HashMap<Demand, Set<Demand>>();
     packedDemands = new HashMap<I_ResourceContainer, Set<Demand>>();
     manifestedContainers = new TreeMap<SupplyEdge, Map<I_Carrier, Set<I_ResourceContainer>>>();
+    packingStrategy = PackingStrategy.FIRST_FIT;
+  }
+
+  /**
+   * Instantiates a copy of a manifest that shares its supply points, supply edges, and aggregated
+   * demands but packs and manifests them independently.
+   * 
+   * @param manifest the manifest to copy
+   */
+  private Manifest(Manifest manifest) {
+    scenario = manifest.scenario;
+    supplyEdges = manifest.supplyEdges;
+    supplyPoints = manifest.supplyPoints;
+    aggregatedNodeDemands = manifest.aggregatedNodeDemands;
+    aggregatedEdgeDemands = manifest.aggregatedEdgeDemands;
+    demandsAsPacked = new HashMap<Demand, Set<Demand>>();
+    for (Demand demand : manifest.demandsAsPacked.keySet()) {
+      demandsAsPacked.put(demand, new HashSet<Demand>(manifest.demandsAsPacked.get(demand)));
+    }
+    packedDemands = new HashMap<I_ResourceContainer, Set<Demand>>();
+    for (I_ResourceContainer container : manifest.packedDemands.keySet()) {
+      packedDemands.put(container, new HashSet<Demand>(manifest.packedDemands.get(container)));
+    }
+    manifestedContainers = new TreeMap<SupplyEdge, Map<I_Carrier, Set<I_ResourceContainer>>>();
+    for (SupplyEdge edge : manifest.manifestedContainers.keySet()) {
+      Map<I_Carrier, Set<I_ResourceContainer>> containers =
+          new TreeMap<I_Carrier, Set<I_ResourceContainer>>();
+      for (I_Carrier carrier : manifest.manifestedContainers.get(edge).keySet()) {
+        containers.put(carrier, new HashSet<I_ResourceContainer>(
+            manifest.manifestedContainers.get(edge).get(carrier)));
+      }
+      manifestedContainers.put(edge, containers);
+    }
+    packingStrategy = manifest.packingStrategy;
   }
 
   /**
@@ -89,11 +144,7 @@ public class Manifest {
    * @return the cargo mass (kilograms)
    */
   public double getCargoMass(I_ResourceContainer container, SupplyPoint point) {
-    double amount = 0;
-    for (Demand demandAsPacked : getPackedDemands(container, point)) {
-      amount += demandAsPacked.getMass();
-    }
-    return amount;
+    return getIndex().getCargoMass(container, point);
   }
 
   /**
@@ -106,11 +157,7 @@ public class Manifest {
    * @return the cargo volume (cubic meters)
    */
   public double getCargoVolume(I_ResourceContainer container, SupplyPoint point) {
-    double amount = 0;
-    for (Demand demandAsPacked : getPackedDemands(container, point)) {
-      amount += demandAsPacked.getVolume();
-    }
-    return amount;
+    return getIndex().getCargoVolume(container, point);
   }
 
   /**
@@ -153,13 +200,7 @@ public class Manifest {
    * @return the packed amount (units)
    */
   public double getPackedAmount(Demand demand) {
-    if (getDemandsAsPacked().get(demand) == null)
-      return 0;
-    double amount = 0;
-    for (Demand demandAsPacked : getDemandsAsPacked().get(demand)) {
-      amount += demandAsPacked.getAmount();
-    }
-    return GlobalParameters.getSingleton().getRoundedDemand(amount);
+    return SimulationContext.current().getRoundedDemand(getIndex().getPackedAmount(demand));
   }
 
   /**
@@ -170,17 +211,7 @@ public class Manifest {
    * @return the supply point
    */
   public SupplyPoint getSupplyPoint(Demand demand) {
-    for (SupplyPoint p : supplyPoints) {
-      for (Demand d : aggregatedNodeDemands.get(p)) {
-        if (d.equals(demand))
-          return p;
-      }
-      for (Demand d : aggregatedEdgeDemands.get(p.getEdge())) {
-        if (d.equals(demand))
-          return p;
-      }
-    }
-    return null;
+    return getIndex().getSupplyPoint(demand);
   }
 
   /**
@@ -194,14 +225,7 @@ public class Manifest {
     if (edge.getOrigin() instanceof SurfaceNode && edge.getOrigin().getBody() == Body.EARTH)
       return null;
 
-    SupplyPoint point = null;
-    for (SupplyPoint p : supplyPoints) {
-      if (p.getNode().equals(edge.getOrigin()) && p.getTime() <= edge.getStartTime()
-          && (point == null || p.getTime() > point.getTime())) {
-        point = p;
-      }
-    }
-    return point;
+    return getIndex().getSupplyPoint(edge.getOrigin(), edge.getStartTime());
   }
 
   /**
@@ -212,13 +236,7 @@ public class Manifest {
    * @return the aggregated demand
    */
   public Demand getDemand(Demand demandAsPacked) {
-    for (Demand demand : demandsAsPacked.keySet()) {
-      for (Demand d : demandsAsPacked.get(demand)) {
-        if (d.equals(demandAsPacked))
-          return demand;
-      }
-    }
-    return null;
+    return getIndex().getDemand(demandAsPacked);
   }
 
   /**
@@ -229,14 +247,8 @@ public class Manifest {
    * @return the supply edge associated with the carrier
    */
   public SupplyEdge getSupplyEdge(I_Carrier carrier) {
-    for (SupplyEdge e : supplyEdges) {
-      for (I_Carrier c : e.getCarriers()) {
-        // must use == because carriers are repeated on edges
-        if (c == carrier)
-          return e;
-      }
-    }
-    return null;
+    // indexed by reference because carriers are repeated on edges
+    return getIndex().getSupplyEdge(carrier);
   }
 
   /**
@@ -248,8 +260,8 @@ public class Manifest {
    */
   public Set<SupplyEdge> getSupplyEdges(SupplyPoint point) {
     HashSet<SupplyEdge> edges = new HashSet<SupplyEdge>();
-    for (SupplyEdge edge : supplyEdges) {
-      if (edge.getDestination().equals(point.getNode()) && edge.getEndTime() <= point.getTime()) {
+    for (SupplyEdge edge : getIndex().getSupplyEdges(point.getNode())) {
+      if (edge.getEndTime() <= point.getTime()) {
         edges.add(edge);
       }
     }
@@ -265,13 +277,16 @@ public class Manifest {
    */
   public SupplyPoint getInitialSupplyPoint(I_ResourceContainer container) {
     SupplyEdge edge = null;
-    for (SupplyEdge e : supplyEdges) {
+    // edges are ordered by decreasing end time, so the first edge is the latest
+    for (SupplyEdge e : getIndex().getSupplyEdges(container)) {
       for (I_Carrier carrier : e.getCarriers()) {
-        if (manifestedContainers.get(e).get(carrier).contains(container)
-            && (edge == null || e.getEndTime() > edge.getEndTime())) {
+        if (manifestedContainers.get(e).get(carrier).contains(container)) {
           edge = e;
+          break;
         }
       }
+      if (edge != null)
+        break;
     }
     SupplyPoint point = edge == null ? null : edge.getPoint();
     for (Demand demandAsPacked : packedDemands.get(container)) {
@@ -298,15 +313,11 @@ public class Manifest {
     if (point == null) {
       return null;
     }
-    for (SupplyEdge edge : supplyEdges) {
+    for (SupplyEdge edge : getIndex().getSupplyEdges(container)) {
       if (edge.getEndTime() <= point.getTime()) {
-        for (I_Carrier carrier : edge.getAllCarriers()) {
-          if (manifestedContainers.get(edge).get(carrier).contains(container)) {
-            SupplyPoint p = getNextSupplyPoint(edge);
-            if (p != null && (p.getTime() < point.getTime())) {
-              point = p;
-            }
-          }
+        SupplyPoint p = getNextSupplyPoint(edge);
+        if (p != null && (p.getTime() < point.getTime())) {
+          point = p;
         }
       }
     }
@@ -336,11 +347,7 @@ public class Manifest {
    * @return whether a demand is an edge demand
    */
   public boolean isEdgeDemand(Demand demand) {
-    for (Demand d : aggregatedEdgeDemands.get(getSupplyPoint(demand).getEdge())) {
-      if (d.equals(demand))
-        return true;
-    }
-    return false;
+    return getIndex().isEdgeDemand(demand);
   }
 
   /**
@@ -355,15 +362,9 @@ public class Manifest {
     if (packedDemands.get(container) != null) {
       for (Demand demandAsPacked : packedDemands.get(container)) {
         Demand demand = getDemand(demandAsPacked);
-        if (isEdgeDemand(demand)) {
-          boolean isManifested = false;
-          SupplyPoint point = getSupplyPoint(demand);
-          for (I_Carrier carrier : point.getEdge().getAllCarriers()) {
-            if (manifestedContainers.get(point.getEdge()).get(carrier).contains(container))
-              isManifested = true;
-          }
-          if (!isManifested)
-            return true;
+        if (isEdgeDemand(demand)
+            && !getIndex().getSupplyEdges(container).contains(getSupplyPoint(demand).getEdge())) {
+          return true;
         }
       }
     }
@@ -371,11 +372,23 @@ public class Manifest {
   }
 
   /**
-   * Automatically packs a demand into an appropriate choice of resource container.
+   * Automatically packs a demand into an appropriate choice of resource container using the
+   * packing strategy of the manifest.
    * 
    * @param d the aggregated demand to pack
    */
   public void autoPackDemand(Demand d) {
+    autoPackDemand(d, new OpenContainers(packedDemands.keySet()));
+  }
+
+  /**
+   * Automatically packs a demand into the open containers or into new containers, which are opened
+   * for later demands.
+   * 
+   * @param d the aggregated demand to pack
+   * @param openContainers the open containers
+   */
+  private void autoPackDemand(Demand d, OpenContainers openContainers) {
     if (d.getResource().getClassOfSupply().equals(ClassOfSupply.COS1)
         || d.getResource().getClassOfSupply().isSubclassOf(ClassOfSupply.COS1)) {
       // TODO: temporarily use liquid tanks
@@ -383,7 +396,7 @@ public class Manifest {
         I_ResourceContainer container;
         if (getRemainingAmount(d) * d.getResource().getUnitMass() > GlobalParameters.getSingleton()
             .getSmallLiquidTankMaxMass()
-            || (GlobalParameters.getSingleton().isVolumeConstrained()
+            || (SimulationContext.current().isVolumeConstrained()
                 && getRemainingAmount(d) * d.getResource().getUnitVolume() > GlobalParameters
                     .getSingleton().getSmallLiquidTankMaxVolume())) {
           container = ResourceContainerFactory.createLT();
@@ -393,22 +406,17 @@ public class Manifest {
         container.setEnvironment(d.getResource().getEnvironment());
         container.setCargoEnvironment(d.getResource().getEnvironment());
         addContainer(container);
-        packDemand(d, container);
+        packDemand(d, container, openContainers);
       }
     } else if (d.getResource().getClassOfSupply().equals(ClassOfSupply.COS203)) {
       // use gas tank and gas tank derivative
-      for (I_ResourceContainer container : packedDemands.keySet()) {
-        if (container.getTid() == ResourceContainerFactory.GT_TID
-            || container.getTid() == ResourceContainerFactory.GTD_TID) {
-          if (canPackDemand(d, container))
-            packDemand(d, container);
-        }
-      }
+      packDemand(d, openContainers, ResourceContainerFactory.GT_TID,
+          ResourceContainerFactory.GTD_TID);
       while (getRemainingAmount(d) > 0) {
         I_ResourceContainer container;
         if (getRemainingAmount(d) * d.getResource().getUnitMass() > GlobalParameters.getSingleton()
             .getSmallGasTankMaxMass()
-            || (GlobalParameters.getSingleton().isVolumeConstrained()
+            || (SimulationContext.current().isVolumeConstrained()
                 && getRemainingAmount(d) * d.getResource().getUnitVolume() > GlobalParameters
                     .getSingleton().getSmallGasTankMaxVolume())) {
           container = ResourceContainerFactory.createGT();
@@ -418,22 +426,17 @@ public class Manifest {
         container.setEnvironment(d.getResource().getEnvironment());
         container.setCargoEnvironment(d.getResource().getEnvironment());
         addContainer(container);
-        packDemand(d, container);
+        packDemand(d, container, openContainers);
       }
     } else if (d.getResource().getClassOfSupply().equals(ClassOfSupply.COS201)) {
       // use liquid tank and liquid tank derivative
-      for (I_ResourceContainer container : packedDemands.keySet()) {
-        if (container.getTid() == ResourceContainerFactory.LT_TID
-            || container.getTid() == ResourceContainerFactory.LTD_TID) {
-          if (canPackDemand(d, container))
-            packDemand(d, container);
-        }
-      }
+      packDemand(d, openContainers, ResourceContainerFactory.LT_TID,
+          ResourceContainerFactory.LTD_TID);
       while (getRemainingAmount(d) > 0) {
         I_ResourceContainer container;
         if (getRemainingAmount(d) * d.getResource().getUnitMass() > GlobalParameters.getSingleton()
             .getSmallLiquidTankMaxMass()
-            || (GlobalParameters.getSingleton().isVolumeConstrained()
+            || (SimulationContext.current().isVolumeConstrained()
                 && getRemainingAmount(d) * d.getResource().getUnitVolume() > GlobalParameters
                     .getSingleton().getSmallLiquidTankMaxVolume())) {
           container = ResourceContainerFactory.createLT();
@@ -443,7 +446,7 @@ public class Manifest {
         container.setEnvironment(d.getResource().getEnvironment());
         container.setCargoEnvironment(d.getResource().getEnvironment());
         addContainer(container);
-        packDemand(d, container);
+        packDemand(d, container, openContainers);
       }
     } else if (d.getResource().getClassOfSupply().equals(ClassOfSupply.COS2)
         || d.getResource().getClassOfSupply().isSubclassOf(ClassOfSupply.COS2)
@@ -455,19 +458,14 @@ public class Manifest {
         || d.getResource().getClassOfSupply().isSubclassOf(ClassOfSupply.COS7)) {
       // use ctb
       // try existing ctb's
-      for (I_ResourceContainer container : packedDemands.keySet()) {
-        if (container.getTid() == ResourceContainerFactory.CTB_TID) {
-          if (canPackDemand(d, container))
-            packDemand(d, container);
-        }
-      }
+      packDemand(d, openContainers, ResourceContainerFactory.CTB_TID);
       // create new ctb's
       while (getRemainingAmount(d) > 0) {
         I_ResourceContainer container = ResourceContainerFactory.createCTB();
         container.setEnvironment(d.getResource().getEnvironment());
         container.setCargoEnvironment(d.getResource().getEnvironment());
         addContainer(container);
-        packDemand(d, container);
+        packDemand(d, container, openContainers);
       }
     } else if (d.getResource().getClassOfSupply().equals(ClassOfSupply.COS5)
         || d.getResource().getClassOfSupply().isSubclassOf(ClassOfSupply.COS5)) {
@@ -506,6 +504,87 @@ public class Manifest {
     }
   }
 
+  /**
+   * Packs a demand into open containers of the given types, choosing containers according to the
+   * packing strategy until the demand is packed or no open container fits.
+   * 
+   * @param demand the aggregated demand
+   * @param openContainers the open containers
+   * @param tids the container type identifiers
+   */
+  private void packDemand(Demand demand, OpenContainers openContainers, int... tids) {
+    if (packingStrategy.isBestFit()) {
+      while (getRemainingAmount(demand) > 0) {
+        I_ResourceContainer bestContainer = null;
+        double bestCapacity = Double.MAX_VALUE;
+        for (I_ResourceContainer container : openContainers.get(tids)) {
+          if (canPackDemand(demand, container)) {
+            double capacity = getRemainingCapacity(container);
+            if (bestContainer == null || capacity < bestCapacity) {
+              bestContainer = container;
+              bestCapacity = capacity;
+            }
+          }
+        }
+        if (bestContainer == null)
+          break;
+        double amount = getRemainingAmount(demand);
+        packDemand(demand, bestContainer, openContainers);
+        if (getRemainingAmount(demand) == amount)
+          break; // container could not take any of the demand
+      }
+    } else {
+      for (I_ResourceContainer container : openContainers.get(tids)) {
+        if (getRemainingAmount(demand) <= 0)
+          break;
+        if (canPackDemand(demand, container))
+          packDemand(demand, container, openContainers);
+      }
+    }
+  }
+
+  /**
+   * Packs a demand into a resource container and closes the container if it has no capacity left.
+   * 
+   * @param demand the aggregated demand
+   * @param container the resource container
+   * @param openContainers the open containers
+   */
+  private void packDemand(Demand demand, I_ResourceContainer container,
+      OpenContainers openContainers) {
+    packDemand(demand, container);
+    if (getRemainingCapacity(container) <= 0) {
+      openContainers.close(container);
+    } else {
+      openContainers.open(container);
+    }
+  }
+
+  /**
+   * Gets the fraction of capacity left in a resource container at its current supply point, the
+   * lesser of the mass and (if constrained) volume fractions.
+   * 
+   * @param container the resource container
+   * 
+   * @return the remaining capacity fraction, 1 for an empty or unconstrained container
+   */
+  private double getRemainingCapacity(I_ResourceContainer container) {
+    SupplyPoint point = getCurrentSupplyPoint(container);
+    if (point == null)
+      return 1;
+    double capacity = 1;
+    if (container.getMaxCargoMass() > 0) {
+      capacity = (container.getMaxCargoMass() - getCargoMass(container, point))
+          / container.getMaxCargoMass();
+    }
+    if (SimulationContext.current().isVolumeConstrained() && container.getMaxCargoVolume() > 0) {
+      capacity = Math.min(capacity,
+          (container.getMaxCargoVolume() - getCargoVolume(container, point))
+              / container.getMaxCargoVolume());
+    }
+    return capacity;
+  }
+
   /**
    * Packs a demand into a resource container.
    * 
@@ -519,17 +598,17 @@ public class Manifest {
     if (containerPoint == null || (demandPoint.getNode().equals(containerPoint.getNode())
         && demandPoint.getTime() <= containerPoint.getTime())) {
       double remainingAmountMass = demand.getResource().getUnitMass() == 0 ? Double.MAX_VALUE
-          : GlobalParameters.getSingleton().getRoundedDemand(
+          : SimulationContext.current().getRoundedDemand(
               (container.getMaxCargoMass() - getCargoMass(container, containerPoint))
                   / demand.getResource().getUnitMass());
-      double remainingAmountVolume = (!GlobalParameters.getSingleton().isVolumeConstrained()
+      double remainingAmountVolume = (!SimulationContext.current().isVolumeConstrained()
           || demand.getResource().getUnitVolume() == 0)
               ? Double.MAX_VALUE
-              : GlobalParameters.getSingleton().getRoundedDemand(
+              : SimulationContext.current().getRoundedDemand(
                   (container.getMaxCargoVolume() - getCargoVolume(container, containerPoint))
                       / demand.getResource().getUnitVolume());
 
-      double amount = GlobalParameters.getSingleton().isEnvironmentConstrained()
+      double amount = SimulationContext.current().isEnvironmentConstrained()
           && demand.getResource().getEnvironment() == Environment.PRESSURIZED
           && container.getCargoEnvironment() == Environment.UNPRESSURIZED ? 0
               : Math.min(getRemainingAmount(demand),
@@ -538,6 +617,7 @@ public class Manifest {
         Demand demandAsPacked = new Demand(demand.getResource(), amount);
         demandsAsPacked.get(demand).add(demandAsPacked);
         packedDemands.get(container).add(demandAsPacked);
+        getIndex().pack(demand, demandAsPacked, container);
       }
     }
   }
@@ -550,11 +630,12 @@ public class Manifest {
   public void unpackDemand(Demand demand) {
     if (canUnpackDemand(demand)) {
       for (Demand demandAsPacked : demandsAsPacked.get(demand)) {
-        for (I_ResourceContainer container : packedDemands.keySet()) {
-          if (packedDemands.get(container).contains(demandAsPacked)) {
-            packedDemands.get(container).remove(demandAsPacked);
-          }
+        I_ResourceContainer container = getIndex().getContainer(demandAsPacked);
+        if (container != null && packedDemands.get(container) != null) {
+          packedDemands.get(container).remove(demandAsPacked);
         }
+        getIndex().unpack(demandAsPacked);
+        getIndex().release(demandAsPacked);
       }
       demandsAsPacked.get(demand).clear();
     }
@@ -569,9 +650,12 @@ public class Manifest {
   public void unpackDemand(Demand demandAsPacked, I_ResourceContainer container) {
     if (canUnpackDemand(demandAsPacked, container)) {
       packedDemands.get(container).remove(demandAsPacked);
-      for (Demand d : demandsAsPacked.keySet()) {
-        demandsAsPacked.get(d).remove(demandAsPacked);
+      getIndex().unpack(demandAsPacked);
+      Demand demand = getIndex().getDemand(demandAsPacked);
+      if (demand != null) {
+        demandsAsPacked.get(demand).remove(demandAsPacked);
       }
+      getIndex().release(demandAsPacked);
     }
   }
 
@@ -635,13 +719,10 @@ public class Manifest {
   private boolean isManifested(I_ResourceContainer container, SupplyPoint point) {
     if (container == null || point == null)
       return false;
-    for (SupplyEdge edge : supplyEdges) {
+    for (SupplyEdge edge : getIndex().getSupplyEdges(container)) {
       if (edge.getPoint().getNode().equals(point.getNode())
           && edge.getPoint().getTime() <= point.getTime()) {
-        for (I_Carrier carrier : edge.getAllCarriers()) {
-          if (manifestedContainers.get(edge).get(carrier).contains(container))
-            return true;
-        }
+        return true;
       }
     }
     return false;
@@ -661,10 +742,10 @@ public class Manifest {
     else if (getRemainingAmount(demand) > 0
         && container.canAdd(demand.getResource(), demand.getAmount())
         && getCargoMass(container, getSupplyPoint(demand))
-            - container.getMaxCargoMass() < GlobalParameters.getSingleton().getMassPrecision() / 2d
-        && (!GlobalParameters.getSingleton().isVolumeConstrained()
+            - container.getMaxCargoMass() < SimulationContext.current().getMassPrecision() / 2d
+        && (!SimulationContext.current().isVolumeConstrained()
             || getCargoVolume(container, getSupplyPoint(demand)) - container
-                .getMaxCargoVolume() < GlobalParameters.getSingleton().getVolumePrecision() / 2d)) {
+                .getMaxCargoVolume() < SimulationContext.current().getVolumePrecision() / 2d)) {
       SupplyPoint containerPoint = getCurrentSupplyPoint(container);
       SupplyPoint demandPoint = getSupplyPoint(demand);
       if (containerPoint == null && !isManifested(container, containerPoint)) {
@@ -697,11 +778,7 @@ public class Manifest {
   public boolean canUnmanifestContainer(I_ResourceContainer container, SupplyEdge edge) {
     if (container == null || edge == null)
       return false;
-    for (I_Carrier carrier : manifestedContainers.get(edge).keySet()) {
-      if (manifestedContainers.get(edge).get(carrier).contains(container))
-        return true;
-    }
-    return false;
+    return getIndex().getSupplyEdges(container).contains(edge);
   }
 
   /**
@@ -724,12 +801,12 @@ public class Manifest {
       if (point != null && edge.equals(point.getEdge())
           && manifestedContainers.get(edge).keySet().contains(carrier)
           && getCargoMass(carrier, point) + container.getMass() + getCargoMass(container, point)
-              - carrier.getMaxCargoMass() < GlobalParameters.getSingleton().getMassPrecision() / 2d
-          && (!GlobalParameters.getSingleton().isVolumeConstrained()
+              - carrier.getMaxCargoMass() < SimulationContext.current().getMassPrecision() / 2d
+          && (!SimulationContext.current().isVolumeConstrained()
               || getCargoVolume(carrier, point) + container.getVolume()
-                  - carrier.getMaxCargoVolume() < GlobalParameters.getSingleton()
+                  - carrier.getMaxCargoVolume() < SimulationContext.current()
                       .getVolumePrecision() / 2d)
-          && (!GlobalParameters.getSingleton().isEnvironmentConstrained()
+          && (!SimulationContext.current().isEnvironmentConstrained()
               || !(container.getEnvironment() == Environment.PRESSURIZED
                   && carrier.getCargoEnvironment() == Environment.UNPRESSURIZED))
           && !isManifested(container, point)) {
@@ -740,11 +817,11 @@ public class Manifest {
         && edge.getEndTime() <= point.getTime()
         && manifestedContainers.get(edge).keySet().contains(carrier)
         && getCargoMass(carrier, point) + container.getMass() + getCargoMass(container, point)
-            - carrier.getMaxCargoMass() < GlobalParameters.getSingleton().getMassPrecision() / 2d
-        && (!GlobalParameters.getSingleton().isVolumeConstrained()
+            - carrier.getMaxCargoMass() < SimulationContext.current().getMassPrecision() / 2d
+        && (!SimulationContext.current().isVolumeConstrained()
             || getCargoVolume(carrier, point) + container.getVolume() - carrier
-                .getMaxCargoVolume() < GlobalParameters.getSingleton().getVolumePrecision() / 2d)
-        && (!GlobalParameters.getSingleton().isEnvironmentConstrained()
+                .getMaxCargoVolume() < SimulationContext.current().getVolumePrecision() / 2d)
+        && (!SimulationContext.current().isEnvironmentConstrained()
             || !(container.getEnvironment() == Environment.PRESSURIZED
                 && carrier.getCargoEnvironment() == Environment.UNPRESSURIZED))
         && !isManifested(container, point)) {
@@ -763,6 +840,7 @@ public class Manifest {
   public void manifestContainer(I_ResourceContainer container, SupplyEdge edge, I_Carrier carrier) {
     if (canManifestContainer(container, edge, carrier)) {
       manifestedContainers.get(edge).get(carrier).add(container);
+      getIndex().addEdge(container, edge);
     }
   }
 
@@ -777,12 +855,14 @@ public class Manifest {
       for (I_Carrier carrier : manifestedContainers.get(edge).keySet()) {
         manifestedContainers.get(edge).get(carrier).remove(container);
       }
-      for (SupplyEdge e : supplyEdges) {
+      getIndex().removeEdge(container, edge);
+      for (SupplyEdge e : new ArrayList<SupplyEdge>(getIndex().getSupplyEdges(container))) {
         // clean up earlier manifests... not guaranteed anymore
         if (e.getEndTime() < edge.getEndTime()) {
           for (I_Carrier carrier : manifestedContainers.get(e).keySet()) {
             manifestedContainers.get(e).get(carrier).remove(container);
           }
+          getIndex().removeEdge(container, e);
         }
       }
     }
@@ -794,7 +874,10 @@ public class Manifest {
    * @param container the resource container
    */
   public void addContainer(I_ResourceContainer container) {
-    packedDemands.put(container, new HashSet<Demand>());
+    Set<Demand> demands = packedDemands.put(container, new HashSet<Demand>());
+    if (index != null && demands != null) {
+      index.removeContainer(container, demands);
+    }
   }
 
   /**
@@ -804,23 +887,18 @@ public class Manifest {
    */
   public void removeContainer(I_ResourceContainer container) {
     for (Demand demandAsPacked : packedDemands.get(container)) {
-      for (DemandSet demands : aggregatedNodeDemands.values()) {
-        for (Demand demand : demands) {
-          demandsAsPacked.get(demand).remove(demandAsPacked);
-        }
-      }
-      for (DemandSet demands : aggregatedEdgeDemands.values()) {
-        for (Demand demand : demands) {
-          demandsAsPacked.get(demand).remove(demandAsPacked);
-        }
+      Demand demand = getIndex().getDemand(demandAsPacked);
+      if (demand != null) {
+        demandsAsPacked.get(demand).remove(demandAsPacked);
       }
+      getIndex().release(demandAsPacked);
     }
-    packedDemands.remove(container);
-    for (SupplyEdge edge : supplyEdges) {
-      for (I_Carrier carrier : edge.getAllCarriers()) {
+    for (SupplyEdge edge : getIndex().getSupplyEdges(container)) {
+      for (I_Carrier carrier : manifestedContainers.get(edge).keySet()) {
         manifestedContainers.get(edge).get(carrier).remove(container);
       }
     }
+    getIndex().removeContainer(container, packedDemands.remove(container));
   }
 
   /**
@@ -850,6 +928,7 @@ public class Manifest {
         demandsAsPacked.put(demand, new HashSet<Demand>());
       }
     }
+    index = null;
   }
 
   /**
@@ -952,9 +1031,8 @@ public class Manifest {
    */
   public Set<I_ResourceContainer> getManifestedContainers(I_Carrier carrier, SupplyPoint point) {
     HashSet<I_ResourceContainer> containers = new HashSet<I_ResourceContainer>();
-    for (SupplyEdge edge : supplyEdges) {
-      if (manifestedContainers.get(edge).keySet().contains(carrier)
-          && edge.getEndTime() <= point.getTime()) {
+    for (List<SupplyEdge> edges : getIndex().getManifestEdges(carrier, point.getTime())) {
+      for (SupplyEdge edge : edges) {
         for (I_ResourceContainer container : manifestedContainers.get(edge).get(carrier)) {
           containers.add(container);
         }
@@ -974,6 +1052,7 @@ public class Manifest {
     demandsAsPacked.clear();
     packedDemands.clear();
     manifestedContainers.clear();
+    index = null;
   }
 
   /**
@@ -1037,20 +1116,23 @@ public class Manifest {
   }
 
   /**
-   * Runs an auto-manifesting algorithm.
+   * Runs an auto-manifesting algorithm using the packing strategy of the manifest.
    */
   public void autoManifest() {
+    // supply points are visited by decreasing time, so a full container stays full
+    OpenContainers openContainers = new OpenContainers(getContainersByUid());
     for (SupplyPoint point : supplyPoints) {
       // pack edge demands first
-      for (Demand demand : aggregatedEdgeDemands.get(point.getEdge())) {
-        autoPackDemand(demand);
+      for (Demand demand : getPackingOrder(aggregatedEdgeDemands.get(point.getEdge()))) {
+        autoPackDemand(demand, openContainers);
       }
       // then pack node demands
-      for (Demand demand : aggregatedNodeDemands.get(point)) {
-        autoPackDemand(demand);
+      for (Demand demand : getPackingOrder(aggregatedNodeDemands.get(point))) {
+        autoPackDemand(demand, openContainers);
       }
-      // manifest edge demands first
-      for (I_ResourceContainer container : packedDemands.keySet()) {
+      // manifest edge demands first, visiting containers in a repeatable order
+      List<I_ResourceContainer> containers = getContainersByUid();
+      for (I_ResourceContainer container : containers) {
         if (point.equals(getCurrentSupplyPoint(container)) && isEdgeDemand(container)) {
           boolean isManifested = false;
           for (SupplyEdge edge : supplyEdges) {
@@ -1066,7 +1148,7 @@ public class Manifest {
         }
       }
       // then manifest node demands
-      for (I_ResourceContainer container : packedDemands.keySet()) {
+      for (I_ResourceContainer container : containers) {
         if (point.equals(getCurrentSupplyPoint(container)) && !isEdgeDemand(container)) {
           boolean isManifested = false;
           for (SupplyEdge edge : supplyEdges) {
@@ -1086,6 +1168,184 @@ public class Manifest {
     }
   }
 
+  /**
+   * Runs the auto-manifesting algorithm on a copy of the manifest for each of several packing
+   * strategies in parallel, and keeps the result with the fewest resource containers (breaking ties
+   * by the least container mass). The containers created for the kept result are renumbered in the
+   * order they were created, so their uids and names do not depend on how the copies were
+   * interleaved.
+   * 
+   * @param strategies the packing strategies to evaluate
+   * 
+   * @return the packing strategy of the result that was kept, null if no strategies were given
+   */
+  public PackingStrategy autoManifest(Collection<PackingStrategy> strategies) {
+    // copies are packed on worker threads with the parameters of this thread
+    final GlobalParameters parameters = GlobalParameters.getSingleton();
+    Set<I_ResourceContainer> existingContainers =
+        Collections.newSetFromMap(new IdentityHashMap<I_ResourceContainer, Boolean>());
+    existingContainers.addAll(packedDemands.keySet());
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.max(1, Math.min(strategies.size(), Runtime.getRuntime().availableProcessors())),
+        new ThreadFactory() {
+          private final AtomicInteger count = new AtomicInteger();
+
+          public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "auto-manifest-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+    List<Future<Manifest>> futures = new ArrayList<Future<Manifest>>(strategies.size());
+    try {
+      for (final PackingStrategy strategy : strategies) {
+        futures.add(executor.submit(() -> {
+          GlobalParameters.setThreadParameters(parameters);
+          try {
+            Manifest manifest = new Manifest(this);
+            manifest.setPackingStrategy(strategy);
+            manifest.autoManifest();
+            return manifest;
+          } finally {
+            GlobalParameters.setThreadParameters(null);
+          }
+        }));
+      }
+      Manifest best = null;
+      for (Future<Manifest> future : futures) {
+        Manifest manifest;
+        try {
+          manifest = future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Auto-manifesting interrupted", e);
+        } catch (ExecutionException e) {
+          throw new IllegalStateException("Auto-manifesting failed", e.getCause());
+        }
+        if (best == null || manifest.packedDemands.size() < best.packedDemands.size()
+            || (manifest.packedDemands.size() == best.packedDemands.size()
+                && manifest.getContainerMass() < best.getContainerMass())) {
+          best = manifest;
+        }
+      }
+      if (best == null)
+        return null;
+      List<I_ResourceContainer> createdContainers = new ArrayList<I_ResourceContainer>();
+      for (I_ResourceContainer container : best.packedDemands.keySet()) {
+        if (!existingContainers.contains(container)) {
+          createdContainers.add(container);
+        }
+      }
+      renumberContainers(createdContainers);
+      demandsAsPacked = best.demandsAsPacked;
+      packedDemands = best.packedDemands;
+      manifestedContainers = best.manifestedContainers;
+      index = best.index;
+      return best.packingStrategy;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Gets the resource containers ordered by uid (i.e. the order in which they were created), as the
+   * packed demands are keyed by identity and have no repeatable iteration order.
+   * 
+   * @return the list of resource containers
+   */
+  private List<I_ResourceContainer> getContainersByUid() {
+    List<I_ResourceContainer> containers =
+        new ArrayList<I_ResourceContainer>(packedDemands.keySet());
+    Collections.sort(containers, UID_ORDER);
+    return containers;
+  }
+
+  /**
+   * Assigns new uids to containers in the order of their current uids (i.e. the order in which
+   * they were created by a single copy), updating default names such as "CTB 12" to match.
+   * 
+   * @param containers the containers to renumber
+   */
+  private static void renumberContainers(List<I_ResourceContainer> containers) {
+    Collections.sort(containers, UID_ORDER);
+    for (I_ResourceContainer container : containers) {
+      String suffix = " " + container.getUid();
+      container.resetUid();
+      if (container.getName() != null && container.getName().endsWith(suffix)) {
+        container.setName(container.getName().substring(0,
+            container.getName().length() - suffix.length()) + " " + container.getUid());
+      }
+    }
+  }
+
+  /**
+   * Gets the order in which to pack a set of aggregated demands according to the packing strategy.
+   * 
+   * @param demands the aggregated demands
+   * 
+   * @return the demands in packing order
+   */
+  private Iterable<Demand> getPackingOrder(DemandSet demands) {
+    if (!packingStrategy.isDecreasing())
+      return demands;
+    List<Demand> order = new ArrayList<Demand>();
+    for (Demand demand : demands) {
+      order.add(demand);
+    }
+    Collections.sort(order, new Comparator<Demand>() {
+      public int compare(Demand d1, Demand d2) {
+        return Double.compare(d2.getMass(), d1.getMass());
+      }
+    });
+    return order;
+  }
+
+  /**
+   * Gets the total mass of the resource containers in the manifest.
+   * 
+   * @return the container mass (kilograms)
+   */
+  private double getContainerMass() {
+    // sum in a repeatable order so that equal manifests compare as equal
+    double mass = 0;
+    for (I_ResourceContainer container : getContainersByUid()) {
+      mass += container.getMass();
+    }
+    return mass;
+  }
+
+  /**
+   * Gets the packing strategy used to auto-pack and auto-manifest demands.
+   * 
+   * @return the packing strategy
+   */
+  public PackingStrategy getPackingStrategy() {
+    return packingStrategy;
+  }
+
+  /**
+   * Sets the packing strategy used to auto-pack and auto-manifest demands.
+   * 
+   * @param packingStrategy the packing strategy
+   */
+  public void setPackingStrategy(PackingStrategy packingStrategy) {
+    this.packingStrategy = packingStrategy;
+  }
+
+  /**
+   * Gets the index of the manifest, building it from the manifest data structures if it has not
+   * been built since the manifest was imported, reset or copied.
+   * 
+   * @return the manifest index
+   */
+  private ManifestIndex getIndex() {
+    if (index == null) {
+      index = new ManifestIndex(supplyPoints, supplyEdges, aggregatedNodeDemands,
+          aggregatedEdgeDemands, demandsAsPacked, packedDemands, manifestedContainers);
+    }
+    return index;
+  }
+
   /**
    * Gets the scenario.
    * 
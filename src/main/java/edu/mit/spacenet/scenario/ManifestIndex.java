@@ -0,0 +1,462 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.scenario;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import edu.mit.spacenet.domain.element.I_Carrier;
+import edu.mit.spacenet.domain.element.I_ResourceContainer;
+import edu.mit.spacenet.domain.network.node.Node;
+import edu.mit.spacenet.domain.resource.Demand;
+import edu.mit.spacenet.domain.resource.DemandSet;
+
+/**
+ * The indexes of a manifest that replace scans over its supply points, supply edges, packed
+ * demands and manifested containers. The index is derived from the manifest data structures and is
+ * kept up to date by the manifest as demands are packed and containers are manifested.
+ * 
+ * @author Paul Grogan
+ */
+class ManifestIndex {
+  private Map<Demand, SupplyPoint> demandPoints;
+  private Set<Demand> edgeDemands;
+  private Map<NodeKey, NavigableMap<Double, SupplyPoint>> nodePoints;
+  private Map<NodeKey, List<SupplyEdge>> destinationEdges;
+  private Map<I_Carrier, SupplyEdge> carrierEdges;
+  private Map<I_Carrier, NavigableMap<Double, List<SupplyEdge>>> manifestEdges;
+  private Map<Demand, Demand> packedSources;
+  private Map<Demand, double[]> packedAmounts;
+  private Map<Demand, I_ResourceContainer> packedContainers;
+  private Map<I_ResourceContainer, SortedSet<SupplyEdge>> containerEdges;
+  private Map<I_ResourceContainer, NavigableMap<Double, double[]>> containerCargo;
+
+  /**
+   * Instantiates a new index of the data structures of a manifest.
+   * 
+   * @param supplyPoints the supply points
+   * @param supplyEdges the supply edges
+   * @param aggregatedNodeDemands the demands aggregated to supply points
+   * @param aggregatedEdgeDemands the demands aggregated to supply edges
+   * @param demandsAsPacked the packed demands of each aggregated demand
+   * @param packedDemands the packed demands of each container
+   * @param manifestedContainers the containers manifested on each supply edge and carrier
+   */
+  ManifestIndex(Set<SupplyPoint> supplyPoints, Set<SupplyEdge> supplyEdges,
+      Map<SupplyPoint, DemandSet> aggregatedNodeDemands,
+      Map<SupplyEdge, DemandSet> aggregatedEdgeDemands, Map<Demand, Set<Demand>> demandsAsPacked,
+      Map<I_ResourceContainer, Set<Demand>> packedDemands,
+      Map<SupplyEdge, Map<I_Carrier, Set<I_ResourceContainer>>> manifestedContainers) {
+    demandPoints = new HashMap<Demand, SupplyPoint>();
+    edgeDemands = new HashSet<Demand>();
+    nodePoints = new HashMap<NodeKey, NavigableMap<Double, SupplyPoint>>();
+    destinationEdges = new HashMap<NodeKey, List<SupplyEdge>>();
+    carrierEdges = new IdentityHashMap<I_Carrier, SupplyEdge>();
+    manifestEdges = new TreeMap<I_Carrier, NavigableMap<Double, List<SupplyEdge>>>();
+    packedSources = new HashMap<Demand, Demand>();
+    packedAmounts = new HashMap<Demand, double[]>();
+    packedContainers = new HashMap<Demand, I_ResourceContainer>();
+    containerEdges = new HashMap<I_ResourceContainer, SortedSet<SupplyEdge>>();
+    containerCargo = new HashMap<I_ResourceContainer, NavigableMap<Double, double[]>>();
+
+    // a demand belongs to the first supply point (node demands before edge demands)
+    for (SupplyPoint point : supplyPoints) {
+      NavigableMap<Double, SupplyPoint> points = nodePoints.get(new NodeKey(point.getNode()));
+      if (points == null) {
+        points = new TreeMap<Double, SupplyPoint>();
+        nodePoints.put(new NodeKey(point.getNode()), points);
+      }
+      if (!points.containsKey(point.getTime())) {
+        points.put(point.getTime(), point);
+      }
+      if (aggregatedNodeDemands.get(point) != null) {
+        for (Demand demand : aggregatedNodeDemands.get(point)) {
+          if (!demandPoints.containsKey(demand)) {
+            demandPoints.put(demand, point);
+          }
+        }
+      }
+      if (aggregatedEdgeDemands.get(point.getEdge()) != null) {
+        for (Demand demand : aggregatedEdgeDemands.get(point.getEdge())) {
+          if (!demandPoints.containsKey(demand)) {
+            demandPoints.put(demand, point);
+            edgeDemands.add(demand);
+          }
+        }
+      }
+    }
+    for (SupplyEdge edge : supplyEdges) {
+      NodeKey key = new NodeKey(edge.getDestination());
+      if (destinationEdges.get(key) == null) {
+        destinationEdges.put(key, new ArrayList<SupplyEdge>());
+      }
+      destinationEdges.get(key).add(edge);
+      for (I_Carrier carrier : edge.getCarriers()) {
+        if (!carrierEdges.containsKey(carrier)) {
+          carrierEdges.put(carrier, edge);
+        }
+      }
+      if (manifestedContainers.get(edge) != null) {
+        for (I_Carrier carrier : manifestedContainers.get(edge).keySet()) {
+          NavigableMap<Double, List<SupplyEdge>> edges = manifestEdges.get(carrier);
+          if (edges == null) {
+            edges = new TreeMap<Double, List<SupplyEdge>>();
+            manifestEdges.put(carrier, edges);
+          }
+          if (edges.get(edge.getEndTime()) == null) {
+            edges.put(edge.getEndTime(), new ArrayList<SupplyEdge>());
+          }
+          edges.get(edge.getEndTime()).add(edge);
+          for (I_ResourceContainer container : manifestedContainers.get(edge).get(carrier)) {
+            addEdge(container, edge);
+          }
+        }
+      }
+    }
+    for (Demand demand : demandsAsPacked.keySet()) {
+      for (Demand demandAsPacked : demandsAsPacked.get(demand)) {
+        if (!packedSources.containsKey(demandAsPacked)) {
+          packedSources.put(demandAsPacked, demand);
+          addPackedAmount(demand, demandAsPacked, 1);
+        }
+      }
+    }
+    for (I_ResourceContainer container : packedDemands.keySet()) {
+      for (Demand demandAsPacked : packedDemands.get(container)) {
+        packedContainers.put(demandAsPacked, container);
+        addCargo(container, demandAsPacked, 1);
+      }
+    }
+  }
+
+  /**
+   * Gets the supply point of an aggregated demand.
+   * 
+   * @param demand the aggregated demand
+   * 
+   * @return the supply point, or null if the demand is not aggregated to a supply point
+   */
+  SupplyPoint getSupplyPoint(Demand demand) {
+    return demandPoints.get(demand);
+  }
+
+  /**
+   * Checks whether an aggregated demand is aggregated to a supply edge.
+   * 
+   * @param demand the aggregated demand
+   * 
+   * @return true if the demand is an edge demand, false otherwise
+   */
+  boolean isEdgeDemand(Demand demand) {
+    return edgeDemands.contains(demand);
+  }
+
+  /**
+   * Gets the latest supply point at a node at or before a time.
+   * 
+   * @param node the node
+   * @param time the time
+   * 
+   * @return the supply point, or null if none exists
+   */
+  SupplyPoint getSupplyPoint(Node node, double time) {
+    NavigableMap<Double, SupplyPoint> points = nodePoints.get(new NodeKey(node));
+    if (points == null)
+      return null;
+    Map.Entry<Double, SupplyPoint> entry = points.floorEntry(time);
+    return entry == null ? null : entry.getValue();
+  }
+
+  /**
+   * Gets the supply edges arriving at a node, in supply edge order.
+   * 
+   * @param node the destination node
+   * 
+   * @return the list of supply edges
+   */
+  List<SupplyEdge> getSupplyEdges(Node node) {
+    List<SupplyEdge> edges = destinationEdges.get(new NodeKey(node));
+    if (edges == null)
+      return Collections.emptyList();
+    return edges;
+  }
+
+  /**
+   * Gets the first supply edge that transports a carrier (compared by reference).
+   * 
+   * @param carrier the carrier
+   * 
+   * @return the supply edge, or null if none exists
+   */
+  SupplyEdge getSupplyEdge(I_Carrier carrier) {
+    return carrierEdges.get(carrier);
+  }
+
+  /**
+   * Gets the supply edges on which containers can be manifested in a carrier, ending at or before
+   * a time.
+   * 
+   * @param carrier the carrier
+   * @param time the time
+   * 
+   * @return the supply edges grouped by end time
+   */
+  Iterable<List<SupplyEdge>> getManifestEdges(I_Carrier carrier, double time) {
+    NavigableMap<Double, List<SupplyEdge>> edges = manifestEdges.get(carrier);
+    if (edges == null)
+      return Collections.emptyList();
+    return edges.headMap(time, true).values();
+  }
+
+  /**
+   * Gets the aggregated demand of a packed demand.
+   * 
+   * @param demandAsPacked the packed demand
+   * 
+   * @return the aggregated demand, or null if none exists
+   */
+  Demand getDemand(Demand demandAsPacked) {
+    return packedSources.get(demandAsPacked);
+  }
+
+  /**
+   * Gets the total amount packed for an aggregated demand.
+   * 
+   * @param demand the aggregated demand
+   * 
+   * @return the packed amount (units), not rounded
+   */
+  double getPackedAmount(Demand demand) {
+    double[] totals = packedAmounts.get(demand);
+    return totals == null ? 0 : totals[0];
+  }
+
+  /**
+   * Gets the container of a packed demand.
+   * 
+   * @param demandAsPacked the packed demand
+   * 
+   * @return the container, or null if the demand is not packed
+   */
+  I_ResourceContainer getContainer(Demand demandAsPacked) {
+    return packedContainers.get(demandAsPacked);
+  }
+
+  /**
+   * Gets the supply edges a container is manifested on, in supply edge order.
+   * 
+   * @param container the container
+   * 
+   * @return the sorted set of supply edges
+   */
+  SortedSet<SupplyEdge> getSupplyEdges(I_ResourceContainer container) {
+    SortedSet<SupplyEdge> edges = containerEdges.get(container);
+    if (edges == null)
+      return Collections.emptySortedSet();
+    return edges;
+  }
+
+  /**
+   * Gets the cargo mass of the demands packed in a container that are supplied at or after a time.
+   * 
+   * @param container the container
+   * @param point the supply point referencing the time
+   * 
+   * @return the cargo mass (kilograms)
+   */
+  double getCargoMass(I_ResourceContainer container, SupplyPoint point) {
+    return getCargo(container, point, 0);
+  }
+
+  /**
+   * Gets the cargo volume of the demands packed in a container that are supplied at or after a
+   * time.
+   * 
+   * @param container the container
+   * @param point the supply point referencing the time
+   * 
+   * @return the cargo volume (cubic meters)
+   */
+  double getCargoVolume(I_ResourceContainer container, SupplyPoint point) {
+    return getCargo(container, point, 1);
+  }
+
+  private double getCargo(I_ResourceContainer container, SupplyPoint point, int index) {
+    NavigableMap<Double, double[]> cargo = containerCargo.get(container);
+    if (cargo == null || cargo.isEmpty())
+      return 0;
+    double amount = 0;
+    for (double[] totals : cargo.tailMap(point.getTime(), true).values()) {
+      amount += totals[index];
+    }
+    return amount;
+  }
+
+  /**
+   * Records a packed demand.
+   * 
+   * @param demand the aggregated demand
+   * @param demandAsPacked the packed demand
+   * @param container the container
+   */
+  void pack(Demand demand, Demand demandAsPacked, I_ResourceContainer container) {
+    packedSources.put(demandAsPacked, demand);
+    addPackedAmount(demand, demandAsPacked, 1);
+    packedContainers.put(demandAsPacked, container);
+    addCargo(container, demandAsPacked, 1);
+  }
+
+  /**
+   * Records that a packed demand was removed from its container.
+   * 
+   * @param demandAsPacked the packed demand
+   */
+  void unpack(Demand demandAsPacked) {
+    I_ResourceContainer container = packedContainers.remove(demandAsPacked);
+    if (container != null) {
+      addCargo(container, demandAsPacked, -1);
+    }
+  }
+
+  /**
+   * Records that a packed demand was removed from its aggregated demand.
+   * 
+   * @param demandAsPacked the packed demand
+   */
+  void release(Demand demandAsPacked) {
+    Demand demand = packedSources.remove(demandAsPacked);
+    if (demand != null) {
+      addPackedAmount(demand, demandAsPacked, -1);
+    }
+  }
+
+  /**
+   * Records that a container is manifested on a supply edge.
+   * 
+   * @param container the container
+   * @param edge the supply edge
+   */
+  void addEdge(I_ResourceContainer container, SupplyEdge edge) {
+    SortedSet<SupplyEdge> edges = containerEdges.get(container);
+    if (edges == null) {
+      edges = new TreeSet<SupplyEdge>();
+      containerEdges.put(container, edges);
+    }
+    edges.add(edge);
+  }
+
+  /**
+   * Records that a container is no longer manifested on a supply edge.
+   * 
+   * @param container the container
+   * @param edge the supply edge
+   */
+  void removeEdge(I_ResourceContainer container, SupplyEdge edge) {
+    SortedSet<SupplyEdge> edges = containerEdges.get(container);
+    if (edges != null) {
+      edges.remove(edge);
+    }
+  }
+
+  /**
+   * Removes a container and its packed demands from the index.
+   * 
+   * @param container the container
+   * @param demandsAsPacked the packed demands of the container
+   */
+  void removeContainer(I_ResourceContainer container, Set<Demand> demandsAsPacked) {
+    if (demandsAsPacked != null) {
+      for (Demand demandAsPacked : demandsAsPacked) {
+        if (packedContainers.get(demandAsPacked) == container) {
+          packedContainers.remove(demandAsPacked);
+        }
+      }
+    }
+    containerCargo.remove(container);
+    containerEdges.remove(container);
+  }
+
+  private void addPackedAmount(Demand demand, Demand demandAsPacked, int count) {
+    double[] totals = packedAmounts.get(demand);
+    if (totals == null) {
+      totals = new double[2];
+      packedAmounts.put(demand, totals);
+    }
+    totals[1] += count;
+    if (totals[1] <= 0) {
+      packedAmounts.remove(demand);
+    } else {
+      totals[0] += count * demandAsPacked.getAmount();
+    }
+  }
+
+  private void addCargo(I_ResourceContainer container, Demand demandAsPacked, int count) {
+    SupplyPoint point = getSupplyPoint(getDemand(demandAsPacked));
+    if (point == null)
+      return;
+    NavigableMap<Double, double[]> cargo = containerCargo.get(container);
+    if (cargo == null) {
+      cargo = new TreeMap<Double, double[]>();
+      containerCargo.put(container, cargo);
+    }
+    double[] totals = cargo.get(point.getTime());
+    if (totals == null) {
+      totals = new double[3];
+      cargo.put(point.getTime(), totals);
+    }
+    totals[2] += count;
+    if (totals[2] <= 0) {
+      cargo.remove(point.getTime());
+    } else {
+      totals[0] += count * demandAsPacked.getMass();
+      totals[1] += count * demandAsPacked.getVolume();
+    }
+  }
+
+  /**
+   * A hash key with the same equality as nodes (class and type identifier).
+   */
+  private static final class NodeKey {
+    private final Class<?> type;
+    private final int tid;
+
+    NodeKey(Node node) {
+      type = node.getClass();
+      tid = node.getTid();
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (!(object instanceof NodeKey))
+        return false;
+      NodeKey key = (NodeKey) object;
+      return type == key.type && tid == key.tid;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * type.hashCode() + tid;
+    }
+  }
+}
@@ -42,7 +42,7 @@ import edu.mit.spacenet.simulator.event.I_Process;
 import edu.mit.spacenet.simulator.event.I_Transport;
 import edu.mit.spacenet.simulator.event.SpaceTransport;
 import edu.mit.spacenet.util.DateFunctions;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * A mission is usually described as one crew rotation or the unmanned delivery of supplies.
@@ -495,7 +495,7 @@ public class Mission implements Comparable<Mission> {
           .get(getScenario().getMissionList().indexOf(this) + 1).getStartDate(),
           getScenario().getStartDate());
     }
-    return GlobalParameters.getSingleton().getRoundedTime(endTime - startTime);
+    return SimulationContext.current().getRoundedTime(endTime - startTime);
   }
 
   /**
@@ -520,9 +520,9 @@ public class Mission implements Comparable<Mission> {
     if (arrival < 0)
       return 0;
     else if (departure < 0)
-      return GlobalParameters.getSingleton().getRoundedTime(getDuration() - arrival);
+      return SimulationContext.current().getRoundedTime(getDuration() - arrival);
     else
-      return GlobalParameters.getSingleton().getRoundedTime(departure - arrival);
+      return SimulationContext.current().getRoundedTime(departure - arrival);
   }
 
   /**
@@ -542,7 +542,7 @@ public class Mission implements Comparable<Mission> {
         }
       }
     }
-    return GlobalParameters.getSingleton()
+    return SimulationContext.current()
         .getRoundedTime((arrivalTime != -1) ? arrivalTime : getDuration());
   }
 
@@ -569,7 +569,7 @@ public class Mission implements Comparable<Mission> {
         }
       }
     }
-    return GlobalParameters.getSingleton()
+    return SimulationContext.current()
         .getRoundedTime((transitEnd != -1 && transitStart != -1) ? transitEnd - transitStart : 0);
   }
 
@@ -579,7 +579,7 @@ public class Mission implements Comparable<Mission> {
    * @return the dormant duration (days)
    */
   public double getDormantDuration() {
-    return GlobalParameters.getSingleton().getRoundedTime(getDuration() - getTransitDuration()
+    return SimulationContext.current().getRoundedTime(getDuration() - getTransitDuration()
         - getDestinationDuration() - getReturnTransitDuration());
   }
 
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.scenario;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.mit.spacenet.domain.element.I_ResourceContainer;
+
+/**
+ * The resource containers that may still accept packed demands during an auto-packing pass, grouped
+ * by container type in the order they were opened. A container is closed once it has no mass (or
+ * volume) capacity left at its current supply point; within a pass that packs supply points in
+ * order of decreasing time a closed container cannot be reopened, so it is never scanned again.
+ * 
+ * @author Paul Grogan
+ */
+class OpenContainers {
+  private Map<Integer, Set<I_ResourceContainer>> containers;
+
+  /**
+   * Instantiates a new set of open containers.
+   * 
+   * @param containers the containers to open
+   */
+  OpenContainers(Collection<I_ResourceContainer> containers) {
+    this.containers = new HashMap<Integer, Set<I_ResourceContainer>>();
+    for (I_ResourceContainer container : containers) {
+      open(container);
+    }
+  }
+
+  /**
+   * Opens a container.
+   * 
+   * @param container the container
+   */
+  void open(I_ResourceContainer container) {
+    Set<I_ResourceContainer> set = containers.get(container.getTid());
+    if (set == null) {
+      set = new LinkedHashSet<I_ResourceContainer>();
+      containers.put(container.getTid(), set);
+    }
+    set.add(container);
+  }
+
+  /**
+   * Closes a container.
+   * 
+   * @param container the container
+   */
+  void close(I_ResourceContainer container) {
+    Set<I_ResourceContainer> set = containers.get(container.getTid());
+    if (set != null) {
+      set.remove(container);
+    }
+  }
+
+  /**
+   * Gets a snapshot of the open containers of the given types, in the order they were opened.
+   * 
+   * @param tids the container type identifiers
+   * 
+   * @return the list of open containers
+   */
+  List<I_ResourceContainer> get(int... tids) {
+    List<I_ResourceContainer> list = new ArrayList<I_ResourceContainer>();
+    for (int tid : tids) {
+      Set<I_ResourceContainer> set = containers.get(tid);
+      if (set != null) {
+        list.addAll(set);
+      }
+    }
+    return list;
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.scenario;
+
+/**
+ * Enumeration representing the different heuristics used to pack demands into resource containers
+ * while auto-manifesting.
+ * 
+ * @author Paul Grogan
+ */
+public enum PackingStrategy {
+
+  /** Demands are packed in supply order into the first open container that fits. */
+  FIRST_FIT("First Fit", false, false),
+
+  /** Demands are packed by decreasing mass into the first open container that fits. */
+  FIRST_FIT_DECREASING("First Fit Decreasing", true, false),
+
+  /** Demands are packed in supply order into the open container with the least capacity left. */
+  BEST_FIT("Best Fit", false, true),
+
+  /** Demands are packed by decreasing mass into the open container with the least capacity left. */
+  BEST_FIT_DECREASING("Best Fit Decreasing", true, true);
+
+  private String name;
+  private boolean decreasing;
+  private boolean bestFit;
+
+  private PackingStrategy(String name, boolean decreasing, boolean bestFit) {
+    this.name = name;
+    this.decreasing = decreasing;
+    this.bestFit = bestFit;
+  }
+
+  /**
+   * Gets the name of the packing strategy.
+   * 
+   * @return the packing strategy name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets whether the demands of a supply point are packed in order of decreasing mass.
+   * 
+   * @return true if demands are packed by decreasing mass, false if in supply order
+   */
+  public boolean isDecreasing() {
+    return decreasing;
+  }
+
+  /**
+   * Gets whether demands are packed into the open container with the least remaining capacity
+   * rather than the first open container that fits.
+   * 
+   * @return true if demands are packed by best fit, false if by first fit
+   */
+  public boolean isBestFit() {
+    return bestFit;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Enum#toString()
+   */
+  public String toString() {
+    return getName();
+  }
+
+  /**
+   * Gets a packing strategy instance based on a given name.
+   * 
+   * @param name the packing strategy name to match
+   * 
+   * @return the packing strategy, null if no match was found.
+   */
+  public static PackingStrategy getInstance(String name) {
+    for (PackingStrategy t : PackingStrategy.values()) {
+      if (t.getName().toLowerCase().equals(name.toLowerCase())) {
+        return t;
+      }
+    }
+    return null;
+  }
+}
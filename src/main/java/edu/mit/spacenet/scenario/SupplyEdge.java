@@ -21,7 +21,7 @@ import edu.mit.spacenet.domain.element.I_Element;
 import edu.mit.spacenet.domain.network.edge.Edge;
 import edu.mit.spacenet.domain.network.edge.FlightEdge;
 import edu.mit.spacenet.domain.network.node.Node;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * A supply edge represents an abstraction of a transport along an edge that has the capability to
@@ -117,7 +117,7 @@ public class SupplyEdge implements Comparable<SupplyEdge> {
    * @return the start time
    */
   public double getStartTime() {
-    return GlobalParameters.getSingleton().getRoundedTime(startTime);
+    return SimulationContext.current().getRoundedTime(startTime);
   }
 
   /**
@@ -126,7 +126,7 @@ public class SupplyEdge implements Comparable<SupplyEdge> {
    * @return the end time
    */
   public double getEndTime() {
-    return GlobalParameters.getSingleton().getRoundedTime(endTime);
+    return SimulationContext.current().getRoundedTime(endTime);
   }
 
   /**
@@ -0,0 +1,444 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.server;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import edu.mit.spacenet.io.ScenarioEngine;
+import edu.mit.spacenet.io.XStreamEngine;
+import edu.mit.spacenet.io.gson.demands.AggregatedDemandsAnalysis;
+import edu.mit.spacenet.io.gson.demands.RawDemandsAnalysis;
+import edu.mit.spacenet.scenario.Scenario;
+import edu.mit.spacenet.simulator.DemandSimulator;
+import edu.mit.spacenet.util.GlobalParameters;
+
+/**
+ * Opens, simulates, and writes the demands analysis of many scenario files on a bounded thread
+ * pool. Each scenario is parsed and simulated with its own global parameters (starting from the
+ * defaults), so the results match separate runs of the demands headless modes. A scenario that
+ * fails to parse, simulate, or write is recorded as a failed run without affecting the others.
+ * 
+ * @author Paul Grogan
+ */
+public class ScenarioBatch {
+  private static final Logger logger = LogManager.getLogger(ScenarioBatch.class);
+
+  /** The file name of the summary table written to the output directory. */
+  public static final String SUMMARY_FILE_NAME = "summary.csv";
+
+  private final List<ScenarioRun> runs;
+  private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+  private boolean rawDemands;
+  private boolean demandsSatisfied;
+  private int threadCount;
+  private final AtomicInteger completedRuns;
+
+  /**
+   * Instantiates a new scenario batch. The analysis of each scenario is written with a .json
+   * extension to the output directory, in the sub-directory of the scenario file relative to the
+   * deepest directory that contains all scenario files, so scenarios of different directories (such
+   * as a/scenario.xml and b/scenario.xml) do not share an output file. Within a directory, the
+   * output file has the base name of the scenario file, or the full file name if several scenario
+   * files share a base name.
+   * 
+   * @param filePaths the scenario file paths
+   * @param outputDirectory the output directory
+   * 
+   * @throws IllegalArgumentException if two scenario files would still share an output file
+   */
+  public ScenarioBatch(List<String> filePaths, File outputDirectory) {
+    Path base = getCommonDirectory(filePaths);
+    Map<String, Integer> baseNameCounts = new HashMap<String, Integer>();
+    for (String filePath : filePaths) {
+      baseNameCounts.merge(getRelativeName(base, filePath, getBaseName(filePath)), 1,
+          Integer::sum);
+    }
+    // output paths are compared ignoring case, as some file systems do
+    Map<String, String> filePathsByOutput = new HashMap<String, String>();
+    runs = new ArrayList<ScenarioRun>(filePaths.size());
+    for (String filePath : filePaths) {
+      String name = getRelativeName(base, filePath, getBaseName(filePath));
+      if (baseNameCounts.get(name) > 1) {
+        name = getRelativeName(base, filePath, FilenameUtils.getName(filePath));
+      }
+      String outputFilePath = new File(outputDirectory, name + ".json").getPath();
+      String other = filePathsByOutput.put(outputFilePath.toLowerCase(Locale.ROOT), filePath);
+      if (other != null) {
+        throw new IllegalArgumentException("Scenario files " + other + " and " + filePath
+            + " have the same output file " + outputFilePath);
+      }
+      runs.add(new ScenarioRun(filePath, outputFilePath));
+    }
+    threadCount = Runtime.getRuntime().availableProcessors();
+    completedRuns = new AtomicInteger();
+  }
+
+  /**
+   * Gets the deepest directory that contains all of the files.
+   * 
+   * @param filePaths the file paths
+   * 
+   * @return the common directory, or null if there are no files or they have no common directory
+   */
+  private static Path getCommonDirectory(List<String> filePaths) {
+    Path common = null;
+    for (String filePath : filePaths) {
+      Path directory = Paths.get(filePath).toAbsolutePath().normalize().getParent();
+      if (common == null) {
+        common = directory;
+      }
+      while (common != null && directory != null && !directory.startsWith(common)) {
+        common = common.getParent();
+      }
+    }
+    return common;
+  }
+
+  private static String getRelativeName(Path base, String filePath, String name) {
+    Path directory = Paths.get(filePath).toAbsolutePath().normalize().getParent();
+    if (base == null || directory == null) {
+      return name;
+    }
+    return base.relativize(directory).resolve(name).toString();
+  }
+
+  private static String getBaseName(String filePath) {
+    String baseName = FilenameUtils.getBaseName(filePath);
+    return XStreamEngine.isCompressed(filePath) ? FilenameUtils.getBaseName(baseName) : baseName;
+  }
+
+  /**
+   * Finds the scenario files of a directory (not including sub-directories), of a glob pattern
+   * (e.g. trades/*.xml or trades/**.json), or a single scenario file.
+   * 
+   * @param path the directory, glob pattern, or file path
+   * 
+   * @return the scenario file paths, sorted
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public static List<String> findScenarios(String path) throws IOException {
+    File file = new File(path);
+    if (file.isDirectory()) {
+      try (Stream<Path> files = Files.list(file.toPath())) {
+        return files
+            .filter(p -> Files.isRegularFile(p) && ScenarioEngine.isScenarioFile(p.toString()))
+            .map(p -> p.toAbsolutePath().toString()).sorted().collect(Collectors.toList());
+      }
+    } else if (file.isFile()) {
+      return Collections.singletonList(file.getAbsolutePath());
+    }
+    Path pattern = Paths.get(path.replace('\\', '/')).toAbsolutePath();
+    // walk from the deepest directory of the pattern without glob characters
+    Path base = pattern.getRoot();
+    int depth = 0;
+    for (Path name : pattern) {
+      if (depth > 0 || name.toString().matches(".*[*?\\[{].*")) {
+        depth++;
+      } else {
+        base = base.resolve(name);
+      }
+    }
+    if (depth == 0 || !Files.isDirectory(base)) {
+      throw new FileNotFoundException("No scenario directory, file, or pattern: " + path);
+    }
+    PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+    int maxDepth = pattern.toString().contains("**") ? Integer.MAX_VALUE : depth;
+    try (Stream<Path> files = Files.walk(base, maxDepth)) {
+      return files.filter(p -> Files.isRegularFile(p) && matcher.matches(p)
+          && ScenarioEngine.isScenarioFile(p.toString())).map(Path::toString).sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Runs all scenarios and blocks until they have finished.
+   * 
+   * @return the runs, in the order of the scenario file paths
+   */
+  public List<ScenarioRun> simulate() {
+    completedRuns.set(0);
+    if (runs.isEmpty()) {
+      return getRuns();
+    }
+    ExecutorService executor =
+        Executors.newFixedThreadPool(Math.max(1, Math.min(threadCount, runs.size())),
+            new ThreadFactory() {
+              private final AtomicInteger count = new AtomicInteger();
+
+              public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "scenario-batch-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+              }
+            });
+    List<Future<?>> futures = new ArrayList<Future<?>>(runs.size());
+    try {
+      for (ScenarioRun run : runs) {
+        futures.add(executor.submit(() -> runScenario(run)));
+      }
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Scenario batch interrupted", e);
+        } catch (ExecutionException e) {
+          throw new IllegalStateException("Scenario batch failed", e.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return getRuns();
+  }
+
+  private void runScenario(ScenarioRun run) {
+    File output = new File(run.getOutputFilePath());
+    boolean writing = false;
+    long start = System.nanoTime();
+    try {
+      // parse with default parameters so the scenario does not inherit values of other scenarios
+      GlobalParameters.setThreadParameters(GlobalParameters.createDefault());
+      Scenario scenario = ScenarioEngine.openScenario(run.getFilePath());
+      GlobalParameters.setThreadParameters(GlobalParameters.createFrom(scenario));
+      long parsed = System.nanoTime();
+      run.setParseTime(parsed - start);
+
+      DemandSimulator simulator = new DemandSimulator(scenario);
+      simulator.setDemandsSatisfied(demandsSatisfied);
+      simulator.simulate();
+      for (Map.Entry<String, Double> measure : simulator.getMeasures().entrySet()) {
+        run.setMeasure(measure.getKey(), measure.getValue());
+      }
+      long simulated = System.nanoTime();
+      run.setSimulateTime(simulated - parsed);
+
+      writing = true;
+      if (output.getParentFile() != null) {
+        output.getParentFile().mkdirs();
+      }
+      try (Writer out = new BufferedWriter(
+          new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8), 1 << 16)) {
+        if (rawDemands) {
+          gson.toJson(RawDemandsAnalysis.createFrom(simulator), out);
+        } else {
+          gson.toJson(AggregatedDemandsAnalysis.createFrom(simulator), out);
+        }
+      }
+      run.setWriteTime(System.nanoTime() - simulated);
+    } catch (Exception e) {
+      // charge the time until the failure to the phase that failed
+      long elapsed = System.nanoTime() - start - run.getParseTime() - run.getSimulateTime();
+      if (writing) {
+        run.setWriteTime(elapsed);
+      } else if (run.getParseTime() > 0) {
+        run.setSimulateTime(elapsed);
+      } else {
+        run.setParseTime(elapsed);
+      }
+      run.setException(e);
+      logger.debug("Scenario " + run.getFilePath() + " failed", e);
+      if (writing && output.exists() && !output.delete()) {
+        logger.warn("Could not delete incomplete output " + output);
+      }
+    } finally {
+      GlobalParameters.setThreadParameters(null);
+      completedRuns.incrementAndGet();
+    }
+  }
+
+  /**
+   * Writes the summary table as comma-separated values with one row per run: the scenario file,
+   * status, parse, simulate, and write times (milliseconds), measures, and error message.
+   * 
+   * @param out the writer to receive the table
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void writeSummary(Writer out) throws IOException {
+    List<String> measureNames = new ArrayList<String>();
+    for (ScenarioRun run : runs) {
+      for (String name : run.getMeasures().keySet()) {
+        if (!measureNames.contains(name)) {
+          measureNames.add(name);
+        }
+      }
+    }
+    List<String> header = new ArrayList<String>();
+    Collections.addAll(header, "scenario", "status", "parse ms", "simulate ms", "write ms");
+    header.addAll(measureNames);
+    header.add("message");
+    writeRow(out, header);
+    for (ScenarioRun run : runs) {
+      List<String> row = new ArrayList<String>();
+      row.add(run.getFilePath());
+      row.add(run.isCompleted() ? "ok" : "failed");
+      row.add(formatTime(run.getParseTime()));
+      row.add(formatTime(run.getSimulateTime()));
+      row.add(formatTime(run.getWriteTime()));
+      for (String name : measureNames) {
+        Double value = run.getMeasures().get(name);
+        row.add(value == null ? "" : value.toString());
+      }
+      row.add(run.isCompleted() ? "" : getMessage(run.getException()));
+      writeRow(out, row);
+    }
+    out.flush();
+  }
+
+  private static String formatTime(long nanoseconds) {
+    return nanoseconds == 0 ? "" : String.format(Locale.ROOT, "%.1f", nanoseconds / 1e6);
+  }
+
+  /**
+   * Gets a one-line description of the exception that aborted a run.
+   * 
+   * @param exception the exception
+   * 
+   * @return the message
+   */
+  public static String getMessage(Exception exception) {
+    Throwable cause = exception;
+    while ((cause.getMessage() == null || cause.getMessage().trim().isEmpty())
+        && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    String message =
+        cause.getMessage() == null ? "" : cause.getMessage().replaceAll("\\s+", " ").trim();
+    return cause.getClass().getSimpleName() + (message.isEmpty() ? "" : ": " + message);
+  }
+
+  private static void writeRow(Writer out, List<String> values) throws IOException {
+    for (int i = 0; i < values.size(); i++) {
+      if (i > 0) {
+        out.write(',');
+      }
+      String value = values.get(i);
+      if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0) {
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+      } else {
+        out.write(value);
+      }
+    }
+    out.write('\n');
+  }
+
+  /**
+   * Gets the runs, in the order of the scenario file paths.
+   * 
+   * @return the runs
+   */
+  public List<ScenarioRun> getRuns() {
+    return Collections.unmodifiableList(runs);
+  }
+
+  /**
+   * Gets the number of runs finished so far (for progress reporting while simulating).
+   * 
+   * @return the number of finished runs
+   */
+  public int getCompletedRunCount() {
+    return completedRuns.get();
+  }
+
+  /**
+   * Checks if the raw demands analysis is written (otherwise the aggregated demands analysis).
+   * 
+   * @return true, if the raw demands analysis is written
+   */
+  public boolean isRawDemands() {
+    return rawDemands;
+  }
+
+  /**
+   * Sets whether the raw demands analysis is written (otherwise the aggregated demands analysis).
+   * 
+   * @param rawDemands true, if the raw demands analysis is written
+   */
+  public void setRawDemands(boolean rawDemands) {
+    this.rawDemands = rawDemands;
+  }
+
+  /**
+   * Checks if existing resources are consumed to satisfy demands.
+   * 
+   * @return true, if demands are satisfied
+   */
+  public boolean isDemandsSatisfied() {
+    return demandsSatisfied;
+  }
+
+  /**
+   * Sets whether existing resources are consumed to satisfy demands.
+   * 
+   * @param demandsSatisfied true, if demands are satisfied
+   */
+  public void setDemandsSatisfied(boolean demandsSatisfied) {
+    this.demandsSatisfied = demandsSatisfied;
+  }
+
+  /**
+   * Gets the maximum number of scenarios processed concurrently.
+   * 
+   * @return the thread count
+   */
+  public int getThreadCount() {
+    return threadCount;
+  }
+
+  /**
+   * Sets the maximum number of scenarios processed concurrently.
+   * 
+   * @param threadCount the thread count
+   */
+  public void setThreadCount(int threadCount) {
+    this.threadCount = Math.max(1, threadCount);
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.server;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import edu.mit.spacenet.io.ScenarioEngine;
+import edu.mit.spacenet.scenario.Scenario;
+
+/**
+ * A least-recently-used cache of parsed scenario files keyed by canonical file path. A cached
+ * scenario is reused as long as the modification time and length of its file are unchanged, and
+ * concurrent requests for the same file share a single parse. Cached scenarios are shared between
+ * callers, so callers that modify or simulate a scenario must work on a copy.
+ * 
+ * @author Paul Grogan
+ */
+public class ScenarioCache {
+  private final int capacity;
+  private final Map<String, Entry> entries;
+  private long hitCount, missCount;
+
+  private static class Entry {
+    private final long lastModified;
+    private final long length;
+    private final FutureTask<Scenario> task;
+
+    private Entry(long lastModified, long length, FutureTask<Scenario> task) {
+      this.lastModified = lastModified;
+      this.length = length;
+      this.task = task;
+    }
+  }
+
+  /**
+   * Instantiates a new scenario cache.
+   * 
+   * @param capacity the maximum number of cached scenarios
+   */
+  public ScenarioCache(final int capacity) {
+    this.capacity = capacity;
+    entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Gets a scenario, parsing its file if it is not cached or has changed since it was cached.
+   * 
+   * @param filePath the scenario file path (.xml, .xml.gz, .json, or .snb)
+   * 
+   * @return the shared scenario
+   * 
+   * @throws IOException Signals that the file is missing or could not be parsed.
+   */
+  public Scenario get(String filePath) throws IOException {
+    final File file = new File(filePath).getCanonicalFile();
+    if (!file.isFile()) {
+      throw new FileNotFoundException("Scenario file not found: " + filePath);
+    }
+    String key = file.getPath();
+    long lastModified = file.lastModified();
+    long length = file.length();
+    Entry entry;
+    boolean isLoader = false;
+    synchronized (entries) {
+      entry = entries.get(key);
+      if (entry == null || entry.lastModified != lastModified || entry.length != length) {
+        entry = new Entry(lastModified, length,
+            new FutureTask<Scenario>(() -> ScenarioEngine.openScenario(file.getPath())));
+        entries.put(key, entry);
+        isLoader = true;
+        missCount++;
+      } else {
+        hitCount++;
+      }
+    }
+    if (isLoader) {
+      entry.task.run();
+    }
+    try {
+      return entry.task.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while opening " + filePath);
+    } catch (ExecutionException ex) {
+      synchronized (entries) {
+        if (entries.get(key) == entry) {
+          entries.remove(key); // do not cache failures
+        }
+      }
+      if (ex.getCause() instanceof IOException) {
+        throw (IOException) ex.getCause();
+      }
+      throw new IOException("Failed to open " + filePath + ": " + ex.getCause(), ex.getCause());
+    }
+  }
+
+  /**
+   * Removes all cached scenarios.
+   */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /**
+   * Gets the number of cached scenarios.
+   * 
+   * @return the size
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Gets the capacity.
+   * 
+   * @return the maximum number of cached scenarios
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Gets the number of requests served from the cache.
+   * 
+   * @return the hit count
+   */
+  public long getHitCount() {
+    synchronized (entries) {
+      return hitCount;
+    }
+  }
+
+  /**
+   * Gets the number of requests that parsed a scenario file.
+   * 
+   * @return the miss count
+   */
+  public long getMissCount() {
+    synchronized (entries) {
+      return missCount;
+    }
+  }
+}
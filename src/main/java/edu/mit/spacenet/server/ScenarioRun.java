@@ -0,0 +1,162 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.server;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The outcome of one scenario of a {@link ScenarioBatch}: the time spent parsing, simulating, and
+ * writing the scenario, the measures recorded, or the exception that aborted it.
+ * 
+ * @author Paul Grogan
+ */
+public class ScenarioRun {
+  private final String filePath;
+  private final String outputFilePath;
+  private final Map<String, Double> measures;
+  private long parseTime, simulateTime, writeTime;
+  private Exception exception;
+
+  /**
+   * Instantiates a new scenario run.
+   * 
+   * @param filePath the scenario file path
+   * @param outputFilePath the analysis output file path
+   */
+  public ScenarioRun(String filePath, String outputFilePath) {
+    this.filePath = filePath;
+    this.outputFilePath = outputFilePath;
+    measures = new LinkedHashMap<String, Double>();
+  }
+
+  /**
+   * Gets the scenario file path.
+   * 
+   * @return the scenario file path
+   */
+  public String getFilePath() {
+    return filePath;
+  }
+
+  /**
+   * Gets the analysis output file path.
+   * 
+   * @return the output file path
+   */
+  public String getOutputFilePath() {
+    return outputFilePath;
+  }
+
+  /**
+   * Gets the time spent parsing the scenario file.
+   * 
+   * @return the parse time (nanoseconds)
+   */
+  public long getParseTime() {
+    return parseTime;
+  }
+
+  /**
+   * Sets the time spent parsing the scenario file.
+   * 
+   * @param parseTime the parse time (nanoseconds)
+   */
+  public void setParseTime(long parseTime) {
+    this.parseTime = parseTime;
+  }
+
+  /**
+   * Gets the time spent simulating the scenario.
+   * 
+   * @return the simulate time (nanoseconds)
+   */
+  public long getSimulateTime() {
+    return simulateTime;
+  }
+
+  /**
+   * Sets the time spent simulating the scenario.
+   * 
+   * @param simulateTime the simulate time (nanoseconds)
+   */
+  public void setSimulateTime(long simulateTime) {
+    this.simulateTime = simulateTime;
+  }
+
+  /**
+   * Gets the time spent writing the analysis output file.
+   * 
+   * @return the write time (nanoseconds)
+   */
+  public long getWriteTime() {
+    return writeTime;
+  }
+
+  /**
+   * Sets the time spent writing the analysis output file.
+   * 
+   * @param writeTime the write time (nanoseconds)
+   */
+  public void setWriteTime(long writeTime) {
+    this.writeTime = writeTime;
+  }
+
+  /**
+   * Records a measure of the simulation.
+   * 
+   * @param name the measure name
+   * @param value the measure value
+   */
+  public void setMeasure(String name, double value) {
+    measures.put(name, value);
+  }
+
+  /**
+   * Gets the recorded measures in recording order.
+   * 
+   * @return the measures
+   */
+  public Map<String, Double> getMeasures() {
+    return Collections.unmodifiableMap(measures);
+  }
+
+  /**
+   * Gets the exception that aborted the run.
+   * 
+   * @return the exception, null if the run completed
+   */
+  public Exception getException() {
+    return exception;
+  }
+
+  /**
+   * Sets the exception that aborted the run.
+   * 
+   * @param exception the exception
+   */
+  public void setException(Exception exception) {
+    this.exception = exception;
+  }
+
+  /**
+   * Checks if the run completed.
+   * 
+   * @return true, if the run completed without an exception
+   */
+  public boolean isCompleted() {
+    return exception == null;
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * A client for a {@link SimulationServer} listening on a local port. The client sends one job at a
+ * time and waits for its response, so responses are always matched to their requests.
+ * 
+ * <pre>
+ * try (SimulationClient client = new SimulationClient(port)) {
+ *   JsonObject response = client.simulate(SimulationServer.DEMANDS_AGGREGATED, "a.xml", false,
+ *       Collections.singletonMap("itemAggregation", 0.5));
+ * }
+ * </pre>
+ * 
+ * @author Paul Grogan
+ */
+public class SimulationClient implements Closeable {
+  private final Socket socket;
+  private final BufferedReader reader;
+  private final Writer writer;
+  private long lastId;
+
+  /**
+   * Instantiates a new simulation client connected to a server on the loopback address.
+   * 
+   * @param port the server port
+   * 
+   * @throws IOException Signals that the connection failed.
+   */
+  public SimulationClient(int port) throws IOException {
+    socket = new Socket(InetAddress.getLoopbackAddress(), port);
+    reader = new BufferedReader(
+        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    writer = new BufferedWriter(
+        new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Sends a job and waits for its response. A request without an "id" is given the next id of
+   * this client.
+   * 
+   * @param request the request object
+   * 
+   * @return the response object (with status "ok" or "error")
+   * 
+   * @throws IOException Signals that the connection failed or was closed by the server.
+   */
+  public synchronized JsonObject submit(JsonObject request) throws IOException {
+    if (!request.has("id")) {
+      request.addProperty("id", ++lastId);
+    }
+    writer.write(request.toString());
+    writer.write('\n');
+    writer.flush();
+    String line = reader.readLine();
+    if (line == null) {
+      throw new EOFException("Connection closed by server");
+    }
+    return JsonParser.parseString(line).getAsJsonObject();
+  }
+
+  /**
+   * Sends a simulation job and waits for its response.
+   * 
+   * @param type the job type (demands-raw, demands-agg, or full)
+   * @param scenarioPath the scenario file path, as seen by the server
+   * @param consume true, if demands are consumed from available resources
+   * @param parameters the parameter values keyed by parameter name, or null
+   * 
+   * @return the response object (with status "ok" or "error")
+   * 
+   * @throws IOException Signals that the connection failed or was closed by the server.
+   */
+  public JsonObject simulate(String type, String scenarioPath, boolean consume,
+      Map<String, Double> parameters) throws IOException {
+    JsonObject request = new JsonObject();
+    request.addProperty("type", type);
+    request.addProperty("scenario", scenarioPath);
+    request.addProperty("consume", consume);
+    if (parameters != null) {
+      JsonObject values = new JsonObject();
+      for (Map.Entry<String, Double> parameter : parameters.entrySet()) {
+        values.addProperty(parameter.getKey(), parameter.getValue());
+      }
+      request.add("parameters", values);
+    }
+    return submit(request);
+  }
+
+  /**
+   * Gets the status of the server.
+   * 
+   * @return the response object, with the cache and job counters as the result
+   * 
+   * @throws IOException Signals that the connection failed or was closed by the server.
+   */
+  public JsonObject getStatus() throws IOException {
+    JsonObject request = new JsonObject();
+    request.addProperty("type", SimulationServer.STATUS);
+    return submit(request);
+  }
+
+  /**
+   * Asks the server to stop accepting jobs.
+   * 
+   * @return the response object
+   * 
+   * @throws IOException Signals that the connection failed or was closed by the server.
+   */
+  public JsonObject shutdown() throws IOException {
+    JsonObject request = new JsonObject();
+    request.addProperty("type", SimulationServer.SHUTDOWN);
+    return submit(request);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.io.Closeable#close()
+   */
+  public void close() throws IOException {
+    socket.close();
+  }
+}
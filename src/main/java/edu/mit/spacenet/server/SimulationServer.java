@@ -0,0 +1,377 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import edu.mit.spacenet.domain.ClassOfSupply;
+import edu.mit.spacenet.io.gson.demands.AggregatedDemandsAnalysis;
+import edu.mit.spacenet.io.gson.demands.RawDemandsAnalysis;
+import edu.mit.spacenet.scenario.Scenario;
+import edu.mit.spacenet.simulator.DemandSimulator;
+import edu.mit.spacenet.simulator.FullSimulator;
+import edu.mit.spacenet.simulator.batch.DemandRateParameter;
+import edu.mit.spacenet.simulator.batch.I_SweepParameter;
+import edu.mit.spacenet.simulator.batch.ItemAggregationParameter;
+import edu.mit.spacenet.simulator.batch.ItemDiscretizationParameter;
+import edu.mit.spacenet.simulator.batch.MissionStartDateParameter;
+import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SerializeUtil;
+
+/**
+ * A long-lived simulation server that accepts jobs as JSON lines (one request object per line) and
+ * answers each with one JSON response line. Jobs run concurrently on a fixed thread pool, so
+ * responses may arrive out of order and echo the request "id". Parsed scenarios are kept in a
+ * {@link ScenarioCache}; each job simulates its own copy with its own global parameters.
+ * 
+ * <pre>
+ * {"id": 1, "type": "demands-agg", "scenario": "a.xml", "consume": false,
+ *  "parameters": {"itemAggregation": 0.5, "demandRate.201": 1.1, "missionStartOffset.0": 30}}
+ * {"id": 1, "status": "ok", "milliseconds": 42, "result": {...}}
+ * {"id": 2, "status": "error", "error": "..."}
+ * </pre>
+ * 
+ * Job types are demands-raw and demands-agg (demand simulator analyses), full (full simulator
+ * measures of effectiveness), status (cache and job counters), and shutdown. Parameters are
+ * itemDiscretization (ordinal), itemAggregation, demandRate (optionally .class of supply number),
+ * and missionStartOffset in days (optionally .zero-based mission index).
+ * 
+ * @author Paul Grogan
+ */
+public class SimulationServer {
+  private static final Logger logger = LogManager.getLogger(SimulationServer.class);
+
+  public static final String DEMANDS_RAW = "demands-raw";
+  public static final String DEMANDS_AGGREGATED = "demands-agg";
+  public static final String FULL = "full";
+  public static final String STATUS = "status";
+  public static final String SHUTDOWN = "shutdown";
+
+  private final ScenarioCache cache;
+  private final ExecutorService executor;
+  private final int threadCount;
+  private final Gson gson = new GsonBuilder().serializeSpecialFloatingPointValues().create();
+  private final AtomicLong completedJobs = new AtomicLong();
+  private volatile boolean shutdown;
+  private volatile ServerSocket serverSocket;
+
+  /**
+   * Instantiates a new simulation server.
+   * 
+   * @param cacheCapacity the maximum number of cached scenarios
+   * @param threadCount the number of jobs to execute concurrently
+   */
+  public SimulationServer(int cacheCapacity, int threadCount) {
+    this.cache = new ScenarioCache(cacheCapacity);
+    this.threadCount = Math.max(1, threadCount);
+    executor = Executors.newFixedThreadPool(this.threadCount, new ThreadFactory() {
+      private final AtomicInteger count = new AtomicInteger();
+
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "simulation-server-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * Serves the jobs read from a stream, writing responses to another stream, until the input ends
+   * or a shutdown job is received. Returns once all jobs read from the stream have been answered.
+   * 
+   * @param in the request stream
+   * @param out the response stream
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void serve(InputStream in, OutputStream out) throws IOException {
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    final Writer writer =
+        new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    List<Future<?>> pending = new ArrayList<Future<?>>();
+    String line;
+    while (!shutdown && (line = reader.readLine()) != null) {
+      if (line.trim().isEmpty()) {
+        continue;
+      }
+      final JsonObject request;
+      try {
+        request = JsonParser.parseString(line).getAsJsonObject();
+      } catch (JsonParseException | IllegalStateException ex) {
+        write(writer, createError(null, "Malformed request: " + ex.getMessage()));
+        continue;
+      }
+      if (request.has("type") && SHUTDOWN.equals(request.get("type").getAsString())) {
+        shutdown();
+        write(writer, execute(request));
+        break;
+      }
+      pending.removeIf(f -> f.isDone());
+      pending.add(executor.submit(() -> {
+        write(writer, execute(request));
+        return null;
+      }));
+    }
+    for (Future<?> future : pending) {
+      try {
+        future.get();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException ex) {
+        logger.warn("Failed to write response", ex.getCause());
+      }
+    }
+    writer.flush();
+  }
+
+  /**
+   * Serves connections accepted by a (loopback) server socket, each with the line protocol of
+   * {@link #serve(InputStream, OutputStream)}, until a shutdown job is received.
+   * 
+   * @param serverSocket the bound server socket (closed on return)
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void serve(ServerSocket serverSocket) throws IOException {
+    this.serverSocket = serverSocket;
+    try {
+      while (!shutdown) {
+        final Socket socket;
+        try {
+          socket = serverSocket.accept();
+        } catch (SocketException ex) {
+          if (shutdown) {
+            break;
+          }
+          throw ex;
+        }
+        Thread thread = new Thread(() -> {
+          try (Socket s = socket) {
+            serve(s.getInputStream(), s.getOutputStream());
+          } catch (IOException ex) {
+            logger.warn("Connection from " + socket.getRemoteSocketAddress() + " failed", ex);
+          }
+        }, "simulation-server-connection");
+        thread.setDaemon(true);
+        thread.start();
+      }
+    } finally {
+      serverSocket.close();
+    }
+  }
+
+  /**
+   * Stops accepting jobs. Jobs already accepted are completed.
+   */
+  public void shutdown() {
+    shutdown = true;
+    ServerSocket serverSocket = this.serverSocket;
+    if (serverSocket != null) {
+      try {
+        serverSocket.close();
+      } catch (IOException ex) {
+        logger.warn("Failed to close server socket", ex);
+      }
+    }
+  }
+
+  /**
+   * Waits for accepted jobs to complete and releases the worker threads.
+   * 
+   * @param timeout the maximum time to wait
+   * @param unit the time unit of the timeout
+   * 
+   * @return true, if all jobs completed
+   * 
+   * @throws InterruptedException the interrupted exception
+   */
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    executor.shutdown();
+    return executor.awaitTermination(timeout, unit);
+  }
+
+  /**
+   * Executes a job on the calling thread.
+   * 
+   * @param request the request object
+   * 
+   * @return the response object (with status "ok" or "error")
+   */
+  public JsonObject execute(JsonObject request) {
+    JsonElement id = request.get("id");
+    long start = System.nanoTime();
+    try {
+      JsonElement result;
+      String type = request.has("type") ? request.get("type").getAsString() : null;
+      if (STATUS.equals(type) || SHUTDOWN.equals(type)) {
+        result = getStatus();
+      } else {
+        result = simulate(type, request);
+      }
+      completedJobs.incrementAndGet();
+      JsonObject response = new JsonObject();
+      if (id != null) {
+        response.add("id", id);
+      }
+      response.addProperty("status", "ok");
+      response.addProperty("milliseconds", (System.nanoTime() - start) / 1000000);
+      response.add("result", result);
+      return response;
+    } catch (Exception ex) {
+      logger.debug("Job failed", ex);
+      return createError(id, ex.getMessage() == null ? ex.toString() : ex.getMessage());
+    }
+  }
+
+  private JsonElement simulate(String type, JsonObject request) throws IOException {
+    if (!DEMANDS_RAW.equals(type) && !DEMANDS_AGGREGATED.equals(type) && !FULL.equals(type)) {
+      throw new IllegalArgumentException("Unknown job type: " + type);
+    }
+    if (!request.has("scenario")) {
+      throw new IllegalArgumentException("Missing scenario file path");
+    }
+    try {
+      // parse with default parameters so the scenario does not inherit values of other scenarios
+      GlobalParameters.setThreadParameters(GlobalParameters.createDefault());
+      Scenario scenario =
+          SerializeUtil.deepClone(cache.get(request.get("scenario").getAsString()));
+      GlobalParameters.setThreadParameters(GlobalParameters.createFrom(scenario));
+      if (request.has("parameters")) {
+        for (Map.Entry<String, JsonElement> parameter : request.getAsJsonObject("parameters")
+            .entrySet()) {
+          getParameter(parameter.getKey()).apply(scenario, parameter.getValue().getAsDouble());
+        }
+      }
+      boolean consume = request.has("consume") && request.get("consume").getAsBoolean();
+      if (FULL.equals(type)) {
+        FullSimulator simulator = new FullSimulator(scenario);
+        simulator.setNetworkHistoryRecorded(false); // only the totals are returned
+        simulator.setDemandsSatisfied(consume);
+        simulator.simulate();
+        return gson.toJsonTree(simulator.getMeasures());
+      }
+      DemandSimulator simulator = new DemandSimulator(scenario);
+      simulator.setDemandsSatisfied(consume);
+      simulator.simulate();
+      if (DEMANDS_RAW.equals(type)) {
+        return gson.toJsonTree(RawDemandsAnalysis.createFrom(simulator));
+      } else {
+        return gson.toJsonTree(AggregatedDemandsAnalysis.createFrom(simulator));
+      }
+    } finally {
+      GlobalParameters.setThreadParameters(null);
+    }
+  }
+
+  private static I_SweepParameter getParameter(String name) {
+    int separator = name.indexOf('.');
+    String key = separator < 0 ? name : name.substring(0, separator);
+    Integer index = null;
+    if (separator >= 0) {
+      try {
+        index = Integer.valueOf(name.substring(separator + 1));
+      } catch (NumberFormatException ex) {
+        throw new IllegalArgumentException("Invalid parameter: " + name);
+      }
+    }
+    if (key.equals("itemDiscretization") && index == null) {
+      return new ItemDiscretizationParameter();
+    } else if (key.equals("itemAggregation") && index == null) {
+      return new ItemAggregationParameter();
+    } else if (key.equals("demandRate")) {
+      if (index == null) {
+        return new DemandRateParameter();
+      } else if (ClassOfSupply.getInstance(index) != null) {
+        return new DemandRateParameter(ClassOfSupply.getInstance(index));
+      }
+    } else if (key.equals("missionStartOffset")) {
+      return index == null ? new MissionStartDateParameter()
+          : new MissionStartDateParameter(index);
+    }
+    throw new IllegalArgumentException("Unknown parameter: " + name);
+  }
+
+  private JsonObject getStatus() {
+    JsonObject status = new JsonObject();
+    status.addProperty("threads", threadCount);
+    status.addProperty("completedJobs", completedJobs.get());
+    status.addProperty("cachedScenarios", cache.size());
+    status.addProperty("cacheCapacity", cache.getCapacity());
+    status.addProperty("cacheHits", cache.getHitCount());
+    status.addProperty("cacheMisses", cache.getMissCount());
+    return status;
+  }
+
+  private static JsonObject createError(JsonElement id, String message) {
+    JsonObject response = new JsonObject();
+    if (id != null) {
+      response.add("id", id);
+    }
+    response.addProperty("status", "error");
+    response.addProperty("error", message);
+    return response;
+  }
+
+  private void write(Writer writer, JsonObject response) throws IOException {
+    String line = gson.toJson(response);
+    synchronized (writer) {
+      writer.write(line);
+      writer.write('\n');
+      writer.flush();
+    }
+  }
+
+  /**
+   * Gets the scenario cache.
+   * 
+   * @return the scenario cache
+   */
+  public ScenarioCache getCache() {
+    return cache;
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import edu.mit.spacenet.domain.network.Location;
+import edu.mit.spacenet.simulator.moe.MoeCrewSurfaceDays;
+import edu.mit.spacenet.simulator.moe.MoeCrewTime;
+import edu.mit.spacenet.simulator.moe.MoeExplorationCapability;
+import edu.mit.spacenet.simulator.moe.MoeExplorationMassDelivered;
+import edu.mit.spacenet.simulator.moe.MoeLaunchMass;
+import edu.mit.spacenet.simulator.moe.MoeMassCapacityUtilization;
+
+/**
+ * Base class for sinks that write each measure of effectiveness record as one row with the
+ * measure name, time, location, type, amount, capacity, and duration. Fields that do not apply to
+ * a measure are NaN (or null). Write failures are thrown as unchecked exceptions so a simulation
+ * writing to a full disk fails instead of silently losing records.
+ * 
+ * @author Paul Grogan
+ */
+public abstract class AbstractMoeSink implements I_MoeSink {
+  private Writer writer;
+
+  /**
+   * Instantiates a new abstract MOE sink.
+   * 
+   * @param writer the writer to receive the records
+   */
+  public AbstractMoeSink(Writer writer) {
+    this.writer = writer;
+  }
+
+  /**
+   * Gets the writer.
+   * 
+   * @return the writer
+   */
+  protected Writer getWriter() {
+    return writer;
+  }
+
+  /**
+   * Writes one record.
+   * 
+   * @param measure the measure name
+   * @param time the simulation time
+   * @param location the location, or null
+   * @param type the type, or null
+   * @param amount the amount
+   * @param capacity the capacity, or NaN
+   * @param duration the duration, or NaN
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  protected abstract void write(String measure, double time, Location location, String type,
+      double amount, double capacity, double duration) throws IOException;
+
+  private void record(String measure, double time, Location location, String type, double amount,
+      double capacity, double duration) {
+    try {
+      write(measure, time, location, type, amount, capacity, duration);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.I_MoeSink#crewSurfaceDays(edu.mit.spacenet.simulator.moe.
+   * MoeCrewSurfaceDays)
+   */
+  public void crewSurfaceDays(MoeCrewSurfaceDays moe) {
+    record("Crew Surface Days", moe.getTime(), moe.getLocation(), null, moe.getAmount(), Double.NaN,
+        Double.NaN);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * edu.mit.spacenet.simulator.I_MoeSink#crewTime(edu.mit.spacenet.simulator.moe.MoeCrewTime)
+   */
+  public void crewTime(MoeCrewTime moe) {
+    record("Crew Time", moe.getTime(), moe.getLocation(), moe.getType(), moe.getAmount(),
+        Double.NaN, Double.NaN);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.I_MoeSink#explorationCapability(edu.mit.spacenet.simulator.moe.
+   * MoeExplorationCapability)
+   */
+  public void explorationCapability(MoeExplorationCapability moe) {
+    record("Exploration Capability", moe.getTime(), moe.getLocation(), null, moe.getMass(),
+        Double.NaN, moe.getDuration());
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.I_MoeSink#explorationMassDelivered(edu.mit.spacenet.simulator.
+   * moe.MoeExplorationMassDelivered)
+   */
+  public void explorationMassDelivered(MoeExplorationMassDelivered moe) {
+    record("Exploration Mass Delivered", moe.getTime(), moe.getLocation(), null, moe.getAmount(),
+        Double.NaN, Double.NaN);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * edu.mit.spacenet.simulator.I_MoeSink#launchMass(edu.mit.spacenet.simulator.moe.MoeLaunchMass)
+   */
+  public void launchMass(MoeLaunchMass moe) {
+    record("Launch Mass", moe.getTime(), moe.getLocation(), null, moe.getAmount(), Double.NaN,
+        Double.NaN);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.I_MoeSink#upMassCapacityUtilization(edu.mit.spacenet.simulator.
+   * moe.MoeMassCapacityUtilization)
+   */
+  public void upMassCapacityUtilization(MoeMassCapacityUtilization moe) {
+    record("Up Mass Capacity Utilization", moe.getTime(), moe.getLocation(), null,
+        moe.getAmount(), moe.getCapacity(), Double.NaN);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * edu.mit.spacenet.simulator.I_MoeSink#downMassCapacityUtilization(edu.mit.spacenet.simulator.
+   * moe.MoeMassCapacityUtilization)
+   */
+  public void downMassCapacityUtilization(MoeMassCapacityUtilization moe) {
+    record("Down Mass Capacity Utilization", moe.getTime(), moe.getLocation(), null,
+        moe.getAmount(), moe.getCapacity(), Double.NaN);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.I_MoeSink#flush()
+   */
+  public void flush() {
+    try {
+      writer.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
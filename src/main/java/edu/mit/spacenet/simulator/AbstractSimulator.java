@@ -15,20 +15,19 @@ package edu.mit.spacenet.simulator;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
 
 import edu.mit.spacenet.domain.ClassOfSupply;
 import edu.mit.spacenet.domain.element.I_Element;
+import edu.mit.spacenet.domain.element.I_State;
 import edu.mit.spacenet.domain.network.Location;
 import edu.mit.spacenet.domain.resource.Demand;
 import edu.mit.spacenet.domain.resource.DemandSet;
 import edu.mit.spacenet.domain.resource.GenericResource;
 import edu.mit.spacenet.domain.resource.I_Item;
-import edu.mit.spacenet.domain.resource.Item;
-import edu.mit.spacenet.scenario.ItemDiscretization;
 import edu.mit.spacenet.scenario.Mission;
 import edu.mit.spacenet.scenario.RepairItem;
 import edu.mit.spacenet.scenario.Scenario;
@@ -38,7 +37,9 @@ import edu.mit.spacenet.simulator.event.ManifestEvent;
 import edu.mit.spacenet.simulator.event.MissionEvent;
 import edu.mit.spacenet.simulator.moe.MoeCrewTime;
 import edu.mit.spacenet.util.DateFunctions;
+import edu.mit.spacenet.util.GlobalParameters;
 import edu.mit.spacenet.util.SerializeUtil;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * An abstract implementation of the simulator interface.
@@ -46,20 +47,28 @@ import edu.mit.spacenet.util.SerializeUtil;
  * @author Paul Grogan
  */
 public abstract class AbstractSimulator implements I_Simulator {
+  /** The measure name for the total unsatisfied demand mass (kg). */
+  public static final String UNSATISFIED_DEMAND_MASS = "Unsatisfied Demand Mass";
+  /** The measure name for the number of simulation errors. */
+  public static final String ERROR_COUNT = "Errors";
+  /** The measure name for the number of simulation warnings. */
+  public static final String WARNING_COUNT = "Warnings";
+
   private Scenario scenario;
   private Scenario clone;
+  private GlobalParameters parameters, previousParameters;
   private PriorityQueue<I_Event> events;
   private double time;
   private List<SimSpatialError> spatialErrors;
-  private List<SimDemand> unsatisfiedDemands;
+  private DemandHistory unsatisfiedDemands;
   private List<SimWarning> warnings;
   private List<SimScavenge> scavengedParts;
   private List<SimRepair> repairedParts;
-  private Map<I_Element, Map<Item, Double>> itemDemandsByElement;
-  private Map<Item, Double> itemDemandsByScenario;
-  private Map<Location, Map<Item, Double>> itemDemandsByLocation;
+  private ItemDiscretizer itemDiscretizer;
+  private RepairIndex repairIndex;
   private boolean packingDemandsAdded, demandsSatisfied;
   private boolean itemsRepaired;
+  private I_TraceSink traceSink;
 
   protected double duration;
   protected I_Event event;
@@ -73,13 +82,11 @@ public abstract class AbstractSimulator implements I_Simulator {
     this.scenario = scenario;
     events = new PriorityQueue<I_Event>();
     spatialErrors = new ArrayList<SimSpatialError>();
-    unsatisfiedDemands = new ArrayList<SimDemand>();
+    unsatisfiedDemands = new DemandHistory();
     warnings = new ArrayList<SimWarning>();
     scavengedParts = new ArrayList<SimScavenge>();
     repairedParts = new ArrayList<SimRepair>();
-    itemDemandsByElement = new HashMap<I_Element, Map<Item, Double>>();
-    itemDemandsByLocation = new HashMap<Location, Map<Item, Double>>();
-    itemDemandsByScenario = new HashMap<Item, Double>();
+    itemDiscretizer = new ItemDiscretizer();
     packingDemandsAdded = false;
     demandsSatisfied = true;
     itemsRepaired = false;
@@ -107,6 +114,15 @@ public abstract class AbstractSimulator implements I_Simulator {
     return clone;
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.I_Simulator#getContext()
+   */
+  public SimulationContext getContext() {
+    return parameters == null ? SimulationContext.createFrom(scenario) : parameters.getContext();
+  }
+
   /*
    * (non-Javadoc)
    * 
@@ -165,7 +181,28 @@ public abstract class AbstractSimulator implements I_Simulator {
     return unsatisfiedDemands;
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.I_Simulator#report(edu.mit.spacenet.simulator.SimError)
+   */
+  public void report(SimError error) {
+    if (error instanceof SimSpatialError) {
+      spatialErrors.add((SimSpatialError) error);
+    } else if (error instanceof SimDemand) {
+      unsatisfiedDemands.add((SimDemand) error);
+    }
+  }
+
+  /**
+   * Prepares the simulation state and binds the parameters of the scenario to the simulating thread
+   * until {@link #completeSimulation()} is called.
+   */
   protected void initializeSimulation() {
+    parameters = GlobalParameters.createFrom(scenario);
+    previousParameters = GlobalParameters.getThreadParameters();
+    GlobalParameters.setThreadParameters(parameters);
+
     events.clear();
     spatialErrors.clear();
     unsatisfiedDemands.clear();
@@ -182,15 +219,27 @@ public abstract class AbstractSimulator implements I_Simulator {
       schedule(p);
     }
 
-    if (clone.getItemDiscretization() == ItemDiscretization.BY_ELEMENT) {
-      for (I_Element element : clone.getElements()) {
-        itemDemandsByElement.put(element, new HashMap<Item, Double>());
-      }
-    } else if (clone.getItemDiscretization() == ItemDiscretization.BY_LOCATION) {
-      for (Location location : clone.getNetwork().getLocations()) {
-        itemDemandsByLocation.put(location, new HashMap<Item, Double>());
-      }
-    }
+    itemDiscretizer.reset(clone.getItemDiscretization(), clone.getItemAggregation());
+    repairIndex = null;
+  }
+
+  /**
+   * Binds the parameters of a previously initialized simulation to the simulating thread to continue
+   * the simulation until {@link #completeSimulation()} is called.
+   */
+  protected void resumeSimulation() {
+    if (parameters == null)
+      parameters = GlobalParameters.createFrom(scenario);
+    previousParameters = GlobalParameters.getThreadParameters();
+    GlobalParameters.setThreadParameters(parameters);
+  }
+
+  /**
+   * Restores the parameters that were bound to the simulating thread before the simulation.
+   */
+  protected void completeSimulation() {
+    GlobalParameters.setThreadParameters(previousParameters);
+    previousParameters = null;
   }
 
   protected void scheduleManifestEvents() {
@@ -208,31 +257,33 @@ public abstract class AbstractSimulator implements I_Simulator {
   protected void handleDemands() {
     if (duration > 0) {
       for (I_Element element : getScenario().getNetwork().getRegistrar().values()) {
-        DemandEvent d = new DemandEvent();
-        d.setTime(time);
-        d.setName("Demand Event for " + element);
-        d.setElement(element);
-        d.setLocation(element.getLocation());
-        d.setDemands(repairDemands(discretizeDemands(element.generateDemands(duration, this),
-            element, element.getLocation()), element));
-        if (d.getDemands().size() > 0) {
+        if (!isDemanding(element)) {
+          continue;
+        }
+        Location location = element.getLocation();
+        DemandSet demands = repairDemands(
+            discretizeDemands(element.generateDemands(duration, this), element, location),
+            element);
+        if (demands.size() > 0) {
+          DemandEvent d = new DemandEvent();
+          d.setTime(time);
+          d.setName("Demand Event for " + element);
+          d.setElement(element);
+          d.setLocation(location);
+          d.setDemands(demands);
           try {
             d.execute(this);
           } catch (SimError error) {
-            if (error instanceof SimSpatialError) {
-              spatialErrors.add((SimSpatialError) error);
-            } else if (error instanceof SimDemand) {
-              /*
-               * TODO double-counting? see DemandEvent.execute if(isPackingDemandsAdded()) { Demand
-               * packingDemand = new Demand(new GenericResource(ClassOfSupply.COS5), 0); for(Demand
-               * demand : ((SimDemand)error).getDemands()) { if(demand.getAmount()>0 &&
-               * demand.getResource().getPackingFactor()>0)
-               * packingDemand.setAmount(packingDemand.getAmount() +
-               * demand.getAmount()*demand.getResource().getPackingFactor()); }
-               * ((SimDemand)error).getDemands().add(packingDemand); }
-               */
-              unsatisfiedDemands.add((SimDemand) error);
-            }
+            /*
+             * TODO double-counting? see DemandEvent.execute if(isPackingDemandsAdded()) { Demand
+             * packingDemand = new Demand(new GenericResource(ClassOfSupply.COS5), 0); for(Demand
+             * demand : ((SimDemand)error).getDemands()) { if(demand.getAmount()>0 &&
+             * demand.getResource().getPackingFactor()>0)
+             * packingDemand.setAmount(packingDemand.getAmount() +
+             * demand.getAmount()*demand.getResource().getPackingFactor()); }
+             * ((SimDemand)error).getDemands().add(packingDemand); }
+             */
+            report(error);
           }
         }
       }
@@ -252,76 +303,33 @@ public abstract class AbstractSimulator implements I_Simulator {
     }
   }
 
+  /**
+   * Checks whether an element can generate demands in its current state. Elements without a current
+   * state or whose current state has no demand models generate no demands (and therefore no item
+   * discretization or repairs), so they are skipped without building a demand event.
+   * 
+   * @param element the element
+   * 
+   * @return true if the element's current state has demand models, false otherwise
+   */
+  private static boolean isDemanding(I_Element element) {
+    I_State state = element.getCurrentState();
+    return state != null && !state.getDemandModels().isEmpty();
+  }
+
   private DemandSet discretizeDemands(DemandSet demands, I_Element element, Location location) {
-    if (getScenario().getItemDiscretization() == ItemDiscretization.BY_ELEMENT && element != null) {
-      for (Demand demand : demands) {
-        if (demand.getResource() instanceof Item) {
-          Item item = (Item) demand.getResource();
-          if (!itemDemandsByElement.get(element).containsKey(item)) {
-            itemDemandsByElement.get(element).put(item, new Double(0));
-          }
-          itemDemandsByElement.get(element).put(item,
-              itemDemandsByElement.get(element).get(item) + demand.getAmount());
-          demand.setAmount(0);
-          while (itemDemandsByElement.get(element).get(item) >= getScenario()
-              .getItemAggregation()) {
-            demand.setAmount(demand.getAmount() + 1);
-            itemDemandsByElement.get(element).put(item,
-                itemDemandsByElement.get(element).get(item) - 1);
-          }
-        }
-      }
-    } else if (getScenario().getItemDiscretization() == ItemDiscretization.BY_LOCATION) {
-      for (Demand demand : demands) {
-        if (demand.getResource() instanceof Item) {
-          Item item = (Item) demand.getResource();
-          if (!itemDemandsByLocation.get(location).containsKey(item)) {
-            itemDemandsByLocation.get(location).put(item, new Double(0));
-          }
-          itemDemandsByLocation.get(location).put(item,
-              itemDemandsByLocation.get(location).get(item) + demand.getAmount());
-          demand.setAmount(0);
-          while (itemDemandsByLocation.get(location).get(item) >= getScenario()
-              .getItemAggregation()) {
-            demand.setAmount(demand.getAmount() + 1);
-            itemDemandsByLocation.get(location).put(item,
-                itemDemandsByLocation.get(location).get(item) - 1);
-          }
-        }
-      }
-    } else if (getScenario().getItemDiscretization() == ItemDiscretization.BY_SCENARIO) {
-      for (Demand demand : demands) {
-        if (demand.getResource() instanceof Item) {
-          Item item = (Item) demand.getResource();
-          if (!itemDemandsByScenario.containsKey(item)) {
-            itemDemandsByScenario.put(item, new Double(0));
-          }
-          itemDemandsByScenario.put(item, itemDemandsByScenario.get(item) + demand.getAmount());
-          demand.setAmount(0);
-          while (itemDemandsByScenario.get(item) >= getScenario().getItemAggregation()) {
-            demand.setAmount(demand.getAmount() + 1);
-            itemDemandsByScenario.put(item, itemDemandsByScenario.get(item) - 1);
-          }
-        }
-      }
-    }
-    demands.clean();
-    return demands;
+    return itemDiscretizer.discretize(demands, element, location);
   }
 
   private DemandSet repairDemands(DemandSet demands, I_Element element) {
-    if (itemsRepaired) {
+    if (itemsRepaired && getRepairIndex().isRepaired(element)) {
       double lastTime = 0;
-      for (Mission mission : getScenario().getMissionList()) {
-        if (getScenario().getRepairedItems().get(mission) != null
-            && getTime() < mission.getDuration()
-                + DateFunctions.getDaysBetween(mission.getStartDate(), getScenario().getStartDate())
-            && getTime() >= lastTime) {
+      for (RepairIndex.MissionRepairs mission : getRepairIndex().getMissions()) {
+        if (getTime() < mission.getEndTime() && getTime() >= lastTime) {
           if (mission.isCrewed())
-            lastTime = mission.getDuration() + DateFunctions.getDaysBetween(mission.getStartDate(),
-                getScenario().getStartDate());
+            lastTime = mission.getEndTime();
 
-          for (RepairItem item : getScenario().getRepairedItems().get(mission)) {
+          for (RepairItem item : mission.getItems(element)) {
             if (item.getElement().equals(element)) {
               for (Demand demand : demands) {
                 if (item.getDemand().getResource().equals(demand.getResource())
@@ -329,19 +337,11 @@ public abstract class AbstractSimulator implements I_Simulator {
                     && item.getDemand().getAmount() > 0) {
                   double amountRepaired =
                       Math.min(demand.getAmount(), item.getDemand().getAmount());
-                  if (this instanceof FullSimulator) {
-                    ((FullSimulator) this).getCrewTimeHistory()
-                        .add(new MoeCrewTime(
-                            DateFunctions.getDaysBetween(mission.getStartDate(),
-                                getScenario().getStartDate()),
-                            element.getLocation(), MoeCrewTime.CORRECTIVE_MAINTENANCE,
-                            item.getUnitMeanRepairTime() * amountRepaired));
-                    ((FullSimulator) this).getCrewTimeHistory().add(new MoeCrewTime(
-                        DateFunctions.getDaysBetween(mission.getStartDate(),
-                            getScenario().getStartDate()),
-                        element.getLocation(), MoeCrewTime.EXPLORATION,
-                        -item.getUnitMeanRepairTime() * amountRepaired));
-                  }
+                  logCrewTime(new MoeCrewTime(mission.getStartTime(), element.getLocation(),
+                      MoeCrewTime.CORRECTIVE_MAINTENANCE,
+                      item.getUnitMeanRepairTime() * amountRepaired));
+                  logCrewTime(new MoeCrewTime(mission.getStartTime(), element.getLocation(),
+                      MoeCrewTime.EXPLORATION, -item.getUnitMeanRepairTime() * amountRepaired));
                   getRepairedParts().add(new SimRepair(getTime(), (I_Item) demand.getResource(),
                       amountRepaired, amountRepaired * item.getUnitMeanRepairTime(),
                       amountRepaired * item.getUnitMassToRepair(), element.getLocation(), element));
@@ -360,15 +360,36 @@ public abstract class AbstractSimulator implements I_Simulator {
     return demands;
   }
 
+  /**
+   * Gets the index of repaired items and repairable parts of the simulated scenario, building it on
+   * first use after the simulation is initialized.
+   * 
+   * @return the repair index
+   */
+  RepairIndex getRepairIndex() {
+    if (repairIndex == null) {
+      repairIndex = new RepairIndex(getScenario());
+    }
+    return repairIndex;
+  }
+
+  /**
+   * Gets the unsatisfied demands recorded after a start time and up to and including an end time.
+   * 
+   * @param startTime the exclusive start time
+   * @param endTime the inclusive end time
+   * 
+   * @return an unmodifiable view of the unsatisfied demands in recorded order
+   */
+  List<SimDemand> getUnsatisfiedDemands(double startTime, double endTime) {
+    return unsatisfiedDemands.getDemands(startTime, endTime);
+  }
+
   protected void executeEvent() {
     try {
       event.execute(this);
     } catch (SimError error) {
-      if (error instanceof SimSpatialError) {
-        spatialErrors.add((SimSpatialError) error);
-      } else if (error instanceof SimDemand) {
-        unsatisfiedDemands.add((SimDemand) error);
-      }
+      report(error);
     }
   }
 
@@ -379,13 +400,7 @@ public abstract class AbstractSimulator implements I_Simulator {
    * I_Element)
    */
   public List<SimDemand> getDemandHistory(I_Element element) {
-    ArrayList<SimDemand> demands = new ArrayList<SimDemand>();
-    for (SimDemand d : getUnsatisfiedDemands()) {
-      if (element.equals(d.getElement())) {
-        demands.add(d);
-      }
-    }
-    return demands;
+    return unsatisfiedDemands.getDemands(element);
   }
 
   /*
@@ -394,16 +409,10 @@ public abstract class AbstractSimulator implements I_Simulator {
    * @see edu.mit.spacenet.simulator.I_Simulator#getDemandHistory(edu.mit.spacenet.scenario.Mission)
    */
   public List<SimDemand> getDemandHistory(Mission mission) {
-    ArrayList<SimDemand> demands = new ArrayList<SimDemand>();
     double startTime =
         DateFunctions.getDaysBetween(mission.getStartDate(), getScenario().getStartDate());
     double endTime = startTime + mission.getDuration();
-    for (SimDemand s : getUnsatisfiedDemands()) {
-      if (s.getTime() > startTime && s.getTime() <= endTime) {
-        demands.add(s);
-      }
-    }
-    return demands;
+    return unsatisfiedDemands.getDemands(startTime, endTime);
   }
 
   /*
@@ -413,13 +422,7 @@ public abstract class AbstractSimulator implements I_Simulator {
    * Location)
    */
   public List<SimDemand> getDemandHistory(Location location) {
-    ArrayList<SimDemand> demands = new ArrayList<SimDemand>();
-    for (SimDemand d : getUnsatisfiedDemands()) {
-      if (location.equals(d.getLocation())) {
-        demands.add(d);
-      }
-    }
-    return demands;
+    return unsatisfiedDemands.getDemands(location);
   }
 
   /*
@@ -444,8 +447,7 @@ public abstract class AbstractSimulator implements I_Simulator {
   public DemandSet getDemands(Mission mission, ClassOfSupply cos) {
     DemandSet demands = new DemandSet();
     for (Demand demand : getDemands(mission)) {
-      if (demand.getResource().getClassOfSupply().equals(cos)
-          || demand.getResource().getClassOfSupply().isSubclassOf(cos)) {
+      if (demand.getResource().getClassOfSupply().isInstanceOf(cos)) {
         demands.add(demand);
       }
     }
@@ -459,11 +461,12 @@ public abstract class AbstractSimulator implements I_Simulator {
    * edu.mit.spacenet.domain.element.I_Element)
    */
   public DemandSet getDemands(Mission mission, I_Element element) {
+    double startTime =
+        DateFunctions.getDaysBetween(mission.getStartDate(), getScenario().getStartDate());
+    double endTime = startTime + mission.getDuration();
     DemandSet demands = new DemandSet();
-    for (SimDemand s : getDemandHistory(mission)) {
-      if ((element == null && s.getElement() == null)
-          || (s.getElement() != null && s.getElement().equals(element)))
-        demands.addAll(s.getDemands());
+    for (SimDemand s : unsatisfiedDemands.getDemands(element, startTime, endTime)) {
+      demands.addAll(s.getDemands());
     }
     return demands;
   }
@@ -477,8 +480,7 @@ public abstract class AbstractSimulator implements I_Simulator {
   public DemandSet getDemands(Mission mission, I_Element element, ClassOfSupply cos) {
     DemandSet demands = new DemandSet();
     for (Demand demand : getDemands(mission, element)) {
-      if (demand.getResource().getClassOfSupply().equals(cos)
-          || demand.getResource().getClassOfSupply().isSubclassOf(cos))
+      if (demand.getResource().getClassOfSupply().isInstanceOf(cos))
         demands.add(demand);
     }
     return demands;
@@ -493,10 +495,9 @@ public abstract class AbstractSimulator implements I_Simulator {
    */
   public DemandSet getDemands(I_Element element, ClassOfSupply cos) {
     DemandSet demands = new DemandSet();
-    for (SimDemand d : getUnsatisfiedDemands()) {
+    for (SimDemand d : unsatisfiedDemands.getDemands(element)) {
       for (Demand demand : d.getDemands()) {
-        if (element.equals(d.getElement()) && (demand.getResource().getClassOfSupply().equals(cos)
-            || demand.getResource().getClassOfSupply().isSubclassOf(cos))) {
+        if (demand.getResource().getClassOfSupply().isInstanceOf(cos)) {
           demands.add(demand);
         }
       }
@@ -513,10 +514,9 @@ public abstract class AbstractSimulator implements I_Simulator {
    */
   public DemandSet getDemands(Location location, ClassOfSupply cos) {
     DemandSet demands = new DemandSet();
-    for (SimDemand d : getUnsatisfiedDemands()) {
+    for (SimDemand d : unsatisfiedDemands.getDemands(location)) {
       for (Demand demand : d.getDemands()) {
-        if (location.equals(d.getLocation()) && (demand.getResource().getClassOfSupply().equals(cos)
-            || demand.getResource().getClassOfSupply().isSubclassOf(cos))) {
+        if (demand.getResource().getClassOfSupply().isInstanceOf(cos)) {
           demands.add(demand);
         }
       }
@@ -560,6 +560,25 @@ public abstract class AbstractSimulator implements I_Simulator {
     this.demandsSatisfied = demandsSatisfied;
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.I_Simulator#getTraceSink()
+   */
+  public I_TraceSink getTraceSink() {
+    return traceSink;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * edu.mit.spacenet.simulator.I_Simulator#setTraceSink(edu.mit.spacenet.simulator.I_TraceSink)
+   */
+  public void setTraceSink(I_TraceSink traceSink) {
+    this.traceSink = traceSink;
+  }
+
   /**
    * Checks if is items repaired.
    * 
@@ -595,4 +614,30 @@ public abstract class AbstractSimulator implements I_Simulator {
   public List<SimRepair> getRepairedParts() {
     return repairedParts;
   }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.I_Simulator#getMeasures()
+   */
+  public Map<String, Double> getMeasures() {
+    Map<String, Double> measures = new LinkedHashMap<String, Double>();
+    double unsatisfiedMass = 0;
+    for (SimDemand demand : getUnsatisfiedDemands()) {
+      unsatisfiedMass += demand.getDemands().getTotalMass();
+    }
+    measures.put(UNSATISFIED_DEMAND_MASS, unsatisfiedMass);
+    measures.put(ERROR_COUNT, (double) getErrors().size());
+    measures.put(WARNING_COUNT, (double) getWarnings().size());
+    return measures;
+  }
+
+  /**
+   * Logs a crew time measure of effectiveness, such as the crew time spent repairing items. Crew
+   * time is not recorded unless a subclass overrides this method.
+   * 
+   * @param moe the crew time measure
+   */
+  protected void logCrewTime(MoeCrewTime moe) {
+  }
 }
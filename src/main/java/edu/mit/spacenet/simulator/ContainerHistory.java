@@ -0,0 +1,189 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import edu.mit.spacenet.domain.I_Container;
+import edu.mit.spacenet.domain.element.I_Element;
+import edu.mit.spacenet.domain.network.Network;
+
+/**
+ * A journal of the containers of registered elements. Each recorded step only stores the elements
+ * that were added, removed, or moved since the previous step, and the container of an element at
+ * any step is found by a binary search over its changes. The elements registered at a step are
+ * found by replaying the registrations and removals of each step from the last step requested.
+ * 
+ * @author Paul Grogan
+ */
+class ContainerHistory {
+  private Map<Integer, ElementChanges> changes;
+  private List<ElementChanges> registered;
+  private List<I_Element[]> registeredAt, removedAt;
+  private Map<Integer, I_Element> cursor;
+  private int cursorStep;
+  private int size;
+
+  /**
+   * Instantiates a new container history.
+   */
+  ContainerHistory() {
+    changes = new HashMap<Integer, ElementChanges>();
+    registered = new ArrayList<ElementChanges>();
+    registeredAt = new ArrayList<I_Element[]>();
+    removedAt = new ArrayList<I_Element[]>();
+    cursor = new HashMap<Integer, I_Element>();
+    cursorStep = -1;
+  }
+
+  /**
+   * Records the containers of the registered elements of a network.
+   * 
+   * @param network the scenario network
+   * 
+   * @return the recorded step
+   */
+  int record(Network network) {
+    int step = size++;
+    List<ElementChanges> current = new ArrayList<ElementChanges>(registered.size());
+    List<I_Element> added = new ArrayList<I_Element>();
+    List<I_Element> removed = new ArrayList<I_Element>();
+    for (I_Element element : network.getRegistrar().values()) {
+      ElementChanges c = changes.get(element.getUid());
+      if (c == null) {
+        c = new ElementChanges(element);
+        changes.put(element.getUid(), c);
+      }
+      if (c.lastStep != step) {
+        if (c.lastStep != step - 1 || c.lastStep < 0) {
+          added.add(c.element);
+        }
+        c.lastStep = step;
+        c.add(step, element.getContainer(), true);
+        current.add(c);
+      }
+    }
+    for (ElementChanges c : registered) {
+      if (c.lastStep != step) {
+        c.add(step, null, false);
+        removed.add(c.element);
+      }
+    }
+    registered = current;
+    registeredAt.add(added.toArray(new I_Element[added.size()]));
+    removedAt.add(removed.toArray(new I_Element[removed.size()]));
+    return step;
+  }
+
+  /**
+   * Gets the container of an element at a recorded step.
+   * 
+   * @param element the element
+   * @param step the recorded step
+   * 
+   * @return the container, or null if the element was not registered
+   */
+  I_Container getContainer(I_Element element, int step) {
+    ElementChanges c = element == null ? null : changes.get(element.getUid());
+    return c == null ? null : c.getContainer(step);
+  }
+
+  /**
+   * Gets the elements registered at a recorded step.
+   * 
+   * @param step the recorded step
+   * 
+   * @return the set of elements
+   */
+  SortedSet<I_Element> getElements(int step) {
+    while (cursorStep < step) {
+      cursorStep++;
+      for (I_Element element : removedAt.get(cursorStep)) {
+        cursor.remove(element.getUid());
+      }
+      for (I_Element element : registeredAt.get(cursorStep)) {
+        cursor.put(element.getUid(), element);
+      }
+    }
+    while (cursorStep > step) {
+      for (I_Element element : registeredAt.get(cursorStep)) {
+        cursor.remove(element.getUid());
+      }
+      for (I_Element element : removedAt.get(cursorStep)) {
+        cursor.put(element.getUid(), element);
+      }
+      cursorStep--;
+    }
+    return new TreeSet<I_Element>(cursor.values());
+  }
+
+  /**
+   * The container changes of one element.
+   */
+  private static class ElementChanges {
+    final I_Element element;
+    int lastStep = -1;
+    int count;
+    int[] steps = new int[2];
+    I_Container[] containers = new I_Container[2];
+    boolean[] registered = new boolean[2];
+
+    ElementChanges(I_Element element) {
+      this.element = element;
+    }
+
+    void add(int step, I_Container container, boolean isRegistered) {
+      if (count > 0 && containers[count - 1] == container
+          && registered[count - 1] == isRegistered) {
+        return;
+      }
+      if (count == steps.length) {
+        steps = Arrays.copyOf(steps, 2 * count);
+        containers = Arrays.copyOf(containers, 2 * count);
+        registered = Arrays.copyOf(registered, 2 * count);
+      }
+      steps[count] = step;
+      containers[count] = container;
+      registered[count] = isRegistered;
+      count++;
+    }
+
+    private int indexOf(int step) {
+      int low = 0;
+      int high = count - 1;
+      int index = -1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (steps[mid] <= step) {
+          index = mid;
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return index;
+    }
+
+    I_Container getContainer(int step) {
+      int index = indexOf(step);
+      return index < 0 ? null : containers[index];
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Map;
+
+import edu.mit.spacenet.domain.network.Location;
+
+/**
+ * A measure of effectiveness sink that writes comma-separated values with a header row and one row
+ * per record. The totals are written as a final set of rows with the type "Total" and no time.
+ * Fields that do not apply to a measure are left empty.
+ * 
+ * @author Paul Grogan
+ */
+public class CsvMoeSink extends AbstractMoeSink {
+  private static final String HEADER = "measure,time,location,type,amount,capacity,duration";
+
+  /** The type of the total rows. */
+  public static final String TOTAL = "Total";
+
+  private boolean headerWritten;
+
+  /**
+   * Instantiates a new CSV MOE sink.
+   * 
+   * @param writer the writer to receive the comma-separated values
+   */
+  public CsvMoeSink(Writer writer) {
+    super(writer);
+  }
+
+  private void writeHeader() throws IOException {
+    if (!headerWritten) {
+      getWriter().write(HEADER);
+      getWriter().write('\n');
+      headerWritten = true;
+    }
+  }
+
+  private void writeText(String value) throws IOException {
+    if (value == null) {
+      return;
+    }
+    if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+      getWriter().write('"');
+      getWriter().write(value.replace("\"", "\"\""));
+      getWriter().write('"');
+    } else {
+      getWriter().write(value);
+    }
+  }
+
+  private void writeNumber(double value) throws IOException {
+    if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+      getWriter().write(Double.toString(value));
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.AbstractMoeSink#write(java.lang.String, double,
+   * edu.mit.spacenet.domain.network.Location, java.lang.String, double, double, double)
+   */
+  protected void write(String measure, double time, Location location, String type,
+      double amount, double capacity, double duration) throws IOException {
+    writeHeader();
+    Writer writer = getWriter();
+    writeText(measure);
+    writer.write(',');
+    writeNumber(time);
+    writer.write(',');
+    writeText(location == null ? null : location.getName());
+    writer.write(',');
+    writeText(type);
+    writer.write(',');
+    writeNumber(amount);
+    writer.write(',');
+    writeNumber(capacity);
+    writer.write(',');
+    writeNumber(duration);
+    writer.write('\n');
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.I_MoeSink#totals(java.util.Map)
+   */
+  public void totals(Map<String, Double> totals) {
+    try {
+      for (Map.Entry<String, Double> total : totals.entrySet()) {
+        write(total.getKey(), Double.NaN, null, TOTAL,
+            total.getValue() == null ? Double.NaN : total.getValue(), Double.NaN, Double.NaN);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
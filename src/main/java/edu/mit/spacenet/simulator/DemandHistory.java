@@ -0,0 +1,252 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.mit.spacenet.domain.element.I_Element;
+import edu.mit.spacenet.domain.network.Location;
+
+/**
+ * The list of unsatisfied demands recorded during a simulation, indexed by element, by location,
+ * and by time as demands are added. Demands are recorded in non-decreasing time order, so the
+ * demands in a time interval are found by binary search; if a demand is ever recorded out of order
+ * the time queries fall back to a full scan.
+ * 
+ * @author Paul Grogan
+ */
+class DemandHistory extends AbstractList<SimDemand> {
+  private List<SimDemand> demands;
+  private Map<DomainKey, List<SimDemand>> elementDemands;
+  private Map<DomainKey, List<SimDemand>> locationDemands;
+  private List<SimDemand> missionDemands;
+  private boolean ordered;
+
+  /**
+   * Instantiates a new demand history.
+   */
+  DemandHistory() {
+    demands = new ArrayList<SimDemand>();
+    elementDemands = new HashMap<DomainKey, List<SimDemand>>();
+    locationDemands = new HashMap<DomainKey, List<SimDemand>>();
+    missionDemands = new ArrayList<SimDemand>();
+    ordered = true;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.AbstractList#add(int, java.lang.Object)
+   */
+  @Override
+  public void add(int index, SimDemand demand) {
+    if (index != demands.size()) {
+      demands.add(index, demand);
+      reindex();
+    } else {
+      demands.add(demand);
+      index(demand);
+    }
+    modCount++;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.AbstractList#set(int, java.lang.Object)
+   */
+  @Override
+  public SimDemand set(int index, SimDemand demand) {
+    SimDemand previous = demands.set(index, demand);
+    reindex();
+    return previous;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.AbstractList#remove(int)
+   */
+  @Override
+  public SimDemand remove(int index) {
+    SimDemand previous = demands.remove(index);
+    reindex();
+    modCount++;
+    return previous;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.AbstractList#clear()
+   */
+  @Override
+  public void clear() {
+    demands.clear();
+    reindex();
+    modCount++;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.AbstractList#get(int)
+   */
+  @Override
+  public SimDemand get(int index) {
+    return demands.get(index);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.AbstractCollection#size()
+   */
+  @Override
+  public int size() {
+    return demands.size();
+  }
+
+  private void reindex() {
+    elementDemands.clear();
+    locationDemands.clear();
+    missionDemands.clear();
+    ordered = true;
+    for (int i = 0; i < demands.size(); i++) {
+      if (i > 0 && demands.get(i).getTime() < demands.get(i - 1).getTime()) {
+        ordered = false;
+      }
+      index(demands.get(i));
+    }
+  }
+
+  private void index(SimDemand demand) {
+    if (demands.size() > 1 && ordered
+        && demand.getTime() < demands.get(demands.size() - 2).getTime()) {
+      ordered = false;
+    }
+    if (demand.getElement() == null) {
+      missionDemands.add(demand);
+    } else {
+      add(elementDemands, new DomainKey(demand.getElement()), demand);
+    }
+    if (demand.getLocation() != null) {
+      add(locationDemands, new DomainKey(demand.getLocation()), demand);
+    }
+  }
+
+  private static void add(Map<DomainKey, List<SimDemand>> index, DomainKey key,
+      SimDemand demand) {
+    List<SimDemand> list = index.get(key);
+    if (list == null) {
+      list = new ArrayList<SimDemand>();
+      index.put(key, list);
+    }
+    list.add(demand);
+  }
+
+  /**
+   * Gets the demands of an element, or the demands not associated with an element if the element
+   * is null.
+   * 
+   * @param element the element
+   * 
+   * @return an unmodifiable view of the demands in recorded order
+   */
+  List<SimDemand> getDemands(I_Element element) {
+    if (element == null)
+      return Collections.unmodifiableList(missionDemands);
+    return view(elementDemands.get(new DomainKey(element)));
+  }
+
+  /**
+   * Gets the demands at a location.
+   * 
+   * @param location the location
+   * 
+   * @return an unmodifiable view of the demands in recorded order
+   */
+  List<SimDemand> getDemands(Location location) {
+    return view(location == null ? null : locationDemands.get(new DomainKey(location)));
+  }
+
+  /**
+   * Gets the demands recorded after a start time and up to and including an end time.
+   * 
+   * @param startTime the exclusive start time
+   * @param endTime the inclusive end time
+   * 
+   * @return an unmodifiable view of the demands in recorded order
+   */
+  List<SimDemand> getDemands(double startTime, double endTime) {
+    return getDemands(demands, startTime, endTime);
+  }
+
+  /**
+   * Gets the demands of an element (or not associated with an element if the element is null)
+   * recorded after a start time and up to and including an end time.
+   * 
+   * @param element the element
+   * @param startTime the exclusive start time
+   * @param endTime the inclusive end time
+   * 
+   * @return an unmodifiable view of the demands in recorded order
+   */
+  List<SimDemand> getDemands(I_Element element, double startTime, double endTime) {
+    return getDemands(getDemands(element), startTime, endTime);
+  }
+
+  private List<SimDemand> getDemands(List<SimDemand> list, double startTime, double endTime) {
+    if (!ordered) {
+      List<SimDemand> range = new ArrayList<SimDemand>();
+      for (SimDemand demand : list) {
+        if (demand.getTime() > startTime && demand.getTime() <= endTime) {
+          range.add(demand);
+        }
+      }
+      return Collections.unmodifiableList(range);
+    }
+    int from = upperBound(list, startTime);
+    int to = upperBound(list, endTime);
+    return view(from < to ? list.subList(from, to) : null);
+  }
+
+  /**
+   * Finds the index of the first demand with a time strictly after a time.
+   */
+  private static int upperBound(List<SimDemand> list, double time) {
+    int low = 0;
+    int high = list.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (list.get(mid).getTime() <= time) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private static List<SimDemand> view(List<SimDemand> list) {
+    if (list == null)
+      return Collections.emptyList();
+    return Collections.unmodifiableList(list);
+  }
+}
@@ -16,17 +16,22 @@ package edu.mit.spacenet.simulator;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
+
 import edu.mit.spacenet.domain.element.I_Carrier;
 import edu.mit.spacenet.domain.element.I_Element;
-import edu.mit.spacenet.domain.element.PartApplication;
 import edu.mit.spacenet.domain.network.edge.Edge;
 import edu.mit.spacenet.domain.network.node.Body;
 import edu.mit.spacenet.domain.network.node.Node;
@@ -50,6 +55,8 @@ import edu.mit.spacenet.util.SerializeUtil;
  * @author Paul Grogan
  */
 public class DemandSimulator extends AbstractSimulator {
+  private static final Logger logger = LogManager.getLogger(DemandSimulator.class);
+
   private Map<Integer, ArrayList<RepairItem>> sortedRepairItems;
   private Map<Integer, ArrayList<RepairItem>> unsortedRepairItems;
 
@@ -57,6 +64,9 @@ public class DemandSimulator extends AbstractSimulator {
   private SortedSet<SupplyPoint> supplyPoints;
   private SortedMap<SupplyPoint, DemandSet> aggregatedNodeDemands;
   private SortedMap<SupplyEdge, DemandSet> aggregatedEdgeDemands;
+  private Map<DomainKey, NavigableMap<Double, SupplyPoint>> supplyPointsByNode;
+  private Map<DomainKey, List<SupplyEdge>> supplyEdgesByEdge;
+  private List<SimDemand> unsuppliedDemands;
 
   /**
    * The constructor sets the scenario and initializes the data structures.
@@ -73,6 +83,9 @@ public class DemandSimulator extends AbstractSimulator {
     supplyPoints = new TreeSet<SupplyPoint>();
     aggregatedNodeDemands = new TreeMap<SupplyPoint, DemandSet>();
     aggregatedEdgeDemands = new TreeMap<SupplyEdge, DemandSet>();
+    supplyPointsByNode = new HashMap<DomainKey, NavigableMap<Double, SupplyPoint>>();
+    supplyEdgesByEdge = new HashMap<DomainKey, List<SupplyEdge>>();
+    unsuppliedDemands = new ArrayList<SimDemand>();
   }
 
   /*
@@ -82,54 +95,65 @@ public class DemandSimulator extends AbstractSimulator {
    */
   public void simulate() {
     initializeSimulation();
+    try {
+      sortedRepairItems.clear();
+      unsortedRepairItems.clear();
 
-    sortedRepairItems.clear();
-    unsortedRepairItems.clear();
+      for (Mission mission : getScenario().getMissionList()) {
+        sortedRepairItems.put(getScenario().getMissionList().indexOf(mission),
+            new ArrayList<RepairItem>());
+        unsortedRepairItems.put(getScenario().getMissionList().indexOf(mission),
+            new ArrayList<RepairItem>());
+      }
 
-    for (Mission mission : getScenario().getMissionList()) {
-      sortedRepairItems.put(getScenario().getMissionList().indexOf(mission),
-          new ArrayList<RepairItem>());
-      unsortedRepairItems.put(getScenario().getMissionList().indexOf(mission),
-          new ArrayList<RepairItem>());
-    }
+      supplyEdges.clear();
+      supplyPoints.clear();
+      aggregatedNodeDemands.clear();
+      aggregatedEdgeDemands.clear();
+      supplyPointsByNode.clear();
+      supplyEdgesByEdge.clear();
+      unsuppliedDemands.clear();
 
-    supplyEdges.clear();
-    supplyPoints.clear();
-    aggregatedNodeDemands.clear();
-    aggregatedEdgeDemands.clear();
-
-    // simulate events, serializing and saving after each time step
-    while (getEvents().peek() != null) {
-      getNextEvent();
-
-      // find supply edges and supply points
-      if (event instanceof I_Transport) {
-        HashSet<I_Carrier> carriers = new HashSet<I_Carrier>();
-        for (I_Element element : ((I_Transport) event).getElements()) {
-          if (element instanceof I_Carrier) {
-            carriers.add((I_Carrier) SerializeUtil.deepClone(element));
+      // simulate events, serializing and saving after each time step
+      while (getEvents().peek() != null) {
+        getNextEvent();
+
+        // find supply edges and supply points
+        if (event instanceof I_Transport) {
+          // keep the carriers in transport order so manifesting visits them repeatably
+          Set<I_Carrier> carriers = new LinkedHashSet<I_Carrier>();
+          for (I_Element element : ((I_Transport) event).getElements()) {
+            if (element instanceof I_Carrier) {
+              carriers.add((I_Carrier) SerializeUtil.deepClone(element));
+            }
           }
-        }
 
-        boolean isReversed = false;
-        if (event instanceof SurfaceTransport)
-          isReversed = ((SurfaceTransport) event).isReversed();
-
-        SupplyEdge edge = new SupplyEdge(((I_Transport) event).getEdge(), isReversed,
-            ((I_Transport) event).getTime(),
-            ((I_Transport) event).getTime() + ((I_Transport) event).getDuration(), carriers);
-        supplyEdges.add(edge);
-        aggregatedEdgeDemands.put(edge, new DemandSet());
-        supplyPoints.add(edge.getPoint());
-        aggregatedNodeDemands.put(edge.getPoint(), new DemandSet());
-      }
+          boolean isReversed = false;
+          if (event instanceof SurfaceTransport)
+            isReversed = ((SurfaceTransport) event).isReversed();
+
+          SupplyEdge edge = new SupplyEdge(((I_Transport) event).getEdge(), isReversed,
+              ((I_Transport) event).getTime(),
+              ((I_Transport) event).getTime() + ((I_Transport) event).getDuration(), carriers);
+          if (supplyEdges.add(edge)) {
+            indexSupplyEdge(edge);
+          }
+          aggregatedEdgeDemands.put(edge, new DemandSet());
+          if (supplyPoints.add(edge.getPoint())) {
+            indexSupplyPoint(edge.getPoint());
+          }
+          aggregatedNodeDemands.put(edge.getPoint(), new DemandSet());
+        }
 
-      handleDemands();
+        handleDemands();
 
-      executeEvent();
+        executeEvent();
+      }
+      tabulateRepairableDemands();
+      aggregateDemands();
+    } finally {
+      completeSimulation();
     }
-    tabulateRepairableDemands();
-    aggregateDemands();
   }
 
   private void tabulateRepairableDemands() {
@@ -143,18 +167,13 @@ public class DemandSimulator extends AbstractSimulator {
                 + mission.getDuration();
         lastEndTime = endTime;
 
-        for (SimDemand simDemand : getUnsatisfiedDemands()) {
-          if (simDemand.getTime() > startTime && simDemand.getTime() <= endTime
-              && simDemand.getElement() != null) {
+        for (SimDemand simDemand : getUnsatisfiedDemands(startTime, endTime)) {
+          if (simDemand.getElement() != null) {
             for (Demand demand : simDemand.getDemands()) {
-              if (demand.getResource() instanceof Item) {
-                for (PartApplication app : simDemand.getElement().getParts()) {
-                  if (app.getPart().equals(demand.getResource()) && app.getMeanTimeToRepair() > 0) {
-                    RepairItem i = new RepairItem(demand, simDemand.getElement());
-                    sortedRepairItems.get(index).add(i);
-                    break;
-                  }
-                }
+              if (demand.getResource() instanceof Item && getRepairIndex()
+                  .getRepairablePart(simDemand.getElement(), demand.getResource()) != null) {
+                RepairItem i = new RepairItem(demand, simDemand.getElement());
+                sortedRepairItems.get(index).add(i);
               }
             }
           }
@@ -169,36 +188,109 @@ public class DemandSimulator extends AbstractSimulator {
     }
   }
 
+  /**
+   * Indexes a supply point by node and time. Supply points are only indexed if they were added to
+   * the set of supply points, so the index resolves to the same point as the set.
+   * 
+   * @param point the supply point
+   */
+  private void indexSupplyPoint(SupplyPoint point) {
+    DomainKey key = new DomainKey(point.getNode());
+    NavigableMap<Double, SupplyPoint> points = supplyPointsByNode.get(key);
+    if (points == null) {
+      points = new TreeMap<Double, SupplyPoint>();
+      supplyPointsByNode.put(key, points);
+    }
+    if (!points.containsKey(point.getTime())) {
+      points.put(point.getTime(), point);
+    }
+  }
+
+  /**
+   * Indexes a supply edge by network edge, keeping the edges of each network edge in the order of
+   * the set of supply edges (decreasing end time).
+   * 
+   * @param edge the supply edge
+   */
+  private void indexSupplyEdge(SupplyEdge edge) {
+    DomainKey key = new DomainKey(edge.getEdge());
+    List<SupplyEdge> edges = supplyEdgesByEdge.get(key);
+    if (edges == null) {
+      edges = new ArrayList<SupplyEdge>();
+      supplyEdgesByEdge.put(key, edges);
+    }
+    int index = Collections.binarySearch(edges, edge);
+    edges.add(index < 0 ? -index - 1 : index, edge);
+  }
+
+  /**
+   * Finds the latest supply point at a node at or before a time.
+   * 
+   * @param node the node
+   * @param time the simulation time
+   * 
+   * @return the supply point, or null if none exists
+   */
+  private SupplyPoint findSupplyPoint(Node node, double time) {
+    NavigableMap<Double, SupplyPoint> points = supplyPointsByNode.get(new DomainKey(node));
+    if (points == null)
+      return null;
+    Map.Entry<Double, SupplyPoint> entry = points.floorEntry(time);
+    return entry == null ? null : entry.getValue();
+  }
+
+  /**
+   * Finds the supply edge along an edge that spans a time. If several supply edges span the time,
+   * the one with the earliest end time is used.
+   * 
+   * @param edge the network edge
+   * @param time the simulation time
+   * 
+   * @return the supply edge, or null if none exists
+   */
+  private SupplyEdge findSupplyEdge(Edge edge, double time) {
+    List<SupplyEdge> edges = supplyEdgesByEdge.get(new DomainKey(edge));
+    if (edges == null)
+      return null;
+    // edges are ordered by decreasing end time: find the last edge ending at or after the time
+    int low = 0;
+    int high = edges.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (edges.get(mid).getEndTime() >= time) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    for (int i = low - 1; i >= 0; i--) {
+      if (edges.get(i).getStartTime() <= time) {
+        return edges.get(i);
+      }
+    }
+    return null;
+  }
+
   private void aggregateDemands() {
     for (SimDemand demand : getUnsatisfiedDemands()) {
       if (demand.getLocation() instanceof Node) {
-        SupplyPoint point = null;
-        for (SupplyPoint p : supplyPoints) {
-          if (p.getNode().equals(demand.getLocation()) && p.getTime() <= demand.getTime()
-              && (point == null || p.getTime() > point.getTime())) {
-            point = p;
-          }
-        }
+        SupplyPoint point = findSupplyPoint((Node) demand.getLocation(), demand.getTime());
         if (point == null && demand.getLocation() instanceof SurfaceNode
             && ((SurfaceNode) demand.getLocation()).getBody() == Body.EARTH) {
           // ignore demands at earth surface nodes
         } else if (point == null) {
-          System.out.println("No supply point found to satisfy demands! " + demand.getTime() + " "
-              + demand.getDemands());
+          logger.debug("No supply point found to satisfy demands! {} {}",
+              Unbox.box(demand.getTime()), demand.getDemands());
+          unsuppliedDemands.add(demand);
         } else {
           aggregatedNodeDemands.get(point).addAll(demand.getDemands());
         }
       } else if (demand.getLocation() instanceof Edge) {
-        SupplyEdge edge = null;
-        for (SupplyEdge e : supplyEdges) {
-          if (e.getEdge().equals((demand.getLocation())) && demand.getTime() >= e.getStartTime()
-              && demand.getTime() <= e.getEndTime()) {
-            edge = e;
-          }
-        }
+        SupplyEdge edge = findSupplyEdge((Edge) demand.getLocation(), demand.getTime());
         if (edge == null) {
-          System.out.println("No supply edge found to satisfy demands! " + demand.getTime() + " "
-              + demand.getDemands());
+          logger.debug("No supply edge found to satisfy demands! {} {}",
+              Unbox.box(demand.getTime()), demand.getDemands());
+          unsuppliedDemands.add(demand);
         } else {
           aggregatedEdgeDemands.get(edge).addAll(demand.getDemands());
         }
@@ -206,6 +298,16 @@ public class DemandSimulator extends AbstractSimulator {
     }
   }
 
+  /**
+   * Gets the unsatisfied demands that could not be aggregated because no supply point (for demands
+   * at nodes other than the Earth's surface) or supply edge (for demands along edges) was found.
+   * 
+   * @return the list of unsupplied demands
+   */
+  public List<SimDemand> getUnsuppliedDemands() {
+    return Collections.unmodifiableList(unsuppliedDemands);
+  }
+
   /**
    * Gets the repairable items, unsorted (in order of occurrence in simulation).
    * 
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import edu.mit.spacenet.domain.element.I_Element;
+import edu.mit.spacenet.domain.network.Location;
+
+/**
+ * A hash key that follows the class and identifier based equality of domain objects (elements) and
+ * domain types (locations), which do not override hash codes.
+ * 
+ * @author Paul Grogan
+ */
+final class DomainKey {
+  private final Class<?> type;
+  private final int id;
+
+  /**
+   * Instantiates a new key for an element.
+   * 
+   * @param element the element
+   */
+  DomainKey(I_Element element) {
+    type = element.getClass();
+    id = element.getUid();
+  }
+
+  /**
+   * Instantiates a new key for a location.
+   * 
+   * @param location the location
+   */
+  DomainKey(Location location) {
+    type = location.getClass();
+    id = location.getTid();
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  @Override
+  public boolean equals(Object object) {
+    if (!(object instanceof DomainKey))
+      return false;
+    DomainKey key = (DomainKey) object;
+    return type == key.type && id == key.id;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#hashCode()
+   */
+  @Override
+  public int hashCode() {
+    return 31 * type.hashCode() + id;
+  }
+}
@@ -13,14 +13,16 @@
  */
 package edu.mit.spacenet.simulator;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import edu.mit.spacenet.domain.ClassOfSupply;
 import edu.mit.spacenet.domain.element.CrewMember;
 import edu.mit.spacenet.domain.element.I_Carrier;
 import edu.mit.spacenet.domain.element.I_Element;
-import edu.mit.spacenet.domain.network.Network;
 import edu.mit.spacenet.domain.network.edge.SurfaceEdge;
 import edu.mit.spacenet.domain.network.node.Body;
 import edu.mit.spacenet.domain.network.node.OrbitalNode;
@@ -35,7 +37,6 @@ import edu.mit.spacenet.simulator.moe.MoeExplorationCapability;
 import edu.mit.spacenet.simulator.moe.MoeExplorationMassDelivered;
 import edu.mit.spacenet.simulator.moe.MoeLaunchMass;
 import edu.mit.spacenet.simulator.moe.MoeMassCapacityUtilization;
-import edu.mit.spacenet.util.SerializeUtil;
 
 /**
  * A simulator that logs and generates measures of effectiveness.
@@ -43,7 +44,7 @@ import edu.mit.spacenet.util.SerializeUtil;
  * @author Paul Grogan
  */
 public class FullSimulator extends AbstractSimulator {
-  private List<SimNetwork> networkHistory;
+  private NetworkHistory networkHistory;
   private List<MoeCrewSurfaceDays> crewSurfaceDaysHistory;
   private List<MoeCrewTime> crewTimeHistory;
   private List<MoeExplorationMassDelivered> explorationMassDeliveredHistory;
@@ -51,6 +52,13 @@ public class FullSimulator extends AbstractSimulator {
   private List<MoeMassCapacityUtilization> upMassCapacityUtilizationHistory,
       downMassCapacityUtilizationHistory;
   private List<MoeExplorationCapability> explorationCapabilityHistory;
+  private boolean networkHistoryRecorded = true;
+  private I_MoeSink moeSink;
+
+  // running totals, summed in logging order so they match sums over the histories
+  private double totalCrewSurfaceDays, totalCrewTime, totalExplorationCapability,
+      totalExplorationMassDelivered, totalLaunchMass, totalUpMass, totalUpMassCapacity,
+      totalDownMass, totalDownMassCapacity;
 
   /**
    * Instantiates a new full simulator.
@@ -61,7 +69,7 @@ public class FullSimulator extends AbstractSimulator {
     super(scenario);
     setPackingDemandsAdded(false);
     setItemsRepaired(true);
-    networkHistory = new ArrayList<SimNetwork>();
+    networkHistory = new NetworkHistory();
     crewSurfaceDaysHistory = new ArrayList<MoeCrewSurfaceDays>();
     crewTimeHistory = new ArrayList<MoeCrewTime>();
     explorationMassDeliveredHistory = new ArrayList<MoeExplorationMassDelivered>();
@@ -78,141 +86,260 @@ public class FullSimulator extends AbstractSimulator {
    */
   public void simulate() {
     initializeSimulation();
-    networkHistory.clear();
-    crewSurfaceDaysHistory.clear();
-    crewTimeHistory.clear();
-    explorationMassDeliveredHistory.clear();
-    launchMassHistory.clear();
-    upMassCapacityUtilizationHistory.clear();
-    downMassCapacityUtilizationHistory.clear();
-    explorationCapabilityHistory.clear();
-
-    scheduleManifestEvents();
-
-    // save initial conditions
-    networkHistory.add(
-        new SimNetwork(getTime(), (Network) SerializeUtil.deepClone(getScenario().getNetwork())));
-
-    // simulate events, serializing and saving after each time step
-    while (getEvents().peek() != null) {
-      getNextEvent();
-
-      // tabulate MOEs
-      if (duration > 0) {
-        for (I_Element element : getScenario().getNetwork().getRegistrar().values()) {
-          if (element instanceof CrewMember) {
-            crewTimeHistory
-                .add(new MoeCrewTime(getTime(), element.getLocation(), MoeCrewTime.EXPLORATION,
-                    duration * 24 * ((CrewMember) element).getAvailableTimeFraction()));
-            crewTimeHistory
-                .add(new MoeCrewTime(getTime(), element.getLocation(), MoeCrewTime.UNAVAILABLE,
-                    duration * 24 * (1 - ((CrewMember) element).getAvailableTimeFraction())));
-            // if element location is a non-Earth surface node
-            // OR a sun-orbiting node
-            // OR a non-Earth surface edge
-            if (((element.getLocation() instanceof SurfaceNode
-                && !((SurfaceNode) element.getLocation()).getBody().equals(Body.EARTH)))
-                || (element.getLocation() instanceof OrbitalNode
-                    && (((OrbitalNode) element.getLocation()).getBody().equals(Body.SUN)))
-                || (element.getLocation() instanceof SurfaceEdge
-                    && !((SurfaceEdge) element.getLocation()).getOrigin().getBody()
-                        .equals(Body.EARTH))) {
-              crewSurfaceDaysHistory
-                  .add(new MoeCrewSurfaceDays(getTime(), element.getLocation(), duration));
-              explorationCapabilityHistory
-                  .add(new MoeExplorationCapability(getTime(), element.getLocation(),
-                      element.getLocation().getTotalMass(ClassOfSupply.COS6, this)
-                          + element.getLocation().getTotalMass(ClassOfSupply.COS8, this),
-                      duration));
+    try {
+      networkHistory.clear();
+      crewSurfaceDaysHistory.clear();
+      crewTimeHistory.clear();
+      explorationMassDeliveredHistory.clear();
+      launchMassHistory.clear();
+      upMassCapacityUtilizationHistory.clear();
+      downMassCapacityUtilizationHistory.clear();
+      explorationCapabilityHistory.clear();
+      totalCrewSurfaceDays = 0;
+      totalCrewTime = 0;
+      totalExplorationCapability = 0;
+      totalExplorationMassDelivered = 0;
+      totalLaunchMass = 0;
+      totalUpMass = 0;
+      totalUpMassCapacity = 0;
+      totalDownMass = 0;
+      totalDownMassCapacity = 0;
+
+      scheduleManifestEvents();
+
+      // save initial conditions
+      if (networkHistoryRecorded)
+        networkHistory.record(getTime(), getScenario().getNetwork());
+
+      // simulate events, recording network changes after each time step
+      while (getEvents().peek() != null) {
+        getNextEvent();
+
+        // tabulate MOEs
+        if (duration > 0) {
+          for (I_Element element : getScenario().getNetwork().getRegistrar().values()) {
+            if (element instanceof CrewMember) {
+              logCrewTime(new MoeCrewTime(getTime(), element.getLocation(),
+                  MoeCrewTime.EXPLORATION,
+                  duration * 24 * ((CrewMember) element).getAvailableTimeFraction()));
+              logCrewTime(new MoeCrewTime(getTime(), element.getLocation(),
+                  MoeCrewTime.UNAVAILABLE,
+                  duration * 24 * (1 - ((CrewMember) element).getAvailableTimeFraction())));
+              // if element location is a non-Earth surface node
+              // OR a sun-orbiting node
+              // OR a non-Earth surface edge
+              if (((element.getLocation() instanceof SurfaceNode
+                  && !((SurfaceNode) element.getLocation()).getBody().equals(Body.EARTH)))
+                  || (element.getLocation() instanceof OrbitalNode
+                      && (((OrbitalNode) element.getLocation()).getBody().equals(Body.SUN)))
+                  || (element.getLocation() instanceof SurfaceEdge
+                      && !((SurfaceEdge) element.getLocation()).getOrigin().getBody()
+                          .equals(Body.EARTH))) {
+                logCrewSurfaceDays(
+                    new MoeCrewSurfaceDays(getTime(), element.getLocation(), duration));
+                logExplorationCapability(new MoeExplorationCapability(getTime(),
+                    element.getLocation(),
+                    element.getLocation().getTotalMass(ClassOfSupply.COS6, this)
+                        + element.getLocation().getTotalMass(ClassOfSupply.COS8, this),
+                    duration));
+              }
             }
           }
         }
-      }
-      // if event is a space transport OR flight transport
-      // AND either the destination is a non-Earth surface node
-      // OR the destination is a sun-orbiting node
-      if ((event instanceof SpaceTransport || event instanceof FlightTransport)
-          && ((((I_Transport) event).getDestination() instanceof SurfaceNode
-              && !((I_Transport) event).getDestination().getBody().equals(Body.EARTH))
-              || (((I_Transport) event).getDestination() instanceof OrbitalNode
-                  && (((OrbitalNode) ((I_Transport) event).getDestination()).getBody()
-                      .equals(Body.SUN))))) {
-        double amount = 0;
-        for (I_Element element : ((I_Transport) event).getElements()) {
-          amount += element.getTotalMass(ClassOfSupply.COS6);
-          amount += element.getTotalMass(ClassOfSupply.COS8);
-        }
-        explorationMassDeliveredHistory
-            .add(new MoeExplorationMassDelivered(getTime() + ((I_Transport) event).getDuration(),
-                ((I_Transport) event).getDestination(), amount));
-      }
-      // if event is a space transport OR flight transport
-      // AND origin is an Earth surface node
-      if ((event instanceof SpaceTransport || event instanceof FlightTransport)
-          && ((I_Transport) event).getOrigin() instanceof SurfaceNode
-          && ((I_Transport) event).getOrigin().getBody().equals(Body.EARTH)) {
-        double mass = 0;
-        for (I_Element element : ((I_Transport) event).getElements()) {
-          mass += element.getTotalMass();
+        // if event is a space transport OR flight transport
+        // AND either the destination is a non-Earth surface node
+        // OR the destination is a sun-orbiting node
+        if ((event instanceof SpaceTransport || event instanceof FlightTransport)
+            && ((((I_Transport) event).getDestination() instanceof SurfaceNode
+                && !((I_Transport) event).getDestination().getBody().equals(Body.EARTH))
+                || (((I_Transport) event).getDestination() instanceof OrbitalNode
+                    && (((OrbitalNode) ((I_Transport) event).getDestination()).getBody()
+                        .equals(Body.SUN))))) {
+          double amount = 0;
+          for (I_Element element : ((I_Transport) event).getElements()) {
+            amount += element.getTotalMass(ClassOfSupply.COS6);
+            amount += element.getTotalMass(ClassOfSupply.COS8);
+          }
+          logExplorationMassDelivered(
+              new MoeExplorationMassDelivered(getTime() + ((I_Transport) event).getDuration(),
+                  ((I_Transport) event).getDestination(), amount));
         }
-        launchMassHistory
-            .add(new MoeLaunchMass(getTime(), ((I_Transport) event).getOrigin(), mass));
+        // if event is a space transport OR flight transport
+        // AND origin is an Earth surface node
+        if ((event instanceof SpaceTransport || event instanceof FlightTransport)
+            && ((I_Transport) event).getOrigin() instanceof SurfaceNode
+            && ((I_Transport) event).getOrigin().getBody().equals(Body.EARTH)) {
+          double mass = 0;
+          for (I_Element element : ((I_Transport) event).getElements()) {
+            mass += element.getTotalMass();
+          }
+          logLaunchMass(new MoeLaunchMass(getTime(), ((I_Transport) event).getOrigin(), mass));
 
-        double capacity = 0;
-        if (event instanceof FlightTransport) {
-          capacity = ((FlightTransport) event).getEdge().getMaxCargoMass();
-        } else {
+          double capacity = 0;
+          if (event instanceof FlightTransport) {
+            capacity = ((FlightTransport) event).getEdge().getMaxCargoMass();
+          } else {
+            for (I_Element element : ((I_Transport) event).getElements()) {
+              if (element instanceof I_Carrier) {
+                capacity += ((I_Carrier) element).getMaxCargoMass();
+              }
+            }
+          }
+          double amount = 0;
           for (I_Element element : ((I_Transport) event).getElements()) {
             if (element instanceof I_Carrier) {
-              capacity += ((I_Carrier) element).getMaxCargoMass();
+              amount += ((I_Carrier) element).getTotalMass();
             }
           }
-        }
-        double amount = 0;
-        for (I_Element element : ((I_Transport) event).getElements()) {
-          if (element instanceof I_Carrier) {
-            amount += ((I_Carrier) element).getTotalMass();
+          logUpMassCapacityUtilization(new MoeMassCapacityUtilization(getTime(),
+              ((I_Transport) event).getOrigin(), amount, capacity));
+          // else if event is a space transport OR flight transport
+          // AND destination is an Earth surface node
+        } else if ((event instanceof SpaceTransport || event instanceof FlightTransport)
+            && ((I_Transport) event).getDestination() instanceof SurfaceNode
+            && ((I_Transport) event).getDestination().getBody().equals(Body.EARTH)) {
+          double capacity = 0;
+          if (event instanceof FlightTransport) {
+            capacity = ((FlightTransport) event).getEdge().getMaxCargoMass();
+          } else {
+            for (I_Element element : ((I_Transport) event).getElements()) {
+              if (element instanceof I_Carrier) {
+                capacity += ((I_Carrier) element).getMaxCargoMass();
+              }
+            }
           }
-        }
-        upMassCapacityUtilizationHistory.add(new MoeMassCapacityUtilization(getTime(),
-            ((I_Transport) event).getOrigin(), amount, capacity));
-        // else if event is a space transport OR flight transport
-        // AND destination is an Earth surface node
-      } else if ((event instanceof SpaceTransport || event instanceof FlightTransport)
-          && ((I_Transport) event).getDestination() instanceof SurfaceNode
-          && ((I_Transport) event).getDestination().getBody().equals(Body.EARTH)) {
-        double capacity = 0;
-        if (event instanceof FlightTransport) {
-          capacity = ((FlightTransport) event).getEdge().getMaxCargoMass();
-        } else {
+          double amount = 0;
           for (I_Element element : ((I_Transport) event).getElements()) {
             if (element instanceof I_Carrier) {
-              capacity += ((I_Carrier) element).getMaxCargoMass();
+              amount += ((I_Carrier) element).getTotalMass();
             }
           }
+          logDownMassCapacityUtilization(new MoeMassCapacityUtilization(getTime(),
+              ((I_Transport) event).getDestination(), amount, capacity));
         }
-        double amount = 0;
-        for (I_Element element : ((I_Transport) event).getElements()) {
-          if (element instanceof I_Carrier) {
-            amount += ((I_Carrier) element).getTotalMass();
-          }
-        }
-        downMassCapacityUtilizationHistory.add(new MoeMassCapacityUtilization(getTime(),
-            ((I_Transport) event).getDestination(), amount, capacity));
-      }
 
-      handleDemands();
+        handleDemands();
 
-      executeEvent();
+        executeEvent();
 
-      if (getEvents().peek() == null || getEvents().peek().getTime() > getTime())
-        networkHistory.add(new SimNetwork(getTime(),
-            (Network) SerializeUtil.deepClone(getScenario().getNetwork())));
+        if (networkHistoryRecorded
+            && (getEvents().peek() == null || getEvents().peek().getTime() > getTime()))
+          networkHistory.record(getTime(), getScenario().getNetwork());
+      }
+      if (moeSink != null)
+        moeSink.flush();
+    } finally {
+      completeSimulation();
     }
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see
+   * edu.mit.spacenet.simulator.AbstractSimulator#logCrewTime(edu.mit.spacenet.simulator.moe.
+   * MoeCrewTime)
+   */
+  protected void logCrewTime(MoeCrewTime moe) {
+    totalCrewTime += moe.getAmount();
+    if (moeSink == null)
+      crewTimeHistory.add(moe);
+    else
+      moeSink.crewTime(moe);
+  }
+
+  private void logCrewSurfaceDays(MoeCrewSurfaceDays moe) {
+    totalCrewSurfaceDays += moe.getAmount();
+    if (moeSink == null)
+      crewSurfaceDaysHistory.add(moe);
+    else
+      moeSink.crewSurfaceDays(moe);
+  }
+
+  private void logExplorationCapability(MoeExplorationCapability moe) {
+    totalExplorationCapability += moe.getDuration() * moe.getMass();
+    if (moeSink == null)
+      explorationCapabilityHistory.add(moe);
+    else
+      moeSink.explorationCapability(moe);
+  }
+
+  private void logExplorationMassDelivered(MoeExplorationMassDelivered moe) {
+    totalExplorationMassDelivered += moe.getAmount();
+    if (moeSink == null)
+      explorationMassDeliveredHistory.add(moe);
+    else
+      moeSink.explorationMassDelivered(moe);
+  }
+
+  private void logLaunchMass(MoeLaunchMass moe) {
+    totalLaunchMass += moe.getAmount();
+    if (moeSink == null)
+      launchMassHistory.add(moe);
+    else
+      moeSink.launchMass(moe);
+  }
+
+  private void logUpMassCapacityUtilization(MoeMassCapacityUtilization moe) {
+    totalUpMass += moe.getAmount();
+    totalUpMassCapacity += moe.getCapacity();
+    if (moeSink == null)
+      upMassCapacityUtilizationHistory.add(moe);
+    else
+      moeSink.upMassCapacityUtilization(moe);
+  }
+
+  private void logDownMassCapacityUtilization(MoeMassCapacityUtilization moe) {
+    totalDownMass += moe.getAmount();
+    totalDownMassCapacity += moe.getCapacity();
+    if (moeSink == null)
+      downMassCapacityUtilizationHistory.add(moe);
+    else
+      moeSink.downMassCapacityUtilization(moe);
+  }
+
   /**
-   * Gets the network history.
+   * Checks if the network history is recorded after each time step (true by default). Simulations
+   * that only need the measures of effectiveness can skip the recording.
+   * 
+   * @return true, if the network history is recorded
+   */
+  public boolean isNetworkHistoryRecorded() {
+    return networkHistoryRecorded;
+  }
+
+  /**
+   * Sets whether the network history is recorded after each time step.
+   * 
+   * @param networkHistoryRecorded true, if the network history is recorded
+   */
+  public void setNetworkHistoryRecorded(boolean networkHistoryRecorded) {
+    this.networkHistoryRecorded = networkHistoryRecorded;
+  }
+
+  /**
+   * Gets the sink that receives each measure of effectiveness record as it is logged.
+   * 
+   * @return the MOE sink, or null
+   */
+  public I_MoeSink getMoeSink() {
+    return moeSink;
+  }
+
+  /**
+   * Sets the sink that receives each measure of effectiveness record as it is logged. Streamed
+   * records are not kept in the histories, which stay empty; the totals are kept as running sums
+   * and remain available after the simulation.
+   * 
+   * @param moeSink the MOE sink, or null to disable streaming
+   */
+  public void setMoeSink(I_MoeSink moeSink) {
+    this.moeSink = moeSink;
+  }
+
+  /**
+   * Gets the network history. Historical networks are materialized lazily from the recorded
+   * element changes.
    * 
    * @return the network history
    */
@@ -220,6 +347,18 @@ public class FullSimulator extends AbstractSimulator {
     return networkHistory;
   }
 
+  /**
+   * Saves the network history as a journal file that can be re-opened with
+   * {@link NetworkHistory#open(File)} without re-simulating.
+   * 
+   * @param target the journal file
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public void saveNetworkHistory(File target) throws IOException {
+    networkHistory.save(target);
+  }
+
   /**
    * Gets the crew surface days history.
    * 
@@ -289,11 +428,7 @@ public class FullSimulator extends AbstractSimulator {
    * @return the total crew surface days
    */
   public double getTotalCrewSurfaceDays() {
-    double amount = 0;
-    for (MoeCrewSurfaceDays moe : crewSurfaceDaysHistory) {
-      amount += moe.getAmount();
-    }
-    return amount;
+    return totalCrewSurfaceDays;
   }
 
   /**
@@ -302,11 +437,7 @@ public class FullSimulator extends AbstractSimulator {
    * @return the total crew time
    */
   public double getTotalCrewTime() {
-    double amount = 0;
-    for (MoeCrewTime moe : crewTimeHistory) {
-      amount += moe.getAmount();
-    }
-    return amount;
+    return totalCrewTime;
   }
 
   /**
@@ -315,11 +446,7 @@ public class FullSimulator extends AbstractSimulator {
    * @return the total exploration capability
    */
   public double getTotalExplorationCapability() {
-    double amount = 0;
-    for (MoeExplorationCapability moe : explorationCapabilityHistory) {
-      amount += moe.getDuration() * moe.getMass();
-    }
-    return amount;
+    return totalExplorationCapability;
   }
 
   /**
@@ -328,11 +455,7 @@ public class FullSimulator extends AbstractSimulator {
    * @return the total exploration mass delivered
    */
   public double getTotalExplorationMassDelivered() {
-    double amount = 0;
-    for (MoeExplorationMassDelivered moe : explorationMassDeliveredHistory) {
-      amount += moe.getAmount();
-    }
-    return amount;
+    return totalExplorationMassDelivered;
   }
 
   /**
@@ -341,11 +464,7 @@ public class FullSimulator extends AbstractSimulator {
    * @return the total launch mass
    */
   public double getTotalLaunchMass() {
-    double amount = 0;
-    for (MoeLaunchMass moe : launchMassHistory) {
-      amount += moe.getAmount();
-    }
-    return amount;
+    return totalLaunchMass;
   }
 
   /**
@@ -354,13 +473,7 @@ public class FullSimulator extends AbstractSimulator {
    * @return the total up mass capacity utilization
    */
   public double getTotalUpMassCapacityUtilization() {
-    double amount = 0;
-    double capacity = 0;
-    for (MoeMassCapacityUtilization moe : upMassCapacityUtilizationHistory) {
-      amount += moe.getAmount();
-      capacity += moe.getCapacity();
-    }
-    return amount / capacity;
+    return totalUpMass / totalUpMassCapacity;
   }
 
   /**
@@ -369,13 +482,7 @@ public class FullSimulator extends AbstractSimulator {
    * @return the total down mass capacity utilization
    */
   public double getTotalDownMassCapacityUtilization() {
-    double amount = 0;
-    double capacity = 0;
-    for (MoeMassCapacityUtilization moe : downMassCapacityUtilizationHistory) {
-      amount += moe.getAmount();
-      capacity += moe.getCapacity();
-    }
-    return amount / capacity;
+    return totalDownMass / totalDownMassCapacity;
   }
 
   /** The Constant APOLLO_17_EXPLORATION_CAPABILITY. */
@@ -393,4 +500,22 @@ public class FullSimulator extends AbstractSimulator {
     return (getTotalExplorationCapability() / APOLLO_17_EXPLORATION_CAPABILITY)
         / (getTotalLaunchMass() / APOLLO_17_LAUNCH_MASS);
   }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.AbstractSimulator#getMeasures()
+   */
+  public Map<String, Double> getMeasures() {
+    Map<String, Double> measures = super.getMeasures();
+    measures.put("Launch Mass", getTotalLaunchMass());
+    measures.put("Crew Time", getTotalCrewTime());
+    measures.put("Crew Surface Days", getTotalCrewSurfaceDays());
+    measures.put("Exploration Capability", getTotalExplorationCapability());
+    measures.put("Exploration Mass Delivered", getTotalExplorationMassDelivered());
+    measures.put("Up Mass Capacity Utilization", getTotalUpMassCapacityUtilization());
+    measures.put("Down Mass Capacity Utilization", getTotalDownMassCapacityUtilization());
+    measures.put("Relative Exploration Capability", getTotalRelativeExplorationCapability());
+    return measures;
+  }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import java.util.Map;
+
+import edu.mit.spacenet.simulator.moe.MoeCrewSurfaceDays;
+import edu.mit.spacenet.simulator.moe.MoeCrewTime;
+import edu.mit.spacenet.simulator.moe.MoeExplorationCapability;
+import edu.mit.spacenet.simulator.moe.MoeExplorationMassDelivered;
+import edu.mit.spacenet.simulator.moe.MoeLaunchMass;
+import edu.mit.spacenet.simulator.moe.MoeMassCapacityUtilization;
+
+/**
+ * Interface for a sink of measure of effectiveness records. A sink attached to a full simulator
+ * receives each record as soon as it is logged, so long simulations can be monitored (or written
+ * out) without waiting for the histories to complete.
+ * 
+ * @author Paul Grogan
+ */
+public interface I_MoeSink {
+
+  /**
+   * Records a crew surface days log.
+   * 
+   * @param moe the crew surface days log
+   */
+  public void crewSurfaceDays(MoeCrewSurfaceDays moe);
+
+  /**
+   * Records a crew time log.
+   * 
+   * @param moe the crew time log
+   */
+  public void crewTime(MoeCrewTime moe);
+
+  /**
+   * Records an exploration capability log.
+   * 
+   * @param moe the exploration capability log
+   */
+  public void explorationCapability(MoeExplorationCapability moe);
+
+  /**
+   * Records an exploration mass delivered log.
+   * 
+   * @param moe the exploration mass delivered log
+   */
+  public void explorationMassDelivered(MoeExplorationMassDelivered moe);
+
+  /**
+   * Records a launch mass log.
+   * 
+   * @param moe the launch mass log
+   */
+  public void launchMass(MoeLaunchMass moe);
+
+  /**
+   * Records an up mass capacity utilization log.
+   * 
+   * @param moe the mass capacity utilization log
+   */
+  public void upMassCapacityUtilization(MoeMassCapacityUtilization moe);
+
+  /**
+   * Records a down mass capacity utilization log.
+   * 
+   * @param moe the mass capacity utilization log
+   */
+  public void downMassCapacityUtilization(MoeMassCapacityUtilization moe);
+
+  /**
+   * Records the totals of a completed simulation.
+   * 
+   * @param totals the total of each measure, keyed by measure name
+   */
+  public void totals(Map<String, Double> totals);
+
+  /**
+   * Flushes any buffered records.
+   */
+  public void flush();
+}
@@ -14,6 +14,7 @@
 package edu.mit.spacenet.simulator;
 
 import java.util.List;
+import java.util.Map;
 
 import edu.mit.spacenet.domain.ClassOfSupply;
 import edu.mit.spacenet.domain.element.I_Element;
@@ -22,6 +23,7 @@ import edu.mit.spacenet.domain.resource.DemandSet;
 import edu.mit.spacenet.scenario.Mission;
 import edu.mit.spacenet.scenario.Scenario;
 import edu.mit.spacenet.simulator.event.I_Event;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * Interface for a simulator that executes events and updates a network of objects.
@@ -77,6 +79,13 @@ public interface I_Simulator {
    */
   public List<SimDemand> getUnsatisfiedDemands();
 
+  /**
+   * Reports an error that does not interrupt the executing event, such as an unsatisfied demand.
+   * 
+   * @param error the error
+   */
+  public void report(SimError error);
+
   /**
    * Gets a list of the scavenging operations.
    * 
@@ -91,6 +100,14 @@ public interface I_Simulator {
    */
   public List<SimRepair> getRepairedParts();
 
+  /**
+   * Gets the measures of effectiveness of a finished simulation, such as the unsatisfied demand
+   * mass and the error and warning counts.
+   * 
+   * @return the measures keyed by measure name
+   */
+  public Map<String, Double> getMeasures();
+
   /**
    * Gets the demand history for an element.
    * 
@@ -186,6 +203,13 @@ public interface I_Simulator {
    */
   public Scenario getScenario();
 
+  /**
+   * Gets the precision and constraint context of the simulation.
+   * 
+   * @return the simulation context
+   */
+  public SimulationContext getContext();
+
   /**
    * Gets whether estimated packing demands are added to the demands.
    * 
@@ -213,4 +237,18 @@ public interface I_Simulator {
    * @param demandsSatisfied the new resources consumed
    */
   public void setDemandsSatisfied(boolean demandsSatisfied);
+
+  /**
+   * Gets the machine-readable trace sink that receives executed event traces.
+   * 
+   * @return the trace sink, or null if tracing is disabled
+   */
+  public I_TraceSink getTraceSink();
+
+  /**
+   * Sets the machine-readable trace sink that receives executed event traces.
+   * 
+   * @param traceSink the trace sink, or null to disable tracing
+   */
+  public void setTraceSink(I_TraceSink traceSink);
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import edu.mit.spacenet.simulator.event.I_Event;
+
+/**
+ * Interface for a machine-readable sink of simulation traces. A sink is only called when it is
+ * attached to a simulator, so an unattached sink has no formatting cost.
+ * 
+ * @author Paul Grogan
+ */
+public interface I_TraceSink {
+
+  /**
+   * Traces a message logged by an event during execution.
+   * 
+   * @param time the simulation time
+   * @param event the event being executed
+   * @param message the parameterized message, using {} placeholders
+   * @param parameters the message parameters
+   */
+  public void trace(double time, I_Event event, String message, Object[] parameters);
+
+  /**
+   * Flushes any buffered traces.
+   */
+  public void flush();
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.mit.spacenet.domain.element.I_Element;
+import edu.mit.spacenet.domain.network.Location;
+import edu.mit.spacenet.domain.resource.Demand;
+import edu.mit.spacenet.domain.resource.DemandSet;
+import edu.mit.spacenet.domain.resource.Item;
+import edu.mit.spacenet.domain.resource.ResourceKey;
+import edu.mit.spacenet.scenario.ItemDiscretization;
+
+/**
+ * Converts continuous item demands into whole items. The fractional remainders are accumulated per
+ * element, per location, or per scenario depending on the item discretization, and per item. Scopes
+ * and items are numbered with the same equality as the domain objects (type and uid for elements,
+ * type and tid for locations, so that a node and an edge with the same tid are kept apart, and type,
+ * tid and environment for items), and each pair of numbers is keyed in a primitive open-addressing
+ * table so that each demand is discretized in constant time regardless of the number of items
+ * demanded.
+ * 
+ * @author Paul Grogan
+ */
+class ItemDiscretizer {
+  private static final int INITIAL_CAPACITY = 64;
+
+  private ItemDiscretization discretization;
+  private double aggregation;
+  private final Map<ScopeKey, Integer> scopes = new HashMap<ScopeKey, Integer>();
+  private final Map<ResourceKey, Integer> items = new HashMap<ResourceKey, Integer>();
+  private long[] keys;
+  private double[] remainders;
+  private boolean[] used;
+  private int size;
+
+  /**
+   * Instantiates a new item discretizer that does not discretize demands.
+   */
+  ItemDiscretizer() {
+    reset(ItemDiscretization.NONE, 0);
+  }
+
+  /**
+   * Clears all accumulated remainders and sets the discretization parameters.
+   * 
+   * @param discretization the item discretization
+   * @param aggregation the fraction of an item at which a whole item is demanded
+   */
+  void reset(ItemDiscretization discretization, double aggregation) {
+    this.discretization = discretization;
+    this.aggregation = aggregation;
+    scopes.clear();
+    items.clear();
+    keys = new long[INITIAL_CAPACITY];
+    remainders = new double[INITIAL_CAPACITY];
+    used = new boolean[INITIAL_CAPACITY];
+    size = 0;
+  }
+
+  /**
+   * Discretizes the item demands in a demand set. Each item demand is replaced by the number of
+   * whole items accumulated for its element, location, or scenario, and the fractional remainder is
+   * carried over to later demands. Demands with zero amount are cleaned from the set.
+   * 
+   * @param demands the demands
+   * @param element the demanding element, null for mission demands
+   * @param location the location of the demands
+   * 
+   * @return the discretized demands
+   */
+  DemandSet discretize(DemandSet demands, I_Element element, Location location) {
+    ScopeKey scopeKey;
+    if (discretization == ItemDiscretization.BY_ELEMENT && element != null) {
+      scopeKey = new ScopeKey(element.getClass(), element.getUid());
+    } else if (discretization == ItemDiscretization.BY_LOCATION && location != null) {
+      scopeKey = new ScopeKey(location.getClass(), location.getTid());
+    } else if (discretization == ItemDiscretization.BY_SCENARIO) {
+      scopeKey = new ScopeKey(null, 0);
+    } else {
+      demands.clean();
+      return demands;
+    }
+    long scope = (long) getNumber(scopes, scopeKey) << 32;
+    for (Demand demand : demands) {
+      if (demand.getResource() instanceof Item) {
+        int slot = slot(scope | getNumber(items, new ResourceKey(demand.getResource())));
+        double remainder = remainders[slot] + demand.getAmount();
+        long items = 0;
+        if (remainder >= aggregation) {
+          // subtracting whole items is exact, so correct the floor estimate by comparison
+          items = (long) Math.floor(remainder - aggregation) + 1;
+          while (remainder - items >= aggregation) {
+            items++;
+          }
+          while (items > 1 && remainder - (items - 1) < aggregation) {
+            items--;
+          }
+        }
+        demand.setAmount(items);
+        remainders[slot] = remainder - items;
+      }
+    }
+    demands.clean();
+    return demands;
+  }
+
+  private static <K> int getNumber(Map<K, Integer> numbers, K key) {
+    Integer number = numbers.get(key);
+    if (number == null) {
+      number = numbers.size();
+      numbers.put(key, number);
+    }
+    return number;
+  }
+
+  /**
+   * Gets the table slot for a key, inserting a zero remainder if the key is not yet present.
+   * 
+   * @param key the scope and item key
+   * 
+   * @return the slot index
+   */
+  private int slot(long key) {
+    int mask = keys.length - 1;
+    int i = hash(key) & mask;
+    while (used[i]) {
+      if (keys[i] == key) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    if (2 * (size + 1) > keys.length) {
+      grow();
+      return slot(key);
+    }
+    used[i] = true;
+    keys[i] = key;
+    remainders[i] = 0;
+    size++;
+    return i;
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    double[] oldRemainders = remainders;
+    boolean[] oldUsed = used;
+    keys = new long[2 * oldKeys.length];
+    remainders = new double[keys.length];
+    used = new boolean[keys.length];
+    int mask = keys.length - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldUsed[j]) {
+        int i = hash(oldKeys[j]) & mask;
+        while (used[i]) {
+          i = (i + 1) & mask;
+        }
+        used[i] = true;
+        keys[i] = oldKeys[j];
+        remainders[i] = oldRemainders[j];
+      }
+    }
+  }
+
+  private static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  /**
+   * A hash key for an element (type and uid), a location (type and tid), or the scenario.
+   */
+  private static final class ScopeKey {
+    private final Class<?> type;
+    private final int id;
+
+    ScopeKey(Class<?> type, int id) {
+      this.type = type;
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (!(object instanceof ScopeKey))
+        return false;
+      ScopeKey key = (ScopeKey) object;
+      return type == key.type && id == key.id;
+    }
+
+    @Override
+    public int hashCode() {
+      return (type == null ? 0 : type.hashCode()) * 31 + id;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Map;
+
+import com.google.gson.stream.JsonWriter;
+
+import edu.mit.spacenet.domain.network.Location;
+
+/**
+ * A measure of effectiveness sink that writes one JSON object per line for each record, followed
+ * by a final line with the totals. Fields that do not apply to a measure are omitted.
+ * 
+ * @author Paul Grogan
+ */
+public class JsonMoeSink extends AbstractMoeSink {
+
+  /**
+   * Instantiates a new JSON MOE sink.
+   * 
+   * @param writer the writer to receive the JSON lines
+   */
+  public JsonMoeSink(Writer writer) {
+    super(writer);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.AbstractMoeSink#write(java.lang.String, double,
+   * edu.mit.spacenet.domain.network.Location, java.lang.String, double, double, double)
+   */
+  protected void write(String measure, double time, Location location, String type,
+      double amount, double capacity, double duration) throws IOException {
+    JsonWriter json = new JsonWriter(getWriter());
+    json.beginObject();
+    json.name("measure").value(measure);
+    json.name("time").value(time);
+    if (location != null) {
+      json.name("location").value(location.getName());
+    }
+    if (type != null) {
+      json.name("type").value(type);
+    }
+    json.name("amount").value(amount);
+    if (!Double.isNaN(capacity)) {
+      json.name("capacity").value(capacity);
+    }
+    if (!Double.isNaN(duration)) {
+      json.name("duration").value(duration);
+    }
+    json.endObject();
+    getWriter().write('\n');
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.I_MoeSink#totals(java.util.Map)
+   */
+  public void totals(Map<String, Double> totals) {
+    try {
+      JsonWriter json = new JsonWriter(getWriter());
+      json.beginObject();
+      json.name("totals").beginObject();
+      for (Map.Entry<String, Double> total : totals.entrySet()) {
+        // undefined totals (e.g. utilization without any capacity) are written as null
+        if (total.getValue() == null || total.getValue().isNaN()
+            || total.getValue().isInfinite()) {
+          json.name(total.getKey()).nullValue();
+        } else {
+          json.name(total.getKey()).value(total.getValue());
+        }
+      }
+      json.endObject();
+      json.endObject();
+      getWriter().write('\n');
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import org.apache.logging.log4j.message.ParameterizedMessage;
+
+import com.google.gson.stream.JsonWriter;
+
+import edu.mit.spacenet.simulator.event.I_Event;
+
+/**
+ * A trace sink that writes one JSON object per line with the time, event type, event name, and
+ * formatted message of each trace. Write failures are thrown as unchecked I/O exceptions, which
+ * abort the simulation.
+ * 
+ * @author Paul Grogan
+ */
+public class JsonTraceSink implements I_TraceSink {
+  private Writer writer;
+
+  /**
+   * Instantiates a new JSON trace sink.
+   * 
+   * @param writer the writer to receive the JSON lines
+   */
+  public JsonTraceSink(Writer writer) {
+    this.writer = writer;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.I_TraceSink#trace(double,
+   * edu.mit.spacenet.simulator.event.I_Event, java.lang.String, java.lang.Object[])
+   */
+  public synchronized void trace(double time, I_Event event, String message,
+      Object[] parameters) {
+    try {
+      JsonWriter json = new JsonWriter(writer);
+      json.beginObject();
+      json.name("time").value(time);
+      json.name("type").value(event.getEventType() == null ? null : event.getEventType().name());
+      json.name("event").value(event.getName());
+      json.name("message").value(ParameterizedMessage.format(message, parameters));
+      json.endObject();
+      writer.write('\n');
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.I_TraceSink#flush()
+   */
+  public synchronized void flush() {
+    try {
+      writer.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -43,17 +43,24 @@ public class MiniSimulator extends AbstractSimulator {
    */
   public void simulate() {
     initializeSimulation();
-    locationHistory.clear();
+    try {
+      locationHistory.clear();
+      ContainerHistory containerHistory = new ContainerHistory();
 
-    // simulate events, serializing and saving after each time step
-    while (getEvents().peek() != null) {
-      getNextEvent();
+      // simulate events, serializing and saving after each time step
+      while (getEvents().peek() != null) {
+        getNextEvent();
 
-      locationHistory.add(new SimState(getTime(), getScenario().getNetwork()));
-      handleDemands(); // TODO 7/12/2010: added demand cycle in for pre-manifested resources
-                       // (delta-v feasibility en route)
-      executeEvent();
-      locationHistory.add(new SimState(getTime(), getScenario().getNetwork()));
+        locationHistory
+            .add(new SimState(getTime(), containerHistory, getScenario().getNetwork()));
+        handleDemands(); // TODO 7/12/2010: added demand cycle in for pre-manifested resources
+                         // (delta-v feasibility en route)
+        executeEvent();
+        locationHistory
+            .add(new SimState(getTime(), containerHistory, getScenario().getNetwork()));
+      }
+    } finally {
+      completeSimulation();
     }
   }
 
@@ -0,0 +1,840 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import edu.mit.spacenet.domain.ClassOfSupply;
+import edu.mit.spacenet.domain.I_Container;
+import edu.mit.spacenet.domain.element.I_Carrier;
+import edu.mit.spacenet.domain.element.I_Element;
+import edu.mit.spacenet.domain.element.I_State;
+import edu.mit.spacenet.domain.element.PartApplication;
+import edu.mit.spacenet.domain.element.PropulsiveVehicle;
+import edu.mit.spacenet.domain.element.ResourceContainer;
+import edu.mit.spacenet.domain.element.ResourceTank;
+import edu.mit.spacenet.domain.element.SurfaceVehicle;
+import edu.mit.spacenet.domain.network.Location;
+import edu.mit.spacenet.domain.network.Network;
+import edu.mit.spacenet.domain.network.edge.Edge;
+import edu.mit.spacenet.domain.network.node.Node;
+import edu.mit.spacenet.domain.resource.I_Resource;
+import edu.mit.spacenet.io.XStreamEngine;
+import edu.mit.spacenet.util.SerializeUtil;
+import edu.mit.spacenet.util.SimulationContext;
+
+/**
+ * A history of the scenario network recorded as an append-only binary journal of element changes.
+ * Each recorded time step only writes the elements whose container, registration, state, resource
+ * contents, or part quantities changed since the previous step, and a checkpoint of every element
+ * is written at regular intervals. The journal is kept in a temporary file so only a fixed amount
+ * of state per element and per step remains on the heap. Historical networks are materialized on
+ * demand by replaying the journal from the nearest checkpoint into a working copy of the network,
+ * which is then copied so that each materialized network is independent of the others.
+ * 
+ * A history can be saved to a journal file and re-opened later without re-running the simulation.
+ * 
+ * @author Paul Grogan
+ */
+public class NetworkHistory extends AbstractList<SimNetwork> {
+  private static final int MAGIC = 0x534E4A4C;
+  private static final int VERSION = 1;
+  private static final byte STEP = 1, CHECKPOINT = 2, TRAILER = 3;
+  private static final int HEADER_LENGTH = 8;
+
+  /** The number of steps between journal checkpoints. */
+  public static final int CHECKPOINT_INTERVAL = 32;
+
+  // temporary journals of open histories, deleted on exit if they were never cleared
+  private static final Set<File> temporaryFiles = new HashSet<File>();
+
+  static {
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      synchronized (temporaryFiles) {
+        for (File file : temporaryFiles) {
+          file.delete();
+        }
+      }
+    }, "network-history-cleanup"));
+  }
+
+  private Network liveNetwork;
+  private Map<Integer, ElementRecord> lastRecords;
+  private List<I_Resource> resources;
+  private Map<I_Resource, Integer> resourceIds;
+
+  private File file;
+  private boolean temporary;
+  private DataOutputStream output;
+  private RandomAccessFile input;
+  private long length;
+  private ByteArrayOutputStream buffer;
+  private DataOutputStream bufferOutput;
+
+  private int size;
+  private double[] times;
+  private long[] stepOffsets;
+  private int checkpointCount;
+  private int[] checkpointSteps;
+  private long[] checkpointOffsets;
+
+  private Network cursor;
+  private Map<Integer, I_Element> cursorElements;
+  private Map<Integer, ElementRecord> cursorRecords;
+  private int cursorStep;
+
+  /**
+   * Instantiates a new network history.
+   */
+  public NetworkHistory() {
+    lastRecords = new HashMap<Integer, ElementRecord>();
+    resources = new ArrayList<I_Resource>();
+    resourceIds = new HashMap<I_Resource, Integer>();
+    buffer = new ByteArrayOutputStream();
+    bufferOutput = new DataOutputStream(buffer);
+    times = new double[64];
+    stepOffsets = new long[64];
+    checkpointSteps = new int[8];
+    checkpointOffsets = new long[8];
+    cursorStep = -1;
+  }
+
+  /**
+   * Records the state of a network at a simulation time. Only the elements that changed since the
+   * last recorded step are written to the journal.
+   * 
+   * @param time the simulation time
+   * @param network the scenario network
+   */
+  public synchronized void record(double time, Network network) {
+    if (liveNetwork != network) {
+      clear();
+      liveNetwork = network;
+    }
+    try {
+      if (output == null) {
+        createJournal();
+      }
+      int step = size;
+      List<ElementRecord> changes = new ArrayList<ElementRecord>();
+      for (I_Element element : network.getRegistrar().values()) {
+        record(changes, element, true);
+      }
+      for (I_Element element : network.getRemovedRegistrar().values()) {
+        record(changes, element, false);
+      }
+      if (size == times.length) {
+        times = Arrays.copyOf(times, 2 * size);
+        stepOffsets = Arrays.copyOf(stepOffsets, 2 * size);
+      }
+      times[step] = SimulationContext.current().getRoundedTime(time);
+      stepOffsets[step] = length;
+      size++;
+
+      bufferOutput.writeByte(STEP);
+      bufferOutput.writeInt(step);
+      bufferOutput.writeDouble(times[step]);
+      writeRecords(changes);
+      if (step > 0 && step % CHECKPOINT_INTERVAL == 0) {
+        if (checkpointCount == checkpointSteps.length) {
+          checkpointSteps = Arrays.copyOf(checkpointSteps, 2 * checkpointCount);
+          checkpointOffsets = Arrays.copyOf(checkpointOffsets, 2 * checkpointCount);
+        }
+        checkpointSteps[checkpointCount] = step;
+        checkpointOffsets[checkpointCount] = length + buffer.size();
+        checkpointCount++;
+        bufferOutput.writeByte(CHECKPOINT);
+        bufferOutput.writeInt(step);
+        writeRecords(lastRecords.values());
+      }
+      length += buffer.size();
+      buffer.writeTo(output);
+      buffer.reset();
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot write network history journal", e);
+    }
+  }
+
+  private void record(List<ElementRecord> changes, I_Element element, boolean registered) {
+    ElementRecord last = lastRecords.get(element.getUid());
+    if (last == null || !last.matches(element, registered)) {
+      ElementRecord record = new ElementRecord(element, registered);
+      lastRecords.put(element.getUid(), record);
+      changes.add(record);
+    }
+  }
+
+  private void createJournal() throws IOException {
+    file = File.createTempFile("spacenet", ".journal");
+    temporary = true;
+    synchronized (temporaryFiles) {
+      temporaryFiles.add(file);
+    }
+    output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    output.writeInt(MAGIC);
+    output.writeInt(VERSION);
+    length = HEADER_LENGTH;
+  }
+
+  private void writeRecords(Collection<ElementRecord> records) throws IOException {
+    bufferOutput.writeInt(records.size());
+    for (ElementRecord record : records) {
+      record.write(bufferOutput, this);
+    }
+  }
+
+  private int getResourceId(I_Resource resource) {
+    Integer id = resourceIds.get(resource);
+    if (id == null) {
+      id = resources.size();
+      resources.add(resource);
+      resourceIds.put(resource, id);
+    }
+    return id;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.AbstractList#get(int)
+   */
+  @Override
+  public synchronized SimNetwork get(int index) {
+    if (index < 0 || index >= size)
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    return new SimNetwork(times[index], this, index);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.AbstractCollection#size()
+   */
+  @Override
+  public synchronized int size() {
+    return size;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.util.AbstractList#clear()
+   */
+  @Override
+  public synchronized void clear() {
+    IOException exception = null;
+    try {
+      if (output != null)
+        output.close();
+    } catch (IOException e) {
+      exception = e;
+    }
+    try {
+      if (input != null)
+        input.close();
+    } catch (IOException e) {
+      exception = e;
+    }
+    if (file != null && temporary) {
+      file.delete();
+      synchronized (temporaryFiles) {
+        temporaryFiles.remove(file);
+      }
+    }
+    file = null;
+    output = null;
+    input = null;
+    length = 0;
+    liveNetwork = null;
+    lastRecords.clear();
+    resources.clear();
+    resourceIds.clear();
+    size = 0;
+    checkpointCount = 0;
+    cursor = null;
+    cursorElements = null;
+    cursorRecords = null;
+    cursorStep = -1;
+    if (exception != null)
+      throw new UncheckedIOException("Cannot close network history journal", exception);
+  }
+
+  /**
+   * Saves this history as a journal file that can be re-opened without re-simulating.
+   * 
+   * @param target the journal file
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  public synchronized void save(File target) throws IOException {
+    if (output != null)
+      output.flush();
+    DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(target)));
+    try {
+      long trailerOffset;
+      if (file == null) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        trailerOffset = HEADER_LENGTH;
+      } else {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+          byte[] bytes = new byte[8192];
+          long remaining = length;
+          while (remaining > 0) {
+            int n = in.read(bytes, 0, (int) Math.min(bytes.length, remaining));
+            if (n < 0)
+              throw new IOException("Truncated network history journal");
+            out.write(bytes, 0, n);
+            remaining -= n;
+          }
+        } finally {
+          in.close();
+        }
+        trailerOffset = length;
+      }
+      out.writeByte(TRAILER);
+      out.writeInt(size);
+      for (int i = 0; i < size; i++) {
+        out.writeDouble(times[i]);
+        out.writeLong(stepOffsets[i]);
+      }
+      out.writeInt(checkpointCount);
+      for (int i = 0; i < checkpointCount; i++) {
+        out.writeInt(checkpointSteps[i]);
+        out.writeLong(checkpointOffsets[i]);
+      }
+      List<Object> definitions = new ArrayList<Object>();
+      definitions.add(liveNetwork);
+      definitions.add(new ArrayList<I_Resource>(resources));
+      ByteArrayOutputStream xml = new ByteArrayOutputStream();
+      XStreamEngine.saveObject(definitions, xml);
+      out.writeInt(xml.size());
+      xml.writeTo(out);
+      out.writeLong(trailerOffset);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Opens a journal file previously written by {@link #save(File)}. The opened history is
+   * read-only; recording a new network into it starts a new temporary journal.
+   * 
+   * @param source the journal file
+   * 
+   * @return the network history
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @SuppressWarnings("unchecked")
+  public static NetworkHistory open(File source) throws IOException {
+    RandomAccessFile in = new RandomAccessFile(source, "r");
+    try {
+      if (in.length() < HEADER_LENGTH + 8 || in.readInt() != MAGIC || in.readInt() != VERSION)
+        throw new IOException("Not a network history journal: " + source);
+      in.seek(in.length() - 8);
+      long trailerOffset = in.readLong();
+      byte[] bytes = new byte[(int) (in.length() - 8 - trailerOffset)];
+      in.seek(trailerOffset);
+      in.readFully(bytes);
+      DataInputStream trailer = new DataInputStream(new ByteArrayInputStream(bytes));
+      if (trailer.readByte() != TRAILER)
+        throw new IOException("Missing network history journal trailer: " + source);
+
+      NetworkHistory history = new NetworkHistory();
+      history.size = trailer.readInt();
+      history.times = new double[Math.max(1, history.size)];
+      history.stepOffsets = new long[Math.max(1, history.size)];
+      for (int i = 0; i < history.size; i++) {
+        history.times[i] = trailer.readDouble();
+        history.stepOffsets[i] = trailer.readLong();
+      }
+      history.checkpointCount = trailer.readInt();
+      history.checkpointSteps = new int[Math.max(1, history.checkpointCount)];
+      history.checkpointOffsets = new long[Math.max(1, history.checkpointCount)];
+      for (int i = 0; i < history.checkpointCount; i++) {
+        history.checkpointSteps[i] = trailer.readInt();
+        history.checkpointOffsets[i] = trailer.readLong();
+      }
+      byte[] xml = new byte[trailer.readInt()];
+      trailer.readFully(xml);
+      List<Object> definitions =
+          (List<Object>) XStreamEngine.openObject(new ByteArrayInputStream(xml));
+      history.liveNetwork = (Network) definitions.get(0);
+      history.resources.addAll((List<I_Resource>) definitions.get(1));
+      history.file = source;
+      history.temporary = false;
+      history.length = trailerOffset;
+      history.input = in;
+      return history;
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    } catch (RuntimeException e) {
+      in.close();
+      throw new IOException("Cannot read network history journal: " + source, e);
+    }
+  }
+
+  /**
+   * Materializes the network as it was at a recorded step. Each call returns a new, independent
+   * copy of the working network; callers that only need the masses of an element or location should
+   * use {@link #getTotalMassByCos(int, int)} or {@link #getTotalMassByCos(int, Location)}, which
+   * read the working network without copying it.
+   * 
+   * @param step the recorded step
+   * 
+   * @return the historical network
+   */
+  synchronized Network getNetwork(int step) {
+    moveCursor(step);
+    return (Network) SerializeUtil.deepClone(cursor);
+  }
+
+  /**
+   * Gets the total mass of an element by class of supply as it was at a recorded step.
+   * 
+   * @param step the recorded step
+   * @param uid the element uid
+   * 
+   * @return the masses indexed by class of supply ordinal (kilograms), or null if the element was
+   *         not in the network at that step
+   * 
+   * @see I_Element#addTotalMassByCos(double[])
+   */
+  synchronized double[] getTotalMassByCos(int step, int uid) {
+    moveCursor(step);
+    I_Element element = cursor.getRegistrar().get(uid);
+    if (element == null)
+      element = cursor.getRemovedRegistrar().get(uid);
+    if (element == null)
+      return null;
+    double[] masses = new double[ClassOfSupply.values().length];
+    element.addTotalMassByCos(masses);
+    return masses;
+  }
+
+  /**
+   * Gets the total mass of the contents of a location by class of supply as it was at a recorded
+   * step.
+   * 
+   * @param step the recorded step
+   * @param location the node or edge, matched by type identifier
+   * 
+   * @return the masses indexed by class of supply ordinal (kilograms), or null if the location is
+   *         not in the network
+   * 
+   * @see Location#addTotalMassByCos(double[])
+   */
+  synchronized double[] getTotalMassByCos(int step, Location location) {
+    moveCursor(step);
+    Location cursorLocation = location instanceof Node ? cursor.getNodeByTid(location.getTid())
+        : cursor.getEdgeByTid(location.getTid());
+    if (cursorLocation == null)
+      return null;
+    double[] masses = new double[ClassOfSupply.values().length];
+    cursorLocation.addTotalMassByCos(masses);
+    return masses;
+  }
+
+  /**
+   * Moves the working network to a recorded step, creating it from the live network on first use.
+   * 
+   * @param step the recorded step
+   */
+  private void moveCursor(int step) {
+    if (cursor == null) {
+      cursor = (Network) SerializeUtil.deepClone(liveNetwork);
+      cursorElements = new HashMap<Integer, I_Element>();
+      cursorElements.putAll(cursor.getRegistrar());
+      cursorElements.putAll(cursor.getRemovedRegistrar());
+      cursorRecords = null;
+      cursorStep = -1;
+    }
+    if (cursorStep != step) {
+      try {
+        replay(step);
+      } catch (IOException e) {
+        throw new IllegalStateException("Cannot read network history journal", e);
+      }
+      apply();
+      cursorStep = step;
+    }
+  }
+
+  /**
+   * Replays the journal up to a step, starting from the current cursor position when it is at or
+   * after the nearest checkpoint and from the nearest checkpoint otherwise.
+   * 
+   * @param step the recorded step
+   * 
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  private void replay(int step) throws IOException {
+    int checkpoint = -1;
+    int low = 0;
+    int high = checkpointCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (checkpointSteps[mid] <= step) {
+        checkpoint = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    long start;
+    if (cursorRecords != null && cursorStep < step
+        && (checkpoint < 0 || checkpointSteps[checkpoint] <= cursorStep)) {
+      start = stepOffsets[cursorStep + 1];
+    } else {
+      cursorRecords = new HashMap<Integer, ElementRecord>();
+      start = checkpoint < 0 ? stepOffsets[0] : checkpointOffsets[checkpoint];
+    }
+    long end = step + 1 < size ? stepOffsets[step + 1] : length;
+
+    if (output != null)
+      output.flush();
+    if (input == null)
+      input = new RandomAccessFile(file, "r");
+    byte[] bytes = new byte[(int) (end - start)];
+    input.seek(start);
+    input.readFully(bytes);
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    while (in.available() > 0) {
+      byte type = in.readByte();
+      in.readInt(); // step
+      if (type == STEP) {
+        in.readDouble(); // time
+      } else if (type == CHECKPOINT) {
+        cursorRecords.clear();
+      } else {
+        throw new IOException("Corrupt network history journal");
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        ElementRecord record = ElementRecord.read(in, resources);
+        cursorRecords.put(record.uid, record);
+      }
+    }
+  }
+
+  private void apply() {
+    Map<Integer, Node> nodes = new HashMap<Integer, Node>();
+    for (Node node : cursor.getNodes()) {
+      nodes.put(node.getTid(), node);
+      node.getContents().clear();
+    }
+    Map<Integer, Edge> edges = new HashMap<Integer, Edge>();
+    for (Edge edge : cursor.getEdges()) {
+      edges.put(edge.getTid(), edge);
+      edge.getContents().clear();
+    }
+    for (I_Element element : cursorElements.values()) {
+      if (element instanceof I_Carrier) {
+        ((I_Carrier) element).getContents().clear();
+      }
+      element.setContainer(null);
+    }
+    cursor.getRegistrar().clear();
+    cursor.getRemovedRegistrar().clear();
+
+    Map<I_Element, ElementRecord> records = new HashMap<I_Element, ElementRecord>();
+    for (ElementRecord record : cursorRecords.values()) {
+      I_Element element = cursorElements.get(record.uid);
+      if (element != null) {
+        records.put(element, record);
+        if (record.registered) {
+          cursor.getRegistrar().put(element.getUid(), element);
+        } else {
+          cursor.getRemovedRegistrar().put(element.getUid(), element);
+        }
+      }
+    }
+    for (I_Element element : records.keySet()) {
+      ElementRecord record = records.get(element);
+      I_Container container = null;
+      if (record.containerType == ElementRecord.NODE) {
+        container = nodes.get(record.containerId);
+      } else if (record.containerType == ElementRecord.EDGE) {
+        container = edges.get(record.containerId);
+      } else if (record.containerType == ElementRecord.CARRIER) {
+        container = (I_Carrier) cursorElements.get(record.containerId);
+      }
+      if (container != null) {
+        element.setContainer(container);
+        container.getContents().add(element);
+      }
+      record.apply(element);
+    }
+  }
+
+  /**
+   * An immutable record of the mutable simulation state of one element.
+   */
+  private static class ElementRecord {
+    static final int NONE = 0, NODE = 1, EDGE = 2, CARRIER = 3;
+
+    final int uid;
+    final boolean registered;
+    final int containerType;
+    final int containerId;
+    final int stateIndex;
+    final double[] partQuantities;
+    final double[] tankAmounts;
+    final SortedMap<I_Resource, Double> contents;
+
+    ElementRecord(I_Element element, boolean registered) {
+      uid = element.getUid();
+      this.registered = registered;
+      I_Container container = element.getContainer();
+      containerType = getContainerType(container);
+      containerId = getContainerId(container);
+      stateIndex = getStateIndex(element);
+      partQuantities = new double[element.getParts().size()];
+      int i = 0;
+      for (PartApplication part : element.getParts()) {
+        partQuantities[i++] = part.getQuantity();
+      }
+      tankAmounts = getTankAmounts(element);
+      if (element instanceof ResourceContainer) {
+        contents = new TreeMap<I_Resource, Double>(((ResourceContainer) element).getContents());
+      } else {
+        contents = null;
+      }
+    }
+
+    private ElementRecord(int uid, boolean registered, int containerType, int containerId,
+        int stateIndex, double[] partQuantities, double[] tankAmounts,
+        SortedMap<I_Resource, Double> contents) {
+      this.uid = uid;
+      this.registered = registered;
+      this.containerType = containerType;
+      this.containerId = containerId;
+      this.stateIndex = stateIndex;
+      this.partQuantities = partQuantities;
+      this.tankAmounts = tankAmounts;
+      this.contents = contents;
+    }
+
+    /**
+     * Writes this record to the journal.
+     * 
+     * @param out the journal output
+     * @param history the history that assigns resource identifiers
+     * 
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    void write(DataOutputStream out, NetworkHistory history) throws IOException {
+      out.writeInt(uid);
+      out.writeBoolean(registered);
+      out.writeByte(containerType);
+      out.writeInt(containerId);
+      out.writeInt(stateIndex);
+      out.writeInt(partQuantities.length);
+      for (double quantity : partQuantities) {
+        out.writeDouble(quantity);
+      }
+      out.writeInt(tankAmounts == null ? -1 : tankAmounts.length);
+      if (tankAmounts != null) {
+        for (double amount : tankAmounts) {
+          out.writeDouble(amount);
+        }
+      }
+      out.writeInt(contents == null ? -1 : contents.size());
+      if (contents != null) {
+        for (Map.Entry<I_Resource, Double> entry : contents.entrySet()) {
+          out.writeInt(history.getResourceId(entry.getKey()));
+          out.writeDouble(entry.getValue());
+        }
+      }
+    }
+
+    /**
+     * Reads a record from the journal.
+     * 
+     * @param in the journal input
+     * @param resources the resources indexed by journal identifier
+     * 
+     * @return the record
+     * 
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    static ElementRecord read(DataInputStream in, List<I_Resource> resources)
+        throws IOException {
+      int uid = in.readInt();
+      boolean registered = in.readBoolean();
+      int containerType = in.readByte();
+      int containerId = in.readInt();
+      int stateIndex = in.readInt();
+      double[] partQuantities = new double[in.readInt()];
+      for (int i = 0; i < partQuantities.length; i++) {
+        partQuantities[i] = in.readDouble();
+      }
+      int tanks = in.readInt();
+      double[] tankAmounts = tanks < 0 ? null : new double[tanks];
+      for (int i = 0; i < tanks; i++) {
+        tankAmounts[i] = in.readDouble();
+      }
+      int resourceCount = in.readInt();
+      SortedMap<I_Resource, Double> contents = null;
+      if (resourceCount >= 0) {
+        contents = new TreeMap<I_Resource, Double>();
+        for (int i = 0; i < resourceCount; i++) {
+          I_Resource resource = resources.get(in.readInt());
+          contents.put(resource, in.readDouble());
+        }
+      }
+      return new ElementRecord(uid, registered, containerType, containerId, stateIndex,
+          partQuantities, tankAmounts, contents);
+    }
+
+    /**
+     * Checks whether the current state of an element matches this record without allocating a new
+     * record.
+     * 
+     * @param element the element
+     * @param registered whether the element is in the active registrar
+     * 
+     * @return true, if the element is unchanged
+     */
+    boolean matches(I_Element element, boolean registered) {
+      if (this.registered != registered
+          || containerType != getContainerType(element.getContainer())
+          || containerId != getContainerId(element.getContainer())
+          || stateIndex != getStateIndex(element)
+          || partQuantities.length != element.getParts().size())
+        return false;
+      int i = 0;
+      for (PartApplication part : element.getParts()) {
+        if (Double.compare(partQuantities[i++], part.getQuantity()) != 0)
+          return false;
+      }
+      if (element instanceof ResourceTank) {
+        if (Double.compare(tankAmounts[0], ((ResourceTank) element).getAmount()) != 0)
+          return false;
+      } else if (element instanceof PropulsiveVehicle || element instanceof SurfaceVehicle) {
+        if (!Arrays.equals(tankAmounts, getTankAmounts(element)))
+          return false;
+      }
+      if (element instanceof ResourceContainer) {
+        return contents.equals(((ResourceContainer) element).getContents());
+      }
+      return true;
+    }
+
+    private static int getContainerType(I_Container container) {
+      if (container instanceof Node)
+        return NODE;
+      else if (container instanceof Edge)
+        return EDGE;
+      else if (container instanceof I_Carrier)
+        return CARRIER;
+      else
+        return NONE;
+    }
+
+    private static int getContainerId(I_Container container) {
+      if (container instanceof Location)
+        return ((Location) container).getTid();
+      else if (container instanceof I_Carrier)
+        return ((I_Carrier) container).getUid();
+      else
+        return 0;
+    }
+
+    private static int getStateIndex(I_Element element) {
+      int i = 0;
+      for (I_State state : element.getStates()) {
+        if (state == element.getCurrentState())
+          return i;
+        i++;
+      }
+      return -1;
+    }
+
+    private static double[] getTankAmounts(I_Element element) {
+      if (element instanceof ResourceTank) {
+        return new double[] {((ResourceTank) element).getAmount()};
+      } else if (element instanceof PropulsiveVehicle) {
+        PropulsiveVehicle vehicle = (PropulsiveVehicle) element;
+        return new double[] {
+            vehicle.getOmsFuelTank() == null ? 0 : vehicle.getOmsFuelTank().getAmount(),
+            vehicle.getRcsFuelTank() == null ? 0 : vehicle.getRcsFuelTank().getAmount()};
+      } else if (element instanceof SurfaceVehicle) {
+        SurfaceVehicle vehicle = (SurfaceVehicle) element;
+        return new double[] {vehicle.getFuelTank() == null ? 0 : vehicle.getFuelTank().getAmount()};
+      } else {
+        return null;
+      }
+    }
+
+    void apply(I_Element element) {
+      if (stateIndex < 0) {
+        element.setCurrentState(null);
+      } else {
+        Iterator<I_State> states = element.getStates().iterator();
+        for (int i = 0; i < stateIndex; i++) {
+          states.next();
+        }
+        element.setCurrentState(states.next());
+      }
+      int i = 0;
+      for (PartApplication part : element.getParts()) {
+        if (i < partQuantities.length)
+          part.setQuantity(partQuantities[i++]);
+      }
+      if (element instanceof ResourceTank) {
+        ((ResourceTank) element).setAmount(tankAmounts[0]);
+      } else if (element instanceof PropulsiveVehicle) {
+        PropulsiveVehicle vehicle = (PropulsiveVehicle) element;
+        if (vehicle.getOmsFuelTank() != null)
+          vehicle.getOmsFuelTank().setAmount(tankAmounts[0]);
+        if (vehicle.getRcsFuelTank() != null)
+          vehicle.getRcsFuelTank().setAmount(tankAmounts[1]);
+      } else if (element instanceof SurfaceVehicle) {
+        SurfaceVehicle vehicle = (SurfaceVehicle) element;
+        if (vehicle.getFuelTank() != null)
+          vehicle.getFuelTank().setAmount(tankAmounts[0]);
+      }
+      if (element instanceof ResourceContainer) {
+        ((ResourceContainer) element).getContents().clear();
+        ((ResourceContainer) element).getContents().putAll(contents);
+      }
+    }
+  }
+}
@@ -91,21 +91,28 @@ public class PreSimulator extends AbstractSimulator {
   public void simulate(double time, int priority, boolean reset) {
     if (getScenario() == null || reset) {
       initializeSimulation();
+    } else {
+      resumeSimulation();
     }
-    // simulate events up to target event
-    while (getEvents().peek() != null && getEvents().peek().getTime() <= time
-        && ((!(getEvents().peek() instanceof MissionEvent) && getEvents().peek().getTime() == time)
-            ? getEvents().peek().getPriority() < priority
-            : true)) {
-      getNextEvent();
-      handleDemands(); // 7/12/2010: added demand cycle in pre-sim for pre-manifested resources
-                       // (delta-v feasibility en route)
-      executeEvent();
+    try {
+      // simulate events up to target event
+      while (getEvents().peek() != null && getEvents().peek().getTime() <= time
+          && ((!(getEvents().peek() instanceof MissionEvent)
+              && getEvents().peek().getTime() == time)
+                  ? getEvents().peek().getPriority() < priority
+                  : true)) {
+        getNextEvent();
+        handleDemands(); // 7/12/2010: added demand cycle in pre-sim for pre-manifested resources
+                         // (delta-v feasibility en route)
+        executeEvent();
+      }
+      // 7-28-2011: added one last demands cycle to trigger demands before
+      // prospective event (e.g. resource transfer)
+      this.duration = time - getTime();
+      setTime(time);
+      handleDemands();
+    } finally {
+      completeSimulation();
     }
-    // 7-28-2011: added one last demands cycle to trigger demands before
-    // prospective event (e.g. resource transfer)
-    this.duration = time - getTime();
-    setTime(time);
-    handleDemands();
   }
 }
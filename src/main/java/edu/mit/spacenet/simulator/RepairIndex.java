@@ -0,0 +1,177 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.mit.spacenet.domain.element.I_Element;
+import edu.mit.spacenet.domain.element.PartApplication;
+import edu.mit.spacenet.domain.resource.I_Resource;
+import edu.mit.spacenet.domain.resource.ResourceKey;
+import edu.mit.spacenet.scenario.Mission;
+import edu.mit.spacenet.scenario.RepairItem;
+import edu.mit.spacenet.scenario.Scenario;
+import edu.mit.spacenet.util.DateFunctions;
+
+/**
+ * An index of the repaired items of a scenario by mission and element, and of the repairable part
+ * applications of elements by item. The index is built once per simulation so that repairing the
+ * demands of an element only visits the repair items of that element.
+ * 
+ * @author Paul Grogan
+ */
+class RepairIndex {
+  private final List<MissionRepairs> missions;
+  private final Map<Integer, Map<ResourceKey, PartApplication>> parts;
+
+  /**
+   * Instantiates a new repair index for the repaired items of a scenario. Only missions with
+   * repaired items are indexed, in the order of the mission list.
+   * 
+   * @param scenario the scenario
+   */
+  RepairIndex(Scenario scenario) {
+    missions = new ArrayList<MissionRepairs>();
+    parts = new HashMap<Integer, Map<ResourceKey, PartApplication>>();
+    for (Mission mission : scenario.getMissionList()) {
+      Set<RepairItem> items = scenario.getRepairedItems().get(mission);
+      if (items != null) {
+        missions.add(new MissionRepairs(mission, scenario, items));
+      }
+    }
+  }
+
+  /**
+   * Gets the missions with repaired items.
+   * 
+   * @return the mission repairs in mission list order
+   */
+  List<MissionRepairs> getMissions() {
+    return missions;
+  }
+
+  /**
+   * Checks whether any mission repairs items of an element.
+   * 
+   * @param element the element
+   * 
+   * @return true if the element has repair items, false otherwise
+   */
+  boolean isRepaired(I_Element element) {
+    for (MissionRepairs mission : missions) {
+      if (mission.items.containsKey(element.getUid())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gets the first part application of an element that applies a resource and can be repaired
+   * (positive mean time to repair). The part applications of each element are indexed on first
+   * use.
+   * 
+   * @param element the element
+   * @param resource the demanded resource
+   * 
+   * @return the repairable part application, or null if none exists
+   */
+  PartApplication getRepairablePart(I_Element element, I_Resource resource) {
+    Map<ResourceKey, PartApplication> applications = parts.get(element.getUid());
+    if (applications == null) {
+      applications = new HashMap<ResourceKey, PartApplication>();
+      for (PartApplication application : element.getParts()) {
+        if (application.getMeanTimeToRepair() > 0) {
+          ResourceKey key = new ResourceKey(application.getPart());
+          if (!applications.containsKey(key)) {
+            applications.put(key, application);
+          }
+        }
+      }
+      parts.put(element.getUid(), applications);
+    }
+    return applications.get(new ResourceKey(resource));
+  }
+
+  /**
+   * The repair items of a mission grouped by element uid.
+   */
+  static class MissionRepairs {
+    private final double startTime;
+    private final double endTime;
+    private final boolean crewed;
+    private final Map<Integer, List<RepairItem>> items;
+
+    private MissionRepairs(Mission mission, Scenario scenario, Set<RepairItem> repairItems) {
+      startTime = DateFunctions.getDaysBetween(mission.getStartDate(), scenario.getStartDate());
+      endTime = mission.getDuration() + startTime;
+      crewed = mission.isCrewed();
+      items = new HashMap<Integer, List<RepairItem>>();
+      for (RepairItem item : repairItems) {
+        List<RepairItem> list = items.get(item.getElement().getUid());
+        if (list == null) {
+          list = new ArrayList<RepairItem>();
+          items.put(item.getElement().getUid(), list);
+        }
+        list.add(item);
+      }
+    }
+
+    /**
+     * Gets the mission start time.
+     * 
+     * @return the start time (days after the scenario start)
+     */
+    double getStartTime() {
+      return startTime;
+    }
+
+    /**
+     * Gets the mission end time.
+     * 
+     * @return the end time (days after the scenario start)
+     */
+    double getEndTime() {
+      return endTime;
+    }
+
+    /**
+     * Checks if the mission is crewed.
+     * 
+     * @return true if the mission is crewed, false otherwise
+     */
+    boolean isCrewed() {
+      return crewed;
+    }
+
+    /**
+     * Gets the repair items of an element, in the iteration order of the mission's repaired items.
+     * 
+     * @param element the element
+     * 
+     * @return the repair items of the element
+     */
+    List<RepairItem> getItems(I_Element element) {
+      List<RepairItem> list = items.get(element.getUid());
+      if (list == null)
+        return Collections.emptyList();
+      return list;
+    }
+  }
+}
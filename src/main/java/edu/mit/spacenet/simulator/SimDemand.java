@@ -41,14 +41,26 @@ public class SimDemand extends SimError {
    */
   public SimDemand(double time, I_Event event, Location location, I_Element element,
       DemandSet demands) {
-    super(time, event, "Insufficient resources for demand: " + demands);
+    super(time, event, null);
     this.location = location;
     this.element = element;
     demands.clean();
-    setMessage("Insufficient resources for demand: " + demands);
     this.demands = demands;
   }
 
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.SimError#getMessage()
+   */
+  @Override
+  public String getMessage() {
+    if (super.getMessage() == null) {
+      setMessage("Insufficient resources for demand: " + demands);
+    }
+    return super.getMessage();
+  }
+
   /**
    * Gets the location of the demand.
    * 
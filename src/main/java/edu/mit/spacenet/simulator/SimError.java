@@ -14,10 +14,12 @@
 package edu.mit.spacenet.simulator;
 
 import edu.mit.spacenet.simulator.event.I_Event;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
- * Represents an abstracted error that occurs during simulation.
+ * Represents an abstracted error that occurs during simulation. Errors are value records that do
+ * not capture a stack trace; expected errors are reported to the simulator with
+ * {@link I_Simulator#report(SimError)} while errors that interrupt an event are thrown.
  * 
  * @author Paul Grogan
  */
@@ -35,7 +37,8 @@ public abstract class SimError extends Exception implements Comparable<SimError>
    * @param message a message associated with the error
    */
   public SimError(double time, I_Event event, String message) {
-    this.time = time;
+    super(null, null, false, false);
+    this.time = SimulationContext.current().getRoundedTime(time);
     this.event = event;
     this.message = message;
   }
@@ -46,7 +49,7 @@ public abstract class SimError extends Exception implements Comparable<SimError>
    * @return the simulation time
    */
   public double getTime() {
-    return GlobalParameters.getSingleton().getRoundedTime(time);
+    return time;
   }
 
   /**
@@ -82,7 +85,7 @@ public abstract class SimError extends Exception implements Comparable<SimError>
    * @see java.lang.Throwable#toString()
    */
   public String toString() {
-    return event + " " + message;
+    return event + " " + getMessage();
   }
 
   /*
@@ -13,17 +13,24 @@
  */
 package edu.mit.spacenet.simulator;
 
+import edu.mit.spacenet.domain.ClassOfSupply;
+import edu.mit.spacenet.domain.element.I_Element;
+import edu.mit.spacenet.domain.network.Location;
 import edu.mit.spacenet.domain.network.Network;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.domain.network.node.Node;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
- * A log of the scenario network at a particular time.
+ * A log of the scenario network at a particular time. Logs that belong to a network history are
+ * materialized lazily from the history into their own network when it is first requested.
  * 
  * @author Paul Grogan
  */
 public class SimNetwork implements Comparable<SimNetwork> {
   private double time;
   private Network network;
+  private NetworkHistory history;
+  private int step;
 
   /**
    * Instantiates a new sim network.
@@ -32,17 +39,30 @@ public class SimNetwork implements Comparable<SimNetwork> {
    * @param network the scenario network
    */
   public SimNetwork(double time, Network network) {
-    this.time = time;
+    this.time = SimulationContext.current().getRoundedTime(time);
     this.network = network;
   }
 
+  /**
+   * Instantiates a new sim network that is materialized from a network history.
+   * 
+   * @param time the simulation time
+   * @param history the network history
+   * @param step the recorded step in the history
+   */
+  SimNetwork(double time, NetworkHistory history, int step) {
+    this.time = time;
+    this.history = history;
+    this.step = step;
+  }
+
   /**
    * Gets the simulation time of the log.
    * 
    * @return the simulation time
    */
   public double getTime() {
-    return GlobalParameters.getSingleton().getRoundedTime(time);
+    return time;
   }
 
   /**
@@ -51,9 +71,55 @@ public class SimNetwork implements Comparable<SimNetwork> {
    * @return the network
    */
   public Network getNetwork() {
+    if (network == null && history != null)
+      network = history.getNetwork(step);
     return network;
   }
 
+  /**
+   * Gets the total mass of an element by class of supply at the time of the log. Logs that belong
+   * to a network history answer from the history without materializing the network.
+   * 
+   * @param element the element, matched by uid
+   * 
+   * @return the masses indexed by class of supply ordinal (kilograms), or null if the element is
+   *         not in the network
+   */
+  public double[] getTotalMassByCos(I_Element element) {
+    if (network == null && history != null)
+      return history.getTotalMassByCos(step, element.getUid());
+    I_Element logged = network.getRegistrar().get(element.getUid());
+    if (logged == null)
+      logged = network.getRemovedRegistrar().get(element.getUid());
+    if (logged == null)
+      return null;
+    double[] masses = new double[ClassOfSupply.values().length];
+    logged.addTotalMassByCos(masses);
+    return masses;
+  }
+
+  /**
+   * Gets the total mass of the contents of a location by class of supply at the time of the log.
+   * Logs that belong to a network history answer from the history without materializing the
+   * network.
+   * 
+   * @param location the node or edge, matched by type identifier
+   * 
+   * @return the masses indexed by class of supply ordinal (kilograms), or null if the location is
+   *         not in the network
+   */
+  public double[] getTotalMassByCos(Location location) {
+    if (network == null && history != null)
+      return history.getTotalMassByCos(step, location);
+    Location logged = location instanceof Node ? network.getNodeByTid(location.getTid())
+        : network.getEdgeByTid(location.getTid());
+    if (logged == null)
+      return null;
+    double[] masses = new double[ClassOfSupply.values().length];
+    logged.addTotalMassByCos(masses);
+    return masses;
+  }
+
   /*
    * (non-Javadoc)
    * 
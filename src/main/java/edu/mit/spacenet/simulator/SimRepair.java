@@ -16,7 +16,7 @@ package edu.mit.spacenet.simulator;
 import edu.mit.spacenet.domain.element.I_Element;
 import edu.mit.spacenet.domain.network.Location;
 import edu.mit.spacenet.domain.resource.I_Item;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * Logs a repair activity.
@@ -45,9 +45,9 @@ public class SimRepair {
    */
   public SimRepair(double time, I_Item item, double amount, double repairTime, double repairMass,
       Location location, I_Element element) {
-    this.time = time;
+    this.time = SimulationContext.current().getRoundedTime(time);
     this.item = item;
-    this.amount = amount;
+    this.amount = SimulationContext.current().getRoundedDemand(amount);
     this.repairTime = repairTime;
     this.repairMass = repairMass;
     this.location = location;
@@ -60,7 +60,7 @@ public class SimRepair {
    * @return the simulation time
    */
   public double getTime() {
-    return GlobalParameters.getSingleton().getRoundedTime(time);
+    return time;
   }
 
   /**
@@ -78,7 +78,7 @@ public class SimRepair {
    * @return the amount
    */
   public double getAmount() {
-    return GlobalParameters.getSingleton().getRoundedDemand(amount);
+    return amount;
   }
 
   /**
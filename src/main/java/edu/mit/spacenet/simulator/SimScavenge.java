@@ -16,7 +16,7 @@ package edu.mit.spacenet.simulator;
 import edu.mit.spacenet.domain.element.I_Element;
 import edu.mit.spacenet.domain.network.Location;
 import edu.mit.spacenet.domain.resource.I_Item;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * A scavenging operation.
@@ -41,9 +41,9 @@ public class SimScavenge {
    */
   public SimScavenge(double time, I_Item item, double amount, Location location,
       I_Element element) {
-    this.time = time;
+    this.time = SimulationContext.current().getRoundedTime(time);
     this.item = item;
-    this.amount = amount;
+    this.amount = SimulationContext.current().getRoundedDemand(amount);
     this.location = location;
     this.element = element;
   }
@@ -54,7 +54,7 @@ public class SimScavenge {
    * @return the simulation time
    */
   public double getTime() {
-    return GlobalParameters.getSingleton().getRoundedTime(time);
+    return time;
   }
 
   /**
@@ -72,7 +72,7 @@ public class SimScavenge {
    * @return the amount
    */
   public double getAmount() {
-    return GlobalParameters.getSingleton().getRoundedDemand(amount);
+    return amount;
   }
 
   /**
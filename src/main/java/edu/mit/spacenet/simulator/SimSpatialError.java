@@ -13,6 +13,9 @@
  */
 package edu.mit.spacenet.simulator;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import edu.mit.spacenet.simulator.event.I_Event;
 
 /**
@@ -22,6 +25,7 @@ import edu.mit.spacenet.simulator.event.I_Event;
  */
 public class SimSpatialError extends SimError {
   private static final long serialVersionUID = -4013581934283397903L;
+  private static final Logger logger = LogManager.getLogger(SimSpatialError.class);
 
   /**
    * Instantiates a new sim spatial error.
@@ -32,6 +36,6 @@ public class SimSpatialError extends SimError {
    */
   public SimSpatialError(double time, I_Event event, String message) {
     super(time, event, message);
-    System.out.println("!!! Error: (" + event + ") " + message);
+    logger.warn("!!! Error: ({}) {}", event, message);
   }
 }
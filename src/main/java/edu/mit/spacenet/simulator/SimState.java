@@ -14,24 +14,24 @@
 package edu.mit.spacenet.simulator;
 
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 import edu.mit.spacenet.domain.I_Container;
 import edu.mit.spacenet.domain.element.I_Carrier;
 import edu.mit.spacenet.domain.element.I_Element;
 import edu.mit.spacenet.domain.network.Location;
 import edu.mit.spacenet.domain.network.Network;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
- * Logs the state of the network at a simulation time.
+ * Logs the state of the network at a simulation time. States recorded by a simulator share a
+ * container history that only stores the elements that moved between states.
  * 
  * @author Paul Grogan
  */
 public class SimState implements Comparable<SimState> {
   private double time;
-  private SortedMap<I_Element, I_Container> locationMap;
+  private ContainerHistory history;
+  private int step;
 
   /**
    * Instantiates a new sim state.
@@ -40,11 +40,20 @@ public class SimState implements Comparable<SimState> {
    * @param network the scenario network
    */
   public SimState(double time, Network network) {
-    this.time = time;
-    locationMap = new TreeMap<I_Element, I_Container>();
-    for (I_Element element : network.getRegistrar().values()) {
-      locationMap.put(element, element.getContainer());
-    }
+    this(time, new ContainerHistory(), network);
+  }
+
+  /**
+   * Instantiates a new sim state that is recorded in a shared container history.
+   * 
+   * @param time the simulation time
+   * @param history the container history
+   * @param network the scenario network
+   */
+  SimState(double time, ContainerHistory history, Network network) {
+    this.time = SimulationContext.current().getRoundedTime(time);
+    this.history = history;
+    step = history.record(network);
   }
 
   /**
@@ -53,7 +62,7 @@ public class SimState implements Comparable<SimState> {
    * @return the simulation time
    */
   public double getTime() {
-    return GlobalParameters.getSingleton().getRoundedTime(time);
+    return time;
   }
 
   /**
@@ -64,7 +73,7 @@ public class SimState implements Comparable<SimState> {
    * @return the element's container
    */
   public I_Container getContainer(I_Element element) {
-    return locationMap.get(element);
+    return history.getContainer(element, step);
   }
 
   /**
@@ -75,10 +84,11 @@ public class SimState implements Comparable<SimState> {
    * @return the element's location
    */
   public Location getLocation(I_Element element) {
-    if (locationMap.get(element) instanceof Location)
-      return (Location) locationMap.get(element);
-    else if (locationMap.get(element) instanceof I_Carrier)
-      return getLocation((I_Carrier) locationMap.get(element));
+    I_Container container = getContainer(element);
+    if (container instanceof Location)
+      return (Location) container;
+    else if (container instanceof I_Carrier)
+      return getLocation((I_Carrier) container);
     else
       return null;
   }
@@ -89,7 +99,7 @@ public class SimState implements Comparable<SimState> {
    * @return the set of elements
    */
   public Set<I_Element> getElements() {
-    return locationMap.keySet();
+    return history.getElements(step);
   }
 
   /*
@@ -13,8 +13,11 @@
  */
 package edu.mit.spacenet.simulator;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import edu.mit.spacenet.simulator.event.I_Event;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * Represents a warning message that occurs during simulation.
@@ -23,6 +26,7 @@ import edu.mit.spacenet.util.GlobalParameters;
  */
 public class SimWarning extends Exception implements Comparable<SimWarning> {
   private static final long serialVersionUID = -4715307155933350996L;
+  private static final Logger logger = LogManager.getLogger(SimWarning.class);
   private double time;
   private I_Event event;
   private String message;
@@ -35,10 +39,11 @@ public class SimWarning extends Exception implements Comparable<SimWarning> {
    * @param message the warning message
    */
   public SimWarning(double time, I_Event event, String message) {
-    this.time = time;
+    super(null, null, false, false);
+    this.time = SimulationContext.current().getRoundedTime(time);
     this.event = event;
     this.message = message;
-    System.out.println("!!! Warning: (" + event + ") " + message);
+    logger.warn("!!! Warning: ({}) {}", event, message);
   }
 
   /**
@@ -47,7 +52,7 @@ public class SimWarning extends Exception implements Comparable<SimWarning> {
    * @return the simulation time
    */
   public double getTime() {
-    return GlobalParameters.getSingleton().getRoundedTime(time);
+    return time;
   }
 
   /**
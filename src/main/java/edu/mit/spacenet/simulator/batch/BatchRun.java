@@ -0,0 +1,107 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator.batch;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The outcome of a single batch simulation run: the parameter values applied and the measures of
+ * effectiveness recorded, or the exception that aborted the run.
+ * 
+ * @author Paul Grogan
+ */
+public class BatchRun {
+  private final int index;
+  private final double[] values;
+  private final Map<String, Double> measures;
+  private Exception exception;
+
+  /**
+   * Instantiates a new batch run.
+   * 
+   * @param index the run index
+   * @param values the parameter values
+   */
+  public BatchRun(int index, double[] values) {
+    this.index = index;
+    this.values = values;
+    measures = new LinkedHashMap<String, Double>();
+  }
+
+  /**
+   * Gets the run index.
+   * 
+   * @return the run index
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * Gets the parameter values applied to the run.
+   * 
+   * @return the parameter values
+   */
+  public double[] getValues() {
+    return values.clone();
+  }
+
+  /**
+   * Records a measure of effectiveness.
+   * 
+   * @param name the measure name
+   * @param value the measure value
+   */
+  public void setMeasure(String name, double value) {
+    measures.put(name, value);
+  }
+
+  /**
+   * Gets the recorded measures of effectiveness in recording order.
+   * 
+   * @return the measures
+   */
+  public Map<String, Double> getMeasures() {
+    return Collections.unmodifiableMap(measures);
+  }
+
+  /**
+   * Gets the exception that aborted the run.
+   * 
+   * @return the exception, null if the run completed
+   */
+  public Exception getException() {
+    return exception;
+  }
+
+  /**
+   * Sets the exception that aborted the run.
+   * 
+   * @param exception the exception
+   */
+  public void setException(Exception exception) {
+    this.exception = exception;
+  }
+
+  /**
+   * Checks if the run completed.
+   * 
+   * @return true, if the run completed without an exception
+   */
+  public boolean isCompleted() {
+    return exception == null;
+  }
+}
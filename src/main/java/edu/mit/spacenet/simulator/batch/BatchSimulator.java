@@ -0,0 +1,286 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.mit.spacenet.scenario.Scenario;
+import edu.mit.spacenet.simulator.AbstractSimulator;
+import edu.mit.spacenet.simulator.DemandSimulator;
+import edu.mit.spacenet.simulator.FullSimulator;
+import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SerializeUtil;
+
+/**
+ * Runs many independent simulations of a scenario in parallel for Monte Carlo analysis or
+ * parameter sweeps. Each run simulates its own copy of the base scenario with the parameter values
+ * of its sweep definition applied, and binds its own global parameters to the worker thread so runs
+ * do not interfere. Measures of effectiveness are recorded per run and aggregated into summary
+ * statistics.
+ * 
+ * @author Paul Grogan
+ */
+public class BatchSimulator {
+
+  /**
+   * The simulator used for each run.
+   */
+  public enum SimulatorType {
+    /** Demand simulation (demands and errors only). */
+    DEMAND,
+    /** Full simulation including the measures of effectiveness histories. */
+    FULL
+  }
+
+  private final Scenario scenario;
+  private final I_SweepDefinition definition;
+  private SimulatorType simulatorType;
+  private int threadCount;
+  private boolean demandsSatisfied;
+
+  private List<BatchRun> runs;
+  private SortedMap<String, SummaryStatistics> statistics;
+  private final AtomicInteger completedRuns;
+
+  /**
+   * Instantiates a new batch simulator.
+   * 
+   * @param scenario the base scenario (not modified)
+   * @param definition the sweep definition
+   */
+  public BatchSimulator(Scenario scenario, I_SweepDefinition definition) {
+    this.scenario = scenario;
+    this.definition = definition;
+    simulatorType = SimulatorType.DEMAND;
+    threadCount = Runtime.getRuntime().availableProcessors();
+    runs = new ArrayList<BatchRun>();
+    statistics = new TreeMap<String, SummaryStatistics>();
+    completedRuns = new AtomicInteger();
+  }
+
+  /**
+   * Runs all simulations and blocks until they have finished.
+   */
+  public void simulate() {
+    int runCount = definition.getRunCount();
+    completedRuns.set(0);
+    statistics = Collections.synchronizedSortedMap(new TreeMap<String, SummaryStatistics>());
+
+    // snapshot the base scenario so edits made while the batch runs do not reach the workers
+    final Scenario base = SerializeUtil.deepClone(scenario);
+    ExecutorService executor =
+        Executors.newFixedThreadPool(Math.max(1, Math.min(threadCount, runCount)),
+            new ThreadFactory() {
+              private final AtomicInteger count = new AtomicInteger();
+
+              public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "batch-simulator-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+              }
+            });
+    List<Future<BatchRun>> futures = new ArrayList<Future<BatchRun>>(runCount);
+    try {
+      for (int i = 0; i < runCount; i++) {
+        final int index = i;
+        futures.add(executor.submit(() -> runSimulation(base, index)));
+      }
+      List<BatchRun> results = new ArrayList<BatchRun>(runCount);
+      for (Future<BatchRun> future : futures) {
+        try {
+          results.add(future.get());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Batch simulation interrupted", e);
+        } catch (ExecutionException e) {
+          throw new IllegalStateException("Batch simulation failed", e.getCause());
+        }
+      }
+      runs = results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private BatchRun runSimulation(Scenario base, int index) {
+    BatchRun run = new BatchRun(index, definition.getValues(index));
+    try {
+      Scenario copy = SerializeUtil.deepClone(base);
+      GlobalParameters.setThreadParameters(GlobalParameters.createFrom(copy));
+      double[] values = run.getValues();
+      for (int i = 0; i < values.length; i++) {
+        definition.getParameters().get(i).apply(copy, values[i]);
+      }
+      AbstractSimulator simulator;
+      if (simulatorType == SimulatorType.FULL) {
+        FullSimulator fullSimulator = new FullSimulator(copy);
+        fullSimulator.setNetworkHistoryRecorded(false); // runs only keep the measures
+        simulator = fullSimulator;
+      } else {
+        simulator = new DemandSimulator(copy);
+      }
+      simulator.setDemandsSatisfied(demandsSatisfied);
+      simulator.simulate();
+      recordMeasures(simulator, run);
+    } catch (Exception e) {
+      run.setException(e);
+    } finally {
+      GlobalParameters.setThreadParameters(null);
+      completedRuns.incrementAndGet();
+    }
+    return run;
+  }
+
+  private void recordMeasures(AbstractSimulator simulator, BatchRun run) {
+    for (Map.Entry<String, Double> measure : simulator.getMeasures().entrySet()) {
+      run.setMeasure(measure.getKey(), measure.getValue());
+    }
+    for (Map.Entry<String, Double> measure : run.getMeasures().entrySet()) {
+      SummaryStatistics s;
+      synchronized (statistics) {
+        s = statistics.get(measure.getKey());
+        if (s == null) {
+          s = new SummaryStatistics();
+          statistics.put(measure.getKey(), s);
+        }
+      }
+      s.add(measure.getValue());
+    }
+  }
+
+  /**
+   * Gets the run results, ordered by run index.
+   * 
+   * @return the runs
+   */
+  public List<BatchRun> getRuns() {
+    return Collections.unmodifiableList(runs);
+  }
+
+  /**
+   * Gets the summary statistics of each measure of effectiveness over the completed runs.
+   * 
+   * @return the statistics keyed by measure name
+   */
+  public SortedMap<String, SummaryStatistics> getStatistics() {
+    return Collections.unmodifiableSortedMap(statistics);
+  }
+
+  /**
+   * Gets the number of runs finished so far (for progress reporting while simulating).
+   * 
+   * @return the number of finished runs
+   */
+  public int getCompletedRunCount() {
+    return completedRuns.get();
+  }
+
+  /**
+   * Gets the number of runs that failed with an exception.
+   * 
+   * @return the number of failed runs
+   */
+  public int getFailedRunCount() {
+    int failed = 0;
+    for (BatchRun run : runs) {
+      if (!run.isCompleted()) {
+        failed++;
+      }
+    }
+    return failed;
+  }
+
+  /**
+   * Gets the scenario.
+   * 
+   * @return the base scenario
+   */
+  public Scenario getScenario() {
+    return scenario;
+  }
+
+  /**
+   * Gets the sweep definition.
+   * 
+   * @return the sweep definition
+   */
+  public I_SweepDefinition getDefinition() {
+    return definition;
+  }
+
+  /**
+   * Gets the simulator type.
+   * 
+   * @return the simulator type
+   */
+  public SimulatorType getSimulatorType() {
+    return simulatorType;
+  }
+
+  /**
+   * Sets the simulator type.
+   * 
+   * @param simulatorType the simulator type
+   */
+  public void setSimulatorType(SimulatorType simulatorType) {
+    this.simulatorType = simulatorType;
+  }
+
+  /**
+   * Gets the number of worker threads.
+   * 
+   * @return the thread count
+   */
+  public int getThreadCount() {
+    return threadCount;
+  }
+
+  /**
+   * Sets the number of worker threads.
+   * 
+   * @param threadCount the thread count
+   */
+  public void setThreadCount(int threadCount) {
+    this.threadCount = threadCount;
+  }
+
+  /**
+   * Checks if existing resources satisfy demands in each run.
+   * 
+   * @return true, if demands are satisfied
+   */
+  public boolean isDemandsSatisfied() {
+    return demandsSatisfied;
+  }
+
+  /**
+   * Sets whether existing resources satisfy demands in each run.
+   * 
+   * @param demandsSatisfied true, if demands are satisfied
+   */
+  public void setDemandsSatisfied(boolean demandsSatisfied) {
+    this.demandsSatisfied = demandsSatisfied;
+  }
+}
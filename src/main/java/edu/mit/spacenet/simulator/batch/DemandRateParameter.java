@@ -0,0 +1,104 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator.batch;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import edu.mit.spacenet.domain.ClassOfSupply;
+import edu.mit.spacenet.domain.element.I_Element;
+import edu.mit.spacenet.domain.element.I_State;
+import edu.mit.spacenet.domain.model.I_DemandModel;
+import edu.mit.spacenet.domain.model.RatedDemandModel;
+import edu.mit.spacenet.domain.model.SparingByMassDemandModel;
+import edu.mit.spacenet.domain.resource.Demand;
+import edu.mit.spacenet.scenario.Mission;
+import edu.mit.spacenet.scenario.Scenario;
+
+/**
+ * A sweep parameter that scales the rates of the rated and sparing by mass demand models of all
+ * elements and missions. The parameter value is a multiplier on the modeled rates. Crew
+ * consumables models are not affected.
+ * 
+ * @author Paul Grogan
+ */
+public class DemandRateParameter implements I_SweepParameter {
+  private ClassOfSupply classOfSupply;
+
+  /**
+   * Instantiates a new demand rate parameter that scales all demand rates.
+   */
+  public DemandRateParameter() {
+    this(null);
+  }
+
+  /**
+   * Instantiates a new demand rate parameter that only scales rated demands of the given class of
+   * supply (and its subclasses).
+   * 
+   * @param classOfSupply the class of supply, null for all
+   */
+  public DemandRateParameter(ClassOfSupply classOfSupply) {
+    this.classOfSupply = classOfSupply;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.batch.I_SweepParameter#getName()
+   */
+  public String getName() {
+    return classOfSupply == null ? "Demand Rate" : "Demand Rate (" + classOfSupply + ")";
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.batch.I_SweepParameter#apply(edu.mit.spacenet.scenario.Scenario,
+   * double)
+   */
+  public void apply(Scenario scenario, double value) {
+    // models shared by several states or missions are scaled once
+    Set<I_DemandModel> models =
+        Collections.newSetFromMap(new IdentityHashMap<I_DemandModel, Boolean>());
+    for (I_Element element : scenario.getElements()) {
+      for (I_State state : element.getStates()) {
+        models.addAll(state.getDemandModels());
+      }
+    }
+    for (Mission mission : scenario.getMissionList()) {
+      models.addAll(mission.getDemandModels());
+    }
+    scale(models, value);
+  }
+
+  private void scale(Collection<I_DemandModel> models, double value) {
+    for (I_DemandModel model : models) {
+      if (model instanceof RatedDemandModel) {
+        for (Demand demand : ((RatedDemandModel) model).getDemandRates()) {
+          if (classOfSupply == null || (demand.getResource() != null
+              && demand.getResource().getClassOfSupply().isInstanceOf(classOfSupply))) {
+            demand.setAmount(demand.getAmount() * value);
+          }
+        }
+      } else if (model instanceof SparingByMassDemandModel && classOfSupply == null) {
+        SparingByMassDemandModel sparing = (SparingByMassDemandModel) model;
+        sparing.setUnpressurizedSparesRate(sparing.getUnpressurizedSparesRate() * value);
+        sparing.setPressurizedSparesRate(sparing.getPressurizedSparesRate() * value);
+      }
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator.batch;
+
+import java.util.List;
+
+/**
+ * Interface for the definition of the runs in a batch simulation, i.e. which parameters are varied
+ * and the parameter values used in each run.
+ * 
+ * @author Paul Grogan
+ */
+public interface I_SweepDefinition {
+
+  /**
+   * Gets the parameters varied by the definition.
+   * 
+   * @return the list of parameters
+   */
+  public List<I_SweepParameter> getParameters();
+
+  /**
+   * Gets the number of runs.
+   * 
+   * @return the number of runs
+   */
+  public int getRunCount();
+
+  /**
+   * Gets the parameter values for a run, in the same order as the parameters. Implementations must
+   * return the same values for the same run regardless of the order in which runs are executed.
+   * 
+   * @param run the run index
+   * 
+   * @return the parameter values
+   */
+  public double[] getValues(int run);
+}
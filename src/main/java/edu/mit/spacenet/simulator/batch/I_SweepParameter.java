@@ -0,0 +1,39 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator.batch;
+
+import edu.mit.spacenet.scenario.Scenario;
+
+/**
+ * Interface for a scenario input that can be varied between batch simulation runs.
+ * 
+ * @author Paul Grogan
+ */
+public interface I_SweepParameter {
+
+  /**
+   * Gets the parameter name.
+   * 
+   * @return the name
+   */
+  public String getName();
+
+  /**
+   * Applies a parameter value to a (cloned) scenario before it is simulated.
+   * 
+   * @param scenario the scenario to modify
+   * @param value the parameter value
+   */
+  public void apply(Scenario scenario, double value);
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator.batch;
+
+import edu.mit.spacenet.scenario.Scenario;
+
+/**
+ * A sweep parameter that sets the scenario item aggregation threshold.
+ * 
+ * @author Paul Grogan
+ */
+public class ItemAggregationParameter implements I_SweepParameter {
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.batch.I_SweepParameter#getName()
+   */
+  public String getName() {
+    return "Item Aggregation";
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.batch.I_SweepParameter#apply(edu.mit.spacenet.scenario.Scenario,
+   * double)
+   */
+  public void apply(Scenario scenario, double value) {
+    scenario.setItemAggregation(Math.max(0, Math.min(1, value)));
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator.batch;
+
+import edu.mit.spacenet.scenario.ItemDiscretization;
+import edu.mit.spacenet.scenario.Scenario;
+
+/**
+ * A sweep parameter that sets the scenario item discretization. The parameter value is the ordinal
+ * of the item discretization (0 = none, 1 = element, 2 = location, 3 = scenario).
+ * 
+ * @author Paul Grogan
+ */
+public class ItemDiscretizationParameter implements I_SweepParameter {
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.batch.I_SweepParameter#getName()
+   */
+  public String getName() {
+    return "Item Discretization";
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.batch.I_SweepParameter#apply(edu.mit.spacenet.scenario.Scenario,
+   * double)
+   */
+  public void apply(Scenario scenario, double value) {
+    ItemDiscretization[] values = ItemDiscretization.values();
+    int ordinal = (int) Math.max(0, Math.min(values.length - 1, Math.round(value)));
+    scenario.setItemDiscretization(values[ordinal]);
+  }
+}
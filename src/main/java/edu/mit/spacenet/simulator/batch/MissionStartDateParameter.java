@@ -0,0 +1,72 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator.batch;
+
+import java.util.Date;
+
+import edu.mit.spacenet.scenario.Mission;
+import edu.mit.spacenet.scenario.Scenario;
+import edu.mit.spacenet.util.DateFunctions;
+
+/**
+ * A sweep parameter that shifts mission start dates. The parameter value is the offset in days
+ * from the start date defined in the base scenario.
+ * 
+ * @author Paul Grogan
+ */
+public class MissionStartDateParameter implements I_SweepParameter {
+  private int missionIndex;
+
+  /**
+   * Instantiates a new mission start date parameter that shifts all missions.
+   */
+  public MissionStartDateParameter() {
+    this(-1);
+  }
+
+  /**
+   * Instantiates a new mission start date parameter that shifts a single mission.
+   * 
+   * @param missionIndex the index of the mission in the scenario mission list, -1 for all
+   */
+  public MissionStartDateParameter(int missionIndex) {
+    this.missionIndex = missionIndex;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.batch.I_SweepParameter#getName()
+   */
+  public String getName() {
+    return missionIndex < 0 ? "Mission Start Offset"
+        : "Mission " + (missionIndex + 1) + " Start Offset";
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.batch.I_SweepParameter#apply(edu.mit.spacenet.scenario.Scenario,
+   * double)
+   */
+  public void apply(Scenario scenario, double value) {
+    for (int i = 0; i < scenario.getMissionList().size(); i++) {
+      if (missionIndex < 0 || missionIndex == i) {
+        Mission mission = scenario.getMissionList().get(i);
+        Date startDate = mission.getStartDate();
+        mission.setStartDate(DateFunctions.getDate(startDate, value));
+      }
+    }
+  }
+}
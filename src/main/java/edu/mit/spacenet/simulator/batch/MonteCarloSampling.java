@@ -0,0 +1,91 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A Monte Carlo sampling definition that draws each parameter uniformly from a range. Each run
+ * uses its own random stream derived from the seed and the run index, so results are reproducible
+ * independent of the number of threads.
+ * 
+ * @author Paul Grogan
+ */
+public class MonteCarloSampling implements I_SweepDefinition {
+  private List<I_SweepParameter> parameters;
+  private List<double[]> ranges;
+  private int runCount;
+  private long seed;
+
+  /**
+   * Instantiates a new Monte Carlo sampling.
+   * 
+   * @param runCount the number of runs
+   * @param seed the random seed
+   */
+  public MonteCarloSampling(int runCount, long seed) {
+    parameters = new ArrayList<I_SweepParameter>();
+    ranges = new ArrayList<double[]>();
+    this.runCount = runCount;
+    this.seed = seed;
+  }
+
+  /**
+   * Adds a parameter sampled uniformly between a minimum and maximum value.
+   * 
+   * @param parameter the parameter
+   * @param minValue the minimum value
+   * @param maxValue the maximum value
+   */
+  public void addParameter(I_SweepParameter parameter, double minValue, double maxValue) {
+    parameters.add(parameter);
+    ranges.add(new double[] {minValue, maxValue});
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.batch.I_SweepDefinition#getParameters()
+   */
+  public List<I_SweepParameter> getParameters() {
+    return Collections.unmodifiableList(parameters);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.batch.I_SweepDefinition#getRunCount()
+   */
+  public int getRunCount() {
+    return runCount;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.batch.I_SweepDefinition#getValues(int)
+   */
+  public double[] getValues(int run) {
+    Random random = new Random(seed + 0x9E3779B97F4A7C15L * (run + 1));
+    double[] point = new double[parameters.size()];
+    for (int i = 0; i < point.length; i++) {
+      double[] range = ranges.get(i);
+      point[i] = range[0] + random.nextDouble() * (range[1] - range[0]);
+    }
+    return point;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A full-factorial parameter sweep that runs every combination of the listed parameter values.
+ * 
+ * @author Paul Grogan
+ */
+public class ParameterSweep implements I_SweepDefinition {
+  private List<I_SweepParameter> parameters;
+  private List<double[]> values;
+
+  /**
+   * Instantiates a new parameter sweep.
+   */
+  public ParameterSweep() {
+    parameters = new ArrayList<I_SweepParameter>();
+    values = new ArrayList<double[]>();
+  }
+
+  /**
+   * Adds a parameter and the values to sweep.
+   * 
+   * @param parameter the parameter
+   * @param values the parameter values
+   */
+  public void addParameter(I_SweepParameter parameter, double... values) {
+    if (values.length == 0) {
+      throw new IllegalArgumentException("No values defined for " + parameter.getName());
+    }
+    parameters.add(parameter);
+    this.values.add(values.clone());
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.batch.I_SweepDefinition#getParameters()
+   */
+  public List<I_SweepParameter> getParameters() {
+    return Collections.unmodifiableList(parameters);
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.batch.I_SweepDefinition#getRunCount()
+   */
+  public int getRunCount() {
+    int count = 1;
+    for (double[] v : values) {
+      count *= v.length;
+    }
+    return count;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see edu.mit.spacenet.simulator.batch.I_SweepDefinition#getValues(int)
+   */
+  public double[] getValues(int run) {
+    double[] point = new double[parameters.size()];
+    int index = run;
+    for (int i = parameters.size() - 1; i >= 0; i--) {
+      double[] v = values.get(i);
+      point[i] = v[index % v.length];
+      index /= v.length;
+    }
+    return point;
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator.batch;
+
+/**
+ * Streaming summary statistics (count, mean, variance, minimum and maximum) that are updated one
+ * value at a time without storing the values. Non-finite values are ignored.
+ * 
+ * @author Paul Grogan
+ */
+public class SummaryStatistics {
+  private long count;
+  private double mean;
+  private double sumSquares;
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+
+  /**
+   * Adds a value.
+   * 
+   * @param value the value
+   */
+  public synchronized void add(double value) {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      return;
+    }
+    count++;
+    double delta = value - mean;
+    mean += delta / count;
+    sumSquares += delta * (value - mean);
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  /**
+   * Gets the number of values.
+   * 
+   * @return the count
+   */
+  public synchronized long getCount() {
+    return count;
+  }
+
+  /**
+   * Gets the mean value.
+   * 
+   * @return the mean, or NaN if there are no values
+   */
+  public synchronized double getMean() {
+    return count == 0 ? Double.NaN : mean;
+  }
+
+  /**
+   * Gets the sum of values.
+   * 
+   * @return the sum
+   */
+  public synchronized double getSum() {
+    return mean * count;
+  }
+
+  /**
+   * Gets the sample variance.
+   * 
+   * @return the variance, or NaN if there are fewer than two values
+   */
+  public synchronized double getVariance() {
+    return count < 2 ? Double.NaN : sumSquares / (count - 1);
+  }
+
+  /**
+   * Gets the sample standard deviation.
+   * 
+   * @return the standard deviation, or NaN if there are fewer than two values
+   */
+  public double getStandardDeviation() {
+    return Math.sqrt(getVariance());
+  }
+
+  /**
+   * Gets the minimum value.
+   * 
+   * @return the minimum, or NaN if there are no values
+   */
+  public synchronized double getMin() {
+    return count == 0 ? Double.NaN : min;
+  }
+
+  /**
+   * Gets the maximum value.
+   * 
+   * @return the maximum, or NaN if there are no values
+   */
+  public synchronized double getMax() {
+    return count == 0 ? Double.NaN : max;
+  }
+
+  /*
+   * (non-Javadoc)
+   * 
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return String.format("n=%d mean=%.3f sd=%.3f min=%.3f max=%.3f", getCount(), getMean(),
+        getStandardDeviation(), getMin(), getMax());
+  }
+}
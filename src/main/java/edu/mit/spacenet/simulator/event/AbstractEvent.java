@@ -13,8 +13,14 @@
  */
 package edu.mit.spacenet.simulator.event;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
+
 import edu.mit.spacenet.domain.network.Location;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.simulator.I_Simulator;
+import edu.mit.spacenet.simulator.I_TraceSink;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * Base class for all events.
@@ -22,6 +28,13 @@ import edu.mit.spacenet.util.GlobalParameters;
  * @author Paul Grogan
  */
 public abstract class AbstractEvent implements I_Event {
+  private static final ClassValue<Logger> loggers = new ClassValue<Logger>() {
+    @Override
+    protected Logger computeValue(Class<?> type) {
+      return LogManager.getLogger(type);
+    }
+  };
+
   private long uid;
   private String name;
   private double time;
@@ -82,7 +95,7 @@ public abstract class AbstractEvent implements I_Event {
    * @see edu.mit.spacenet.domain.event.I_Event#getTime()
    */
   public double getTime() {
-    return GlobalParameters.getSingleton().getRoundedTime(time);
+    return SimulationContext.current().getRoundedTime(time);
   }
 
   /*
@@ -221,4 +234,89 @@ public abstract class AbstractEvent implements I_Event {
     } else
       return false;
   }
+
+  /**
+   * Gets the logger for this type of event. Each event type logs to a logger named after its class
+   * so trace levels can be configured per event type.
+   * 
+   * @return the logger
+   */
+  protected Logger getLogger() {
+    return loggers.get(getClass());
+  }
+
+  /**
+   * Traces the execution of this event to the event type logger at the info level and to the trace
+   * sink of the simulator, if any. The message is a parameterized message whose first {}
+   * placeholder receives the event time and whose remaining placeholders receive the parameters;
+   * it is only formatted if the logger is enabled or a trace sink is attached.
+   * 
+   * @param simulator the simulator
+   * @param message the parameterized message
+   */
+  protected void trace(I_Simulator simulator, String message) {
+    Logger logger = getLogger();
+    if (logger.isInfoEnabled())
+      logger.info(message, Unbox.box(getTime()));
+    I_TraceSink sink = simulator.getTraceSink();
+    if (sink != null)
+      sink.trace(getTime(), this, message, new Object[] {getTime()});
+  }
+
+  /**
+   * Traces the execution of this event with one message parameter.
+   * 
+   * @param simulator the simulator
+   * @param message the parameterized message
+   * @param p0 the first parameter
+   * 
+   * @see #trace(I_Simulator, String)
+   */
+  protected void trace(I_Simulator simulator, String message, Object p0) {
+    Logger logger = getLogger();
+    if (logger.isInfoEnabled())
+      logger.info(message, Unbox.box(getTime()), p0);
+    I_TraceSink sink = simulator.getTraceSink();
+    if (sink != null)
+      sink.trace(getTime(), this, message, new Object[] {getTime(), p0});
+  }
+
+  /**
+   * Traces the execution of this event with two message parameters.
+   * 
+   * @param simulator the simulator
+   * @param message the parameterized message
+   * @param p0 the first parameter
+   * @param p1 the second parameter
+   * 
+   * @see #trace(I_Simulator, String)
+   */
+  protected void trace(I_Simulator simulator, String message, Object p0, Object p1) {
+    Logger logger = getLogger();
+    if (logger.isInfoEnabled())
+      logger.info(message, Unbox.box(getTime()), p0, p1);
+    I_TraceSink sink = simulator.getTraceSink();
+    if (sink != null)
+      sink.trace(getTime(), this, message, new Object[] {getTime(), p0, p1});
+  }
+
+  /**
+   * Traces the execution of this event with three message parameters.
+   * 
+   * @param simulator the simulator
+   * @param message the parameterized message
+   * @param p0 the first parameter
+   * @param p1 the second parameter
+   * @param p2 the third parameter
+   * 
+   * @see #trace(I_Simulator, String)
+   */
+  protected void trace(I_Simulator simulator, String message, Object p0, Object p1, Object p2) {
+    Logger logger = getLogger();
+    if (logger.isInfoEnabled())
+      logger.info(message, Unbox.box(getTime()), p0, p1, p2);
+    I_TraceSink sink = simulator.getTraceSink();
+    if (sink != null)
+      sink.trace(getTime(), this, message, new Object[] {getTime(), p0, p1, p2});
+  }
 }
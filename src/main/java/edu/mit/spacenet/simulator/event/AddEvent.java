@@ -53,7 +53,7 @@ public class AddEvent extends AbstractEvent {
     if (demands.size() == 0) {
       simulator.getWarnings().add(new SimWarning(simulator.getTime(), this, "No demands defined."));
     } else {
-      System.out.printf("%.3f: %s\n", getTime(), "Adding " + demands + " to " + container);
+      trace(simulator, "{}: Adding {} to {}", demands, container);
       for (Demand demand : demands) {
         if (container.add(demand.getResource(), demand.getAmount())) {
           // success
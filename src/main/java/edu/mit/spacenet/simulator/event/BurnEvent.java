@@ -68,8 +68,8 @@ public class BurnEvent extends AbstractEvent {
           stackMass += element.getTotalMass();
         }
         if (burn.getBurnType() == BurnType.OMS) {
-          System.out.printf("%.3f: %s %.2f %s", getTime(),
-              "Starting " + v.getName() + " Burn (OMS) for target", deltaVReq, "m/s delta-V\n");
+          trace(simulator, "{}: Starting {} Burn (OMS) for target {} m/s delta-V", v.getName(),
+              deltaVReq);
           if (Formulae.getRequiredFuelMass(stackMass, deltaVReq, v.getOmsIsp()) > v.getOmsFuelTank()
               .getAmount()) {
             double deltaVAchieved = Formulae.getAchievedDeltaV(stackMass, v.getOmsIsp(),
@@ -85,9 +85,8 @@ public class BurnEvent extends AbstractEvent {
              * //d.setElement(v); d.setDemands(demands); //simulator.schedule(d);
              * d.execute(simulator);
              */
-            System.out.printf("%.3f: %s %.2f %s %.2f %s\n", getTime(),
-                v.getName() + " Burn (OMS) achieved", deltaVAchieved, "m/s delta-V,", deltaVReq,
-                "m/s delta-V remaining");
+            trace(simulator, "{}: {} Burn (OMS) achieved {} m/s delta-V, {} m/s delta-V remaining",
+                v.getName(), deltaVAchieved, deltaVReq);
           } else {
             v.getOmsFuelTank()
                 .remove(Formulae.getRequiredFuelMass(stackMass, deltaVReq, v.getOmsIsp()));
@@ -100,14 +99,13 @@ public class BurnEvent extends AbstractEvent {
              * d.setElement(v.getOmsFuelTank()); //d.setElement(v); d.setDemands(demands);
              * //simulator.schedule(d); d.execute(simulator);
              */
-            System.out.printf("%.3f: %s %.2f %s, %.2f %s\n", getTime(),
-                v.getName() + " Burn (OMS) achieved", deltaVReq, "m/s delta-V",
-                v.getOmsFuelTank().getCargoMass(), "kg fuel remaining");
+            trace(simulator, "{}: {} Burn (OMS) achieved {} m/s delta-V, {} kg fuel remaining",
+                v.getName(), deltaVReq, v.getOmsFuelTank().getCargoMass());
             deltaVReq = 0;
           }
         } else if (burn.getBurnType() == BurnType.RCS) {
-          System.out.printf("%.3f: %s %.2f %s", getTime(),
-              "Starting " + v.getName() + " Burn (RCS) for target", deltaVReq, "m/s delta-V\n");
+          trace(simulator, "{}: Starting {} Burn (RCS) for target {} m/s delta-V", v.getName(),
+              deltaVReq);
           if (Formulae.getRequiredFuelMass(stackMass, deltaVReq, v.getRcsIsp()) > v.getRcsFuelTank()
               .getAmount()) {
             double deltaVAchieved = Formulae.getAchievedDeltaV(stackMass, v.getRcsIsp(),
@@ -123,9 +121,8 @@ public class BurnEvent extends AbstractEvent {
              * //d.setElement(v); d.setDemands(demands); //simulator.schedule(d);
              * d.execute(simulator);
              */
-            System.out.printf("%.3f: %s %.2f %s %.2f %s\n", getTime(),
-                v.getName() + " Burn (RCS) achieved", deltaVAchieved, "m/s delta-V,", deltaVReq,
-                "m/s delta-V remaining");
+            trace(simulator, "{}: {} Burn (RCS) achieved {} m/s delta-V, {} m/s delta-V remaining",
+                v.getName(), deltaVAchieved, deltaVReq);
           } else {
             v.getRcsFuelTank()
                 .remove(Formulae.getRequiredFuelMass(stackMass, deltaVReq, v.getRcsIsp()));
@@ -138,9 +135,8 @@ public class BurnEvent extends AbstractEvent {
              * d.setElement(v.getRcsFuelTank()); //d.setElement(v); d.setDemands(demands);
              * //simulator.schedule(d); d.execute(simulator);
              */
-            System.out.printf("%.3f: %s %.2f %s, %.2f %s\n", getTime(),
-                v.getName() + " Burn (RCS) achieved", deltaVReq, "m/s delta-V",
-                v.getRcsFuelTank().getCargoMass(), "kg fuel remaining");
+            trace(simulator, "{}: {} Burn (RCS) achieved {} m/s delta-V, {} kg fuel remaining",
+                v.getName(), deltaVReq, v.getRcsFuelTank().getCargoMass());
             deltaVReq = 0;
           }
         }
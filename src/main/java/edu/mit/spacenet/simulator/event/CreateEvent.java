@@ -60,7 +60,7 @@ public class CreateEvent extends AbstractEvent {
           .add(new SimWarning(simulator.getTime(), this, "No elements defined."));
     }
 
-    System.out.printf("%.3f: %s\n", getTime(), "Creating " + elements + " in " + container);
+    trace(simulator, "{}: Creating {} in {}", elements, container);
     for (I_Element element : elements) {
       if (element.getLocation() != null) {
         throw new SimSpatialError(simulator.getTime(), this,
@@ -62,8 +62,8 @@ public class DemandEvent extends AbstractEvent {
         d.add(demand);
     }
 
-    System.out.printf("%.3f: %s\n", getTime(),
-        "Demand for " + demands + " from " + (element == null ? getLocation() : element));
+    trace(simulator, "{}: Demand for {} from {}", demands,
+        element == null ? getLocation() : element);
 
     if (simulator.isDemandsSatisfied()) {
       if (element != null) {
@@ -87,7 +87,7 @@ public class DemandEvent extends AbstractEvent {
         }
         d.add(packingDemand);
       }
-      throw new SimDemand(simulator.getTime(), this, getLocation(), getElement(), d);
+      simulator.report(new SimDemand(simulator.getTime(), this, getLocation(), getElement(), d));
     }
   }
 
@@ -77,8 +77,8 @@ public class EvaEvent extends AbstractEvent {
       }
     }
 
-    System.out.printf("%.3f: %s\n", getTime(),
-        "Commencing EVA at " + getLocation() + " for " + getEvaDuration() + " hours");
+    trace(simulator, "{}: Commencing EVA at {} for {} hours", getLocation(),
+        getEvaDuration());
 
     if (simulator.getScenario().isDetailedEva()) {
       TreeMap<I_Element, I_State> previousStates = new TreeMap<I_Element, I_State>();
@@ -96,8 +96,8 @@ public class ExplorationProcess extends AbstractEvent implements I_Process {
       }
     }
 
-    System.out.printf("%.3f: %s\n", getTime(), "Commencing exploration at " + getLocation()
-        + " for " + getDuration() + " days with " + getNumberEva() + " EVAs");
+    trace(simulator, "{}: Commencing exploration at {} for {} days with {} EVAs",
+        getLocation(), getDuration(), getNumberEva());
 
     if (simulator.getScenario().isDetailedEva()) {
       for (int i = 0; i < getNumberEva(); i++) {
@@ -79,7 +79,7 @@ public class FlightTransport extends AbstractEvent implements I_Transport {
           "Flight crew size over capacity: " + crew + "/" + format.format(edge.getMaxCrewSize()));
     }
 
-    System.out.printf("%.3f: %s\n", getTime(), "Commencing flight");
+    trace(simulator, "{}: Commencing flight");
 
     MoveEvent m1 = new MoveEvent();
     m1.setTime(getTime());
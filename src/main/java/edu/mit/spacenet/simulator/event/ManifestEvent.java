@@ -48,7 +48,7 @@ public class ManifestEvent extends AbstractEvent {
   public void execute(I_Simulator simulator) throws SimError {
     for (I_ResourceContainer container : containers) {
       if (!carrier.getContents().contains(container)) {
-        System.out.printf("%.3f: %s\n", getTime(), "Manifesting " + container + " into " + carrier);
+        trace(simulator, "{}: Manifesting {} into {}", container, carrier);
         if (carrier.add(container)) {
           simulator.getScenario().getNetwork().getRegistrar().put(container.getUid(), container);
         } else {
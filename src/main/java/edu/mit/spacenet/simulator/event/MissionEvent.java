@@ -62,7 +62,7 @@ public class MissionEvent extends AbstractEvent {
       simulator.getWarnings().add(new SimWarning(simulator.getTime(), this, "No events defined."));
     }
 
-    System.out.printf("%.3f: %s\n", getTime(), "Commencing Mission: " + mission.getName());
+    trace(simulator, "{}: Commencing Mission: {}", mission.getName());
     for (I_Event e : mission.getEventList()) {
       e.setTime(e.getTime() + getTime());
       simulator.schedule(e);
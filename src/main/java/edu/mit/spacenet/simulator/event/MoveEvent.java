@@ -60,7 +60,7 @@ public class MoveEvent extends AbstractEvent {
       simulator.getWarnings()
           .add(new SimWarning(simulator.getTime(), this, "No elements defined."));
     } else {
-      System.out.printf("%.3f: %s\n", getTime(), "Transferring " + elements + " to " + container);
+      trace(simulator, "{}: Transferring {} to {}", elements, container);
       for (I_Element element : elements) {
         if (element.getLocation() == null) {
           throw new SimSpatialError(simulator.getTime(), this, element + " was not found.");
@@ -51,8 +51,7 @@ public class ReconfigureEvent extends AbstractEvent {
         throw new SimSpatialError(simulator.getTime(), this, element + " is located at "
             + element.getLocation() + " instead of " + getLocation() + ".");
       } else if (element.setCurrentState(state)) {
-        System.out.printf("%.3f: %s\n", getTime(),
-            "Reconfiguring " + element + " to " + state + " state");
+        trace(simulator, "{}: Reconfiguring {} to {} state", element, state);
       } else {
         throw new SimSpatialError(simulator.getTime(), this,
             "Element " + element + " does not contain state " + state + ".");
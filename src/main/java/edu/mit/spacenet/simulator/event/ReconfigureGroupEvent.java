@@ -67,8 +67,7 @@ public class ReconfigureGroupEvent extends AbstractEvent {
           simulator.getWarnings().add(new SimWarning(simulator.getTime(), this,
               "No " + stateType + " state for " + element + "."));
         } else if (element.setCurrentState(state)) {
-          System.out.printf("%.3f: %s\n", getTime(),
-              "Reconfiguring " + element + " to " + state + " state");
+          trace(simulator, "{}: Reconfiguring {} to {} state", element, state);
         } else {
           throw new SimSpatialError(simulator.getTime(), this,
               "Element " + element + " does not contain state " + state + ".");
@@ -56,8 +56,7 @@ public class RemoveEvent extends AbstractEvent {
           throw new SimSpatialError(simulator.getTime(), this, element + " is located at "
               + element.getLocation() + " instead of " + getLocation() + ".");
         } else {
-          System.out.printf("%.3f: %s\n", getTime(),
-              "Removing " + elements.toString() + " from Simulation");
+          trace(simulator, "{}: Removing {} from Simulation", elements);
           element.getContainer().remove(element);
           recursiveRemove(simulator, element);
         }
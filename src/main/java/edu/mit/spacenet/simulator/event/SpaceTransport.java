@@ -68,7 +68,7 @@ public class SpaceTransport extends AbstractEvent implements I_Transport {
       }
     }
 
-    System.out.printf("%.3f: %s\n", getTime(), "Commencing space transport");
+    trace(simulator, "{}: Commencing space transport");
 
     MoveEvent m1 = new MoveEvent();
     m1.setTime(getTime());
@@ -24,7 +24,7 @@ import edu.mit.spacenet.domain.network.node.Node;
 import edu.mit.spacenet.simulator.I_Simulator;
 import edu.mit.spacenet.simulator.SimError;
 import edu.mit.spacenet.simulator.SimSpatialError;
-import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
 
 /**
  * An event that models the surface transport along a surface edge using a surface vehicle.
@@ -69,7 +69,7 @@ public class SurfaceTransport extends AbstractEvent implements I_Transport {
       throw new SimSpatialError(simulator.getTime(), this, "Infinite travel duration.");
     }
 
-    System.out.printf("%.3f: %s\n", getTime(), "Commencing surface transport");
+    trace(simulator, "{}: Commencing surface transport");
 
     I_State previousState = vehicle.getCurrentState();
 
@@ -132,7 +132,7 @@ public class SurfaceTransport extends AbstractEvent implements I_Transport {
     if (getSpeed() == 0 || getDutyCycle() == 0)
       return Double.POSITIVE_INFINITY;
     else
-      return GlobalParameters.getSingleton()
+      return SimulationContext.current()
           .getRoundedTime(edge.getDistance() / (getSpeed() * getDutyCycle() * 24));
   }
 
@@ -59,8 +59,7 @@ public class TransferEvent extends AbstractEvent {
     if (demands.size() == 0) {
       simulator.getWarnings().add(new SimWarning(simulator.getTime(), this, "No demands defined."));
     } else {
-      System.out.printf("%.3f: %s\n", getTime(),
-          "Transferring " + demands + " to " + destinationContainer);
+      trace(simulator, "{}: Transferring {} to {}", demands, destinationContainer);
       for (Demand demand : demands) {
         if (originContainer.remove(demand.getResource(), demand.getAmount())) {
           if (destinationContainer.add(demand.getResource(), demand.getAmount())) {
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.util;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A reflective deep copy engine for the SpaceNet domain and scenario object graphs. Objects are
+ * copied field by field without any text serialization. Shared references and cycles (e.g.
+ * element-container back references or shared resources) are preserved using an identity map, so
+ * the copy has the same object topology as the original.
+ * 
+ * <p>
+ * The copy semantics follow the XStream serialization previously used to clone objects: static
+ * and transient fields are skipped, constructors of copied classes are not invoked, enumerations
+ * and immutable values are shared, and collections and maps are rebuilt element by element.
+ * Objects of other library classes (e.g. icons or database connections) are shared by reference.
+ * 
+ * <p>
+ * A cloner instance keeps the identity map of one copy operation and is not thread safe; the
+ * reflective class metadata is cached statically and shared between instances.
+ * 
+ * @author Paul Grogan
+ */
+public class DeepCloner {
+  private static final String DOMAIN_PACKAGE = "edu.mit.spacenet.";
+  private static final Map<Class<?>, Field[]> fieldCache =
+      new ConcurrentHashMap<Class<?>, Field[]>();
+  private static final Instantiator instantiator = new Instantiator();
+
+  private final IdentityHashMap<Object, Object> copies;
+
+  /**
+   * Instantiates a new deep cloner.
+   */
+  public DeepCloner() {
+    copies = new IdentityHashMap<Object, Object>();
+  }
+
+  /**
+   * Creates a deep copy of an object. References to objects already copied by this cloner resolve
+   * to the same copy.
+   * 
+   * @param <T> the object type
+   * @param object the object to copy
+   * 
+   * @return the copy
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T copy(T object) {
+    return (T) copyObject(object);
+  }
+
+  private Object copyObject(Object object) {
+    if (object == null || isShared(object)) {
+      return object;
+    }
+    Object copy = copies.get(object);
+    if (copy != null) {
+      return copy;
+    }
+    Class<?> type = object.getClass();
+    if (type.isArray()) {
+      return copyArray(object, type);
+    } else if (object instanceof Date) {
+      copy = ((Date) object).clone();
+      copies.put(object, copy);
+      return copy;
+    } else if (type.getName().startsWith(DOMAIN_PACKAGE)) {
+      return copyDomainObject(object, type);
+    } else if (object instanceof Collection) {
+      return copyCollection((Collection<?>) object);
+    } else if (object instanceof Map) {
+      return copyMap((Map<?, ?>) object);
+    }
+    return object;
+  }
+
+  private static boolean isShared(Object object) {
+    return object instanceof String || object instanceof Number || object instanceof Boolean
+        || object instanceof Character || object instanceof Enum || object instanceof Class
+        || object instanceof UUID || object instanceof BigDecimal || object instanceof BigInteger
+        || object.getClass().getName().startsWith("java.time.");
+  }
+
+  private Object copyArray(Object array, Class<?> type) {
+    int length = Array.getLength(array);
+    if (type.getComponentType().isPrimitive()) {
+      Object copy = Array.newInstance(type.getComponentType(), length);
+      System.arraycopy(array, 0, copy, 0, length);
+      copies.put(array, copy);
+      return copy;
+    }
+    Object[] source = (Object[]) array;
+    Object[] copy = (Object[]) Array.newInstance(type.getComponentType(), length);
+    copies.put(array, copy);
+    for (int i = 0; i < length; i++) {
+      copy[i] = copyObject(source[i]);
+    }
+    return copy;
+  }
+
+  private Object copyDomainObject(Object object, Class<?> type) {
+    Object copy = instantiator.newInstance(type);
+    copies.put(object, copy);
+    Field[] fields = getFields(type);
+    try {
+      // fields are ordered with values first so that the keys used by compareTo are available
+      // before any back reference re-enters this object through a sorted collection
+      for (Field field : fields) {
+        Class<?> fieldType = field.getType();
+        if (fieldType.isPrimitive()) {
+          copyPrimitive(field, object, copy);
+        } else {
+          Object value = field.get(object);
+          field.set(copy, copyObject(value));
+        }
+      }
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException("Cannot copy " + type.getName(), e);
+    }
+    return copy;
+  }
+
+  private static void copyPrimitive(Field field, Object source, Object target)
+      throws IllegalAccessException {
+    Class<?> type = field.getType();
+    if (type == double.class) {
+      field.setDouble(target, field.getDouble(source));
+    } else if (type == int.class) {
+      field.setInt(target, field.getInt(source));
+    } else if (type == boolean.class) {
+      field.setBoolean(target, field.getBoolean(source));
+    } else if (type == long.class) {
+      field.setLong(target, field.getLong(source));
+    } else if (type == float.class) {
+      field.setFloat(target, field.getFloat(source));
+    } else if (type == short.class) {
+      field.setShort(target, field.getShort(source));
+    } else if (type == byte.class) {
+      field.setByte(target, field.getByte(source));
+    } else {
+      field.setChar(target, field.getChar(source));
+    }
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Object copyCollection(Collection<?> collection) {
+    Collection copy;
+    if (collection instanceof SortedSet) {
+      copy = new TreeSet((Comparator) copyObject(((SortedSet) collection).comparator()));
+    } else {
+      copy = (Collection) newCollectionInstance(collection.getClass());
+      if (copy == null) {
+        if (collection instanceof List) {
+          copy = new ArrayList();
+        } else if (collection instanceof LinkedHashSet) {
+          copy = new LinkedHashSet();
+        } else {
+          copy = new HashSet();
+        }
+      }
+    }
+    copies.put(collection, copy);
+    for (Object item : collection) {
+      copy.add(copyObject(item));
+    }
+    return copy;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Object copyMap(Map<?, ?> map) {
+    Map copy;
+    if (map instanceof SortedMap) {
+      copy = new TreeMap((Comparator) copyObject(((SortedMap) map).comparator()));
+    } else {
+      copy = (Map) newCollectionInstance(map.getClass());
+      if (copy == null) {
+        copy = map instanceof LinkedHashMap ? new LinkedHashMap() : new HashMap();
+      }
+    }
+    copies.put(map, copy);
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      copy.put(copyObject(entry.getKey()), copyObject(entry.getValue()));
+    }
+    return copy;
+  }
+
+  private static Object newCollectionInstance(Class<?> type) {
+    if (!Modifier.isPublic(type.getModifiers())) {
+      return null;
+    }
+    try {
+      Constructor<?> constructor = type.getConstructor();
+      return constructor.newInstance();
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  private static Field[] getFields(Class<?> type) {
+    Field[] fields = fieldCache.get(type);
+    if (fields == null) {
+      List<Field> values = new ArrayList<Field>();
+      List<Field> references = new ArrayList<Field>();
+      for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          int modifiers = field.getModifiers();
+          if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+            continue;
+          }
+          field.setAccessible(true);
+          if (isValueType(field.getType())) {
+            values.add(field);
+          } else {
+            references.add(field);
+          }
+        }
+      }
+      values.addAll(references);
+      fields = values.toArray(new Field[values.size()]);
+      fieldCache.put(type, fields);
+    }
+    return fields;
+  }
+
+  private static boolean isValueType(Class<?> type) {
+    return type.isPrimitive() || type.isEnum() || type == String.class
+        || Number.class.isAssignableFrom(type) || type == Boolean.class
+        || type == Character.class || Date.class.isAssignableFrom(type);
+  }
+
+  /**
+   * Allocates instances without invoking constructors, so copying does not advance the unique
+   * identifier sequence or re-run any initialization logic.
+   */
+  private static class Instantiator {
+    private final Object unsafe;
+    private final Method allocateInstance;
+
+    Instantiator() {
+      try {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Field field = unsafeClass.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        unsafe = field.get(null);
+        allocateInstance = unsafeClass.getMethod("allocateInstance", Class.class);
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Object allocation is not supported by this JVM", e);
+      }
+    }
+
+    Object newInstance(Class<?> type) {
+      try {
+        return allocateInstance.invoke(unsafe, type);
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Cannot instantiate " + type.getName(), e);
+      }
+    }
+  }
+}
@@ -17,20 +17,71 @@ import edu.mit.spacenet.scenario.ItemDiscretization;
 import edu.mit.spacenet.scenario.Scenario;
 
 /**
- * A global access point to scenario options.
+ * A global access point to scenario options. Threads that run simulations concurrently (e.g. batch
+ * runs) can bind their own parameters, which are then returned by {@link #getSingleton()} on that
+ * thread in place of the shared instance.
  * 
  * @author Paul Grogan
  */
 public class GlobalParameters {
   private static final GlobalParameters singleton = new GlobalParameters();
+  private static final ThreadLocal<GlobalParameters> threadParameters =
+      new ThreadLocal<GlobalParameters>();
 
   /**
-   * Gets the singleton.
+   * Gets the singleton, or the parameters bound to the current thread if any.
    *
    * @return the singleton
    */
   public static final GlobalParameters getSingleton() {
-    return singleton;
+    GlobalParameters parameters = threadParameters.get();
+    return parameters == null ? singleton : parameters;
+  }
+
+  /**
+   * Creates a new, independent set of parameters from a scenario.
+   *
+   * @param scenario the scenario
+   *
+   * @return the parameters
+   */
+  public static GlobalParameters createFrom(Scenario scenario) {
+    GlobalParameters parameters = new GlobalParameters();
+    parameters.setParametersFrom(scenario);
+    return parameters;
+  }
+
+  /**
+   * Creates a new, independent set of parameters with the default values, e.g. to bind to a thread
+   * that opens a scenario so the scenario does not pick up values left by other scenarios.
+   *
+   * @return the parameters
+   */
+  public static GlobalParameters createDefault() {
+    return new GlobalParameters();
+  }
+
+  /**
+   * Binds parameters to the current thread so that they are used in place of the shared singleton
+   * until unbound.
+   *
+   * @param parameters the parameters to bind, or null to unbind
+   */
+  public static void setThreadParameters(GlobalParameters parameters) {
+    if (parameters == null) {
+      threadParameters.remove();
+    } else {
+      threadParameters.set(parameters);
+    }
+  }
+
+  /**
+   * Gets the parameters bound to the current thread without falling back to the shared singleton.
+   *
+   * @return the bound parameters, null if none
+   */
+  public static GlobalParameters getThreadParameters() {
+    return threadParameters.get();
   }
 
   private final int DECIMAL_PRECISION = 1000;
@@ -75,6 +126,8 @@ public class GlobalParameters {
   private double cargoTransferBagMaxMass = 26.8;
   private double cargoTransferBagMaxVolume = 0.049;
 
+  private volatile SimulationContext context;
+
   /**
    * Instantiates a new global parameters.
    */
@@ -121,6 +174,24 @@ public class GlobalParameters {
     setCargoTransferBagMaxVolume(scenario.getCargoTransferBagMaxVolume());
   }
 
+  /**
+   * Gets an immutable snapshot of the precision and constraint parameters. The snapshot is
+   * recreated after any of these parameters changes.
+   * 
+   * @return the simulation context
+   */
+  public SimulationContext getContext() {
+    SimulationContext context = this.context;
+    if (context == null) {
+      context = new SimulationContext(timePrecision, demandPrecision, massPrecision,
+          volumePrecision, volumeConstrained, environmentConstrained, scavengeSpares,
+          genericPackingFactorGas, genericPackingFactorLiquid,
+          genericPackingFactorPressurizedInternal, genericPackingFactorUnpressurized);
+      this.context = context;
+    }
+    return context;
+  }
+
   /**
    * Gets the time precision.
    * 
@@ -137,6 +208,7 @@ public class GlobalParameters {
    */
   public void setTimePrecision(double timePrecision) {
     this.timePrecision = timePrecision;
+    context = null;
   }
 
   /**
@@ -168,6 +240,7 @@ public class GlobalParameters {
    */
   public void setDemandPrecision(double demandPrecision) {
     this.demandPrecision = demandPrecision;
+    context = null;
   }
 
   /**
@@ -198,6 +271,7 @@ public class GlobalParameters {
    */
   public void setMassPrecision(double massPrecision) {
     this.massPrecision = massPrecision;
+    context = null;
   }
 
   /**
@@ -227,6 +301,7 @@ public class GlobalParameters {
    */
   public void setVolumePrecision(double volumePrecision) {
     this.volumePrecision = volumePrecision;
+    context = null;
   }
 
   /**
@@ -248,6 +323,7 @@ public class GlobalParameters {
    */
   public void setVolumeConstrained(boolean volumeConstrained) {
     this.volumeConstrained = volumeConstrained;
+    context = null;
   }
 
   /**
@@ -267,6 +343,7 @@ public class GlobalParameters {
    */
   public void setEnvironmentConstrained(boolean environmentConstrained) {
     this.environmentConstrained = environmentConstrained;
+    context = null;
   }
 
   /**
@@ -338,6 +415,7 @@ public class GlobalParameters {
    */
   public void setScavengeSpares(boolean scavengeSpares) {
     this.scavengeSpares = scavengeSpares;
+    context = null;
   }
 
   /**
@@ -356,6 +434,7 @@ public class GlobalParameters {
    */
   public void setGenericPackingFactorGas(double genericPackingFactorGas) {
     this.genericPackingFactorGas = genericPackingFactorGas;
+    context = null;
   }
 
   /**
@@ -374,6 +453,7 @@ public class GlobalParameters {
    */
   public void setGenericPackingFactorLiquid(double genericPackingFactorLiquid) {
     this.genericPackingFactorLiquid = genericPackingFactorLiquid;
+    context = null;
   }
 
   /**
@@ -414,6 +494,7 @@ public class GlobalParameters {
   public void setGenericPackingFactorPressurizedInternal(
       double genericPackingFactorPressurizedInternal) {
     this.genericPackingFactorPressurizedInternal = genericPackingFactorPressurizedInternal;
+    context = null;
   }
 
   /**
@@ -432,6 +513,7 @@ public class GlobalParameters {
    */
   public void setGenericPackingFactorUnpressurized(double genericPackingFactorUnpressurized) {
     this.genericPackingFactorUnpressurized = genericPackingFactorUnpressurized;
+    context = null;
   }
 
   /**
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.util;
+
+import edu.mit.spacenet.scenario.Scenario;
+
+/**
+ * An immutable snapshot of the precision and constraint options of a scenario. The current context
+ * is the snapshot of the global parameters of the current thread: a simulator binds parameters
+ * created from its scenario to the simulating thread (see
+ * {@link GlobalParameters#setThreadParameters(GlobalParameters)}), so domain accessors used during
+ * the simulation round and constrain values consistently even if the shared parameters are changed
+ * (e.g. by opening another scenario) while it runs.
+ * 
+ * @author Paul Grogan
+ */
+public final class SimulationContext {
+  /**
+   * Gets the context of the parameters bound to the current thread, or of the shared global
+   * parameters if none are bound.
+   * 
+   * @return the current context
+   */
+  public static SimulationContext current() {
+    return GlobalParameters.getSingleton().getContext();
+  }
+
+  /**
+   * Creates a context from the options of a scenario.
+   * 
+   * @param scenario the scenario
+   * 
+   * @return the context
+   */
+  public static SimulationContext createFrom(Scenario scenario) {
+    return new SimulationContext(scenario.getTimePrecision(), scenario.getDemandPrecision(),
+        scenario.getMassPrecision(), scenario.getVolumePrecision(),
+        scenario.isVolumeConstrained(), scenario.isEnvironmentConstrained(),
+        scenario.isScavengeSpares(), scenario.getGenericPackingFactorGas(),
+        scenario.getGenericPackingFactorLiquid(), scenario.getGenericPackingFactorPressurized(),
+        scenario.getGenericPackingFactorUnpressurized());
+  }
+
+  private static final int DECIMAL_PRECISION = 1000;
+
+  private final double timePrecision;
+  private final double demandPrecision;
+  private final double massPrecision;
+  private final double volumePrecision;
+  private final boolean volumeConstrained;
+  private final boolean environmentConstrained;
+  private final boolean scavengeSpares;
+  private final double genericPackingFactorGas;
+  private final double genericPackingFactorLiquid;
+  private final double genericPackingFactorPressurized;
+  private final double genericPackingFactorUnpressurized;
+
+  /**
+   * Instantiates a new simulation context.
+   * 
+   * @param timePrecision the time precision (days)
+   * @param demandPrecision the demand precision (units)
+   * @param massPrecision the mass precision (kilograms)
+   * @param volumePrecision the volume precision (cubic meters)
+   * @param volumeConstrained whether volume constraints are active
+   * @param environmentConstrained whether environment constraints are active
+   * @param scavengeSpares whether spares can be scavenged
+   * @param genericPackingFactorGas the gas packing factor
+   * @param genericPackingFactorLiquid the liquid packing factor
+   * @param genericPackingFactorPressurized the pressurized packing factor
+   * @param genericPackingFactorUnpressurized the unpressurized packing factor
+   */
+  public SimulationContext(double timePrecision, double demandPrecision, double massPrecision,
+      double volumePrecision, boolean volumeConstrained, boolean environmentConstrained,
+      boolean scavengeSpares, double genericPackingFactorGas, double genericPackingFactorLiquid,
+      double genericPackingFactorPressurized, double genericPackingFactorUnpressurized) {
+    this.timePrecision = timePrecision;
+    this.demandPrecision = demandPrecision;
+    this.massPrecision = massPrecision;
+    this.volumePrecision = volumePrecision;
+    this.volumeConstrained = volumeConstrained;
+    this.environmentConstrained = environmentConstrained;
+    this.scavengeSpares = scavengeSpares;
+    this.genericPackingFactorGas = genericPackingFactorGas;
+    this.genericPackingFactorLiquid = genericPackingFactorLiquid;
+    this.genericPackingFactorPressurized = genericPackingFactorPressurized;
+    this.genericPackingFactorUnpressurized = genericPackingFactorUnpressurized;
+  }
+
+  /**
+   * Gets the time precision.
+   * 
+   * @return the time precision (days)
+   */
+  public double getTimePrecision() {
+    return timePrecision;
+  }
+
+  /**
+   * Gets the rounded time according to the time precision.
+   * 
+   * @param time the raw time (days)
+   * 
+   * @return the rounded time (days)
+   */
+  public double getRoundedTime(double time) {
+    return Math.round(Math.round(time / timePrecision) * timePrecision * DECIMAL_PRECISION)
+        / ((double) DECIMAL_PRECISION);
+  }
+
+  /**
+   * Gets the demand precision.
+   * 
+   * @return the demand precision (units)
+   */
+  public double getDemandPrecision() {
+    return demandPrecision;
+  }
+
+  /**
+   * Gets the rounded demand according to the demand precision.
+   * 
+   * @param demand the raw demand amount
+   * 
+   * @return the rounded demand amount
+   */
+  public double getRoundedDemand(double demand) {
+    return Math.round(demand / demandPrecision) * demandPrecision;
+  }
+
+  /**
+   * Gets the mass precision.
+   * 
+   * @return the mass precision (kilograms)
+   */
+  public double getMassPrecision() {
+    return massPrecision;
+  }
+
+  /**
+   * Gets the rounded mass according to the mass precision.
+   * 
+   * @param mass the raw mass (kilograms)
+   * 
+   * @return the rounded mass (kilograms)
+   */
+  public double getRoundedMass(double mass) {
+    return Math.round(mass / massPrecision) * massPrecision;
+  }
+
+  /**
+   * Gets the volume precision.
+   * 
+   * @return the volume precision (cubic meters)
+   */
+  public double getVolumePrecision() {
+    return volumePrecision;
+  }
+
+  /**
+   * Gets the rounded volume according to the volume precision.
+   * 
+   * @param volume the raw volume (cubic meters)
+   * 
+   * @return the rounded volume (cubic meters)
+   */
+  public double getRoundedVolume(double volume) {
+    return Math.round(volume / volumePrecision) * volumePrecision;
+  }
+
+  /**
+   * Checks if volume constraints are active.
+   * 
+   * @return true if volume constraints are active, false otherwise
+   */
+  public boolean isVolumeConstrained() {
+    return volumeConstrained;
+  }
+
+  /**
+   * Checks if environment constraints are active.
+   * 
+   * @return true if environment constraints are active, false otherwise
+   */
+  public boolean isEnvironmentConstrained() {
+    return environmentConstrained;
+  }
+
+  /**
+   * Checks if spares can be scavenged.
+   * 
+   * @return true if spares can be scavenged, false otherwise
+   */
+  public boolean isScavengeSpares() {
+    return scavengeSpares;
+  }
+
+  /**
+   * Gets the generic packing factor for gaseous resources.
+   * 
+   * @return the packing factor
+   */
+  public double getGenericPackingFactorGas() {
+    return genericPackingFactorGas;
+  }
+
+  /**
+   * Gets the generic packing factor for liquid resources.
+   * 
+   * @return the packing factor
+   */
+  public double getGenericPackingFactorLiquid() {
+    return genericPackingFactorLiquid;
+  }
+
+  /**
+   * Gets the generic packing factor for pressurized resources.
+   * 
+   * @return the packing factor
+   */
+  public double getGenericPackingFactorPressurized() {
+    return genericPackingFactorPressurized;
+  }
+
+  /**
+   * Gets the generic packing factor for unpressurized resources.
+   * 
+   * @return the packing factor
+   */
+  public double getGenericPackingFactorUnpressurized() {
+    return genericPackingFactorUnpressurized;
+  }
+}
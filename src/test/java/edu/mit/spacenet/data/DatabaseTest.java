@@ -0,0 +1,360 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.mit.spacenet.domain.ClassOfSupply;
+import edu.mit.spacenet.domain.Environment;
+import edu.mit.spacenet.domain.element.Element;
+import edu.mit.spacenet.domain.element.ElementType;
+import edu.mit.spacenet.domain.element.I_Element;
+import edu.mit.spacenet.domain.element.I_State;
+import edu.mit.spacenet.domain.element.PartApplication;
+import edu.mit.spacenet.domain.element.ResourceContainer;
+import edu.mit.spacenet.domain.element.State;
+import edu.mit.spacenet.domain.element.StateType;
+import edu.mit.spacenet.domain.model.I_DemandModel;
+import edu.mit.spacenet.domain.model.RatedDemandModel;
+import edu.mit.spacenet.domain.model.SparingByMassDemandModel;
+import edu.mit.spacenet.domain.model.TimedImpulseDemandModel;
+import edu.mit.spacenet.domain.resource.Demand;
+import edu.mit.spacenet.domain.resource.I_Resource;
+import edu.mit.spacenet.domain.resource.Item;
+import edu.mit.spacenet.domain.resource.Resource;
+
+/**
+ * Runs the element loads and saves of {@link Database} against an in-process H2 database in MySQL
+ * mode that is created from the schema fixture.
+ * 
+ * @author Paul Grogan
+ */
+public class DatabaseTest {
+  private static int databaseCount;
+
+  private String url;
+  private Connection connection;
+  private Database database;
+  private Resource water;
+  private Item spare;
+
+  @Before
+  public void setUp() throws SQLException, IOException {
+    url = "jdbc:h2:mem:spacenet" + (databaseCount++)
+        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    connection = DriverManager.getConnection(url, "sa", "");
+    Statement stmt = connection.createStatement();
+    for (String sql : readSchema().split(";")) {
+      if (!sql.trim().isEmpty()) {
+        stmt.execute(sql);
+      }
+    }
+    stmt.execute("SET QUERY_STATISTICS TRUE");
+    stmt.close();
+
+    database = new Database("localhost", "spacenet", "sa", "") {
+      @Override
+      protected String getUrl() {
+        return url;
+      }
+    };
+    water = new Resource();
+    water.setName("Water");
+    water.setClassOfSupply(ClassOfSupply.COS201);
+    water.setEnvironment(Environment.PRESSURIZED);
+    water.setDescription("");
+    database.saveResource(water);
+    spare = new Item();
+    spare.setName("Spare");
+    spare.setClassOfSupply(ClassOfSupply.COS4);
+    spare.setUnitMass(5);
+    spare.setDescription("");
+    database.saveResource(spare);
+  }
+
+  @After
+  public void tearDown() throws SQLException {
+    connection.createStatement().execute("SHUTDOWN");
+    connection.close();
+  }
+
+  private static String readSchema() throws IOException {
+    InputStream in = DatabaseTest.class.getResourceAsStream("schema.sql");
+    try {
+      Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name());
+      StringBuilder schema = new StringBuilder();
+      while (scanner.hasNextLine()) {
+        String line = scanner.nextLine();
+        if (!line.startsWith("--")) {
+          schema.append(line).append('\n');
+        }
+      }
+      return schema.toString();
+    } finally {
+      in.close();
+    }
+  }
+
+  private long getQueryCount() throws SQLException {
+    ResultSet rs = connection.createStatement().executeQuery(
+        "SELECT SUM(execution_count) FROM information_schema.query_statistics "
+            + "WHERE sql_statement LIKE 'SELECT%'");
+    rs.next();
+    return rs.getLong(1);
+  }
+
+  private int getRowCount(String table, String column, int id) throws SQLException {
+    ResultSet rs = connection.createStatement()
+        .executeQuery("SELECT COUNT(*) FROM " + table + " WHERE " + column + " = " + id);
+    rs.next();
+    return rs.getInt(1);
+  }
+
+  private static Demand createDemand(I_Resource resource, double amount) {
+    Demand demand = new Demand();
+    demand.setResource(resource);
+    demand.setAmount(amount);
+    return demand;
+  }
+
+  private ResourceContainer createContainer() {
+    ResourceContainer container = new ResourceContainer();
+    container.setName("Water Tank");
+    container.setClassOfSupply(ClassOfSupply.COS5);
+    container.setMass(20);
+    container.setMaxCargoMass(100);
+    container.setMaxCargoVolume(0.5);
+    container.setCargoEnvironment(Environment.PRESSURIZED);
+    container.setDescription("");
+    container.getContents().put(water, 60d);
+    return container;
+  }
+
+  private Element createHabitat() {
+    Element habitat = new Element();
+    habitat.setName("Habitat");
+    habitat.setClassOfSupply(ClassOfSupply.COS8);
+    habitat.setMass(1000);
+    habitat.setVolume(50);
+    habitat.setDescription("");
+    PartApplication part = new PartApplication();
+    part.setPart(spare);
+    part.setQuantity(2);
+    part.setMeanTimeToFailure(400);
+    habitat.getParts().add(part);
+
+    State active = new State();
+    active.setName("Active");
+    active.setStateType(StateType.ACTIVE);
+    RatedDemandModel rated = new RatedDemandModel();
+    rated.setName("Consumption");
+    rated.getDemandRates().add(createDemand(water, 1.5));
+    active.getDemandModels().add(rated);
+    SparingByMassDemandModel sparing = new SparingByMassDemandModel(habitat);
+    sparing.setName("Sparing");
+    sparing.setUnpressurizedSparesRate(0.05);
+    sparing.setPressurizedSparesRate(0.1);
+    active.getDemandModels().add(sparing);
+    habitat.getStates().add(active);
+    habitat.setCurrentState(active);
+
+    State dormant = new State();
+    dormant.setName("Dormant");
+    dormant.setStateType(StateType.DORMANT);
+    TimedImpulseDemandModel impulse = new TimedImpulseDemandModel();
+    impulse.setName("Restock");
+    impulse.getDemands().add(createDemand(spare, 1));
+    dormant.getDemandModels().add(impulse);
+    habitat.getStates().add(dormant);
+    return habitat;
+  }
+
+  private static I_State getState(I_Element element, String name) {
+    for (I_State state : element.getStates()) {
+      if (state.getName().equals(name)) {
+        return state;
+      }
+    }
+    return null;
+  }
+
+  private static I_DemandModel getModel(I_State state, String name) {
+    for (I_DemandModel model : state.getDemandModels()) {
+      if (model.getName().equals(name)) {
+        return model;
+      }
+    }
+    return null;
+  }
+
+  private static void assertSaved(I_Element element) {
+    assertTrue(element.getTid() > 0);
+    for (PartApplication part : element.getParts()) {
+      assertTrue(part.getTid() > 0);
+    }
+    for (I_State state : element.getStates()) {
+      assertTrue(state.getTid() > 0);
+      for (I_DemandModel model : state.getDemandModels()) {
+        assertTrue(model.getTid() > 0);
+      }
+    }
+  }
+
+  @Test
+  public void savedElementsLoadWithSixQueries() throws SQLException {
+    ResourceContainer container = createContainer();
+    Element habitat = createHabitat();
+    database.saveElement(container);
+    database.saveElement(habitat);
+    assertSaved(container);
+    assertSaved(habitat);
+
+    long queries = getQueryCount();
+    List<I_Element> elements = database
+        .loadElements(Arrays.asList(habitat.getTid(), container.getTid(), habitat.getTid(), 999));
+    // the query statistics include the count query itself
+    assertEquals(6 + 1, getQueryCount() - queries);
+
+    assertEquals(4, elements.size());
+    assertNotSame(elements.get(0), elements.get(2));
+    assertNull(elements.get(3));
+
+    I_Element loadedHabitat = elements.get(0);
+    assertEquals(ElementType.ELEMENT, loadedHabitat.getElementType());
+    assertEquals("Habitat", loadedHabitat.getName());
+    assertEquals(ClassOfSupply.COS8, loadedHabitat.getClassOfSupply());
+    assertEquals(1000, loadedHabitat.getMass(), 0);
+    assertEquals(1, loadedHabitat.getParts().size());
+    PartApplication part = loadedHabitat.getParts().first();
+    assertEquals(spare, part.getPart());
+    assertEquals(2, part.getQuantity(), 0);
+    assertEquals(400, part.getMeanTimeToFailure(), 0);
+    assertEquals(2, loadedHabitat.getStates().size());
+    assertEquals("Active", loadedHabitat.getCurrentState().getName());
+
+    I_State active = getState(loadedHabitat, "Active");
+    assertEquals(StateType.ACTIVE, active.getStateType());
+    RatedDemandModel rated = (RatedDemandModel) getModel(active, "Consumption");
+    assertEquals(1, rated.getDemandRates().size());
+    assertEquals(water, rated.getDemandRates().first().getResource());
+    assertEquals(1.5, rated.getDemandRates().first().getAmount(), 0);
+    SparingByMassDemandModel sparing = (SparingByMassDemandModel) getModel(active, "Sparing");
+    assertEquals(0.05, sparing.getUnpressurizedSparesRate(), 0);
+    assertEquals(0.1, sparing.getPressurizedSparesRate(), 0);
+    assertTrue(sparing.getElement() == loadedHabitat);
+    TimedImpulseDemandModel impulse =
+        (TimedImpulseDemandModel) getModel(getState(loadedHabitat, "Dormant"), "Restock");
+    assertEquals(spare, impulse.getDemands().first().getResource());
+    assertEquals(1, impulse.getDemands().first().getAmount(), 0);
+
+    ResourceContainer loadedContainer = (ResourceContainer) elements.get(1);
+    assertEquals(100, loadedContainer.getMaxCargoMass(), 0);
+    assertEquals(Environment.PRESSURIZED, loadedContainer.getCargoEnvironment());
+    assertEquals(1, loadedContainer.getContents().size());
+    assertEquals(60, loadedContainer.getContents().get(water), 0);
+  }
+
+  @Test
+  public void changedElementsSaveInBatches() throws SQLException {
+    ResourceContainer container = createContainer();
+    Element habitat = createHabitat();
+    database.saveElement(container);
+    database.saveElement(habitat);
+
+    container.getContents().put(water, 40d);
+    container.getContents().put(spare, 3d);
+    habitat.getParts().first().setQuantity(4);
+    habitat.getStates().remove(getState(habitat, "Dormant"));
+    RatedDemandModel rated =
+        (RatedDemandModel) getModel(getState(habitat, "Active"), "Consumption");
+    rated.getDemandRates().first().setAmount(2);
+    rated.getDemandRates().add(createDemand(spare, 0.01));
+    database.saveElement(container);
+    database.saveElement(habitat);
+    assertSaved(habitat);
+
+    assertEquals(2, getRowCount("demands", "container_id", container.getTid()));
+    assertEquals(1, getRowCount("parts", "element_id", habitat.getTid()));
+    assertEquals(1, getRowCount("states", "element_id", habitat.getTid()));
+    assertEquals(2, getRowCount("demands", "model_id", rated.getTid()));
+
+    List<I_Element> elements =
+        database.loadElements(Arrays.asList(container.getTid(), habitat.getTid()));
+    ResourceContainer loadedContainer = (ResourceContainer) elements.get(0);
+    assertEquals(40, loadedContainer.getContents().get(water), 0);
+    assertEquals(3, loadedContainer.getContents().get(spare), 0);
+    I_Element loadedHabitat = elements.get(1);
+    assertEquals(4, loadedHabitat.getParts().first().getQuantity(), 0);
+    assertEquals(1, loadedHabitat.getStates().size());
+    RatedDemandModel loadedRated =
+        (RatedDemandModel) getModel(getState(loadedHabitat, "Active"), "Consumption");
+    List<Double> amounts = new ArrayList<Double>();
+    for (Demand demand : loadedRated.getDemandRates()) {
+      amounts.add(demand.getResource() == water ? demand.getAmount() : -demand.getAmount());
+    }
+    assertTrue(amounts.contains(2d));
+    assertTrue(amounts.contains(-0.01));
+
+    database.deleteElement(habitat.getTid());
+    assertNull(database.loadElement(habitat.getTid()));
+    assertEquals(0, getRowCount("states", "element_id", habitat.getTid()));
+    assertEquals(0, getRowCount("demands", "model_id", rated.getTid()));
+    assertNotNull(database.loadElement(container.getTid()));
+  }
+
+  private String getResourceName(int tid) {
+    for (I_Resource resource : database.getResourceLibrary()) {
+      if (resource.getTid() == tid) {
+        return resource.getName();
+      }
+    }
+    return null;
+  }
+
+  @Test
+  public void editedRowsAreSeenByNextLoad() throws Exception {
+    database.loadLibraries();
+    assertEquals("Water", getResourceName(water.getTid()));
+
+    Statement stmt = connection.createStatement();
+    stmt.executeUpdate("UPDATE resources SET name = 'Potable Water' WHERE id = " + water.getTid());
+    stmt.close();
+    database.loadLibraries();
+    assertEquals("Potable Water", getResourceName(water.getTid()));
+
+    // H2 has no CHECKSUM TABLE, so the version is unknown and every load reads the tables
+    assertNull(database.getLibraryVersion());
+  }
+}
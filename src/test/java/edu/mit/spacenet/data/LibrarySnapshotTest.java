@@ -0,0 +1,258 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.mit.spacenet.domain.ClassOfSupply;
+import edu.mit.spacenet.domain.Environment;
+import edu.mit.spacenet.domain.element.ElementIcon;
+import edu.mit.spacenet.domain.element.ElementType;
+import edu.mit.spacenet.domain.network.edge.Burn;
+import edu.mit.spacenet.domain.network.edge.BurnType;
+import edu.mit.spacenet.domain.network.edge.FlightEdge;
+import edu.mit.spacenet.domain.network.edge.SpaceEdge;
+import edu.mit.spacenet.domain.network.edge.SurfaceEdge;
+import edu.mit.spacenet.domain.network.node.Body;
+import edu.mit.spacenet.domain.network.node.LagrangeNode;
+import edu.mit.spacenet.domain.network.node.OrbitalNode;
+import edu.mit.spacenet.domain.network.node.SurfaceNode;
+import edu.mit.spacenet.domain.resource.Item;
+import edu.mit.spacenet.domain.resource.Resource;
+
+/**
+ * Writes library snapshots and reads them back.
+ * 
+ * @author Paul Grogan
+ */
+public class LibrarySnapshotTest {
+  private static final String KEY = "test";
+  private static final String VERSION = "1";
+
+  @Rule
+  public TemporaryFolder home = new TemporaryFolder();
+
+  private String userHome;
+
+  @Before
+  public void setUp() {
+    userHome = System.getProperty("user.home");
+    System.setProperty("user.home", home.getRoot().getPath());
+  }
+
+  @After
+  public void tearDown() {
+    System.setProperty("user.home", userHome);
+  }
+
+  private static Database createDataSource() {
+    return new Database("localhost", "spacenet", "sa", "");
+  }
+
+  private static void populate(Database dataSource) {
+    SurfaceNode surface = new SurfaceNode();
+    surface.setTid(1);
+    surface.setName("Shackleton");
+    surface.setBody(Body.MOON);
+    surface.setLatitude(-89.9);
+    surface.setLongitude(0);
+    OrbitalNode orbital = new OrbitalNode();
+    orbital.setTid(2);
+    orbital.setName("LLO");
+    orbital.setDescription("Low Lunar Orbit");
+    orbital.setBody(Body.MOON);
+    orbital.setApoapsis(100);
+    orbital.setPeriapsis(100);
+    orbital.setInclination(90);
+    LagrangeNode lagrange = new LagrangeNode();
+    lagrange.setTid(3);
+    lagrange.setName("EML2");
+    lagrange.setBody(Body.EARTH);
+    lagrange.setMinorBody(Body.MOON);
+    lagrange.setNumber(2);
+    dataSource.getNodeLibrary().add(surface);
+    dataSource.getNodeLibrary().add(orbital);
+    dataSource.getNodeLibrary().add(lagrange);
+
+    SurfaceEdge traverse = new SurfaceEdge();
+    traverse.setTid(1);
+    traverse.setName("Traverse");
+    traverse.setOrigin(surface);
+    traverse.setDestination(surface);
+    traverse.setDistance(12.5);
+    SpaceEdge transfer = new SpaceEdge();
+    transfer.setTid(2);
+    transfer.setName("Transfer");
+    transfer.setOrigin(orbital);
+    transfer.setDestination(lagrange);
+    transfer.setDuration(4);
+    Burn burn = new Burn();
+    burn.setTid(7);
+    burn.setTime(0.5);
+    burn.setBurnType(BurnType.RCS);
+    burn.setDeltaV(250);
+    transfer.getBurns().add(burn);
+    FlightEdge flight = new FlightEdge();
+    flight.setTid(3);
+    flight.setName("Flight");
+    flight.setOrigin(lagrange);
+    flight.setDestination(surface);
+    flight.setDuration(3);
+    flight.setMaxCrewSize(4);
+    flight.setMaxCargoMass(1500);
+    dataSource.getEdgeLibrary().add(traverse);
+    dataSource.getEdgeLibrary().add(transfer);
+    dataSource.getEdgeLibrary().add(flight);
+
+    Resource water = new Resource();
+    water.setTid(1);
+    water.setName("Water");
+    water.setClassOfSupply(ClassOfSupply.COS201);
+    water.setUnits("kg");
+    water.setUnitMass(1);
+    water.setUnitVolume(0.001);
+    water.setPackingFactor(0.5);
+    water.setEnvironment(Environment.PRESSURIZED);
+    Item spare = new Item();
+    spare.setTid(2);
+    spare.setName("Spare");
+    spare.setClassOfSupply(ClassOfSupply.COS4);
+    spare.setUnitMass(5);
+    dataSource.getResourceLibrary().add(water);
+    dataSource.getResourceLibrary().add(spare);
+
+    dataSource.getElementPreviewLibrary()
+        .add(new ElementPreview(5, "Rover", ElementType.SURFACE_VEHICLE, ElementIcon.BRICK));
+  }
+
+  @Test
+  public void snapshotIsKeptInUserHome() {
+    File file = LibrarySnapshot.getFile(KEY);
+    assertEquals(new File(new File(home.getRoot(), ".spacenet"), "cache"), file.getParentFile());
+    Database dataSource = createDataSource();
+    populate(dataSource);
+    LibrarySnapshot.write(dataSource, KEY, VERSION);
+    assertTrue(file.isFile());
+  }
+
+  @Test
+  public void snapshotRestoresLibraries() {
+    Database original = createDataSource();
+    populate(original);
+    LibrarySnapshot.write(original, KEY, VERSION);
+    Database restored = createDataSource();
+    assertTrue(LibrarySnapshot.read(restored, KEY, VERSION));
+
+    assertEquals(3, restored.getNodeLibrary().size());
+    SurfaceNode surface = (SurfaceNode) restored.getNodeLibrary().get(0);
+    assertEquals("Shackleton", surface.getName());
+    assertEquals(Body.MOON, surface.getBody());
+    assertEquals(-89.9, surface.getLatitude(), 0);
+    OrbitalNode orbital = (OrbitalNode) restored.getNodeLibrary().get(1);
+    assertEquals("Low Lunar Orbit", orbital.getDescription());
+    assertEquals(90, orbital.getInclination(), 0);
+    LagrangeNode lagrange = (LagrangeNode) restored.getNodeLibrary().get(2);
+    assertEquals(Body.MOON, lagrange.getMinorBody());
+    assertEquals(2, lagrange.getNumber());
+
+    assertEquals(3, restored.getEdgeLibrary().size());
+    SurfaceEdge traverse = (SurfaceEdge) restored.getEdgeLibrary().get(0);
+    assertSame(surface, traverse.getOrigin());
+    assertEquals(12.5, traverse.getDistance(), 0);
+    SpaceEdge transfer = (SpaceEdge) restored.getEdgeLibrary().get(1);
+    assertSame(orbital, transfer.getOrigin());
+    assertSame(lagrange, transfer.getDestination());
+    assertEquals(1, transfer.getBurns().size());
+    Burn burn = transfer.getBurns().get(0);
+    assertEquals(7, burn.getTid());
+    assertEquals(BurnType.RCS, burn.getBurnType());
+    assertEquals(250, burn.getDeltaV(), 0);
+    FlightEdge flight = (FlightEdge) restored.getEdgeLibrary().get(2);
+    assertEquals(4, flight.getMaxCrewSize());
+    assertEquals(1500, flight.getMaxCargoMass(), 0);
+
+    assertEquals(2, restored.getResourceLibrary().size());
+    Resource water = (Resource) restored.getResourceLibrary().get(0);
+    assertEquals(Resource.class, water.getClass());
+    assertEquals(ClassOfSupply.COS201, water.getClassOfSupply());
+    assertEquals(0.001, water.getUnitVolume(), 0);
+    assertEquals(0.5, water.getPackingFactor(), 0);
+    assertEquals(Environment.PRESSURIZED, water.getEnvironment());
+    assertEquals(Item.class, restored.getResourceLibrary().get(1).getClass());
+
+    assertEquals(1, restored.getElementPreviewLibrary().size());
+    ElementPreview preview = restored.getElementPreviewLibrary().get(0);
+    assertEquals(5, preview.ID);
+    assertEquals(ElementType.SURFACE_VEHICLE, preview.TYPE);
+    assertEquals(ElementIcon.BRICK, preview.getIconType());
+  }
+
+  @Test
+  public void snapshotOfOtherVersionIsIgnored() {
+    Database original = createDataSource();
+    populate(original);
+    LibrarySnapshot.write(original, KEY, VERSION);
+    Database restored = createDataSource();
+    assertFalse(LibrarySnapshot.read(restored, KEY, "2"));
+    assertTrue(restored.getNodeLibrary().isEmpty());
+  }
+
+  @Test
+  public void recordWithUnreadFieldsIsRejected() throws IOException {
+    Database original = createDataSource();
+    populate(original);
+    LibrarySnapshot.write(original, KEY, VERSION);
+
+    // lengthen the first node record by one byte, as a writer with an extra field would
+    File file = LibrarySnapshot.getFile(KEY);
+    RandomAccessFile snapshot = new RandomAccessFile(file, "rw");
+    try {
+      snapshot.readInt();
+      snapshot.readInt();
+      snapshot.readUTF();
+      snapshot.readUTF();
+      snapshot.readInt();
+      long position = snapshot.getFilePointer();
+      int length = snapshot.readInt();
+      byte[] rest = new byte[(int) (snapshot.length() - snapshot.getFilePointer() - length)];
+      byte[] record = new byte[length];
+      snapshot.readFully(record);
+      snapshot.readFully(rest);
+      snapshot.seek(position);
+      snapshot.writeInt(length + 1);
+      snapshot.write(record);
+      snapshot.write(0);
+      snapshot.write(rest);
+    } finally {
+      snapshot.close();
+    }
+
+    Database restored = createDataSource();
+    assertFalse(LibrarySnapshot.read(restored, KEY, VERSION));
+    assertTrue(restored.getNodeLibrary().isEmpty());
+  }
+}
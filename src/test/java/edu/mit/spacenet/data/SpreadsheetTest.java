@@ -0,0 +1,263 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.thoughtworks.xstream.XStream;
+
+import edu.mit.spacenet.domain.resource.I_Resource;
+
+/**
+ * Loads the quick start spreadsheet libraries from the .xls files and from .xlsx conversions, and
+ * checks that the shared workbook cache sees saved, deleted, and replaced files.
+ * 
+ * @author Paul Grogan
+ */
+public class SpreadsheetTest {
+  private static final String[] WORKBOOKS = {"docs/quick_start_1.xls", "docs/quick_start_2.xls"};
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private String userHome;
+
+  @Before
+  public void setUp() throws IOException {
+    // keep library snapshots out of the real home directory
+    userHome = System.getProperty("user.home");
+    System.setProperty("user.home", folder.newFolder("home").getPath());
+  }
+
+  @After
+  public void tearDown() {
+    System.setProperty("user.home", userHome);
+  }
+
+  private File copy(String path) throws IOException {
+    File file = folder.newFile();
+    file.delete();
+    file = new File(file.getPath() + ".xls");
+    Files.copy(new File(path).toPath(), file.toPath());
+    return file;
+  }
+
+  /**
+   * Describes the libraries of a data source and the element templates they list. Loaded elements
+   * receive new unique ids, and their generated tanks random negative type ids, which are removed.
+   */
+  private static String describe(Spreadsheet_2_5 dataSource) throws Exception {
+    dataSource.loadLibraries();
+    XStream xstream = new XStream();
+    StringBuilder text = new StringBuilder();
+    text.append(xstream.toXML(dataSource.getNodeLibrary()));
+    text.append(xstream.toXML(dataSource.getEdgeLibrary()));
+    text.append(xstream.toXML(dataSource.getResourceLibrary()));
+    for (ElementPreview preview : dataSource.getElementPreviewLibrary()) {
+      text.append(preview.ID).append(' ').append(preview.NAME).append(' ').append(preview.TYPE);
+      text.append(xstream.toXML(dataSource.loadElement(preview.ID)));
+    }
+    text.append(dataSource.validateData());
+    return text.toString().replaceAll("<uid>\\d+</uid>|<tid>-\\d+</tid>", "");
+  }
+
+  @Test
+  public void xlsxLibrariesMatchXls() throws Exception {
+    for (String path : WORKBOOKS) {
+      File xls = copy(path);
+      File xlsx = new File(folder.getRoot(), new File(path).getName() + "x");
+      writeXlsx(WorkbookCache.read(xls), xlsx);
+
+      String expected = describe(new Spreadsheet_2_5(xls.getPath()));
+      assertTrue(expected.contains("<name>"));
+      assertEquals(path, expected, describe(new Spreadsheet_2_5(xlsx.getPath())));
+    }
+  }
+
+  @Test
+  public void cacheReusesUnchangedWorkbooks() throws IOException {
+    File xls = copy(WORKBOOKS[0]);
+    WorkbookCache entry = WorkbookCache.get(xls.getPath());
+    assertSame(entry, WorkbookCache.get(xls.getPath()));
+    assertSame(entry, WorkbookCache.get(xls.getParent() + "/./" + xls.getName()));
+  }
+
+  @Test
+  public void savedResourcesAreLoaded() throws Exception {
+    File xls = copy(WORKBOOKS[0]);
+    Spreadsheet_2_5 dataSource = new Spreadsheet_2_5(xls.getPath());
+    dataSource.loadLibraries();
+    I_Resource resource = dataSource.getResourceLibrary().get(0);
+    resource.setName("Renamed Resource");
+    resource.setUnitMass(12.5);
+    dataSource.saveResource(resource);
+
+    Spreadsheet_2_5 reader = new Spreadsheet_2_5(xls.getPath());
+    reader.loadLibraries();
+    I_Resource loaded = reader.loadResource(resource.getTid());
+    assertEquals("Renamed Resource", loaded.getName());
+    assertEquals(12.5, loaded.getUnitMass(), 0);
+  }
+
+  @Test
+  public void deletedElementsAreNotLoaded() throws Exception {
+    File xls = copy(WORKBOOKS[0]);
+    Spreadsheet_2_5 dataSource = new Spreadsheet_2_5(xls.getPath());
+    dataSource.loadLibraries();
+    int tid = dataSource.getElementPreviewLibrary().get(0).ID;
+    assertTrue(dataSource.loadElement(tid) != null);
+    assertTrue(dataSource.deleteElement(tid));
+
+    Spreadsheet_2_5 reader = new Spreadsheet_2_5(xls.getPath());
+    reader.loadLibraries();
+    assertNull(reader.loadElementPreview(tid));
+    assertNull(reader.loadElement(tid));
+  }
+
+  @Test
+  public void replacedFilesAreReread() throws Exception {
+    File xls = copy(WORKBOOKS[0]);
+    Spreadsheet_2_5 dataSource = new Spreadsheet_2_5(xls.getPath());
+    String before = describe(dataSource);
+    WorkbookCache entry = WorkbookCache.get(xls.getPath());
+
+    // replace the file outside the data source, as another program saving it would
+    long lastModified = xls.lastModified();
+    Files.copy(new File(WORKBOOKS[1]).toPath(), xls.toPath(),
+        StandardCopyOption.REPLACE_EXISTING);
+    assertTrue(xls.setLastModified(lastModified + 2000));
+    assertNotSame(entry, WorkbookCache.get(xls.getPath()));
+
+    String after = describe(new Spreadsheet_2_5(xls.getPath()));
+    assertFalse(before.equals(after));
+    assertEquals(describe(new Spreadsheet_2_5(copy(WORKBOOKS[1]).getPath())), after);
+  }
+
+  /**
+   * Writes the cell values of a workbook as a minimal Office Open XML package, with text in the
+   * shared string table.
+   */
+  private static void writeXlsx(Workbook workbook, File file) throws IOException {
+    Map<String, Integer> strings = new LinkedHashMap<String, Integer>();
+    List<String> sheets = new ArrayList<String>();
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+      Writer out = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+      StringBuilder workbookXml = new StringBuilder("<workbook xmlns=\"http://schemas."
+          + "openxmlformats.org/spreadsheetml/2006/main\" xmlns:r=\"http://schemas."
+          + "openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+      StringBuilder relsXml = new StringBuilder("<Relationships xmlns=\"http://schemas."
+          + "openxmlformats.org/package/2006/relationships\">");
+      for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+        Sheet sheet = workbook.getSheetAt(i);
+        sheets.add(sheet.getSheetName());
+        workbookXml.append("<sheet name=\"").append(escape(sheet.getSheetName()))
+            .append("\" sheetId=\"").append(i + 1).append("\" r:id=\"rId").append(i + 1)
+            .append("\"/>");
+        relsXml.append("<Relationship Id=\"rId").append(i + 1)
+            .append("\" Target=\"worksheets/sheet").append(i + 1).append(".xml\"/>");
+
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + (i + 1) + ".xml"));
+        out.write("<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+            + "<sheetData>");
+        for (Row row : sheet) {
+          out.write("<row r=\"" + (row.getRowNum() + 1) + "\">");
+          for (Cell cell : row) {
+            CellType type = cell.getCellType();
+            if (type == CellType.FORMULA)
+              type = cell.getCachedFormulaResultType();
+            String reference = getColumnName(cell.getColumnIndex()) + (row.getRowNum() + 1);
+            if (type == CellType.NUMERIC) {
+              out.write("<c r=\"" + reference + "\"><v>" + cell.getNumericCellValue() + "</v></c>");
+            } else if (type == CellType.BOOLEAN) {
+              out.write("<c r=\"" + reference + "\" t=\"b\"><v>"
+                  + (cell.getBooleanCellValue() ? 1 : 0) + "</v></c>");
+            } else if (type == CellType.STRING) {
+              Integer index = strings.get(cell.getStringCellValue());
+              if (index == null) {
+                index = strings.size();
+                strings.put(cell.getStringCellValue(), index);
+              }
+              out.write("<c r=\"" + reference + "\" t=\"s\"><v>" + index + "</v></c>");
+            }
+          }
+          out.write("</row>");
+        }
+        out.write("</sheetData></worksheet>");
+        out.flush();
+        zip.closeEntry();
+      }
+
+      zip.putNextEntry(new ZipEntry("xl/workbook.xml"));
+      out.write(workbookXml.append("</sheets></workbook>").toString());
+      out.flush();
+      zip.closeEntry();
+      zip.putNextEntry(new ZipEntry("xl/_rels/workbook.xml.rels"));
+      out.write(relsXml.append("</Relationships>").toString());
+      out.flush();
+      zip.closeEntry();
+      zip.putNextEntry(new ZipEntry("xl/sharedStrings.xml"));
+      out.write("<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">");
+      for (String s : strings.keySet()) {
+        out.write("<si><t xml:space=\"preserve\">" + escape(s) + "</t></si>");
+      }
+      out.write("</sst>");
+      out.flush();
+      zip.closeEntry();
+    }
+  }
+
+  private static String getColumnName(int column) {
+    String name = "";
+    for (int c = column + 1; c > 0; c = (c - 1) / 26) {
+      name = (char) ('A' + (c - 1) % 26) + name;
+    }
+    return name;
+  }
+
+  private static String escape(String text) {
+    return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"",
+        "&quot;");
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.domain.element;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import edu.mit.spacenet.domain.ClassOfSupply;
+import edu.mit.spacenet.domain.network.Location;
+import edu.mit.spacenet.io.XStreamEngine;
+import edu.mit.spacenet.scenario.Scenario;
+import edu.mit.spacenet.simulator.FullSimulator;
+import edu.mit.spacenet.simulator.SimNetwork;
+import edu.mit.spacenet.util.GlobalParameters;
+import edu.mit.spacenet.util.SimulationContext;
+
+/**
+ * Checks that the masses tabulated by {@link I_Element#addTotalMassByCos(double[])} match
+ * {@link I_Element#getTotalMass(ClassOfSupply)} over the network history of the quick start
+ * scenarios.
+ * 
+ * @author Paul Grogan
+ */
+public class TotalMassByCosTest {
+  private static final String[] SCENARIOS =
+      {"docs/completed_quick_start_1.xml", "docs/completed_quick_start_2.xml"};
+
+  @Test
+  public void massesMatchTotalMassOfEachClassOfSupply() throws IOException {
+    for (String filePath : SCENARIOS) {
+      Scenario scenario = XStreamEngine.openScenario(filePath);
+      FullSimulator simulator = new FullSimulator(scenario);
+      simulator.simulate();
+      GlobalParameters parameters = GlobalParameters.createFrom(scenario);
+      GlobalParameters.setThreadParameters(parameters);
+      SimulationContext context = parameters.getContext();
+      try {
+        double delta = scenario.getMassPrecision() * 1.001;
+        for (SimNetwork network : simulator.getNetworkHistory()) {
+          for (Location location : network.getNetwork().getLocations()) {
+            double[] masses = new double[ClassOfSupply.values().length];
+            location.addTotalMassByCos(masses);
+            for (ClassOfSupply cos : ClassOfSupply.values()) {
+              assertEquals(filePath + ": " + location + " " + cos,
+                  location.getTotalMass(cos, simulator),
+                  context.getRoundedMass(masses[cos.ordinal()]), delta);
+            }
+          }
+          for (I_Element element : network.getNetwork().getRegistrar().values()) {
+            double[] masses = new double[ClassOfSupply.values().length];
+            element.addTotalMassByCos(masses);
+            for (ClassOfSupply cos : ClassOfSupply.values()) {
+              assertEquals(filePath + ": " + element + " " + cos, element.getTotalMass(cos),
+                  context.getRoundedMass(masses[cos.ordinal()]), delta);
+            }
+          }
+        }
+      } finally {
+        GlobalParameters.setThreadParameters(null);
+        simulator.getNetworkHistory().clear(); // release the journal file
+      }
+    }
+  }
+}
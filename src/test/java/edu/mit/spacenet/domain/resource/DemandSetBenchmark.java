@@ -0,0 +1,128 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.domain.resource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+
+import edu.mit.spacenet.util.Benchmarks;
+import edu.mit.spacenet.util.SimulationContext;
+
+/**
+ * Measures a demand set workload of 10,000 demands over a catalog of resources: each demand is
+ * merged into a set and the total mass is read either after every merge or once at the end. The
+ * scan variant repeats the linear search and summation that {@link DemandSet} used before it was
+ * indexed.
+ * 
+ * @author Paul Grogan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DemandSetBenchmark {
+  private static final int DEMAND_COUNT = 10000;
+
+  @Param({"100", "1000"})
+  public int resourceCount;
+
+  @Param({"true", "false"})
+  public boolean totalPerMerge;
+
+  private List<Demand> demands;
+
+  @Setup
+  public void setUp() {
+    List<Resource> resources = new ArrayList<Resource>();
+    for (int i = 0; i < resourceCount; i++) {
+      Resource resource = new Resource();
+      resource.setTid(i + 1);
+      resource.setUnitMass(1 + i % 7);
+      resource.setUnitVolume(0.001 * (1 + i % 5));
+      resources.add(resource);
+    }
+    Random random = new Random(0);
+    demands = new ArrayList<Demand>();
+    for (int i = 0; i < DEMAND_COUNT; i++) {
+      demands.add(new Demand(resources.get(random.nextInt(resourceCount)), random.nextDouble()));
+    }
+  }
+
+  @Benchmark
+  public double indexed() {
+    DemandSet set = new DemandSet();
+    double mass = 0;
+    for (Demand demand : demands) {
+      set.add(demand);
+      if (totalPerMerge) {
+        mass += set.getTotalMass();
+      }
+    }
+    return mass + set.getTotalMass();
+  }
+
+  @Benchmark
+  public double scan() {
+    SortedSet<Demand> set = new TreeSet<Demand>();
+    double mass = 0;
+    for (Demand demand : demands) {
+      boolean merged = false;
+      for (Demand d : set) {
+        if (d.getResource().equals(demand.getResource())) {
+          d.setAmount(d.getAmount() + demand.getAmount());
+          merged = true;
+          break;
+        }
+      }
+      if (!merged) {
+        set.add(new Demand(demand.getResource(), demand.getAmount()));
+      }
+      if (totalPerMerge) {
+        mass += getTotalMass(set);
+      }
+    }
+    return mass + getTotalMass(set);
+  }
+
+  private static double getTotalMass(SortedSet<Demand> set) {
+    double mass = 0;
+    for (Demand d : set) {
+      mass += d.getMass();
+    }
+    return SimulationContext.current().getRoundedMass(mass);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Benchmarks.run(DemandSetBenchmark.class);
+  }
+}
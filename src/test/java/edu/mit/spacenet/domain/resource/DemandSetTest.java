@@ -0,0 +1,97 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.domain.resource;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import edu.mit.spacenet.util.SerializeUtil;
+
+/**
+ * Checks the merging and cached totals of {@link DemandSet}.
+ * 
+ * @author Paul Grogan
+ */
+public class DemandSetTest {
+  private static Resource createResource(int tid, double unitMass, double unitVolume) {
+    Resource resource = new Resource();
+    resource.setTid(tid);
+    resource.setUnitMass(unitMass);
+    resource.setUnitVolume(unitVolume);
+    return resource;
+  }
+
+  @Test
+  public void addMergesEqualResources() {
+    DemandSet demands = new DemandSet();
+    demands.add(new Demand(createResource(1, 2, 0.5), 3));
+    demands.add(new Demand(createResource(2, 1, 0), 1));
+    demands.add(new Demand(createResource(1, 2, 0.5), 4));
+    assertEquals(2, demands.size());
+    assertEquals(15, demands.getTotalMass(), 0);
+    assertEquals(3.5, demands.getTotalVolume(), 0);
+  }
+
+  @Test
+  public void totalsFollowAmountChanges() {
+    DemandSet demands = new DemandSet();
+    demands.add(new Demand(createResource(1, 2, 0.5), 3));
+    assertEquals(6, demands.getTotalMass(), 0);
+    demands.iterator().next().setAmount(1);
+    assertEquals(2, demands.getTotalMass(), 0);
+    demands.remove(new Demand(createResource(1, 2, 0.5), 1));
+    assertEquals(0, demands.getTotalMass(), 0);
+  }
+
+  @Test
+  public void totalsFollowResourceChanges() {
+    DemandSet demands = new DemandSet();
+    Resource resource = createResource(1, 2, 0.5);
+    demands.add(new Demand(resource, 3));
+    assertEquals(6, demands.getTotalMass(), 0);
+    assertEquals(1.5, demands.getTotalVolume(), 0);
+    resource.setUnitMass(5);
+    resource.setUnitVolume(1);
+    assertEquals(15, demands.getTotalMass(), 0);
+    assertEquals(3, demands.getTotalVolume(), 0);
+  }
+
+  @Test
+  public void resourceChangesReachEverySetHoldingIt() {
+    Resource resource = createResource(1, 2, 0.5);
+    DemandSet first = new DemandSet();
+    first.add(new Demand(resource, 3));
+    DemandSet second = new DemandSet();
+    second.add(new Demand(resource, 1));
+    second.add(new Demand(createResource(2, 1, 0), 1));
+    assertEquals(6, first.getTotalMass(), 0);
+    assertEquals(3, second.getTotalMass(), 0);
+    resource.setUnitMass(4);
+    assertEquals(12, first.getTotalMass(), 0);
+    assertEquals(5, second.getTotalMass(), 0);
+  }
+
+  @Test
+  public void copiedSetsFollowCopiedResources() {
+    DemandSet demands = new DemandSet();
+    demands.add(new Demand(createResource(1, 2, 0.5), 3));
+    assertEquals(6, demands.getTotalMass(), 0);
+    DemandSet copy = SerializeUtil.deepClone(demands);
+    assertEquals(6, copy.getTotalMass(), 0);
+    ((Resource) copy.iterator().next().getResource()).setUnitMass(1);
+    assertEquals(3, copy.getTotalMass(), 0);
+    assertEquals(6, demands.getTotalMass(), 0);
+  }
+}
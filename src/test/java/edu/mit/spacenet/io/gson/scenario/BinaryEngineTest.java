@@ -0,0 +1,104 @@
+package edu.mit.spacenet.io.gson.scenario;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.mit.spacenet.io.XStreamEngine;
+import edu.mit.spacenet.scenario.Scenario;
+
+/**
+ * Converts the quick start scenarios from XML to the binary format and then to JSON, and checks
+ * that the JSON matches the JSON written directly from the XML scenario.
+ */
+public class BinaryEngineTest {
+  private static final Pattern UUID =
+      Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+  private static final String[] SCENARIOS =
+      {"docs/completed_quick_start_1.xml", "docs/completed_quick_start_2.xml"};
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Saves a scenario in the JSON format and reads it back as text. The JSON format generates new
+   * ids for resources, elements, and demand models on every save, so each id is replaced by the
+   * order in which it first appears.
+   */
+  private static String saveJson(Scenario scenario, File file) throws IOException {
+    scenario.setFilePath(file.getPath());
+    GsonEngine.saveScenario(scenario);
+    String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    Map<String, String> ids = new HashMap<String, String>();
+    StringBuffer normalized = new StringBuffer();
+    Matcher matcher = UUID.matcher(json);
+    while (matcher.find()) {
+      String id = ids.get(matcher.group());
+      if (id == null) {
+        id = "id" + ids.size();
+        ids.put(matcher.group(), id);
+      }
+      matcher.appendReplacement(normalized, id);
+    }
+    return matcher.appendTail(normalized).toString();
+  }
+
+  @Test
+  public void binaryRoundTripMatchesJson() throws IOException {
+    for (String path : SCENARIOS) {
+      String expected = saveJson(XStreamEngine.openScenario(path), folder.newFile());
+
+      Scenario scenario = XStreamEngine.openScenario(path);
+      File binary = folder.newFile();
+      scenario.setFilePath(binary.getPath());
+      BinaryEngine.saveScenario(scenario);
+      File json = folder.newFile();
+      assertEquals(path, expected, saveJson(BinaryEngine.openScenario(binary.getPath()), json));
+      assertEquals(path, expected,
+          saveJson(GsonEngine.openScenario(json.getPath()), folder.newFile()));
+    }
+  }
+
+  @Test
+  public void sectionsLieWithinData() throws IOException {
+    Scenario scenario = XStreamEngine.openScenario(SCENARIOS[1]);
+    File binary = folder.newFile();
+    scenario.setFilePath(binary.getPath());
+    BinaryEngine.saveScenario(scenario);
+
+    Map<String, long[]> sections = BinaryEngine.readSections(binary.getPath());
+    assertFalse(sections.isEmpty());
+    for (long[] section : sections.values()) {
+      assertTrue(section[0] >= BinaryEngine.HEADER_LENGTH);
+      assertTrue(section[0] + section[1] <= binary.length());
+    }
+  }
+
+  @Test
+  public void readFileCanBeReplaced() throws IOException {
+    Scenario scenario = XStreamEngine.openScenario(SCENARIOS[0]);
+    File binary = folder.newFile();
+    scenario.setFilePath(binary.getPath());
+    BinaryEngine.saveScenario(scenario);
+    BinaryEngine.openScenario(binary.getPath());
+    BinaryEngine.readSections(binary.getPath());
+
+    // the file is no longer held by a mapping, so it can be overwritten and deleted
+    BinaryEngine.saveScenario(scenario);
+    BinaryEngine.openScenario(binary.getPath());
+    assertTrue(binary.delete());
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.io.gson.scenario;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.mit.spacenet.io.XStreamEngine;
+import edu.mit.spacenet.domain.resource.Demand;
+import edu.mit.spacenet.domain.resource.DemandSet;
+import edu.mit.spacenet.scenario.Scenario;
+import edu.mit.spacenet.scenario.SupplyEdge;
+import edu.mit.spacenet.scenario.SupplyPoint;
+import edu.mit.spacenet.simulator.DemandSimulator;
+import edu.mit.spacenet.simulator.SimDemand;
+
+/**
+ * Opens JSON scenarios written by the original tree-based JSON engine (with its key order and
+ * nested object layout) and checks that they simulate to the same demands as the XML scenarios
+ * they were converted from.
+ * 
+ * @author Paul Grogan
+ */
+public class GsonEngineTest {
+  private static final String[][] SCENARIOS = {
+      {"docs/completed_quick_start_1.xml", "baseline_quick_start_1.json"},
+      {"docs/completed_quick_start_2.xml", "baseline_quick_start_2.json"}};
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Simulates the demands of a scenario and lists each raw and aggregated demand by location name,
+   * time, and resource name. Scenarios read from different formats assign different ids and
+   * iteration orders to their objects, so the lines are sorted.
+   */
+  private static String simulateDemands(Scenario scenario) {
+    DemandSimulator simulator = new DemandSimulator(scenario);
+    simulator.simulate();
+    List<String> lines = new ArrayList<String>();
+    for (SimDemand demand : simulator.getUnsatisfiedDemands()) {
+      addLines(lines, demand.getTime() + " " + demand.getLocation().getName() + " "
+          + demand.getElement(), demand.getDemands());
+    }
+    for (Map.Entry<SupplyPoint, DemandSet> entry : simulator.getAggregatedNodeDemands()
+        .entrySet()) {
+      addLines(lines, "node " + entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<SupplyEdge, DemandSet> entry : simulator.getAggregatedEdgeDemands()
+        .entrySet()) {
+      addLines(lines, "edge " + entry.getKey(), entry.getValue());
+    }
+    Collections.sort(lines);
+    return String.join("\n", lines);
+  }
+
+  private static void addLines(List<String> lines, String prefix, DemandSet demands) {
+    for (Demand demand : demands) {
+      lines.add(prefix + " " + demand.getResource().getName() + " "
+          + demand.getResource().getClassOfSupply() + " " + demand.getAmount());
+    }
+  }
+
+  private File copyResource(String name) throws IOException {
+    File file = folder.newFile(name);
+    try (InputStream in = getClass().getResourceAsStream(name)) {
+      Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    return file;
+  }
+
+  @Test
+  public void baselineFilesSimulateLikeTheirSources() throws IOException {
+    boolean demanded = false;
+    for (String[] scenario : SCENARIOS) {
+      String expected = simulateDemands(XStreamEngine.openScenario(scenario[0]));
+      demanded |= !expected.isEmpty();
+      File json = copyResource(scenario[1]);
+      assertEquals(scenario[1], expected,
+          simulateDemands(GsonEngine.openScenario(json.getPath())));
+    }
+    assertTrue(demanded); // quick start 1 has no unsatisfied demands, quick start 2 has some
+  }
+
+  @Test
+  public void baselineFilesSurviveResaving() throws IOException {
+    for (String[] scenario : SCENARIOS) {
+      File json = copyResource(scenario[1]);
+      Scenario opened = GsonEngine.openScenario(json.getPath());
+      String expected = simulateDemands(opened);
+      File saved = folder.newFile();
+      opened.setFilePath(saved.getPath());
+      GsonEngine.saveScenario(opened);
+      assertEquals(scenario[1], expected,
+          simulateDemands(GsonEngine.openScenario(saved.getPath())));
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.scenario;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+
+import edu.mit.spacenet.io.XStreamEngine;
+import edu.mit.spacenet.simulator.DemandSimulator;
+import edu.mit.spacenet.util.Benchmarks;
+
+/**
+ * Measures auto-manifesting the demands of a quick-start scenario, either comparing all packing
+ * strategies in parallel or running each strategy in turn on the calling thread as the manifest
+ * tab did before strategies could be compared.
+ * 
+ * @author Paul Grogan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ManifestBenchmark {
+  @Param({"docs/completed_quick_start_1.xml", "docs/completed_quick_start_2.xml"})
+  public String filePath;
+
+  private Manifest manifest;
+  private DemandSimulator simulator;
+
+  @Setup
+  public void setUp() throws Exception {
+    Scenario scenario = XStreamEngine.openScenario(filePath);
+    simulator = new DemandSimulator(scenario);
+    simulator.simulate();
+    manifest = scenario.getManifest();
+  }
+
+  @Benchmark
+  public int parallel() {
+    manifest.importDemands(simulator);
+    manifest.autoManifest(EnumSet.allOf(PackingStrategy.class));
+    return manifest.getContainers().size();
+  }
+
+  @Benchmark
+  public int sequential() {
+    int containers = 0;
+    for (PackingStrategy strategy : PackingStrategy.values()) {
+      manifest.importDemands(simulator);
+      manifest.setPackingStrategy(strategy);
+      manifest.autoManifest();
+      containers += manifest.getContainers().size();
+    }
+    return containers;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Benchmarks.run(ManifestBenchmark.class);
+  }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.scenario;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.mit.spacenet.domain.element.I_Carrier;
+import edu.mit.spacenet.domain.element.I_ResourceContainer;
+import edu.mit.spacenet.domain.element.ResourceContainerFactory;
+import edu.mit.spacenet.domain.network.node.Body;
+import edu.mit.spacenet.domain.network.node.SurfaceNode;
+import edu.mit.spacenet.domain.resource.Demand;
+import edu.mit.spacenet.io.XStreamEngine;
+import edu.mit.spacenet.simulator.DemandSimulator;
+
+/**
+ * Checks the indexed manifest lookups against a brute-force recomputation from the packed and
+ * manifested state while the quick-start manifests are packed, unpacked, manifested, and
+ * unmanifested.
+ * 
+ * @author Paul Grogan
+ */
+public class ManifestIndexTest {
+  private static final String[] SCENARIOS =
+      {"docs/completed_quick_start_1.xml", "docs/completed_quick_start_2.xml"};
+  private static final double EPSILON = 1e-9;
+  private static final int OPERATIONS = 300;
+
+  @Test
+  public void lookupsMatchBruteForce() throws Exception {
+    for (String filePath : SCENARIOS) {
+      Scenario scenario = XStreamEngine.openScenario(filePath);
+      DemandSimulator simulator = new DemandSimulator(scenario);
+      simulator.simulate();
+      Manifest manifest = scenario.getManifest();
+      manifest.importDemands(simulator);
+      assertLookups(filePath, manifest);
+      manifest.autoManifest();
+      assertLookups(filePath, manifest);
+
+      Random random = new Random(0);
+      for (int i = 0; i < OPERATIONS; i++) {
+        operate(manifest, random);
+        assertLookups(filePath + " after operation " + i, manifest);
+      }
+    }
+  }
+
+  /**
+   * Applies a random packing or manifesting operation that the manifest allows.
+   */
+  private static void operate(Manifest manifest, Random random) {
+    List<Demand> demands = getAggregatedDemands(manifest);
+    List<I_ResourceContainer> containers =
+        new ArrayList<I_ResourceContainer>(manifest.getContainers());
+    Collections.sort(containers);
+    List<SupplyEdge> edges = new ArrayList<SupplyEdge>(manifest.getSupplyEdges());
+    Demand demand = demands.isEmpty() ? null : demands.get(random.nextInt(demands.size()));
+    I_ResourceContainer container =
+        containers.isEmpty() ? null : containers.get(random.nextInt(containers.size()));
+    SupplyEdge edge = edges.isEmpty() ? null : edges.get(random.nextInt(edges.size()));
+    switch (random.nextInt(8)) {
+      case 0:
+        if (demand != null && manifest.canAutoPackDemand(demand))
+          manifest.autoPackDemand(demand);
+        break;
+      case 1:
+        if (demand != null && manifest.canUnpackDemand(demand))
+          manifest.unpackDemand(demand);
+        break;
+      case 2:
+        if (container != null) {
+          List<Demand> packed = new ArrayList<Demand>(manifest.getPackedDemands(container));
+          Collections.sort(packed);
+          if (!packed.isEmpty()) {
+            Demand demandAsPacked = packed.get(random.nextInt(packed.size()));
+            if (manifest.canUnpackDemand(demandAsPacked, container))
+              manifest.unpackDemand(demandAsPacked, container);
+          }
+        }
+        break;
+      case 3:
+        if (demand != null && container != null && manifest.canPackDemand(demand, container))
+          manifest.packDemand(demand, container);
+        break;
+      case 4:
+        if (container != null && edge != null) {
+          List<I_Carrier> carriers = new ArrayList<I_Carrier>(edge.getAllCarriers());
+          Collections.sort(carriers);
+          for (I_Carrier carrier : carriers) {
+            if (manifest.canManifestContainer(container, edge, carrier)) {
+              manifest.manifestContainer(container, edge, carrier);
+              break;
+            }
+          }
+        }
+        break;
+      case 5:
+        if (container != null && edge != null && manifest.canUnmanifestContainer(container, edge))
+          manifest.unmanifestContainer(container, edge);
+        break;
+      case 6:
+        manifest.addContainer(ResourceContainerFactory.createCTB());
+        break;
+      default:
+        if (container != null && manifest.getPackedDemands(container).isEmpty())
+          manifest.removeContainer(container);
+        break;
+    }
+  }
+
+  private static List<Demand> getAggregatedDemands(Manifest manifest) {
+    List<Demand> demands = new ArrayList<Demand>();
+    for (SupplyPoint point : manifest.getSupplyPoints()) {
+      for (Demand demand : manifest.getAggregatedNodeDemands(point)) {
+        demands.add(demand);
+      }
+      if (point.getEdge() != null && manifest.getAggregatedEdgeDemands(point.getEdge()) != null) {
+        for (Demand demand : manifest.getAggregatedEdgeDemands(point.getEdge())) {
+          demands.add(demand);
+        }
+      }
+    }
+    return demands;
+  }
+
+  private static void assertLookups(String message, Manifest manifest) {
+    BruteForce expected = new BruteForce(manifest);
+    for (Demand demand : getAggregatedDemands(manifest)) {
+      assertSame(message, expected.getSupplyPoint(demand), manifest.getSupplyPoint(demand));
+      assertEquals(message, expected.getPackedAmount(demand), manifest.getPackedAmount(demand),
+          EPSILON);
+    }
+    for (Map.Entry<Demand, Demand> entry : expected.sources.entrySet()) {
+      assertSame(message, entry.getValue(), manifest.getDemand(entry.getKey()));
+    }
+    for (SupplyEdge edge : manifest.getSupplyEdges()) {
+      assertSame(message, expected.getNextSupplyPoint(edge), manifest.getNextSupplyPoint(edge));
+      for (I_Carrier carrier : edge.getCarriers()) {
+        assertSame(message, expected.getSupplyEdge(carrier), manifest.getSupplyEdge(carrier));
+      }
+    }
+    for (SupplyPoint point : manifest.getSupplyPoints()) {
+      assertEquals(message, expected.getSupplyEdges(point), manifest.getSupplyEdges(point));
+      for (I_ResourceContainer container : manifest.getContainers()) {
+        assertEquals(message, expected.getCargoMass(container, point),
+            manifest.getCargoMass(container, point), EPSILON);
+        assertEquals(message, expected.getCargoVolume(container, point),
+            manifest.getCargoVolume(container, point), EPSILON);
+        assertEquals(message, expected.getPackedDemands(container, point),
+            identitySet(manifest.getPackedDemands(container, point)));
+      }
+      for (SupplyEdge edge : manifest.getSupplyEdges()) {
+        for (I_Carrier carrier : edge.getAllCarriers()) {
+          assertEquals(message, expected.getManifestedContainers(carrier, point),
+              identitySet(manifest.getManifestedContainers(carrier, point)));
+          assertEquals(message, expected.getCargoMass(carrier, point),
+              manifest.getCargoMass(carrier, point), EPSILON);
+          assertEquals(message, expected.getCargoVolume(carrier, point),
+              manifest.getCargoVolume(carrier, point), EPSILON);
+        }
+      }
+    }
+    for (I_ResourceContainer container : manifest.getContainers()) {
+      assertSame(message, expected.getInitialSupplyPoint(container),
+          manifest.getInitialSupplyPoint(container));
+    }
+  }
+
+  private static <T> Set<T> identitySet(Set<T> set) {
+    Set<T> identitySet = Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+    identitySet.addAll(set);
+    return identitySet;
+  }
+
+  /**
+   * Recomputes the manifest lookups by scanning the packed and manifested state, as the manifest
+   * did before it was indexed.
+   */
+  private static class BruteForce {
+    private final Manifest manifest;
+    private final Map<Demand, Demand> sources = new IdentityHashMap<Demand, Demand>();
+
+    BruteForce(Manifest manifest) {
+      this.manifest = manifest;
+      for (Demand demand : manifest.getDemandsAsPacked().keySet()) {
+        for (Demand demandAsPacked : manifest.getDemandsAsPacked().get(demand)) {
+          if (!sources.containsKey(demandAsPacked))
+            sources.put(demandAsPacked, demand);
+        }
+      }
+    }
+
+    SupplyPoint getSupplyPoint(Demand demand) {
+      for (SupplyPoint point : manifest.getSupplyPoints()) {
+        for (Demand d : manifest.getAggregatedNodeDemands(point)) {
+          if (d == demand)
+            return point;
+        }
+        if (point.getEdge() != null && manifest.getAggregatedEdgeDemands(point.getEdge()) != null) {
+          for (Demand d : manifest.getAggregatedEdgeDemands(point.getEdge())) {
+            if (d == demand)
+              return point;
+          }
+        }
+      }
+      return null;
+    }
+
+    double getPackedAmount(Demand demand) {
+      double amount = 0;
+      if (manifest.getDemandsAsPacked().get(demand) != null) {
+        for (Demand demandAsPacked : manifest.getDemandsAsPacked().get(demand)) {
+          amount += demandAsPacked.getAmount();
+        }
+      }
+      return amount;
+    }
+
+    SupplyPoint getNextSupplyPoint(SupplyEdge edge) {
+      if (edge.getOrigin() instanceof SurfaceNode && edge.getOrigin().getBody() == Body.EARTH)
+        return null;
+      SupplyPoint next = null;
+      for (SupplyPoint point : manifest.getSupplyPoints()) {
+        if (point.getNode().equals(edge.getOrigin()) && point.getTime() <= edge.getStartTime()
+            && (next == null || point.getTime() > next.getTime())) {
+          next = point;
+        }
+      }
+      return next;
+    }
+
+    SupplyEdge getSupplyEdge(I_Carrier carrier) {
+      for (SupplyEdge edge : manifest.getSupplyEdges()) {
+        for (I_Carrier c : edge.getCarriers()) {
+          if (c == carrier)
+            return edge;
+        }
+      }
+      return null;
+    }
+
+    Set<SupplyEdge> getSupplyEdges(SupplyPoint point) {
+      Set<SupplyEdge> edges = new HashSet<SupplyEdge>();
+      for (SupplyEdge edge : manifest.getSupplyEdges()) {
+        if (edge.getDestination().equals(point.getNode()) && edge.getEndTime() <= point.getTime())
+          edges.add(edge);
+      }
+      return edges;
+    }
+
+    Set<Demand> getPackedDemands(I_ResourceContainer container, SupplyPoint point) {
+      Set<Demand> demands = Collections.newSetFromMap(new IdentityHashMap<Demand, Boolean>());
+      for (Demand demandAsPacked : manifest.getPackedDemands().get(container)) {
+        if (getSupplyPoint(sources.get(demandAsPacked)).getTime() >= point.getTime())
+          demands.add(demandAsPacked);
+      }
+      return demands;
+    }
+
+    double getCargoMass(I_ResourceContainer container, SupplyPoint point) {
+      double mass = 0;
+      for (Demand demandAsPacked : getPackedDemands(container, point)) {
+        mass += demandAsPacked.getMass();
+      }
+      return mass;
+    }
+
+    double getCargoVolume(I_ResourceContainer container, SupplyPoint point) {
+      double volume = 0;
+      for (Demand demandAsPacked : getPackedDemands(container, point)) {
+        volume += demandAsPacked.getVolume();
+      }
+      return volume;
+    }
+
+    Set<I_ResourceContainer> getManifestedContainers(I_Carrier carrier, SupplyPoint point) {
+      Set<I_ResourceContainer> containers =
+          Collections.newSetFromMap(new IdentityHashMap<I_ResourceContainer, Boolean>());
+      for (SupplyEdge edge : manifest.getSupplyEdges()) {
+        // carriers are copied onto each edge, so they are matched by comparison
+        for (I_Carrier c : edge.getAllCarriers()) {
+          if (c.compareTo(carrier) == 0 && edge.getEndTime() <= point.getTime())
+            containers.addAll(manifest.getManifestedContainers(edge, c));
+        }
+      }
+      return containers;
+    }
+
+    double getCargoMass(I_Carrier carrier, SupplyPoint point) {
+      double mass = carrier.getCargoMass();
+      for (I_ResourceContainer container : getManifestedContainers(carrier, point)) {
+        mass += container.getMass() + getCargoMass(container, point);
+      }
+      return mass;
+    }
+
+    double getCargoVolume(I_Carrier carrier, SupplyPoint point) {
+      double volume = carrier.getCargoVolume();
+      for (I_ResourceContainer container : getManifestedContainers(carrier, point)) {
+        volume += container.getVolume();
+      }
+      return volume;
+    }
+
+    SupplyPoint getInitialSupplyPoint(I_ResourceContainer container) {
+      SupplyEdge latest = null;
+      for (SupplyEdge edge : manifest.getSupplyEdges()) {
+        for (I_Carrier carrier : edge.getCarriers()) {
+          if (manifest.getManifestedContainers(edge, carrier).contains(container)
+              && (latest == null || edge.getEndTime() > latest.getEndTime()))
+            latest = edge;
+        }
+      }
+      SupplyPoint initial = latest == null ? null : latest.getPoint();
+      for (Demand demandAsPacked : manifest.getPackedDemands().get(container)) {
+        SupplyPoint point = getSupplyPoint(sources.get(demandAsPacked));
+        if ((latest == null || point.getTime() >= latest.getEndTime())
+            && (initial == null || point.getTime() < initial.getTime()))
+          initial = point;
+      }
+      return initial;
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.scenario;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.mit.spacenet.domain.element.I_Carrier;
+import edu.mit.spacenet.domain.element.I_ResourceContainer;
+import edu.mit.spacenet.domain.resource.Demand;
+import edu.mit.spacenet.io.XStreamEngine;
+import edu.mit.spacenet.simulator.DemandSimulator;
+
+/**
+ * Checks that auto-manifesting the quick-start scenarios gives valid manifests that do not depend
+ * on the run, for each packing strategy and for the parallel comparison of strategies.
+ * 
+ * @author Paul Grogan
+ */
+public class ManifestTest {
+  private static final String[] SCENARIOS =
+      {"docs/completed_quick_start_1.xml", "docs/completed_quick_start_2.xml"};
+  private static final double EPSILON = 1e-6;
+
+  private static Manifest importDemands(String filePath) throws Exception {
+    Scenario scenario = XStreamEngine.openScenario(filePath);
+    DemandSimulator simulator = new DemandSimulator(scenario);
+    simulator.simulate();
+    Manifest manifest = scenario.getManifest();
+    manifest.importDemands(simulator);
+    return manifest;
+  }
+
+  /**
+   * Checks that all demands are packed within the container capacities, that carriers are loaded
+   * within their capacities, and that containers keep their default names.
+   */
+  private static void assertValid(Manifest manifest) {
+    for (SupplyPoint point : manifest.getSupplyPoints()) {
+      List<Demand> demands = new ArrayList<Demand>();
+      for (Demand demand : manifest.getAggregatedNodeDemands(point)) {
+        demands.add(demand);
+      }
+      if (point.getEdge() != null) {
+        for (Demand demand : manifest.getAggregatedEdgeDemands(point.getEdge())) {
+          demands.add(demand);
+        }
+      }
+      for (Demand demand : demands) {
+        assertEquals(demand.toString(), 0, manifest.getRemainingAmount(demand), EPSILON);
+      }
+      for (I_ResourceContainer container : manifest.getContainers()) {
+        assertTrue(container.getName(), manifest.getCargoMass(container, point)
+            <= container.getMaxCargoMass() + EPSILON);
+      }
+      for (SupplyEdge edge : manifest.getSupplyEdges()) {
+        for (I_Carrier carrier : edge.getAllCarriers()) {
+          assertTrue(carrier.getName(), manifest.getCargoMass(carrier, point)
+              <= carrier.getMaxCargoMass() + EPSILON);
+        }
+      }
+    }
+    for (I_ResourceContainer container : manifest.getContainers()) {
+      assertFalse(container.getName(), manifest.getPackedDemands(container).isEmpty());
+      assertTrue(container.getName(), container.getName().endsWith(" " + container.getUid()));
+    }
+  }
+
+  /**
+   * Describes a manifest with container uids relative to the first created container, so that
+   * manifests of different runs can be compared.
+   */
+  private static List<String> describe(Manifest manifest) {
+    int firstUid = Integer.MAX_VALUE;
+    for (I_ResourceContainer container : manifest.getContainers()) {
+      firstUid = Math.min(firstUid, container.getUid());
+    }
+    List<String> lines = new ArrayList<String>();
+    for (I_ResourceContainer container : manifest.getContainers()) {
+      List<String> demands = new ArrayList<String>();
+      for (Demand demand : manifest.getPackedDemands(container)) {
+        demands.add(demand + " for " + manifest.getSupplyPoint(manifest.getDemand(demand)));
+      }
+      Collections.sort(demands);
+      lines.add(describe(container, firstUid) + " at " + manifest.getInitialSupplyPoint(container)
+          + " " + demands);
+    }
+    for (SupplyEdge edge : manifest.getSupplyEdges()) {
+      for (I_Carrier carrier : edge.getAllCarriers()) {
+        List<String> containers = new ArrayList<String>();
+        for (I_ResourceContainer container : manifest.getManifestedContainers(edge, carrier)) {
+          containers.add(describe(container, firstUid));
+        }
+        Collections.sort(containers);
+        lines.add(edge + " " + carrier.getName() + " " + containers);
+      }
+    }
+    Collections.sort(lines);
+    return lines;
+  }
+
+  private static String describe(I_ResourceContainer container, int firstUid) {
+    int uid = container.getUid() - firstUid;
+    return container.getName().replaceAll(" " + container.getUid() + "$", " #" + uid) + " ["
+        + uid + "]";
+  }
+
+  @Test
+  public void eachStrategyGivesValidRepeatableManifest() throws Exception {
+    for (String filePath : SCENARIOS) {
+      for (PackingStrategy strategy : PackingStrategy.values()) {
+        List<String> description = null;
+        for (int run = 0; run < 2; run++) {
+          Manifest manifest = importDemands(filePath);
+          manifest.setPackingStrategy(strategy);
+          manifest.autoManifest();
+          assertValid(manifest);
+          if (description == null) {
+            description = describe(manifest);
+          } else {
+            assertEquals(filePath + " " + strategy, description, describe(manifest));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void parallelSelectionMatchesSequentialManifest() throws Exception {
+    for (String filePath : SCENARIOS) {
+      List<String> description = null;
+      PackingStrategy selected = null;
+      for (int run = 0; run < 3; run++) {
+        Manifest manifest = importDemands(filePath);
+        PackingStrategy strategy = manifest.autoManifest(EnumSet.allOf(PackingStrategy.class));
+        assertValid(manifest);
+        if (description == null) {
+          description = describe(manifest);
+          selected = strategy;
+        } else {
+          assertEquals(filePath, selected, strategy);
+          assertEquals(filePath, description, describe(manifest));
+        }
+      }
+
+      Manifest manifest = importDemands(filePath);
+      manifest.setPackingStrategy(selected);
+      manifest.autoManifest();
+      assertEquals(filePath, description, describe(manifest));
+      for (PackingStrategy strategy : PackingStrategy.values()) {
+        Manifest other = importDemands(filePath);
+        other.setPackingStrategy(strategy);
+        other.autoManifest();
+        assertTrue(filePath + " " + strategy,
+            manifest.getContainers().size() <= other.getContainers().size());
+      }
+    }
+  }
+}
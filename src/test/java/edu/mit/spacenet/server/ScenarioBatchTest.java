@@ -0,0 +1,97 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks the output file names of scenario batches.
+ * 
+ * @author Paul Grogan
+ */
+public class ScenarioBatchTest {
+  private static final File SCENARIO = new File("docs/completed_quick_start_1.xml");
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private String copyScenario(String path) throws IOException {
+    File file = new File(folder.getRoot(), path);
+    file.getParentFile().mkdirs();
+    Files.copy(SCENARIO.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    return file.getPath();
+  }
+
+  private static List<String> getOutputFilePaths(ScenarioBatch batch) {
+    List<String> outputFilePaths = new ArrayList<String>();
+    for (ScenarioRun run : batch.getRuns()) {
+      outputFilePaths.add(run.getOutputFilePath());
+    }
+    return outputFilePaths;
+  }
+
+  @Test
+  public void walkedScenariosKeepTheirDirectories() throws IOException {
+    copyScenario("trades/a/scenario.xml");
+    copyScenario("trades/b/scenario.xml");
+    File output = folder.newFolder("output");
+    List<String> filePaths = ScenarioBatch
+        .findScenarios(new File(folder.getRoot(), "trades").getPath() + File.separator + "**.xml");
+    assertEquals(2, filePaths.size());
+
+    ScenarioBatch batch = new ScenarioBatch(filePaths, output);
+    assertEquals(Arrays.asList(new File(output, "a" + File.separator + "scenario.json").getPath(),
+        new File(output, "b" + File.separator + "scenario.json").getPath()),
+        getOutputFilePaths(batch));
+
+    batch.setThreadCount(1);
+    for (ScenarioRun run : batch.simulate()) {
+      assertTrue(run.getFilePath(), run.isCompleted());
+      assertTrue(new File(run.getOutputFilePath()).isFile());
+    }
+  }
+
+  @Test
+  public void scenariosOfOneDirectoryUseBaseNames() throws IOException {
+    String first = copyScenario("trades/first.xml");
+    String second = copyScenario("trades/second.xml");
+    String other = copyScenario("trades/second.xml.gz");
+    File output = folder.newFolder("output");
+
+    ScenarioBatch batch = new ScenarioBatch(Arrays.asList(first, second, other), output);
+    assertEquals(Arrays.asList(new File(output, "first.json").getPath(),
+        new File(output, "second.xml.json").getPath(),
+        new File(output, "second.xml.gz.json").getPath()), getOutputFilePaths(batch));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void remainingCollisionsAreRejected() throws IOException {
+    String lower = copyScenario("trades/scenario.xml");
+    String upper = copyScenario("trades/SCENARIO.xml");
+    new ScenarioBatch(Arrays.asList(lower, upper), folder.newFolder("output"));
+  }
+}
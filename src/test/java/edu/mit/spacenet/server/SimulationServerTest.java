@@ -0,0 +1,231 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import edu.mit.spacenet.domain.ClassOfSupply;
+import edu.mit.spacenet.io.ScenarioEngine;
+import edu.mit.spacenet.io.gson.demands.AggregatedDemandsAnalysis;
+import edu.mit.spacenet.scenario.Scenario;
+import edu.mit.spacenet.simulator.DemandSimulator;
+import edu.mit.spacenet.simulator.batch.DemandRateParameter;
+import edu.mit.spacenet.simulator.batch.ItemAggregationParameter;
+import edu.mit.spacenet.util.GlobalParameters;
+
+/**
+ * Runs jobs on a simulation server through a {@link SimulationClient} and through the line
+ * protocol on streams, and compares the results with local simulations.
+ * 
+ * @author Paul Grogan
+ */
+public class SimulationServerTest {
+  private static final String SCENARIO_1 =
+      new File("docs/completed_quick_start_1.xml").getAbsolutePath();
+  private static final String SCENARIO_2 =
+      new File("docs/completed_quick_start_2.xml").getAbsolutePath();
+
+  private final Gson gson = new GsonBuilder().serializeSpecialFloatingPointValues().create();
+  private SimulationServer server;
+  private Thread serverThread;
+  private int port;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new SimulationServer(4, 4);
+    final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    port = serverSocket.getLocalPort();
+    serverThread = new Thread(() -> {
+      try {
+        server.serve(serverSocket);
+      } catch (IOException ex) {
+        throw new RuntimeException(ex);
+      }
+    });
+    serverThread.start();
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    server.shutdown();
+    serverThread.join(10000);
+    server.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  private JsonElement simulateLocally(String filePath) throws IOException {
+    return simulateLocally(filePath, Collections.<String, Double>emptyMap());
+  }
+
+  /**
+   * Simulates the aggregated demands of a scenario on this thread after applying the demand rate
+   * and item aggregation parameters of a job.
+   */
+  private JsonElement simulateLocally(String filePath, Map<String, Double> parameters)
+      throws IOException {
+    GlobalParameters.setThreadParameters(GlobalParameters.createDefault());
+    try {
+      Scenario scenario = ScenarioEngine.openScenario(filePath);
+      GlobalParameters.setThreadParameters(GlobalParameters.createFrom(scenario));
+      for (Map.Entry<String, Double> parameter : parameters.entrySet()) {
+        if (parameter.getKey().equals("itemAggregation")) {
+          new ItemAggregationParameter().apply(scenario, parameter.getValue());
+        } else if (parameter.getKey().equals("demandRate")) {
+          new DemandRateParameter().apply(scenario, parameter.getValue());
+        } else {
+          ClassOfSupply cos = ClassOfSupply
+              .getInstance(Integer.parseInt(parameter.getKey().substring("demandRate.".length())));
+          new DemandRateParameter(cos).apply(scenario, parameter.getValue());
+        }
+      }
+      DemandSimulator simulator = new DemandSimulator(scenario);
+      simulator.simulate();
+      return gson.toJsonTree(AggregatedDemandsAnalysis.createFrom(simulator));
+    } finally {
+      GlobalParameters.setThreadParameters(null);
+    }
+  }
+
+  @Test
+  public void clientRunsJobs() throws IOException, InterruptedException {
+    try (SimulationClient client = new SimulationClient(port)) {
+      // the second scenario is parsed first, so its parameters must not carry over
+      JsonObject response = client.simulate(SimulationServer.DEMANDS_AGGREGATED, SCENARIO_2,
+          false, null);
+      assertEquals(response.toString(), "ok", response.get("status").getAsString());
+      assertEquals(simulateLocally(SCENARIO_2), response.get("result"));
+
+      response = client.simulate(SimulationServer.DEMANDS_AGGREGATED, SCENARIO_1, false, null);
+      assertEquals(response.toString(), "ok", response.get("status").getAsString());
+      assertEquals(simulateLocally(SCENARIO_1), response.get("result"));
+
+      response = client.simulate(SimulationServer.FULL, SCENARIO_1, false,
+          Collections.singletonMap("itemAggregation", 0.5));
+      assertEquals(response.toString(), "ok", response.get("status").getAsString());
+      assertTrue(response.getAsJsonObject("result").size() > 0);
+
+      response = client.simulate("unknown", SCENARIO_1, false, null);
+      assertEquals("error", response.get("status").getAsString());
+
+      JsonObject status = client.getStatus().getAsJsonObject("result");
+      assertEquals(2, status.get("cacheMisses").getAsInt());
+      assertEquals(1, status.get("cacheHits").getAsInt());
+
+      assertEquals("ok", client.shutdown().get("status").getAsString());
+    }
+    serverThread.join(10000);
+    assertFalse(serverThread.isAlive());
+  }
+
+  @Test
+  public void concurrentClientsMatchLocalSimulations() throws Exception {
+    final List<Map<String, Double>> patches = new ArrayList<Map<String, Double>>();
+    patches.add(Collections.<String, Double>emptyMap());
+    patches.add(Collections.singletonMap("demandRate", 2.5));
+    patches.add(Collections.singletonMap("itemAggregation", 1.0));
+    Map<String, Double> combined = new LinkedHashMap<String, Double>();
+    combined.put("demandRate.4", 0.5);
+    combined.put("itemAggregation", 0.5);
+    patches.add(combined);
+    final List<JsonElement> expected = new ArrayList<JsonElement>();
+    for (Map<String, Double> patch : patches) {
+      expected.add(simulateLocally(SCENARIO_2, patch));
+    }
+    assertNotEquals(expected.get(0), expected.get(1)); // the patches reach the simulations
+
+    // each client submits every patch to the same cached scenario, in a different order
+    int clientCount = 4;
+    ExecutorService clients = Executors.newFixedThreadPool(clientCount);
+    try {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int c = 0; c < clientCount; c++) {
+        final int offset = c;
+        futures.add(clients.submit(() -> {
+          try (SimulationClient client = new SimulationClient(port)) {
+            for (int round = 0; round < 2; round++) {
+              for (int i = 0; i < patches.size(); i++) {
+                int job = (i + offset) % patches.size();
+                JsonObject response = client.simulate(SimulationServer.DEMANDS_AGGREGATED,
+                    SCENARIO_2, false, patches.get(job));
+                assertEquals(response.toString(), "ok", response.get("status").getAsString());
+                assertEquals("patch " + patches.get(job), expected.get(job),
+                    response.get("result"));
+              }
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get(120, TimeUnit.SECONDS);
+      }
+    } finally {
+      clients.shutdownNow();
+    }
+  }
+
+  @Test
+  public void streamsRunJobs() throws IOException {
+    String requests = "{\"id\": 1, \"type\": \"demands-agg\", \"scenario\": \""
+        + SCENARIO_1.replace("\\", "\\\\") + "\"}\n" + "not json\n"
+        + "{\"id\": 2, \"type\": \"status\"}\n";
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    server.serve(new ByteArrayInputStream(requests.getBytes(StandardCharsets.UTF_8)), out);
+
+    String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+    assertEquals(3, lines.length);
+    int errors = 0;
+    for (String line : lines) {
+      JsonObject response = JsonParser.parseString(line).getAsJsonObject();
+      if (!response.has("id")) {
+        assertEquals("error", response.get("status").getAsString());
+        errors++;
+      } else if (response.get("id").getAsInt() == 1) {
+        assertEquals(simulateLocally(SCENARIO_1), response.get("result"));
+      } else {
+        assertEquals("ok", response.get("status").getAsString());
+      }
+    }
+    assertEquals(1, errors);
+  }
+}
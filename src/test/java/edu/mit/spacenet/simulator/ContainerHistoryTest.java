@@ -0,0 +1,100 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import edu.mit.spacenet.domain.I_Container;
+import edu.mit.spacenet.domain.element.Carrier;
+import edu.mit.spacenet.domain.element.Element;
+import edu.mit.spacenet.domain.element.I_Element;
+import edu.mit.spacenet.domain.network.Network;
+
+/**
+ * Checks that a {@link ContainerHistory} returns the registered elements and containers of each
+ * recorded step, in any order of access.
+ * 
+ * @author Paul Grogan
+ */
+public class ContainerHistoryTest {
+  @Test
+  public void stepsMatchRecordedNetworks() {
+    Random random = new Random(0);
+    Network network = new Network();
+    List<I_Element> elements = new ArrayList<I_Element>();
+    List<I_Container> carriers = new ArrayList<I_Container>();
+    carriers.add(null);
+    for (int i = 0; i < 40; i++) {
+      Element element = i % 5 == 0 ? new Carrier() : new Element();
+      element.setName("Element " + i);
+      elements.add(element);
+      if (element instanceof Carrier) {
+        carriers.add((Carrier) element);
+      }
+    }
+
+    ContainerHistory history = new ContainerHistory();
+    List<SortedSet<I_Element>> registered = new ArrayList<SortedSet<I_Element>>();
+    List<Map<I_Element, I_Container>> containers = new ArrayList<Map<I_Element, I_Container>>();
+    for (int step = 0; step < 100; step++) {
+      for (I_Element element : elements) {
+        if (random.nextDouble() < 0.2) {
+          if (network.getRegistrar().containsKey(element.getUid())) {
+            network.getRegistrar().remove(element.getUid());
+          } else {
+            network.getRegistrar().put(element.getUid(), element);
+          }
+        }
+        if (random.nextDouble() < 0.3) {
+          I_Container container = carriers.get(random.nextInt(carriers.size()));
+          element.setContainer(container == element ? null : container);
+        }
+      }
+      assertEquals(step, history.record(network));
+      registered.add(new TreeSet<I_Element>(network.getRegistrar().values()));
+      Map<I_Element, I_Container> stepContainers = new HashMap<I_Element, I_Container>();
+      for (I_Element element : network.getRegistrar().values()) {
+        stepContainers.put(element, element.getContainer());
+      }
+      containers.add(stepContainers);
+    }
+
+    List<Integer> steps = new ArrayList<Integer>();
+    for (int step = 0; step < registered.size(); step++) {
+      steps.add(step);
+    }
+    Collections.shuffle(steps, random);
+    steps.addAll(0, Collections.nCopies(2, 50));
+    for (int step : steps) {
+      assertEquals("step " + step, new ArrayList<I_Element>(registered.get(step)),
+          new ArrayList<I_Element>(history.getElements(step)));
+      for (I_Element element : elements) {
+        assertSame("step " + step + " " + element, containers.get(step).get(element),
+            history.getContainer(element, step));
+      }
+    }
+  }
+}
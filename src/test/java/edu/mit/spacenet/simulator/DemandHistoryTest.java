@@ -0,0 +1,182 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.mit.spacenet.domain.element.Element;
+import edu.mit.spacenet.domain.element.I_Element;
+import edu.mit.spacenet.domain.network.Location;
+import edu.mit.spacenet.domain.network.node.SurfaceNode;
+import edu.mit.spacenet.domain.resource.DemandSet;
+
+/**
+ * Checks that the element, location, and time queries of a demand history match a linear filter
+ * of the recorded demands, in order and out of order, and after every kind of list edit.
+ * 
+ * @author Paul Grogan
+ */
+public class DemandHistoryTest {
+  private Random random;
+  private List<I_Element> elements;
+  private List<Location> locations;
+  private DemandHistory history;
+
+  @Before
+  public void setUp() {
+    random = new Random(0);
+    elements = new ArrayList<I_Element>();
+    for (int i = 1; i <= 3; i++) {
+      Element element = new Element();
+      element.setUid(i);
+      elements.add(element);
+    }
+    elements.add(null); // mission demands
+    locations = new ArrayList<Location>();
+    for (int i = 1; i <= 2; i++) {
+      SurfaceNode node = new SurfaceNode();
+      node.setTid(i);
+      locations.add(node);
+    }
+    locations.add(null);
+    history = new DemandHistory();
+  }
+
+  private SimDemand createDemand(double time) {
+    return new SimDemand(time, null, locations.get(random.nextInt(locations.size())),
+        elements.get(random.nextInt(elements.size())), new DemandSet());
+  }
+
+  private void addOrdered(int count) {
+    double time = history.isEmpty() ? 0 : history.get(history.size() - 1).getTime();
+    for (int i = 0; i < count; i++) {
+      time += random.nextInt(3) * 0.5; // repeats some times
+      history.add(createDemand(time));
+    }
+  }
+
+  private static boolean isBetween(SimDemand demand, double startTime, double endTime) {
+    return demand.getTime() > startTime && demand.getTime() <= endTime;
+  }
+
+  private List<SimDemand> filter(I_Element element, double startTime, double endTime) {
+    List<SimDemand> demands = new ArrayList<SimDemand>();
+    for (SimDemand demand : history) {
+      boolean match = element == null ? demand.getElement() == null
+          : element.equals(demand.getElement());
+      if (match && isBetween(demand, startTime, endTime)) {
+        demands.add(demand);
+      }
+    }
+    return demands;
+  }
+
+  private void assertQueriesMatch() {
+    List<Double> times = new ArrayList<Double>();
+    times.add(Double.NEGATIVE_INFINITY);
+    times.add(-1d);
+    for (SimDemand demand : history) {
+      times.add(demand.getTime());
+    }
+    times.add(Double.POSITIVE_INFINITY);
+    double inf = Double.POSITIVE_INFINITY;
+
+    for (I_Element element : elements) {
+      assertEquals(filter(element, -inf, inf), history.getDemands(element));
+      for (int i = 0; i < 20; i++) {
+        double start = times.get(random.nextInt(times.size()));
+        double end = times.get(random.nextInt(times.size()));
+        assertEquals(filter(element, start, end), history.getDemands(element, start, end));
+      }
+    }
+    Element copy = new Element();
+    copy.setUid(elements.get(0).getUid());
+    assertEquals(filter(copy, -inf, inf), history.getDemands(copy));
+
+    for (Location location : locations) {
+      List<SimDemand> expected = new ArrayList<SimDemand>();
+      for (SimDemand demand : history) {
+        if (location != null && location.equals(demand.getLocation())) {
+          expected.add(demand);
+        }
+      }
+      assertEquals(expected, history.getDemands(location));
+    }
+
+    for (int i = 0; i < 20; i++) {
+      double start = times.get(random.nextInt(times.size()));
+      double end = times.get(random.nextInt(times.size()));
+      List<SimDemand> expected = new ArrayList<SimDemand>();
+      for (SimDemand demand : history) {
+        if (isBetween(demand, start, end)) {
+          expected.add(demand);
+        }
+      }
+      assertEquals(expected, history.getDemands(start, end));
+    }
+  }
+
+  @Test
+  public void orderedQueriesMatchLinearFilter() {
+    assertQueriesMatch();
+    addOrdered(200);
+    assertQueriesMatch();
+  }
+
+  @Test
+  public void outOfOrderQueriesMatchLinearFilter() {
+    addOrdered(100);
+    history.add(createDemand(history.get(50).getTime() - 0.5));
+    addOrdered(50);
+    assertQueriesMatch();
+
+    // removing the out-of-order demand restores the ordered queries
+    history.remove(100);
+    assertQueriesMatch();
+  }
+
+  @Test
+  public void editsKeepQueriesInSync() {
+    addOrdered(100);
+    history.add(40, createDemand(history.get(40).getTime()));
+    assertQueriesMatch();
+    history.add(10, createDemand(history.get(90).getTime()));
+    assertQueriesMatch();
+    history.remove(10);
+    assertQueriesMatch();
+    history.set(20, createDemand(history.get(20).getTime()));
+    assertQueriesMatch();
+    history.set(30, createDemand(history.get(99).getTime() + 1));
+    assertQueriesMatch();
+    history.remove(history.get(30));
+    assertQueriesMatch();
+    history.subList(0, 50).clear();
+    assertEquals(50, history.size());
+    assertQueriesMatch();
+
+    history.clear();
+    assertTrue(history.isEmpty());
+    assertQueriesMatch();
+    addOrdered(20);
+    assertQueriesMatch();
+  }
+}
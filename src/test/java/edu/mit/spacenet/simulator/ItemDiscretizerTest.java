@@ -0,0 +1,153 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.mit.spacenet.domain.ClassOfSupply;
+import edu.mit.spacenet.domain.Environment;
+import edu.mit.spacenet.domain.element.Element;
+import edu.mit.spacenet.domain.element.I_Element;
+import edu.mit.spacenet.domain.network.Location;
+import edu.mit.spacenet.domain.network.edge.SurfaceEdge;
+import edu.mit.spacenet.domain.network.node.SurfaceNode;
+import edu.mit.spacenet.domain.resource.Demand;
+import edu.mit.spacenet.domain.resource.DemandSet;
+import edu.mit.spacenet.domain.resource.Item;
+import edu.mit.spacenet.scenario.ItemDiscretization;
+
+/**
+ * Checks that item remainders are kept per element, location, and item with the equality of the
+ * domain objects.
+ * 
+ * @author Paul Grogan
+ */
+public class ItemDiscretizerTest {
+  private final SurfaceNode node = new SurfaceNode();
+  private final SurfaceEdge edge = new SurfaceEdge();
+  private final Item spare = createItem(Environment.PRESSURIZED);
+  private final Item unpressurizedSpare = createItem(Environment.UNPRESSURIZED);
+
+  public ItemDiscretizerTest() {
+    node.setTid(1);
+    edge.setTid(1);
+    edge.setOrigin(node);
+    edge.setDestination(node);
+  }
+
+  private static Item createItem(Environment environment) {
+    Item item = new Item();
+    item.setTid(7);
+    item.setClassOfSupply(ClassOfSupply.COS4);
+    item.setEnvironment(environment);
+    return item;
+  }
+
+  private static Element createElement(Location location) {
+    Element element = new Element();
+    element.setContainer(location);
+    return element;
+  }
+
+  private static double discretize(ItemDiscretizer discretizer, Item item, double amount,
+      I_Element element, Location location) {
+    DemandSet demands = new DemandSet();
+    demands.add(new Demand(item, amount));
+    double total = 0;
+    for (Demand demand : discretizer.discretize(demands, element, location)) {
+      total += demand.getAmount();
+    }
+    return total;
+  }
+
+  @Test
+  public void nodeAndEdgeWithSameTidKeepSeparateRemainders() {
+    ItemDiscretizer discretizer = new ItemDiscretizer();
+    discretizer.reset(ItemDiscretization.BY_LOCATION, 1);
+    assertEquals(0, discretize(discretizer, spare, 0.6, null, node), 0);
+    assertEquals(0, discretize(discretizer, spare, 0.6, null, edge), 0);
+    assertEquals(1, discretize(discretizer, spare, 0.6, null, node), 0);
+    assertEquals(1, discretize(discretizer, spare, 0.6, null, edge), 0);
+  }
+
+  @Test
+  public void elementsAtNodeAndEdgeWithSameTidKeepSeparateRemainders() {
+    ItemDiscretizer discretizer = new ItemDiscretizer();
+    discretizer.reset(ItemDiscretization.BY_ELEMENT, 1);
+    Element atNode = createElement(node);
+    Element onEdge = createElement(edge);
+    assertEquals(0, discretize(discretizer, spare, 0.6, atNode, node), 0);
+    assertEquals(0, discretize(discretizer, spare, 0.6, onEdge, edge), 0);
+    assertEquals(1, discretize(discretizer, spare, 0.6, atNode, node), 0);
+    assertEquals(1, discretize(discretizer, spare, 0.6, onEdge, edge), 0);
+  }
+
+  @Test
+  public void itemEnvironmentsKeepSeparateRemainders() {
+    for (ItemDiscretization discretization : new ItemDiscretization[] {
+        ItemDiscretization.BY_ELEMENT, ItemDiscretization.BY_LOCATION,
+        ItemDiscretization.BY_SCENARIO}) {
+      ItemDiscretizer discretizer = new ItemDiscretizer();
+      discretizer.reset(discretization, 1);
+      Element element = createElement(node);
+      assertEquals(0, discretize(discretizer, spare, 0.6, element, node), 0);
+      assertEquals(0, discretize(discretizer, unpressurizedSpare, 0.6, element, node), 0);
+      // an equal item (same type, tid, and environment) shares the remainder
+      assertEquals(1, discretize(discretizer, createItem(Environment.PRESSURIZED), 0.6, element,
+          node), 0);
+    }
+  }
+
+  @Test
+  public void matchesItemByItemAccumulation() {
+    Random random = new Random(12);
+    Location[] locations = {node, edge};
+    Element[] elements = {createElement(node), createElement(edge)};
+    Item[] items = {spare, unpressurizedSpare};
+    for (ItemDiscretization discretization : new ItemDiscretization[] {
+        ItemDiscretization.BY_ELEMENT, ItemDiscretization.BY_LOCATION}) {
+      ItemDiscretizer discretizer = new ItemDiscretizer();
+      discretizer.reset(discretization, 0.5);
+      Map<Object, Map<Item, Double>> remainders = new IdentityHashMap<Object, Map<Item, Double>>();
+      for (int i = 0; i < 10000; i++) {
+        int j = random.nextInt(2);
+        Item item = items[random.nextInt(2)];
+        double amount = random.nextDouble() * 3;
+        Object scope = discretization == ItemDiscretization.BY_ELEMENT ? elements[j] : locations[j];
+        Map<Item, Double> scopeRemainders = remainders.get(scope);
+        if (scopeRemainders == null) {
+          scopeRemainders = new IdentityHashMap<Item, Double>();
+          remainders.put(scope, scopeRemainders);
+        }
+        // demands are accumulated at their rounded amount
+        double remainder = new Demand(item, amount).getAmount()
+            + (scopeRemainders.containsKey(item) ? scopeRemainders.get(item) : 0);
+        double expected = 0;
+        while (remainder >= 0.5) {
+          expected++;
+          remainder--;
+        }
+        scopeRemainders.put(item, remainder);
+        assertEquals(expected, discretize(discretizer, item, amount, elements[j], locations[j]),
+            0);
+      }
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import edu.mit.spacenet.io.XStreamEngine;
+import edu.mit.spacenet.scenario.Scenario;
+import edu.mit.spacenet.simulator.event.MoveEvent;
+
+/**
+ * Checks the JSON-lines output of the {@link JsonTraceSink}.
+ * 
+ * @author Paul Grogan
+ */
+public class JsonTraceSinkTest {
+
+  @Test
+  public void writesOneObjectPerTrace() {
+    StringWriter out = new StringWriter();
+    JsonTraceSink sink = new JsonTraceSink(out);
+    MoveEvent event = new MoveEvent();
+    event.setName("Move \"Habitat\"");
+    sink.trace(1.5, event, "{}: Moving {} to {}", new Object[] {1.5, "Habitat", "LSP"});
+    sink.trace(2, event, "{}: Done", new Object[] {2.0});
+    sink.flush();
+    assertEquals("{\"time\":1.5,\"type\":\"MOVE\",\"event\":\"Move \\\"Habitat\\\"\","
+        + "\"message\":\"1.5: Moving Habitat to LSP\"}\n"
+        + "{\"time\":2.0,\"type\":\"MOVE\",\"event\":\"Move \\\"Habitat\\\"\","
+        + "\"message\":\"2.0: Done\"}\n", out.toString());
+  }
+
+  @Test
+  public void tracesEachSimulationMessage() throws IOException {
+    Scenario scenario = XStreamEngine.openScenario("docs/completed_quick_start_1.xml");
+    StringWriter out = new StringWriter();
+    DemandSimulator simulator = new DemandSimulator(scenario);
+    simulator.setTraceSink(new JsonTraceSink(out));
+    simulator.simulate();
+    simulator.getTraceSink().flush();
+
+    String[] lines = out.toString().split("\n");
+    assertTrue(lines.length > 10);
+    for (String line : lines) {
+      JsonObject trace = JsonParser.parseString(line).getAsJsonObject();
+      assertEquals(line, 4, trace.size());
+      double time = trace.get("time").getAsDouble();
+      assertTrue(line, time >= 0 && time <= simulator.getTime());
+      assertFalse(line, trace.get("event").isJsonNull());
+      assertTrue(line, trace.get("message").getAsString().startsWith(time + ": "));
+    }
+  }
+
+  @Test(expected = UncheckedIOException.class)
+  public void writeFailuresAreThrown() {
+    JsonTraceSink sink = new JsonTraceSink(new Writer() {
+      public void write(char[] buffer, int offset, int length) throws IOException {
+        throw new IOException("disk full");
+      }
+
+      public void flush() {}
+
+      public void close() {}
+    });
+    sink.trace(0, new MoveEvent(), "{}: Moving", new Object[] {0.0});
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import edu.mit.spacenet.domain.network.node.SurfaceNode;
+import edu.mit.spacenet.io.XStreamEngine;
+import edu.mit.spacenet.simulator.moe.MoeCrewTime;
+import edu.mit.spacenet.simulator.moe.MoeExplorationCapability;
+import edu.mit.spacenet.simulator.moe.MoeMassCapacityUtilization;
+
+/**
+ * Streams the measures of effectiveness of the quick start scenarios through the CSV and JSON
+ * sinks and compares the records and totals with a simulation that keeps the histories.
+ * 
+ * @author Paul Grogan
+ */
+public class MoeSinkTest {
+  private static final String[] SCENARIOS =
+      {"docs/completed_quick_start_1.xml", "docs/completed_quick_start_2.xml"};
+
+  private static FullSimulator createSimulator(String filePath) throws IOException {
+    FullSimulator simulator = new FullSimulator(XStreamEngine.openScenario(filePath));
+    simulator.setNetworkHistoryRecorded(false);
+    return simulator;
+  }
+
+  private static int getRecordCount(FullSimulator simulator) {
+    return simulator.getCrewSurfaceDaysHistory().size() + simulator.getCrewTimeHistory().size()
+        + simulator.getExplorationCapabilityHistory().size()
+        + simulator.getExplorationMassDeliveredHistory().size()
+        + simulator.getLaunchMassHistory().size()
+        + simulator.getUpMassCapacityUtilizationHistory().size()
+        + simulator.getDownMassCapacityUtilizationHistory().size();
+  }
+
+  /**
+   * Simulates a scenario while streaming its records to a sink.
+   */
+  private static FullSimulator simulate(String filePath, I_MoeSink sink) throws IOException {
+    FullSimulator simulator = createSimulator(filePath);
+    simulator.setMoeSink(sink);
+    simulator.simulate();
+    sink.totals(simulator.getMeasures());
+    sink.flush();
+    assertEquals(filePath, 0, getRecordCount(simulator)); // streamed records are not kept
+    return simulator;
+  }
+
+  @Test
+  public void csvRecordsAndTotalsMatchHistories() throws IOException {
+    for (String filePath : SCENARIOS) {
+      FullSimulator expected = createSimulator(filePath);
+      expected.simulate();
+      Map<String, Double> measures = expected.getMeasures();
+
+      StringWriter out = new StringWriter();
+      FullSimulator simulator = simulate(filePath, new CsvMoeSink(out));
+      assertEquals(filePath, measures, simulator.getMeasures());
+
+      String[] lines = out.toString().split("\n");
+      assertEquals(filePath, 1 + getRecordCount(expected) + measures.size(), lines.length);
+      assertEquals("measure,time,location,type,amount,capacity,duration", lines[0]);
+      Map<String, Double> sums = new HashMap<String, Double>();
+      int row = 1;
+      for (; row < lines.length - measures.size(); row++) {
+        String[] fields = lines[row].split(",", -1);
+        assertEquals(lines[row], 7, fields.length);
+        double amount = Double.parseDouble(fields[4]);
+        if (fields[0].equals("Exploration Capability")) {
+          amount *= Double.parseDouble(fields[6]);
+        }
+        Double sum = sums.get(fields[0]);
+        sums.put(fields[0], sum == null ? amount : sum + amount);
+      }
+      for (String measure : new String[] {"Launch Mass", "Crew Time", "Crew Surface Days",
+          "Exploration Capability", "Exploration Mass Delivered"}) {
+        Double sum = sums.get(measure);
+        assertEquals(filePath + " " + measure, measures.get(measure), sum == null ? 0 : sum,
+            1e-6 * Math.max(1, Math.abs(measures.get(measure))));
+      }
+      for (Map.Entry<String, Double> measure : measures.entrySet()) {
+        String[] fields = lines[row++].split(",", -1);
+        assertEquals(measure.getKey(), fields[0]);
+        assertEquals(CsvMoeSink.TOTAL, fields[3]);
+        if (measure.getValue().isNaN()) {
+          assertEquals("", fields[4]);
+        } else {
+          assertEquals(measure.getValue(), Double.parseDouble(fields[4]), 0);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void jsonRecordsAndTotalsMatchHistories() throws IOException {
+    for (String filePath : SCENARIOS) {
+      FullSimulator expected = createSimulator(filePath);
+      expected.simulate();
+      Map<String, Double> measures = expected.getMeasures();
+
+      StringWriter out = new StringWriter();
+      simulate(filePath, new JsonMoeSink(out));
+
+      String[] lines = out.toString().split("\n");
+      assertEquals(filePath, getRecordCount(expected) + 1, lines.length);
+      for (int i = 0; i < lines.length - 1; i++) {
+        JsonObject record = JsonParser.parseString(lines[i]).getAsJsonObject();
+        assertTrue(lines[i], record.has("measure") && record.has("time") && record.has("amount"));
+      }
+      JsonObject last = JsonParser.parseString(lines[lines.length - 1]).getAsJsonObject();
+      JsonObject totals = last.getAsJsonObject("totals");
+      assertEquals(filePath, measures.size(), totals.size());
+      for (Map.Entry<String, Double> measure : measures.entrySet()) {
+        JsonElement total = totals.get(measure.getKey());
+        if (measure.getValue().isNaN()) {
+          assertTrue(measure.getKey(), total.isJsonNull());
+        } else {
+          assertEquals(measure.getKey(), measure.getValue(), total.getAsDouble(), 0);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void recordsMapMeasureFields() {
+    SurfaceNode node = new SurfaceNode();
+    node.setName("Shackleton, Rim");
+    StringWriter out = new StringWriter();
+    CsvMoeSink sink = new CsvMoeSink(out);
+    sink.crewTime(new MoeCrewTime(1.5, node, MoeCrewTime.EXPLORATION, 12));
+    sink.explorationCapability(new MoeExplorationCapability(2, node, 300, 0.5));
+    sink.upMassCapacityUtilization(new MoeMassCapacityUtilization(3, null, 40, 100));
+    assertEquals("measure,time,location,type,amount,capacity,duration\n"
+        + "Crew Time,1.5,\"Shackleton, Rim\"," + MoeCrewTime.EXPLORATION + ",12.0,,\n"
+        + "Exploration Capability,2.0,\"Shackleton, Rim\",,300.0,,0.5\n"
+        + "Up Mass Capacity Utilization,3.0,,,40.0,100.0,\n", out.toString());
+  }
+
+  @Test(expected = UncheckedIOException.class)
+  public void writeFailuresAreThrown() {
+    new JsonMoeSink(new Writer() {
+      public void write(char[] buffer, int offset, int length) throws IOException {
+        throw new IOException("disk full");
+      }
+
+      public void flush() throws IOException {
+        throw new IOException("disk full");
+      }
+
+      public void close() {}
+    }).crewTime(new MoeCrewTime(0, null, MoeCrewTime.EXPLORATION, 1));
+  }
+}
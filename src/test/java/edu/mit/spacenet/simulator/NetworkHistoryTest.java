@@ -0,0 +1,90 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.mit.spacenet.domain.ClassOfSupply;
+import edu.mit.spacenet.domain.element.Element;
+import edu.mit.spacenet.domain.element.I_Element;
+import edu.mit.spacenet.domain.network.Location;
+import edu.mit.spacenet.domain.network.Network;
+import edu.mit.spacenet.io.XStreamEngine;
+import edu.mit.spacenet.scenario.Scenario;
+
+/**
+ * Checks that the per-element and per-location queries of a network history match the networks
+ * materialized from it, in any order of access.
+ * 
+ * @author Paul Grogan
+ */
+public class NetworkHistoryTest {
+  private static double[] getMasses(I_Element element) {
+    double[] masses = new double[ClassOfSupply.values().length];
+    element.addTotalMassByCos(masses);
+    return masses;
+  }
+
+  private static double[] getMasses(Location location) {
+    double[] masses = new double[ClassOfSupply.values().length];
+    location.addTotalMassByCos(masses);
+    return masses;
+  }
+
+  @Test
+  public void massQueriesMatchMaterializedNetworks() throws Exception {
+    Scenario scenario = XStreamEngine.openScenario("docs/completed_quick_start_1.xml");
+    FullSimulator simulator = new FullSimulator(scenario);
+    simulator.simulate();
+    List<SimNetwork> history = simulator.getNetworkHistory();
+    assertTrue(history.size() > 1);
+
+    List<Integer> steps = new ArrayList<Integer>();
+    for (int i = 0; i < history.size(); i++) {
+      steps.add(i);
+    }
+    Collections.shuffle(steps, new Random(0));
+    Element missing = new Element();
+    missing.setUid(-1);
+    for (int step : steps) {
+      Network network = history.get(step).getNetwork();
+      List<I_Element> elements = new ArrayList<I_Element>(network.getRegistrar().values());
+      elements.addAll(network.getRemovedRegistrar().values());
+      SimNetwork log = history.get(step);
+      for (I_Element element : elements) {
+        assertArrayEquals(getMasses(element), log.getTotalMassByCos(element), 0);
+      }
+      for (Location location : network.getLocations()) {
+        assertArrayEquals(getMasses(location), log.getTotalMassByCos(location), 0);
+      }
+      assertNull(log.getTotalMassByCos(missing));
+
+      // logs that are already materialized answer from their own network
+      SimNetwork materialized = history.get(step);
+      I_Element element = elements.isEmpty() ? missing : elements.get(0);
+      materialized.getNetwork();
+      assertArrayEquals(log.getTotalMassByCos(element), materialized.getTotalMassByCos(element),
+          0);
+    }
+  }
+}
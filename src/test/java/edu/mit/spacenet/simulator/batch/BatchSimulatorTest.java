@@ -0,0 +1,86 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.Test;
+
+import edu.mit.spacenet.io.XStreamEngine;
+import edu.mit.spacenet.scenario.Scenario;
+import edu.mit.spacenet.simulator.FullSimulator;
+import edu.mit.spacenet.util.SerializeUtil;
+
+/**
+ * Checks that runs sharing the worker threads of a batch do not interfere: each run must give the
+ * measures of a sequential simulation of a scenario copy with the same parameter values.
+ * 
+ * @author Paul Grogan
+ */
+public class BatchSimulatorTest {
+  private static final String SCENARIO = "docs/completed_quick_start_2.xml";
+
+  @Test
+  public void parallelRunsMatchSequentialSimulations() throws IOException {
+    Scenario scenario = XStreamEngine.openScenario(SCENARIO);
+    ParameterSweep sweep = new ParameterSweep();
+    sweep.addParameter(new DemandRateParameter(), 0.5, 3);
+    sweep.addParameter(new ItemAggregationParameter(), 0, 1);
+
+    BatchSimulator batch = new BatchSimulator(scenario, sweep);
+    batch.setSimulatorType(BatchSimulator.SimulatorType.FULL);
+    batch.setDemandsSatisfied(true);
+    batch.setThreadCount(2); // fewer threads than runs, so each worker runs several scenarios
+    batch.simulate();
+
+    assertEquals(sweep.getRunCount(), batch.getRuns().size());
+    assertEquals(0, batch.getFailedRunCount());
+    for (BatchRun run : batch.getRuns()) {
+      assertNull(run.getException());
+      Map<String, Double> expected = simulate(scenario, sweep, run.getValues());
+      assertEquals("run " + run.getIndex(), expected, run.getMeasures());
+    }
+    // the demand rate must reach the simulations
+    assertNotEquals(batch.getRuns().get(0).getMeasures(), batch.getRuns().get(3).getMeasures());
+
+    for (Map.Entry<String, SummaryStatistics> entry : batch.getStatistics().entrySet()) {
+      SummaryStatistics expected = new SummaryStatistics();
+      for (BatchRun run : batch.getRuns()) {
+        expected.add(run.getMeasures().get(entry.getKey()));
+      }
+      assertEquals(entry.getKey(), expected.getCount(), entry.getValue().getCount());
+      assertEquals(entry.getKey(), expected.getMin(), entry.getValue().getMin(), 0);
+      assertEquals(entry.getKey(), expected.getMax(), entry.getValue().getMax(), 0);
+      assertEquals(entry.getKey(), expected.getMean(), entry.getValue().getMean(), 1e-9);
+    }
+  }
+
+  private static Map<String, Double> simulate(Scenario scenario, I_SweepDefinition sweep,
+      double[] values) {
+    Scenario copy = SerializeUtil.deepClone(scenario);
+    for (int i = 0; i < values.length; i++) {
+      sweep.getParameters().get(i).apply(copy, values[i]);
+    }
+    FullSimulator simulator = new FullSimulator(copy);
+    simulator.setNetworkHistoryRecorded(false);
+    simulator.setDemandsSatisfied(true);
+    simulator.simulate();
+    return simulator.getMeasures();
+  }
+}
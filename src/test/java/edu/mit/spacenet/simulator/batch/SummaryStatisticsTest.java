@@ -0,0 +1,116 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the streaming summary statistics against two-pass computations.
+ * 
+ * @author Paul Grogan
+ */
+public class SummaryStatisticsTest {
+
+  @Test
+  public void emptyStatisticsAreUndefined() {
+    SummaryStatistics s = new SummaryStatistics();
+    assertEquals(0, s.getCount());
+    assertTrue(Double.isNaN(s.getMean()));
+    assertTrue(Double.isNaN(s.getVariance()));
+    assertTrue(Double.isNaN(s.getMin()));
+    assertTrue(Double.isNaN(s.getMax()));
+    assertEquals(0, s.getSum(), 0);
+  }
+
+  @Test
+  public void singleValueHasNoVariance() {
+    SummaryStatistics s = new SummaryStatistics();
+    s.add(4.5);
+    assertEquals(1, s.getCount());
+    assertEquals(4.5, s.getMean(), 0);
+    assertEquals(4.5, s.getMin(), 0);
+    assertEquals(4.5, s.getMax(), 0);
+    assertTrue(Double.isNaN(s.getVariance()));
+  }
+
+  @Test
+  public void nonFiniteValuesAreIgnored() {
+    SummaryStatistics s = new SummaryStatistics();
+    s.add(1);
+    s.add(Double.NaN);
+    s.add(Double.POSITIVE_INFINITY);
+    s.add(Double.NEGATIVE_INFINITY);
+    s.add(3);
+    assertEquals(2, s.getCount());
+    assertEquals(2, s.getMean(), 0);
+    assertEquals(2, s.getVariance(), 1e-12);
+    assertEquals(1, s.getMin(), 0);
+    assertEquals(3, s.getMax(), 0);
+  }
+
+  @Test
+  public void matchesTwoPassStatistics() {
+    Random random = new Random(11);
+    double[] values = new double[1000];
+    SummaryStatistics s = new SummaryStatistics();
+    for (int i = 0; i < values.length; i++) {
+      values[i] = 1e6 + random.nextGaussian() * 25; // large offset tests numerical stability
+      s.add(values[i]);
+    }
+    double sum = 0, min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+    for (double value : values) {
+      sum += value;
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+    }
+    double mean = sum / values.length;
+    double squares = 0;
+    for (double value : values) {
+      squares += (value - mean) * (value - mean);
+    }
+    assertEquals(values.length, s.getCount());
+    assertEquals(mean, s.getMean(), 1e-6);
+    assertEquals(sum, s.getSum(), 1e-3);
+    assertEquals(squares / (values.length - 1), s.getVariance(), 1e-6);
+    assertEquals(Math.sqrt(squares / (values.length - 1)), s.getStandardDeviation(), 1e-6);
+    assertEquals(min, s.getMin(), 0);
+    assertEquals(max, s.getMax(), 0);
+  }
+
+  @Test
+  public void concurrentAddsAreCounted() throws InterruptedException {
+    final SummaryStatistics s = new SummaryStatistics();
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 1; i <= 1000; i++) {
+          s.add(i);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(4000, s.getCount());
+    assertEquals(500.5, s.getMean(), 1e-9);
+    assertEquals(1, s.getMin(), 0);
+    assertEquals(1000, s.getMax(), 0);
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.simulator.batch;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import edu.mit.spacenet.domain.ClassOfSupply;
+import edu.mit.spacenet.domain.element.Element;
+import edu.mit.spacenet.domain.element.State;
+import edu.mit.spacenet.domain.model.RatedDemandModel;
+import edu.mit.spacenet.domain.model.SparingByMassDemandModel;
+import edu.mit.spacenet.domain.resource.Demand;
+import edu.mit.spacenet.domain.resource.GenericResource;
+import edu.mit.spacenet.scenario.Mission;
+import edu.mit.spacenet.scenario.Scenario;
+import edu.mit.spacenet.simulator.event.CreateEvent;
+
+/**
+ * Checks that the sweep parameters apply their values to a scenario.
+ * 
+ * @author Paul Grogan
+ */
+public class SweepParameterTest {
+  private final Scenario scenario = new Scenario();
+  private final Mission mission = new Mission(scenario);
+  private final Element element = new Element();
+  private final State active = new State();
+  private final State quiescent = new State();
+  private final RatedDemandModel rated = new RatedDemandModel();
+  private final SparingByMassDemandModel sparing = new SparingByMassDemandModel(element);
+  private final Demand water = new Demand(new GenericResource(ClassOfSupply.COS2), 1.5);
+  private final Demand spares = new Demand(new GenericResource(ClassOfSupply.COS4), 2.5);
+
+  public SweepParameterTest() {
+    rated.setName("Rated");
+    rated.getDemandRates().add(water);
+    rated.getDemandRates().add(spares);
+    sparing.setName("Sparing");
+    sparing.setUnpressurizedSparesRate(0.25);
+    sparing.setPressurizedSparesRate(0.5);
+
+    // the rated model is shared by both states and the mission
+    active.setName("Active");
+    active.getDemandModels().add(rated);
+    active.getDemandModels().add(sparing);
+    quiescent.setName("Quiescent");
+    quiescent.getDemandModels().add(rated);
+    element.setName("Habitat");
+    element.getStates().add(active);
+    element.getStates().add(quiescent);
+
+    CreateEvent create = new CreateEvent();
+    create.getElements().add(element);
+    mission.getEventList().add(create);
+    mission.getDemandModels().add(rated);
+    scenario.getMissionList().add(mission);
+  }
+
+  @Test
+  public void sharedModelsAreScaledOnce() {
+    new DemandRateParameter().apply(scenario, 2);
+    assertEquals(3, water.getAmount(), 0);
+    assertEquals(5, spares.getAmount(), 0);
+    assertEquals(0.5, sparing.getUnpressurizedSparesRate(), 0);
+    assertEquals(1, sparing.getPressurizedSparesRate(), 0);
+  }
+
+  @Test
+  public void classOfSupplyFilterScalesMatchingRatesOnly() {
+    new DemandRateParameter(ClassOfSupply.COS2).apply(scenario, 2);
+    assertEquals(3, water.getAmount(), 0);
+    assertEquals(2.5, spares.getAmount(), 0);
+    assertEquals(0.25, sparing.getUnpressurizedSparesRate(), 0);
+    assertEquals(0.5, sparing.getPressurizedSparesRate(), 0);
+  }
+
+  @Test
+  public void itemAggregationIsClamped() {
+    ItemAggregationParameter parameter = new ItemAggregationParameter();
+    parameter.apply(scenario, 0.4);
+    assertEquals(0.4, scenario.getItemAggregation(), 0);
+    parameter.apply(scenario, 1.5);
+    assertEquals(1, scenario.getItemAggregation(), 0);
+    parameter.apply(scenario, -1);
+    assertEquals(0, scenario.getItemAggregation(), 0);
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of the test sources. Benchmarks run in a forked JVM from the project
+ * directory, so they need the test class path on the command line, e.g.
+ * 
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/classpath.txt) \
+ *     edu.mit.spacenet.util.DeepClonerBenchmark
+ * </pre>
+ * 
+ * @author Paul Grogan
+ */
+public class Benchmarks {
+  private static final String[] OPENS = {"java.base/java.util", "java.base/java.lang",
+      "java.base/java.text", "java.desktop/java.awt", "java.desktop/java.awt.font"};
+
+  /**
+   * Runs the benchmarks of a class with their annotated settings.
+   * 
+   * @param benchmarkClass the benchmark class
+   * 
+   * @throws RunnerException the runner exception
+   */
+  public static void run(Class<?> benchmarkClass) throws RunnerException {
+    ChainedOptionsBuilder options =
+        new OptionsBuilder().include(benchmarkClass.getName() + "\\.");
+    List<String> jvmArgs = new ArrayList<String>();
+    jvmArgs.add("-Djava.awt.headless=true");
+    if (!System.getProperty("java.specification.version").startsWith("1.")) {
+      // XStream reflects on JDK classes that are closed by default since Java 9
+      for (String module : OPENS) {
+        jvmArgs.add("--add-opens");
+        jvmArgs.add(module + "=ALL-UNNAMED");
+      }
+    }
+    new Runner(options.jvmArgsAppend(jvmArgs.toArray(new String[0])).build()).run();
+  }
+}
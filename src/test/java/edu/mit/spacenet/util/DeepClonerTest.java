@@ -0,0 +1,149 @@
+/*
+ * Copyright 2010 MIT Strategic Engineering Research Group
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package edu.mit.spacenet.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.security.NoTypePermission;
+import com.thoughtworks.xstream.security.NullPermission;
+import com.thoughtworks.xstream.security.PrimitiveTypePermission;
+
+import edu.mit.spacenet.domain.I_Container;
+import edu.mit.spacenet.domain.element.I_Element;
+import edu.mit.spacenet.domain.network.node.Node;
+import edu.mit.spacenet.io.XStreamEngine;
+import edu.mit.spacenet.io.gson.demands.AggregatedDemandsAnalysis;
+import edu.mit.spacenet.scenario.Scenario;
+import edu.mit.spacenet.simulator.DemandSimulator;
+import edu.mit.spacenet.simulator.FullSimulator;
+
+/**
+ * Checks that {@link DeepCloner} copies of the quick start scenarios are equivalent to the XStream
+ * round trip previously used by {@link SerializeUtil#deepClone(Object)}.
+ * 
+ * @author Paul Grogan
+ */
+public class DeepClonerTest {
+  static final String[] SCENARIOS =
+      {"docs/completed_quick_start_1.xml", "docs/completed_quick_start_2.xml"};
+
+  /**
+   * Copies an object with the XStream round trip that {@link DeepCloner} replaced.
+   * 
+   * @param <T> the object type
+   * @param object the object to copy
+   * 
+   * @return the copied object
+   */
+  @SuppressWarnings("unchecked")
+  static <T> T xstreamClone(T object) {
+    XStream xs = new XStream();
+    xs.addPermission(NoTypePermission.NONE);
+    xs.addPermission(NullPermission.NULL);
+    xs.addPermission(PrimitiveTypePermission.PRIMITIVES);
+    xs.allowTypesByWildcard(new String[] {"edu.mit.spacenet.**", "java.util.*"});
+    return (T) xs.fromXML(xs.toXML(object));
+  }
+
+  private static String toXml(Object object) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    XStreamEngine.saveObject(object, out);
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void copySerializesLikeOriginal() throws IOException {
+    for (String filePath : SCENARIOS) {
+      Scenario scenario = XStreamEngine.openScenario(filePath);
+      assertEquals(filePath, toXml(scenario), toXml(SerializeUtil.deepClone(scenario)));
+    }
+  }
+
+  @Test
+  public void copyPreservesSharedReferencesAndCycles() throws IOException {
+    for (String filePath : SCENARIOS) {
+      Scenario scenario = XStreamEngine.openScenario(filePath);
+      Scenario copy = SerializeUtil.deepClone(scenario);
+      assertNotSame(scenario.getNetwork(), copy.getNetwork());
+
+      Map<Node, Boolean> nodes = new IdentityHashMap<Node, Boolean>();
+      for (Node node : copy.getNetwork().getNodes()) {
+        nodes.put(node, true);
+      }
+      for (I_Element element : copy.getElements()) {
+        assertNotSame(scenario.getNetwork().getRegistrar().get(element.getUid()), element);
+        I_Container container = element.getContainer();
+        if (container != null) {
+          boolean contained = false;
+          for (I_Element e : container.getContents()) {
+            contained = contained || e == element;
+          }
+          assertTrue(filePath + ": " + element + " not in its container", contained);
+          if (container instanceof Node) {
+            assertTrue(filePath + ": " + container + " not in the copied network",
+                nodes.containsKey(container));
+          }
+        }
+        if (copy.getNetwork().getRegistrar().containsKey(element.getUid())) {
+          assertSame(copy.getNetwork().getRegistrar().get(element.getUid()), element);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void copySimulatesLikeXStreamCopy() throws IOException {
+    Gson gson = new Gson();
+    for (String filePath : SCENARIOS) {
+      Scenario scenario = XStreamEngine.openScenario(filePath);
+      Scenario copy = SerializeUtil.deepClone(scenario);
+      Scenario reference = xstreamClone(scenario);
+
+      DemandSimulator simulator = new DemandSimulator(copy);
+      simulator.simulate();
+      DemandSimulator referenceSimulator = new DemandSimulator(reference);
+      referenceSimulator.simulate();
+      assertEquals(filePath, gson.toJson(AggregatedDemandsAnalysis.createFrom(referenceSimulator)),
+          gson.toJson(AggregatedDemandsAnalysis.createFrom(simulator)));
+      assertEquals(filePath, referenceSimulator.getErrors().size(),
+          simulator.getErrors().size());
+
+      FullSimulator fullSimulator = new FullSimulator(copy);
+      fullSimulator.setNetworkHistoryRecorded(false);
+      fullSimulator.simulate();
+      FullSimulator referenceFullSimulator = new FullSimulator(reference);
+      referenceFullSimulator.setNetworkHistoryRecorded(false);
+      referenceFullSimulator.simulate();
+      assertEquals(filePath, referenceFullSimulator.getTotalLaunchMass(),
+          fullSimulator.getTotalLaunchMass(), 0);
+      assertEquals(filePath, referenceFullSimulator.getTotalCrewTime(),
+          fullSimulator.getTotalCrewTime(), 0);
+      assertEquals(filePath, referenceFullSimulator.getTotalExplorationCapability(),
+          fullSimulator.getTotalExplorationCapability(), 0);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+-- SpaceNet database schema (MySQL), as created by Database.format() with the model names
+-- used by Database.loadModels and saveModels.
+
+CREATE TABLE IF NOT EXISTS `nodes` (
+  `id` int(11) NOT NULL auto_increment,
+  `type` enum('Surface','Orbital','Lagrange') NOT NULL,
+  `name` varchar(255) NOT NULL,
+  `body_1` enum('Sun','Earth','Moon','Mars','Phobos','Venus','Jupiter') NOT NULL,
+  `latitude` double default NULL,
+  `longitude` double default NULL,
+  `apoapsis` double default NULL,
+  `periapsis` double default NULL,
+  `inclination` double default NULL,
+  `body_2` enum('Sun','Earth','Moon','Mars','Phobos','Venus','Jupiter') default NULL,
+  `lp_number` int(11) default NULL,
+  `description` varchar(4000) NOT NULL,
+  PRIMARY KEY (`id`)
+) ENGINE=MyISAM DEFAULT CHARSET=latin1;
+
+CREATE TABLE IF NOT EXISTS `edges` (
+  `id` int(11) NOT NULL auto_increment,
+  `type` enum('Space','Surface','Flight') NOT NULL,
+  `name` varchar(255) NOT NULL,
+  `origin_id` int(11) NOT NULL,
+  `destination_id` int(11) NOT NULL,
+  `duration` double default NULL,
+  `distance` double default NULL,
+  `max_crew` int(11) default NULL,
+  `max_cargo` double default NULL,
+  `description` varchar(4000) NOT NULL,
+  PRIMARY KEY (`id`)
+) ENGINE=MyISAM DEFAULT CHARSET=latin1;
+
+CREATE TABLE IF NOT EXISTS `burns` (
+  `id` int(11) NOT NULL auto_increment,
+  `edge_id` int(11) NOT NULL,
+  `time` double NOT NULL,
+  `order` int(11) NOT NULL,
+  `type` enum('OMS','RCS') NOT NULL,
+  `delta_v` double NOT NULL,
+  PRIMARY KEY (`id`)
+) ENGINE=MyISAM DEFAULT CHARSET=latin1;
+
+CREATE TABLE IF NOT EXISTS `resources` (
+  `id` int(11) NOT NULL auto_increment,
+  `type` enum('Continuous','Discrete') NOT NULL,
+  `name` varchar(255) NOT NULL,
+  `cos` int(11) NOT NULL,
+  `units` varchar(255) NOT NULL default 'kg',
+  `unit_mass` double NOT NULL default '1',
+  `unit_volume` double NOT NULL default '0.01',
+  `packing_factor` double NOT NULL default '0',
+  `environment` enum('Pressurized','Unpressurized') NOT NULL default 'Unpressurized',
+  `description` varchar(4000) NOT NULL,
+  PRIMARY KEY (`id`)
+) ENGINE=MyISAM DEFAULT CHARSET=latin1;
+
+CREATE TABLE IF NOT EXISTS `elements` (
+  `id` int(11) NOT NULL auto_increment,
+  `type` enum('Element','Crew Member','Resource Container','Carrier','Propulsive Vehicle',
+    'Surface Vehicle') NOT NULL default 'Element',
+  `name` varchar(255) NOT NULL,
+  `cos` int(11) NOT NULL,
+  `environment` enum('Pressurized','Unpressurized') NOT NULL default 'Unpressurized',
+  `accommodation_mass` double NOT NULL default '0',
+  `mass` double NOT NULL default '0',
+  `volume` double NOT NULL default '0',
+  `max_crew` int(11) default NULL,
+  `cargo_mass` double default NULL,
+  `cargo_volume` double default NULL,
+  `cargo_environment` enum('Pressurized','Unpressurized') default NULL,
+  `active_fraction` double default NULL,
+  `oms_isp` double default NULL,
+  `max_oms` double default NULL,
+  `oms_id` int(11) default NULL,
+  `rcs_isp` double default NULL,
+  `max_rcs` double default NULL,
+  `rcs_id` int(11) default NULL,
+  `max_speed` double default NULL,
+  `max_fuel` double default NULL,
+  `fuel_id` int(11) default NULL,
+  `description` varchar(4000) NOT NULL,
+  PRIMARY KEY (`id`)
+) ENGINE=MyISAM DEFAULT CHARSET=latin1;
+
+CREATE TABLE IF NOT EXISTS `parts` (
+  `id` int(11) NOT NULL auto_increment,
+  `resource_id` int(11) NOT NULL,
+  `element_id` int(11) NOT NULL,
+  `quantity` int(11) NOT NULL default '1',
+  `duty_cycle` double NOT NULL default '1',
+  `mttf` double NOT NULL default '0',
+  `mttr` double NOT NULL default '0',
+  `repair_mass` double NOT NULL default '0',
+  PRIMARY KEY (`id`)
+) ENGINE=MyISAM DEFAULT CHARSET=latin1;
+
+CREATE TABLE IF NOT EXISTS `states` (
+  `id` int(11) NOT NULL auto_increment,
+  `element_id` int(11) NOT NULL,
+  `name` varchar(255) NOT NULL,
+  `type` enum('Active','Quiescent','Dormant','Decommissioned') NOT NULL,
+  `initial` tinyint(1) NOT NULL default '0',
+  PRIMARY KEY (`id`)
+) ENGINE=MyISAM DEFAULT CHARSET=latin1;
+
+CREATE TABLE IF NOT EXISTS `models` (
+  `id` int(11) NOT NULL auto_increment,
+  `type` enum('Rated Demand Model','Timed Impulse Demand Model',
+    'Sparing By Mass Demand Model') NOT NULL,
+  `state_id` int(11) NOT NULL,
+  `name` varchar(255) default NULL,
+  `parts_list` tinyint(1) default NULL,
+  `unpress_rate` double default NULL,
+  `press_rate` double default NULL,
+  PRIMARY KEY (`id`)
+) ENGINE=MyISAM DEFAULT CHARSET=latin1;
+
+CREATE TABLE IF NOT EXISTS `demands` (
+  `id` int(11) NOT NULL auto_increment,
+  `model_id` int(11) default NULL,
+  `container_id` int(11) default NULL,
+  `resource_id` int(11) NOT NULL,
+  `amount` double NOT NULL,
+  PRIMARY KEY (`id`)
+) ENGINE=MyISAM DEFAULT CHARSET=latin1;